@@ -107,4 +107,11 @@ CREATE TABLE `planning_has_slots`(
     PRIMARY KEY(`idPlanning`, `idSlot`),
     FOREIGN KEY(`idPlanning`) REFERENCES `planning`(`id`),
     FOREIGN KEY(`idSlot`) REFERENCES `slot`(`id`)
-);
\ No newline at end of file
+);
+
+-- Index utilisés par la pagination par curseur (tri par nom/heure de début puis identifiant)
+CREATE INDEX `idx_matiere_nom_id` ON `matiere`(`nom`, `id`);
+CREATE INDEX `idx_classe_nom_id` ON `classe`(`nom`, `id`);
+CREATE INDEX `idx_enseignant_nom_id` ON `enseignant`(`nom`, `id`);
+CREATE INDEX `idx_salle_nom_id` ON `salle`(`nom`, `id`);
+CREATE INDEX `idx_timeslot_starthour_id` ON `timeslot`(`startHour`, `id`);
\ No newline at end of file
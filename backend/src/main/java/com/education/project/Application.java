@@ -38,7 +38,8 @@ public class Application {
                         .allowedOrigins("http://localhost:3000")
                         .allowedOrigins("http://localhost:5000")
                         .allowedOrigins("http://hicham-azimani.ovh")
-                        .allowedMethods("HEAD", "OPTIONS", "GET", "POST", "PUT", "PATCH", "DELETE");
+                        .allowedMethods("HEAD", "OPTIONS", "GET", "POST", "PUT", "PATCH", "DELETE")
+                        .exposedHeaders("ETag");
             }
         };
     }// corsConfigurer()
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.enums.JourEnum;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.*;
+import com.education.project.persistence.ClasseRepository;
+import com.education.project.persistence.EnseignantRepository;
+import com.education.project.persistence.MatiereRepository;
+import com.education.project.persistence.SalleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Cette classe complète un planning lu avec les seuls identifiants de ses entités
+ * (voir PlanningRepository.findByIdWithSlotKeys) à partir des données en mémoire :
+ * caches des entités par identifiant, créneaux horaires des données de référence et jours de JourEnum.
+ * Les entités absentes des caches sont lues en une requête par type d'entité, puis conservées.
+ */
+@Component
+public class DimensionResolver {
+
+    private EntityCaches entityCaches;
+
+    private ReferenceDataCache referenceDataCache;
+
+    private EnseignantRepository enseignantRepository;
+
+    private MatiereRepository matiereRepository;
+
+    private SalleRepository salleRepository;
+
+    private ClasseRepository classeRepository;
+
+    @Autowired
+    public DimensionResolver(EntityCaches entityCaches, ReferenceDataCache referenceDataCache, EnseignantRepository enseignantRepository,
+                             MatiereRepository matiereRepository, SalleRepository salleRepository, ClasseRepository classeRepository) {
+        this.entityCaches = entityCaches;
+        this.referenceDataCache = referenceDataCache;
+        this.enseignantRepository = enseignantRepository;
+        this.matiereRepository = matiereRepository;
+        this.salleRepository = salleRepository;
+        this.classeRepository = classeRepository;
+    }// DimensionResolver()
+
+    /**
+     * Remplace les entités du planning (renseignées par leur seul identifiant) par les entités complètes.
+     * Comme pour la jointure, un slot sans enseignant ou sans salle reçoit une entité vide d'identifiant 0.
+     * @param planning Planning lu avec les identifiants de ses entités
+     * @return false si une entité est introuvable (le planning doit alors être relu par jointure)
+     * @throws DataBaseException
+     */
+    public boolean resolve(Planning planning) throws DataBaseException {
+        Optional<Classe> classe = entityCaches.getClasses().get(planning.getClasse().getId(), classeRepository::findById);
+        if (classe.isEmpty()) {
+            return false;
+        }
+        planning.setClasse(classe.get());
+        Map<Integer, TimeSlot> timeSlots = new HashMap<>();
+        for (TimeSlot timeSlot : referenceDataCache.getTimeSlots()) {
+            timeSlots.put(timeSlot.getId(), timeSlot);
+        }
+        Map<Integer, Jour> jours = new HashMap<>();
+        for (JourEnum jourEnum : JourEnum.values()) {
+            jours.put(jourEnum.getVal(), jourEnum.toJour());
+        }
+        Set<Integer> idMatieres = new HashSet<>();
+        Set<Integer> idEnseignants = new HashSet<>();
+        Set<Integer> idSalles = new HashSet<>();
+        for (Slot slot : planning.getSlots()) {
+            idMatieres.add(slot.getMatiere().getId());
+            if (slot.getEnseignant().getId() != 0) {
+                idEnseignants.add(slot.getEnseignant().getId());
+            }
+            if (slot.getSalle().getId() != 0) {
+                idSalles.add(slot.getSalle().getId());
+            }
+        }
+        Map<Integer, Matiere> matieres = entityCaches.getMatieres().getAll(idMatieres, matiereRepository::findByIds, Matiere::getId);
+        Map<Integer, Enseignant> enseignants = entityCaches.getEnseignants().getAll(idEnseignants, enseignantRepository::findByIds, Enseignant::getId);
+        Map<Integer, Salle> salles = entityCaches.getSalles().getAll(idSalles, salleRepository::findByIds, Salle::getId);
+        Enseignant sansEnseignant = new Enseignant(0, null, null, null, null);
+        Salle sansSalle = new Salle(0, null, null, null);
+        for (Slot slot : planning.getSlots()) {
+            TimeSlot timeSlot = timeSlots.get(slot.getTimeSlot().getId());
+            Jour jour = jours.get(slot.getJour().getId());
+            Matiere matiere = matieres.get(slot.getMatiere().getId());
+            Enseignant enseignant = slot.getEnseignant().getId() == 0 ? sansEnseignant : enseignants.get(slot.getEnseignant().getId());
+            Salle salle = slot.getSalle().getId() == 0 ? sansSalle : salles.get(slot.getSalle().getId());
+            if (timeSlot == null || jour == null || matiere == null || enseignant == null || salle == null) {
+                return false;
+            }
+            slot.setTimeSlot(timeSlot);
+            slot.setJour(jour);
+            slot.setMatiere(matiere);
+            slot.setEnseignant(enseignant);
+            slot.setSalle(salle);
+        }
+        return true;
+    }// resolve()
+
+    /**
+     * Retourne une matière depuis le cache des entités (lue en base si elle n'y est pas)
+     * @param id Identifiant de la matière
+     * @return Matière (vide si elle n'existe pas)
+     * @throws DataBaseException
+     */
+    public Optional<Matiere> getMatiere(int id) throws DataBaseException {
+        return entityCaches.getMatieres().get(id, matiereRepository::findById);
+    }// getMatiere()
+
+}// DimensionResolver
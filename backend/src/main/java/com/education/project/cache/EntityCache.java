@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.CacheMetrics;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Cache des entités lues par identifiant, borné en taille (éviction LRU) et en durée de vie.
+ * Le cache est alimenté à la lecture (read-through) et invalidé par les services à chaque modification
+ * ou suppression de l'entité.
+ *
+ * @param <T> Type des entités
+ */
+public class EntityCache<T> {
+
+    /**
+     * Chargement d'une entité en base de données
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        Optional<T> load(int id) throws DataBaseException;
+    }
+
+    /**
+     * Chargement de plusieurs entités en base de données en une seule requête
+     */
+    @FunctionalInterface
+    public interface BatchLoader<T> {
+        List<T> load(Set<Integer> ids) throws DataBaseException;
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long expiration;
+
+        private Entry(T value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+
+    private final String nom;
+
+    private final int maxSize;
+
+    /**
+     * Durée de vie d'une entrée en millisecondes
+     */
+    private final long ttlMillis;
+
+    /**
+     * Entités par identifiant (ordre d'accès pour l'éviction LRU)
+     */
+    private final LinkedHashMap<Integer, Entry<T>> entries;
+
+    /**
+     * Incrémenté à chaque invalidation : une lecture commencée avant une invalidation n'est pas mise en cache
+     */
+    private long version;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * @param nom Nom du cache (métriques)
+     * @param maxSize Nombre maximum d'entités conservées (0 : cache désactivé)
+     * @param ttlMillis Durée de vie d'une entité en millisecondes
+     */
+    public EntityCache(String nom, int maxSize, long ttlMillis) {
+        this.nom = nom;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<T>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    ++evictions;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }// EntityCache()
+
+    /**
+     * Retourne l'entité en cache ou la charge en base de données
+     * @param id Identifiant de l'entité
+     * @param loader Chargement de l'entité en base de données
+     * @return Entité (vide si elle n'existe pas ; une entité absente n'est pas mise en cache)
+     * @throws DataBaseException
+     */
+    public Optional<T> get(int id, Loader<T> loader) throws DataBaseException {
+        long versionAtLoad;
+        synchronized (this) {
+            Entry<T> entry = entries.get(id);
+            if (entry != null && entry.expiration > System.currentTimeMillis()) {
+                ++hits;
+                return Optional.of(entry.value);
+            }
+            if (entry != null) {
+                entries.remove(id);
+                ++evictions;
+            }
+            ++misses;
+            versionAtLoad = version;
+        }
+        Optional<T> value = loader.load(id);
+        synchronized (this) {
+            if (value.isPresent() && versionAtLoad == version && maxSize > 0) {
+                entries.put(id, new Entry<>(value.get(), System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }// get()
+
+    /**
+     * Retourne les entités en cache et charge toutes les autres en un seul appel en base de données
+     * @param ids Identifiants des entités
+     * @param loader Chargement des entités absentes du cache
+     * @param idOf Identifiant d'une entité chargée
+     * @return Entités par identifiant (une entité inexistante est absente du résultat et n'est pas mise en cache)
+     * @throws DataBaseException
+     */
+    public Map<Integer, T> getAll(Collection<Integer> ids, BatchLoader<T> loader, Function<T, Integer> idOf) throws DataBaseException {
+        Map<Integer, T> values = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        long versionAtLoad;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Integer id : new LinkedHashSet<>(ids)) {
+                Entry<T> entry = entries.get(id);
+                if (entry != null && entry.expiration > now) {
+                    ++hits;
+                    values.put(id, entry.value);
+                    continue;
+                }
+                if (entry != null) {
+                    entries.remove(id);
+                    ++evictions;
+                }
+                ++misses;
+                missing.add(id);
+            }
+            versionAtLoad = version;
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+        List<T> loaded = loader.load(missing);
+        synchronized (this) {
+            long expiration = System.currentTimeMillis() + ttlMillis;
+            for (T value : loaded) {
+                values.put(idOf.apply(value), value);
+                if (versionAtLoad == version && maxSize > 0) {
+                    entries.put(idOf.apply(value), new Entry<>(value, expiration));
+                }
+            }
+        }
+        return values;
+    }// getAll()
+
+    /**
+     * Invalide l'entité dont l'identifiant est passé en paramètre
+     * @param id Identifiant de l'entité modifiée ou supprimée
+     */
+    public synchronized void invalidate(int id) {
+        ++version;
+        if (entries.remove(id) != null) {
+            ++evictions;
+        }
+    }// invalidate()
+
+    /**
+     * Cette fonction retourne les statistiques du cache
+     * @return statistiques
+     */
+    public synchronized CacheMetrics getMetrics() {
+        return new CacheMetrics(nom, hits, misses, evictions, entries.size());
+    }// getMetrics()
+
+}// EntityCache
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.model.CacheMetrics;
+import com.education.project.model.Classe;
+import com.education.project.model.Enseignant;
+import com.education.project.model.Matiere;
+import com.education.project.model.Salle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cette classe regroupe les caches des entités lues par identifiant (écrans de détail et formulaires) :
+ * un cache par type d'entité, de même taille et de même durée de vie.
+ */
+@Component
+public class EntityCaches {
+
+    private EntityCache<Enseignant> enseignants;
+
+    private EntityCache<Salle> salles;
+
+    private EntityCache<Matiere> matieres;
+
+    private EntityCache<Classe> classes;
+
+    @Autowired
+    public EntityCaches(@Value("${cache.entity.maxSize:500}") int maxSize, @Value("${cache.entity.ttlSeconds:300}") long ttlSeconds) {
+        long ttlMillis = ttlSeconds * 1000;
+        this.enseignants = new EntityCache<>("enseignant", maxSize, ttlMillis);
+        this.salles = new EntityCache<>("salle", maxSize, ttlMillis);
+        this.matieres = new EntityCache<>("matiere", maxSize, ttlMillis);
+        this.classes = new EntityCache<>("classe", maxSize, ttlMillis);
+    }// EntityCaches()
+
+    public EntityCache<Enseignant> getEnseignants() {
+        return enseignants;
+    }// getEnseignants()
+
+    public EntityCache<Salle> getSalles() {
+        return salles;
+    }// getSalles()
+
+    public EntityCache<Matiere> getMatieres() {
+        return matieres;
+    }// getMatieres()
+
+    public EntityCache<Classe> getClasses() {
+        return classes;
+    }// getClasses()
+
+    /**
+     * Cette fonction retourne les statistiques de chaque cache d'entités
+     * @return statistiques
+     */
+    public List<CacheMetrics> getMetrics() {
+        List<CacheMetrics> results = new ArrayList<>();
+        results.add(enseignants.getMetrics());
+        results.add(salles.getMetrics());
+        results.add(matieres.getMetrics());
+        results.add(classes.getMetrics());
+        return results;
+    }// getMetrics()
+
+}// EntityCaches
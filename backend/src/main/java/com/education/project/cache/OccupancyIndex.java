@@ -0,0 +1,658 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.enums.JourEnum;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Conflict;
+import com.education.project.model.Planning;
+import com.education.project.model.Slot;
+import com.education.project.model.TimeSlot;
+import com.education.project.model.Workload;
+import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.SlotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Cette classe conserve en mémoire l'occupation de chaque enseignant, de chaque salle et de chaque classe :
+ * pour chaque jour, les minutes occupées par ses slots (une minute par bit). Elle permet de savoir
+ * sans accès à la base de données si un slot chevauche un autre slot du même enseignant ou de la même salle,
+ * et de lister tous les chevauchements existants. Elle conserve aussi, pour chaque planning, les minutes
+ * disposées par matière et par jour, afin de comparer les plannings au volume horaire des matières sans relire leurs slots,
+ * et la durée cumulée des slots de chaque ressource par jour, qui donne sa charge hebdomadaire.
+ * L'index est chargé à la première utilisation, puis tenu à jour par les écritures des slots et des plannings.
+ * Toutes les méthodes sont synchronisées : une écriture attend la fin d'un chargement en cours et s'applique
+ * ensuite à l'index chargé.
+ */
+@Component
+public class OccupancyIndex {
+
+    /**
+     * Ressources dont l'occupation est suivie
+     */
+    public enum Ressource {
+        ENSEIGNANT, SALLE, CLASSE
+    }// Ressource
+
+    /**
+     * Emplacement d'un slot : jour, minutes de début et de fin (exclue), enseignant, salle et matière (0 si aucun)
+     */
+    private static class Placement {
+
+        private int idSlot;
+
+        private int jour;
+
+        private int start;
+
+        private int end;
+
+        private int idEnseignant;
+
+        private int idSalle;
+
+        private int idMatiere;
+
+        private boolean overlaps(Placement other) {
+            return jour == other.jour && start < other.end && other.start < end;
+        }// overlaps()
+
+        private int ressource(Ressource ressource) {
+            return ressource == Ressource.ENSEIGNANT ? idEnseignant : idSalle;
+        }// ressource()
+
+    }// Placement
+
+    /**
+     * Occupation d'une ressource : slots qui l'utilisent, minutes occupées par jour
+     * et durée cumulée de ses slots par jour. Chaque minute compte les slots qui l'occupent :
+     * ajouter ou retirer un slot ne touche que ses propres minutes.
+     */
+    private static class Occupancy {
+
+        private Set<Integer> slotIds = new HashSet<>();
+
+        private Map<Integer, BitSet> minutesByJour = new HashMap<>();
+
+        /**
+         * Nombre de slots occupant chaque minute, par jour
+         */
+        private Map<Integer, short[]> nbSlotsByJour = new HashMap<>();
+
+        private Map<Integer, Integer> loadByJour = new HashMap<>();
+
+        private void add(Placement placement) {
+            if (!slotIds.add(placement.idSlot)) {
+                return;
+            }
+            short[] nbSlots = nbSlotsByJour.computeIfAbsent(placement.jour, k -> new short[MINUTES_PER_DAY]);
+            BitSet minutes = minutesByJour.computeIfAbsent(placement.jour, k -> new BitSet());
+            for (int minute = placement.start; minute < placement.end; ++minute) {
+                if (nbSlots[minute]++ == 0) {
+                    minutes.set(minute);
+                }
+            }
+            loadByJour.merge(placement.jour, placement.end - placement.start, Integer::sum);
+        }// add()
+
+        private void remove(Placement placement) {
+            if (!slotIds.remove(placement.idSlot)) {
+                return;
+            }
+            short[] nbSlots = nbSlotsByJour.get(placement.jour);
+            BitSet minutes = minutesByJour.get(placement.jour);
+            for (int minute = placement.start; minute < placement.end; ++minute) {
+                if (--nbSlots[minute] == 0) {
+                    minutes.clear(minute);
+                }
+            }
+            if (loadByJour.merge(placement.jour, placement.start - placement.end, Integer::sum) == 0) {
+                loadByJour.remove(placement.jour);
+                minutesByJour.remove(placement.jour);
+                nbSlotsByJour.remove(placement.jour);
+            }
+        }// remove()
+
+        private boolean intersects(Placement placement) {
+            BitSet minutes = minutesByJour.get(placement.jour);
+            if (minutes == null) {
+                return false;
+            }
+            int next = minutes.nextSetBit(placement.start);
+            return next >= 0 && next < placement.end;
+        }// intersects()
+
+    }// Occupancy
+
+    private final static int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * Nombre de lectures faites hors verrou avant de charger l'index en bloquant les écritures
+     */
+    private final static int MAX_LOAD_ATTEMPTS = 3;
+
+    private SlotRepository slotRepository;
+
+    private PlanningRepository planningRepository;
+
+    private ReferenceDataCache referenceDataCache;
+
+    /**
+     * Emplacement de chaque slot, par identifiant (null tant que l'index n'est pas chargé)
+     */
+    private Map<Integer, Placement> placements;
+
+    /**
+     * Classe et slots de chaque planning, par identifiant du planning
+     */
+    private Map<Integer, Integer> classeByPlanning;
+
+    private Map<Integer, Set<Integer>> slotsByPlanning;
+
+    /**
+     * Plannings de chaque slot, par identifiant du slot
+     */
+    private Map<Integer, Set<Integer>> planningsBySlot;
+
+    /**
+     * Nombre de plannings de la classe utilisant chaque slot, par identifiant de classe
+     * (un slot occupe la classe tant que ce nombre est positif)
+     */
+    private Map<Integer, Map<Integer, Integer>> nbPlanningsBySlotByClasse;
+
+    private Map<Ressource, Map<Integer, Occupancy>> occupancies;
+
+    /**
+     * Minutes disposées par identifiant de jour (indice du tableau), par matière, par planning
+     */
+    private Map<Integer, Map<Integer, int[]>> minutesByPlanning;
+
+    /**
+     * Incrémenté à chaque écriture : un chargement lu avant une écriture n'est pas installé
+     */
+    private long version;
+
+    @Autowired
+    public OccupancyIndex(SlotRepository slotRepository, PlanningRepository planningRepository, ReferenceDataCache referenceDataCache) {
+        this.slotRepository = slotRepository;
+        this.planningRepository = planningRepository;
+        this.referenceDataCache = referenceDataCache;
+    }// OccupancyIndex()
+
+    /**
+     * Vérifie que l'enseignant et la salle d'un slot ne sont pas déjà occupés sur son créneau.
+     * @param slot Slot à vérifier (son propre emplacement actuel est ignoré)
+     * @param batch Slots enregistrés avec lui (vide s'il est enregistré seul) : leur emplacement actuel
+     *              est ignoré et leur nouvel emplacement est pris en compte
+     * @return erreurs (vide si le slot est libre)
+     * @throws DataBaseException
+     */
+    public List<String> check(Slot slot, List<Slot> batch) throws DataBaseException {
+        List<String> errors = new ArrayList<>();
+        Placement placement = toPlacement(slot);
+        if (placement == null) {
+            return errors;
+        }
+        load();
+        synchronized (this) {
+            Set<Integer> ignoredSlotIds = new HashSet<>();
+            List<Placement> batchPlacements = new ArrayList<>();
+            for (Slot other : batch) {
+                if (other != null && other.getId() != null) {
+                    ignoredSlotIds.add(other.getId());
+                }
+                Placement otherPlacement = other != slot ? toPlacement(other) : null;
+                if (otherPlacement != null) {
+                    batchPlacements.add(otherPlacement);
+                }
+            }
+            if (slot.getId() != null) {
+                ignoredSlotIds.add(slot.getId());
+            }
+            for (Ressource ressource : new Ressource[]{Ressource.ENSEIGNANT, Ressource.SALLE}) {
+                int idRessource = placement.ressource(ressource);
+                if (idRessource == 0) {
+                    continue;
+                }
+                String occupant = null;
+                Occupancy occupancy = occupancies.get(ressource).get(idRessource);
+                if (occupancy != null && occupancy.intersects(placement)) {
+                    for (Integer slotId : occupancy.slotIds) {
+                        if (!ignoredSlotIds.contains(slotId) && placements.get(slotId).overlaps(placement)) {
+                            occupant = "par le slot n°" + slotId;
+                            break;
+                        }
+                    }
+                }
+                for (int i = 0; occupant == null && i < batchPlacements.size(); ++i) {
+                    if (batchPlacements.get(i).ressource(ressource) == idRessource && batchPlacements.get(i).overlaps(placement)) {
+                        occupant = "par un autre slot de la requête";
+                    }
+                }
+                if (occupant != null) {
+                    errors.add((ressource == Ressource.ENSEIGNANT ? "L'enseignant est déjà occupé " : "La salle est déjà occupée ") + occupant + " sur ce créneau");
+                }
+            }
+            return errors;
+        }
+    }// check()
+
+    /**
+     * Liste tous les chevauchements de slots utilisant le même enseignant, la même salle ou la même classe.
+     * Pour une classe, un chevauchement peut être voulu (classe divisée en groupes).
+     * @return chevauchements triés par ressource, identifiant de la ressource, jour et heure de début
+     * @throws DataBaseException
+     */
+    public List<Conflict> getConflicts() throws DataBaseException {
+        load();
+        synchronized (this) {
+            List<Conflict> conflicts = new ArrayList<>();
+            for (Ressource ressource : Ressource.values()) {
+                List<Integer> idRessources = new ArrayList<>(occupancies.get(ressource).keySet());
+                Collections.sort(idRessources);
+                for (Integer idRessource : idRessources) {
+                    List<Placement> slotPlacements = new ArrayList<>();
+                    for (Integer slotId : occupancies.get(ressource).get(idRessource).slotIds) {
+                        slotPlacements.add(placements.get(slotId));
+                    }
+                    slotPlacements.sort(Comparator.comparingInt((Placement p) -> p.jour).thenComparingInt(p -> p.start).thenComparingInt(p -> p.idSlot));
+                    for (int i = 0; i < slotPlacements.size(); ++i) {
+                        Placement placement = slotPlacements.get(i);
+                        for (int j = i + 1; j < slotPlacements.size() && slotPlacements.get(j).jour == placement.jour && slotPlacements.get(j).start < placement.end; ++j) {
+                            Placement other = slotPlacements.get(j);
+                            conflicts.add(new Conflict(ressource.name().toLowerCase(), idRessource, placement.jour, placement.idSlot, other.idSlot,
+                                    toTime(other.start), toTime(Math.min(placement.end, other.end))));
+                        }
+                    }
+                }
+            }
+            return conflicts;
+        }
+    }// getConflicts()
+
+    /**
+     * Retourne les minutes occupées par jour de chacune des ressources demandées.
+     * Les ensembles retournés sont des copies : ils ne suivent pas les écritures ultérieures.
+     * @param ressource Type de ressource
+     * @param idRessources Identifiants des ressources
+     * @return minutes occupées (un bit par minute) par identifiant de jour, par identifiant de ressource
+     *         (les ressources sans slot sont absentes)
+     * @throws DataBaseException
+     */
+    public Map<Integer, Map<Integer, BitSet>> getOccupiedMinutes(Ressource ressource, Collection<Integer> idRessources) throws DataBaseException {
+        load();
+        synchronized (this) {
+            Map<Integer, Map<Integer, BitSet>> occupiedMinutes = new HashMap<>();
+            for (Integer idRessource : idRessources) {
+                Occupancy occupancy = occupancies.get(ressource).get(idRessource);
+                if (occupancy != null) {
+                    Map<Integer, BitSet> minutesByJour = new HashMap<>();
+                    occupancy.minutesByJour.forEach((jour, minutes) -> minutesByJour.put(jour, (BitSet) minutes.clone()));
+                    occupiedMinutes.put(idRessource, minutesByJour);
+                }
+            }
+            return occupiedMinutes;
+        }
+    }// getOccupiedMinutes()
+
+    /**
+     * Retourne la charge hebdomadaire de chaque ressource d'un type donné, calculée à partir des compteurs
+     * tenus à jour par les écritures (un calcul par jour occupé, sans parcourir les slots).
+     * @param ressource Type de ressource
+     * @return charges triées par identifiant de ressource (les ressources sans slot sont absentes)
+     * @throws DataBaseException
+     */
+    public List<Workload> getWorkloads(Ressource ressource) throws DataBaseException {
+        load();
+        synchronized (this) {
+            List<Integer> idRessources = new ArrayList<>(occupancies.get(ressource).keySet());
+            Collections.sort(idRessources);
+            List<Workload> workloads = new ArrayList<>(idRessources.size());
+            for (Integer idRessource : idRessources) {
+                Occupancy occupancy = occupancies.get(ressource).get(idRessource);
+                Map<Integer, Integer> gapMinutesByJour = new TreeMap<>();
+                occupancy.minutesByJour.forEach((jour, minutes) -> {
+                    int gap = minutes.length() - minutes.nextSetBit(0) - minutes.cardinality();
+                    if (gap > 0) {
+                        gapMinutesByJour.put(jour, gap);
+                    }
+                });
+                workloads.add(new Workload(ressource.name().toLowerCase(), idRessource, occupancy.slotIds.size(), new TreeMap<>(occupancy.loadByJour), gapMinutesByJour));
+            }
+            return workloads;
+        }
+    }// getWorkloads()
+
+    /**
+     * Retourne les minutes disposées dans un planning pour chacune de ses matières.
+     * Les tableaux retournés sont des copies : ils ne suivent pas les écritures ultérieures.
+     * @param idPlanning Identifiant du planning
+     * @return minutes par identifiant de jour (indice du tableau), par identifiant de matière
+     *         (vide si le planning n'a aucun slot ou n'existe pas)
+     * @throws DataBaseException
+     */
+    public Optional<Map<Integer, int[]>> getMinutesByMatiere(int idPlanning) throws DataBaseException {
+        load();
+        synchronized (this) {
+            if (!slotsByPlanning.containsKey(idPlanning)) {
+                return Optional.empty();
+            }
+            Map<Integer, int[]> minutesByMatiere = new HashMap<>();
+            minutesByPlanning.getOrDefault(idPlanning, Collections.emptyMap()).forEach((idMatiere, minutes) -> minutesByMatiere.put(idMatiere, minutes.clone()));
+            return Optional.of(minutesByMatiere);
+        }
+    }// getMinutesByMatiere()
+
+    /**
+     * Met à jour l'emplacement d'un slot créé ou modifié
+     * @param slot Slot enregistré
+     * @throws DataBaseException
+     */
+    public synchronized void putSlot(Slot slot) throws DataBaseException {
+        ++version;
+        if (placements == null || slot.getId() == null) {
+            return;
+        }
+        Placement placement = toPlacement(slot);
+        Placement old = placements.remove(slot.getId());
+        unindex(old);
+        if (placement != null) {
+            placements.put(placement.idSlot, placement);
+            index(placement);
+        }
+        Set<Integer> classes = new HashSet<>();
+        for (Integer idPlanning : planningsBySlot.getOrDefault(slot.getId(), Collections.emptySet())) {
+            addMinutes(idPlanning, old, -1);
+            addMinutes(idPlanning, placement, 1);
+            classes.add(classeByPlanning.get(idPlanning));
+        }
+        for (Integer idClasse : classes) {
+            removeFrom(Ressource.CLASSE, idClasse, old);
+            addTo(Ressource.CLASSE, idClasse, placement);
+        }
+    }// putSlot()
+
+    /**
+     * Retire un slot supprimé (et ses associations avec les plannings)
+     * @param id Identifiant du slot
+     */
+    public synchronized void removeSlot(int id) {
+        ++version;
+        if (placements == null) {
+            return;
+        }
+        Set<Integer> plannings = planningsBySlot.getOrDefault(id, Collections.emptySet());
+        for (Integer idPlanning : new ArrayList<>(plannings)) {
+            slotsByPlanning.get(idPlanning).remove(id);
+            unbind(idPlanning, classeByPlanning.get(idPlanning), id);
+        }
+        unindex(placements.remove(id));
+    }// removeSlot()
+
+    /**
+     * Met à jour la classe et les slots d'un planning créé ou modifié
+     * @param planning Planning enregistré
+     */
+    public synchronized void putPlanning(Planning planning) {
+        ++version;
+        if (placements == null || planning.getId() == null) {
+            return;
+        }
+        indexPlanning(planning);
+    }// putPlanning()
+
+    /**
+     * Remplace les associations d'un planning par sa classe et ses slots actuels
+     */
+    private void indexPlanning(Planning planning) {
+        removeBindings(planning.getId());
+        if (planning.getClasse() != null && planning.getClasse().getId() != null && planning.getSlots() != null) {
+            Set<Integer> slotIds = new HashSet<>();
+            classeByPlanning.put(planning.getId(), planning.getClasse().getId());
+            slotsByPlanning.put(planning.getId(), slotIds);
+            for (Slot slot : planning.getSlots()) {
+                if (slot.getId() != null && slotIds.add(slot.getId())) {
+                    bind(planning.getId(), planning.getClasse().getId(), slot.getId());
+                }
+            }
+        }
+    }// indexPlanning()
+
+    /**
+     * Retire un planning supprimé
+     * @param id Identifiant du planning
+     */
+    public synchronized void removePlanning(int id) {
+        ++version;
+        if (placements == null) {
+            return;
+        }
+        removeBindings(id);
+    }// removePlanning()
+
+    /**
+     * Charge l'index s'il ne l'est pas encore. Les slots et les plannings sont lus hors verrou, puis installés
+     * si aucune écriture n'a eu lieu pendant la lecture (sinon ils sont relus) : les écritures et les vérifications
+     * n'attendent pas la lecture des tables. Après plusieurs écritures concurrentes, la dernière lecture est faite
+     * sous verrou pour que le chargement aboutisse.
+     * @throws DataBaseException
+     */
+    private void load() throws DataBaseException {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; ++attempt) {
+            long versionAtLoad;
+            synchronized (this) {
+                if (placements != null) {
+                    return;
+                }
+                versionAtLoad = version;
+            }
+            Map<Integer, Placement> placementsFromBd = readPlacements();
+            List<Planning> plannings = planningRepository.findSlotBindings();
+            synchronized (this) {
+                if (placements != null) {
+                    return;
+                }
+                if (versionAtLoad == version) {
+                    install(placementsFromBd, plannings);
+                    return;
+                }
+            }
+        }
+        synchronized (this) {
+            if (placements == null) {
+                install(readPlacements(), planningRepository.findSlotBindings());
+            }
+        }
+    }// load()
+
+    /**
+     * Lit l'emplacement de tous les slots
+     */
+    private Map<Integer, Placement> readPlacements() throws DataBaseException {
+        Map<Integer, Placement> placementsFromBd = new HashMap<>();
+        for (Slot slot : slotRepository.findPlacements()) {
+            Placement placement = toPlacement(slot);
+            if (placement != null) {
+                placementsFromBd.put(placement.idSlot, placement);
+            }
+        }
+        return placementsFromBd;
+    }// readPlacements()
+
+    /**
+     * Construit l'index à partir des emplacements des slots et des associations des plannings lus
+     */
+    private void install(Map<Integer, Placement> placementsFromBd, List<Planning> plannings) {
+        placements = placementsFromBd;
+        classeByPlanning = new HashMap<>();
+        slotsByPlanning = new HashMap<>();
+        planningsBySlot = new HashMap<>();
+        nbPlanningsBySlotByClasse = new HashMap<>();
+        minutesByPlanning = new HashMap<>();
+        occupancies = new EnumMap<>(Ressource.class);
+        for (Ressource ressource : Ressource.values()) {
+            occupancies.put(ressource, new HashMap<>());
+        }
+        for (Placement placement : placements.values()) {
+            index(placement);
+        }
+        for (Planning planning : plannings) {
+            if (planning.getId() != null) {
+                indexPlanning(planning);
+            }
+        }
+    }// install()
+
+    /**
+     * Ajoute un slot à l'occupation de son enseignant et de sa salle
+     */
+    private void index(Placement placement) {
+        for (Ressource ressource : new Ressource[]{Ressource.ENSEIGNANT, Ressource.SALLE}) {
+            addTo(ressource, placement.ressource(ressource), placement);
+        }
+    }// index()
+
+    /**
+     * Retire un slot de l'occupation de son enseignant et de sa salle
+     */
+    private void unindex(Placement placement) {
+        if (placement == null) {
+            return;
+        }
+        for (Ressource ressource : new Ressource[]{Ressource.ENSEIGNANT, Ressource.SALLE}) {
+            removeFrom(ressource, placement.ressource(ressource), placement);
+        }
+    }// unindex()
+
+    /**
+     * Ajoute un slot à l'occupation d'une ressource
+     */
+    private void addTo(Ressource ressource, int idRessource, Placement placement) {
+        if (placement != null && idRessource != 0) {
+            occupancies.get(ressource).computeIfAbsent(idRessource, k -> new Occupancy()).add(placement);
+        }
+    }// addTo()
+
+    /**
+     * Retire un slot de l'occupation d'une ressource (l'occupation est supprimée quand elle n'a plus de slot)
+     */
+    private void removeFrom(Ressource ressource, int idRessource, Placement placement) {
+        Occupancy occupancy = placement != null ? occupancies.get(ressource).get(idRessource) : null;
+        if (occupancy != null) {
+            occupancy.remove(placement);
+            if (occupancy.slotIds.isEmpty()) {
+                occupancies.get(ressource).remove(idRessource);
+            }
+        }
+    }// removeFrom()
+
+    /**
+     * Associe un slot à un planning : minutes de sa matière dans le planning et occupation de la classe
+     */
+    private void bind(int idPlanning, int idClasse, int slotId) {
+        planningsBySlot.computeIfAbsent(slotId, k -> new HashSet<>()).add(idPlanning);
+        Placement placement = placements.get(slotId);
+        addMinutes(idPlanning, placement, 1);
+        if (nbPlanningsBySlotByClasse.computeIfAbsent(idClasse, k -> new HashMap<>()).merge(slotId, 1, Integer::sum) == 1) {
+            addTo(Ressource.CLASSE, idClasse, placement);
+        }
+    }// bind()
+
+    /**
+     * Dissocie un slot d'un planning (la classe reste occupée si un autre de ses plannings utilise le slot)
+     */
+    private void unbind(int idPlanning, int idClasse, int slotId) {
+        Set<Integer> plannings = planningsBySlot.get(slotId);
+        if (plannings != null && plannings.remove(idPlanning) && plannings.isEmpty()) {
+            planningsBySlot.remove(slotId);
+        }
+        Placement placement = placements.get(slotId);
+        addMinutes(idPlanning, placement, -1);
+        Map<Integer, Integer> nbPlanningsBySlot = nbPlanningsBySlotByClasse.get(idClasse);
+        if (nbPlanningsBySlot != null && nbPlanningsBySlot.containsKey(slotId) && nbPlanningsBySlot.merge(slotId, -1, Integer::sum) == 0) {
+            nbPlanningsBySlot.remove(slotId);
+            if (nbPlanningsBySlot.isEmpty()) {
+                nbPlanningsBySlotByClasse.remove(idClasse);
+            }
+            removeFrom(Ressource.CLASSE, idClasse, placement);
+        }
+    }// unbind()
+
+    /**
+     * Retire la classe et les slots d'un planning
+     */
+    private void removeBindings(int idPlanning) {
+        Integer idClasse = classeByPlanning.remove(idPlanning);
+        Set<Integer> slotIds = slotsByPlanning.remove(idPlanning);
+        if (slotIds != null) {
+            for (Integer slotId : slotIds) {
+                unbind(idPlanning, idClasse, slotId);
+            }
+        }
+        minutesByPlanning.remove(idPlanning);
+    }// removeBindings()
+
+    /**
+     * Ajoute (sens 1) ou retire (sens -1) les minutes d'un slot à celles de sa matière dans un planning
+     */
+    private void addMinutes(int idPlanning, Placement placement, int sens) {
+        if (placement == null || placement.idMatiere == 0 || placement.jour < 1 || placement.jour > JourEnum.values().length) {
+            return;
+        }
+        Map<Integer, int[]> minutesByMatiere = minutesByPlanning.computeIfAbsent(idPlanning, k -> new HashMap<>());
+        int[] minutes = minutesByMatiere.computeIfAbsent(placement.idMatiere, k -> new int[JourEnum.values().length + 1]);
+        minutes[placement.jour] += sens * (placement.end - placement.start);
+        if (Arrays.stream(minutes).allMatch(m -> m == 0)) {
+            minutesByMatiere.remove(placement.idMatiere);
+        }
+    }// addMinutes()
+
+    /**
+     * Emplacement d'un slot (les horaires du créneau sont lus dans les données de référence s'ils ne sont pas renseignés)
+     * @return emplacement, null si le jour ou le créneau horaire ne sont pas connus
+     * @throws DataBaseException
+     */
+    private Placement toPlacement(Slot slot) throws DataBaseException {
+        if (slot == null || slot.getJour() == null || slot.getJour().getId() == null || slot.getTimeSlot() == null) {
+            return null;
+        }
+        TimeSlot timeSlot = slot.getTimeSlot();
+        if ((timeSlot.getStart() == null || timeSlot.getEnd() == null) && timeSlot.getId() != null) {
+            timeSlot = referenceDataCache.getTimeSlots().stream().filter(t -> t.getId().equals(slot.getTimeSlot().getId())).findFirst().orElse(null);
+        }
+        if (timeSlot == null || timeSlot.getStart() == null || timeSlot.getEnd() == null || !timeSlot.getStart().isBefore(timeSlot.getEnd())) {
+            return null;
+        }
+        Placement placement = new Placement();
+        placement.idSlot = slot.getId() != null ? slot.getId() : 0;
+        placement.jour = slot.getJour().getId();
+        placement.start = timeSlot.getStart().toSecondOfDay() / 60;
+        placement.end = timeSlot.getEnd().toSecondOfDay() / 60;
+        placement.idEnseignant = slot.getEnseignant() != null && slot.getEnseignant().getId() != null ? slot.getEnseignant().getId() : 0;
+        placement.idSalle = slot.getSalle() != null && slot.getSalle().getId() != null ? slot.getSalle().getId() : 0;
+        placement.idMatiere = slot.getMatiere() != null && slot.getMatiere().getId() != null ? slot.getMatiere().getId() : 0;
+        return placement;
+    }// toPlacement()
+
+    private static LocalTime toTime(int minutes) {
+        return LocalTime.of(minutes / 60, minutes % 60);
+    }// toTime()
+
+}// OccupancyIndex
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.model.CacheMetrics;
+import com.education.project.model.Planning;
+import com.education.project.model.PlanningGenerated;
+import com.education.project.model.Slot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Cette classe conserve les plannings générés (HTML + avertissements) par identifiant de planning.
+ * Chaque entrée mémorise les slots, matières, enseignants, salles et créneaux horaires utilisés
+ * afin de n'invalider que les plannings réellement impactés par une modification.
+ */
+@Component
+public class PlanningGeneratedCache {
+
+    /**
+     * Types d'entités dont dépend un planning généré
+     */
+    public enum Dependance {
+        SLOT, MATIERE, ENSEIGNANT, SALLE, TIMESLOT, CLASSE
+    }
+
+    private final static String NOM = "planningGenerated";
+
+    /**
+     * Nombre maximum de plannings générés conservés
+     */
+    private int maxSize;
+
+    /**
+     * Plannings générés par identifiant de planning (ordre d'accès pour l'éviction LRU)
+     */
+    private LinkedHashMap<Integer, PlanningGenerated> entries;
+
+    /**
+     * Pour chaque dépendance : identifiant de l'entité -> identifiants des plannings qui l'utilisent
+     */
+    private Map<Dependance, Map<Integer, Set<Integer>>> index;
+
+    /**
+     * Pour chaque planning : dépendances enregistrées (pour nettoyer l'index)
+     */
+    private Map<Integer, Map<Dependance, Set<Integer>>> dependancesByPlanning;
+
+    /**
+     * Incrémenté à chaque invalidation : une génération commencée avant une invalidation n'est pas mise en cache
+     */
+    private long version;
+
+    /**
+     * Date de création du cache : distingue les versions de deux démarrages de l'application
+     */
+    private final long startTime = System.currentTimeMillis();
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    @Autowired
+    public PlanningGeneratedCache(@Value("${cache.planning.maxSize:200}") int maxSize) {
+        this.maxSize = maxSize;
+        this.index = new EnumMap<>(Dependance.class);
+        for (Dependance dependance : Dependance.values()) {
+            this.index.put(dependance, new HashMap<>());
+        }
+        this.dependancesByPlanning = new HashMap<>();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PlanningGenerated> eldest) {
+                if (size() > PlanningGeneratedCache.this.maxSize) {
+                    unindex(eldest.getKey());
+                    ++evictions;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }// PlanningGeneratedCache()
+
+    /**
+     * Cette fonction retourne le planning généré en cache
+     * @param planningId Identifiant du planning
+     * @return Planning généré (vide si absent du cache)
+     */
+    public synchronized Optional<PlanningGenerated> get(int planningId) {
+        PlanningGenerated planningGenerated = entries.get(planningId);
+        if (planningGenerated == null) {
+            ++misses;
+            return Optional.empty();
+        }
+        ++hits;
+        return Optional.of(planningGenerated);
+    }// get()
+
+    /**
+     * Cette fonction retourne la version courante du cache, à lire avant de charger le planning
+     * @return version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }// getVersion()
+
+    /**
+     * Cette fonction retourne la version des données, à inclure dans les ETags : les services invalident le cache
+     * à chaque écriture, elle change donc même entre deux modifications faites dans la même seconde
+     * (que les colonnes TIMESTAMP de MySQL ne distinguent pas).
+     * @return version des données
+     */
+    public synchronized String getDataVersion() {
+        return startTime + "." + version;
+    }// getDataVersion()
+
+    /**
+     * Cette fonction met en cache un planning généré, sauf si une invalidation a eu lieu depuis la lecture de la version.
+     * @param planningGenerated Planning généré
+     * @param planning Planning source (utilisé pour enregistrer les dépendances)
+     * @param versionAtLoad Version du cache lue avant le chargement du planning
+     */
+    public synchronized void put(PlanningGenerated planningGenerated, Planning planning, long versionAtLoad) {
+        if (versionAtLoad != version || maxSize <= 0) {
+            return;
+        }
+        int planningId = planningGenerated.getId();
+        unindex(planningId);
+        Map<Dependance, Set<Integer>> dependances = new EnumMap<>(Dependance.class);
+        for (Dependance dependance : Dependance.values()) {
+            dependances.put(dependance, new HashSet<>());
+        }
+        if (planning.getClasse() != null) {
+            addDependance(dependances, Dependance.CLASSE, planning.getClasse().getId());
+        }
+        if (planning.getSlots() != null) {
+            for (Slot slot : planning.getSlots()) {
+                addDependance(dependances, Dependance.SLOT, slot.getId());
+                if (slot.getMatiere() != null) {
+                    addDependance(dependances, Dependance.MATIERE, slot.getMatiere().getId());
+                }
+                if (slot.getEnseignant() != null) {
+                    addDependance(dependances, Dependance.ENSEIGNANT, slot.getEnseignant().getId());
+                }
+                if (slot.getSalle() != null) {
+                    addDependance(dependances, Dependance.SALLE, slot.getSalle().getId());
+                }
+                if (slot.getTimeSlot() != null) {
+                    addDependance(dependances, Dependance.TIMESLOT, slot.getTimeSlot().getId());
+                }
+            }
+        }
+        for (Map.Entry<Dependance, Set<Integer>> entry : dependances.entrySet()) {
+            Map<Integer, Set<Integer>> plannings = index.get(entry.getKey());
+            for (Integer entityId : entry.getValue()) {
+                plannings.computeIfAbsent(entityId, k -> new HashSet<>()).add(planningId);
+            }
+        }
+        dependancesByPlanning.put(planningId, dependances);
+        entries.put(planningId, planningGenerated);
+    }// put()
+
+    /**
+     * Invalide le planning généré dont l'identifiant est passé en paramètre
+     * @param planningId Identifiant du planning
+     */
+    public synchronized void invalidatePlanning(int planningId) {
+        ++version;
+        remove(planningId);
+    }// invalidatePlanning()
+
+    /**
+     * Invalide tous les plannings générés qui utilisent l'entité passée en paramètre
+     * @param dependance Type de l'entité modifiée
+     * @param entityId Identifiant de l'entité modifiée
+     */
+    public synchronized void invalidate(Dependance dependance, int entityId) {
+        ++version;
+        Set<Integer> plannings = index.get(dependance).get(entityId);
+        if (plannings != null) {
+            for (Integer planningId : new ArrayList<>(plannings)) {
+                remove(planningId);
+            }
+        }
+    }// invalidate()
+
+    /**
+     * Signale une écriture qui ne concerne encore aucun planning généré (ex : création d'un slot) :
+     * seule la version change
+     */
+    public synchronized void touch() {
+        ++version;
+    }// touch()
+
+    /**
+     * Invalide tous les plannings générés (ex : changement des options)
+     */
+    public synchronized void invalidateAll() {
+        ++version;
+        evictions += entries.size();
+        entries.clear();
+        dependancesByPlanning.clear();
+        for (Map<Integer, Set<Integer>> plannings : index.values()) {
+            plannings.clear();
+        }
+    }// invalidateAll()
+
+    /**
+     * Cette fonction retourne les statistiques du cache
+     * @return statistiques
+     */
+    public synchronized CacheMetrics getMetrics() {
+        return new CacheMetrics(NOM, hits, misses, evictions, entries.size());
+    }// getMetrics()
+
+    private void remove(int planningId) {
+        if (entries.remove(planningId) != null) {
+            ++evictions;
+        }
+        unindex(planningId);
+    }// remove()
+
+    private void unindex(int planningId) {
+        Map<Dependance, Set<Integer>> dependances = dependancesByPlanning.remove(planningId);
+        if (dependances == null) {
+            return;
+        }
+        for (Map.Entry<Dependance, Set<Integer>> entry : dependances.entrySet()) {
+            Map<Integer, Set<Integer>> plannings = index.get(entry.getKey());
+            for (Integer entityId : entry.getValue()) {
+                Set<Integer> planningIds = plannings.get(entityId);
+                if (planningIds != null) {
+                    planningIds.remove(planningId);
+                    if (planningIds.isEmpty()) {
+                        plannings.remove(entityId);
+                    }
+                }
+            }
+        }
+    }// unindex()
+
+    private void addDependance(Map<Dependance, Set<Integer>> dependances, Dependance dependance, Integer entityId) {
+        if (entityId != null) {
+            dependances.get(dependance).add(entityId);
+        }
+    }// addDependance()
+
+}// PlanningGeneratedCache
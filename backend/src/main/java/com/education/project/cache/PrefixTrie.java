@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Arbre préfixe (trie) en mémoire utilisé pour l'autocomplétion.
+ * Chaque libellé est normalisé (sans accents, en minuscules) et indexé en entier ainsi qu'à partir
+ * de chacun de ses mots : « Amphithéâtre B2 » est proposé pour « amph » comme pour « b2 ».
+ * Les suggestions sont parcourues dans l'ordre alphabétique et le parcours s'arrête dès que le nombre
+ * de suggestions demandé est atteint.
+ * Le trie est chargé à la première suggestion puis maintenu à jour par les services à chaque insertion,
+ * modification ou suppression.
+ *
+ * @param <T> Type des éléments suggérés
+ */
+public class PrefixTrie<T> {
+
+    private static class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final Set<Integer> ids = new TreeSet<>();
+    }
+
+    private final Function<T, Integer> idOf;
+
+    private final List<Function<T, String>> labels;
+
+    private final Node root = new Node();
+
+    /**
+     * Éléments par identifiant
+     */
+    private final Map<Integer, T> values = new HashMap<>();
+
+    /**
+     * Clés indexées pour chaque élément (pour le retirer du trie)
+     */
+    private final Map<Integer, Set<String>> keysById = new HashMap<>();
+
+    private boolean loaded;
+
+    /**
+     * Incrémenté à chaque modification : un chargement commencé avant une modification est abandonné
+     */
+    private long version;
+
+    /**
+     * @param idOf Identifiant d'un élément
+     * @param labels Libellés d'un élément proposés à l'autocomplétion
+     */
+    public PrefixTrie(Function<T, Integer> idOf, List<Function<T, String>> labels) {
+        this.idOf = idOf;
+        this.labels = labels;
+    }// PrefixTrie()
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }// isLoaded()
+
+    /**
+     * @return version courante du trie, à lire avant de charger les éléments en base de données
+     */
+    public synchronized long getVersion() {
+        return version;
+    }// getVersion()
+
+    /**
+     * Charge le trie avec tous les éléments, sauf si une modification a eu lieu depuis la lecture de la version
+     * @param rows Tous les éléments
+     * @param versionAtLoad Version lue avant la lecture des éléments
+     * @return true si le trie est chargé
+     */
+    public synchronized boolean load(Collection<T> rows, long versionAtLoad) {
+        if (loaded) {
+            return true;
+        }
+        if (versionAtLoad != version) {
+            return false;
+        }
+        for (T row : rows) {
+            insert(row);
+        }
+        loaded = true;
+        return true;
+    }// load()
+
+    /**
+     * Ajoute ou remplace un élément dans le trie
+     * @param value Élément inséré ou modifié
+     */
+    public synchronized void put(T value) {
+        ++version;
+        if (loaded && value != null && idOf.apply(value) != null) {
+            delete(idOf.apply(value));
+            insert(value);
+        }
+    }// put()
+
+    /**
+     * Retire un élément du trie
+     * @param id Identifiant de l'élément supprimé
+     */
+    public synchronized void remove(int id) {
+        ++version;
+        if (loaded) {
+            delete(id);
+        }
+    }// remove()
+
+    /**
+     * Retourne les premiers éléments (ordre alphabétique) dont un libellé ou un mot commence par le préfixe
+     * @param prefix Début du libellé recherché (vide : premiers éléments)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions (vide si le trie n'est pas chargé)
+     */
+    public synchronized Optional<List<T>> suggest(String prefix, int limit) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        Node node = root;
+        String key = TrigramIndex.normalize(prefix);
+        for (int i = 0; i < key.length() && node != null; ++i) {
+            node = node.children.get(key.charAt(i));
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (node != null && limit > 0) {
+            collect(node, ids, limit);
+        }
+        List<T> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            results.add(values.get(id));
+        }
+        return Optional.of(results);
+    }// suggest()
+
+    /**
+     * Retourne les suggestions qu'aurait données le trie chargé avec les éléments passés en paramètre,
+     * sans modifier le trie : utilisé quand le chargement a été abandonné à cause d'une modification,
+     * pour que les suggestions ne dépendent pas de l'état du trie.
+     * @param rows Tous les éléments
+     * @param prefix Début du libellé recherché (vide : premiers éléments)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions
+     */
+    public List<T> suggest(Collection<T> rows, String prefix, int limit) {
+        PrefixTrie<T> trie = new PrefixTrie<>(idOf, labels);
+        trie.load(rows, trie.getVersion());
+        return trie.suggest(prefix, limit).orElseGet(Collections::emptyList);
+    }// suggest()
+
+    /**
+     * Parcours en profondeur du sous-arbre par ordre alphabétique, arrêté dès que la limite est atteinte
+     */
+    private boolean collect(Node node, Set<Integer> ids, int limit) {
+        for (Integer id : node.ids) {
+            ids.add(id);
+            if (ids.size() >= limit) {
+                return true;
+            }
+        }
+        for (Node child : node.children.values()) {
+            if (collect(child, ids, limit)) {
+                return true;
+            }
+        }
+        return false;
+    }// collect()
+
+    private void insert(T value) {
+        int id = idOf.apply(value);
+        Set<String> keys = keysOf(value);
+        for (String key : keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); ++i) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            node.ids.add(id);
+        }
+        values.put(id, value);
+        keysById.put(id, keys);
+    }// insert()
+
+    private void delete(int id) {
+        Set<String> keys = keysById.remove(id);
+        values.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            delete(root, key, 0, id);
+        }
+    }// delete()
+
+    /**
+     * Retire l'identifiant de la clé et supprime les noeuds devenus vides
+     * @return true si le noeud est vide
+     */
+    private boolean delete(Node node, String key, int depth, int id) {
+        if (depth == key.length()) {
+            node.ids.remove(id);
+        } else {
+            Node child = node.children.get(key.charAt(depth));
+            if (child != null && delete(child, key, depth + 1, id)) {
+                node.children.remove(key.charAt(depth));
+            }
+        }
+        return node.ids.isEmpty() && node.children.isEmpty();
+    }// delete()
+
+    /**
+     * Clés d'un élément : chaque libellé normalisé en entier et à partir de chacun de ses mots
+     */
+    private Set<String> keysOf(T value) {
+        Set<String> keys = new HashSet<>();
+        for (Function<T, String> label : labels) {
+            String text = TrigramIndex.normalize(label.apply(value));
+            for (int i = 0; i < text.length(); ++i) {
+                if (Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    keys.add(text.substring(i));
+                }
+            }
+        }
+        return keys;
+    }// keysOf()
+
+}// PrefixTrie
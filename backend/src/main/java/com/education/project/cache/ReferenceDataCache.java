@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Options;
+import com.education.project.model.TimeSlot;
+import com.education.project.persistence.OptionsRepository;
+import com.education.project.persistence.TimeSlotRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cette classe conserve les données de référence de l'application (options générales et créneaux horaires),
+ * lues à chaque génération de planning et à chaque contrôle des règles métiers.
+ * Les données sont chargées au démarrage puis relues en base de données uniquement après une invalidation
+ * (modification des options, ajout ou suppression d'un créneau horaire).
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(ReferenceDataCache.class);
+
+    private OptionsRepository optionsRepository;
+
+    private TimeSlotRepository timeSlotRepository;
+
+    /**
+     * Options générales (null si elles ne sont pas chargées)
+     */
+    private Optional<Options> options;
+
+    /**
+     * Créneaux horaires triés par heure de début (null s'ils ne sont pas chargés)
+     */
+    private List<TimeSlot> timeSlots;
+
+    /**
+     * Incrémentées à chaque invalidation : un chargement commencé avant une invalidation n'est pas conservé
+     */
+    private long optionsVersion;
+
+    private long timeSlotsVersion;
+
+    @Autowired
+    public ReferenceDataCache(OptionsRepository optionsRepository, TimeSlotRepository timeSlotRepository) {
+        this.optionsRepository = optionsRepository;
+        this.timeSlotRepository = timeSlotRepository;
+    }// ReferenceDataCache()
+
+    /**
+     * Charge les données de référence au démarrage de l'application
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            getOptions();
+            getTimeSlots();
+        } catch (DataBaseException e) {
+            LOGGER.warn("Les données de référence seront chargées à la première utilisation : " + e.getMessage());
+        }
+    }// load()
+
+    /**
+     * Retourne les options générales de l'application
+     * @return options
+     * @throws DataBaseException
+     */
+    public Optional<Options> getOptions() throws DataBaseException {
+        long version;
+        synchronized (this) {
+            if (options != null) {
+                return options;
+            }
+            version = optionsVersion;
+        }
+        Optional<Options> optionsFromBd = optionsRepository.getOptions();
+        synchronized (this) {
+            if (version == optionsVersion) {
+                options = optionsFromBd;
+            }
+        }
+        return optionsFromBd;
+    }// getOptions()
+
+    /**
+     * Retourne tous les créneaux horaires triés par heure de début puis par identifiant
+     * @return créneaux horaires (non modifiables)
+     * @throws DataBaseException
+     */
+    public List<TimeSlot> getTimeSlots() throws DataBaseException {
+        long version;
+        synchronized (this) {
+            if (timeSlots != null) {
+                return timeSlots;
+            }
+            version = timeSlotsVersion;
+        }
+        List<TimeSlot> timeSlotsFromBd = Collections.unmodifiableList(timeSlotRepository.findAll(null, null));
+        synchronized (this) {
+            if (version == timeSlotsVersion) {
+                timeSlots = timeSlotsFromBd;
+            }
+        }
+        return timeSlotsFromBd;
+    }// getTimeSlots()
+
+    /**
+     * Invalide les options générales (ex : modification des options)
+     */
+    public synchronized void invalidateOptions() {
+        ++optionsVersion;
+        options = null;
+    }// invalidateOptions()
+
+    /**
+     * Invalide les créneaux horaires (ex : ajout ou suppression d'un créneau horaire)
+     */
+    public synchronized void invalidateTimeSlots() {
+        ++timeSlotsVersion;
+        timeSlots = null;
+    }// invalidateTimeSlots()
+
+}// ReferenceDataCache
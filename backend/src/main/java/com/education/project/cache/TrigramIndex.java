@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.cache;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire des trigrammes d'un ou plusieurs champs texte (ex : nom, prénom).
+ * Une recherche « contient » est résolue par l'intersection des listes de trigrammes du terme recherché,
+ * puis vérifiée sur le texte normalisé (sans accents, en minuscules).
+ * Les résultats sont classés : égalité, début de texte, début de mot puis le reste, à égalité par nom et identifiant.
+ * L'index est chargé à la première recherche et maintenu à jour par les services à chaque insertion,
+ * modification ou suppression.
+ *
+ * @param <T> Type des éléments indexés
+ */
+public class TrigramIndex<T> {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+
+    private static final int N = 3;
+
+    private final Function<T, Integer> idOf;
+
+    private final List<Function<T, String>> fields;
+
+    /**
+     * Éléments indexés par identifiant
+     */
+    private final Map<Integer, T> values = new HashMap<>();
+
+    /**
+     * Textes normalisés des champs de chaque élément (pour la vérification et la désindexation)
+     */
+    private final Map<Integer, String[]> textsById = new HashMap<>();
+
+    /**
+     * Pour chaque champ : trigramme -> identifiants des éléments qui le contiennent
+     */
+    private final List<Map<String, Set<Integer>>> postings = new ArrayList<>();
+
+    private boolean loaded;
+
+    /**
+     * Incrémenté à chaque modification : un chargement commencé avant une modification est abandonné
+     */
+    private long version;
+
+    /**
+     * @param idOf Identifiant d'un élément
+     * @param fields Champs texte indexés, dans l'ordre des termes passés à search()
+     */
+    public TrigramIndex(Function<T, Integer> idOf, List<Function<T, String>> fields) {
+        this.idOf = idOf;
+        this.fields = fields;
+        for (int i = 0; i < fields.size(); ++i) {
+            this.postings.add(new HashMap<>());
+        }
+    }// TrigramIndex()
+
+    /**
+     * Normalise un texte pour la recherche : sans accents ni ligatures, en minuscules
+     * @param text Texte à normaliser
+     * @return Texte normalisé (chaîne vide si null)
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return DIACRITIQUES.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.FRENCH)
+                .replace("œ", "oe")
+                .replace("æ", "ae");
+    }// normalize()
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }// isLoaded()
+
+    /**
+     * @return version courante de l'index, à lire avant de charger les éléments en base de données
+     */
+    public synchronized long getVersion() {
+        return version;
+    }// getVersion()
+
+    /**
+     * Charge l'index avec tous les éléments, sauf si une modification a eu lieu depuis la lecture de la version
+     * @param rows Tous les éléments
+     * @param versionAtLoad Version lue avant la lecture des éléments
+     * @return true si l'index est chargé
+     */
+    public synchronized boolean load(Collection<T> rows, long versionAtLoad) {
+        if (loaded) {
+            return true;
+        }
+        if (versionAtLoad != version) {
+            return false;
+        }
+        for (T row : rows) {
+            index(row);
+        }
+        loaded = true;
+        return true;
+    }// load()
+
+    /**
+     * Ajoute ou remplace un élément dans l'index
+     * @param value Élément inséré ou modifié
+     */
+    public synchronized void put(T value) {
+        ++version;
+        if (loaded && value != null && idOf.apply(value) != null) {
+            unindex(idOf.apply(value));
+            index(value);
+        }
+    }// put()
+
+    /**
+     * Retire un élément de l'index
+     * @param id Identifiant de l'élément supprimé
+     */
+    public synchronized void remove(int id) {
+        ++version;
+        if (loaded) {
+            unindex(id);
+        }
+    }// remove()
+
+    /**
+     * Recherche les éléments dont chaque champ contient le terme correspondant (sans tenir compte des accents)
+     * @param terms Un terme par champ indexé (null ou vide : pas de filtre sur ce champ)
+     * @return Les éléments trouvés classés par pertinence (vide si l'index n'est pas chargé)
+     */
+    public synchronized Optional<List<T>> search(String... terms) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        String[] normalizedTerms = new String[fields.size()];
+        Set<Integer> candidates = null;
+        for (int field = 0; field < fields.size(); ++field) {
+            normalizedTerms[field] = field < terms.length ? normalize(terms[field]) : "";
+            for (String trigram : trigrams(normalizedTerms[field])) {
+                Set<Integer> ids = postings.get(field).getOrDefault(trigram, Collections.emptySet());
+                if (candidates == null) {
+                    candidates = new HashSet<>(ids);
+                } else {
+                    candidates.retainAll(ids);
+                }
+            }
+        }
+        // Termes trop courts pour avoir des trigrammes : tous les éléments sont candidats
+        Collection<Integer> ids = candidates != null ? candidates : values.keySet();
+        List<Map.Entry<Integer, Integer>> scored = new ArrayList<>();
+        for (Integer id : ids) {
+            int score = score(textsById.get(id), normalizedTerms);
+            if (score >= 0) {
+                scored.add(new AbstractMap.SimpleEntry<>(id, score));
+            }
+        }
+        scored.sort(Comparator.comparingInt((Map.Entry<Integer, Integer> entry) -> entry.getValue())
+                .thenComparing(entry -> textsById.get(entry.getKey())[0])
+                .thenComparingInt(Map.Entry::getKey));
+        List<T> results = new ArrayList<>(scored.size());
+        for (Map.Entry<Integer, Integer> entry : scored) {
+            results.add(values.get(entry.getKey()));
+        }
+        return Optional.of(results);
+    }// search()
+
+    /**
+     * Pertinence d'un élément (plus petit = plus pertinent)
+     * @return -1 si un champ ne contient pas son terme
+     */
+    private int score(String[] texts, String[] terms) {
+        int score = 0;
+        for (int field = 0; field < terms.length; ++field) {
+            if (terms[field].isEmpty()) {
+                continue;
+            }
+            int position = texts[field].indexOf(terms[field]);
+            if (position < 0) {
+                return -1;
+            }
+            if (texts[field].length() == terms[field].length()) {
+                continue;
+            }
+            if (position == 0) {
+                score += 1;
+            } else if (!Character.isLetterOrDigit(texts[field].charAt(position - 1))) {
+                score += 2;
+            } else {
+                score += 3;
+            }
+        }
+        return score;
+    }// score()
+
+    private void index(T value) {
+        int id = idOf.apply(value);
+        String[] texts = new String[fields.size()];
+        for (int field = 0; field < fields.size(); ++field) {
+            texts[field] = normalize(fields.get(field).apply(value));
+            for (String trigram : trigrams(texts[field])) {
+                postings.get(field).computeIfAbsent(trigram, k -> new HashSet<>()).add(id);
+            }
+        }
+        values.put(id, value);
+        textsById.put(id, texts);
+    }// index()
+
+    private void unindex(int id) {
+        String[] texts = textsById.remove(id);
+        values.remove(id);
+        if (texts == null) {
+            return;
+        }
+        for (int field = 0; field < fields.size(); ++field) {
+            Map<String, Set<Integer>> postingsOfField = postings.get(field);
+            for (String trigram : trigrams(texts[field])) {
+                Set<Integer> ids = postingsOfField.get(trigram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postingsOfField.remove(trigram);
+                    }
+                }
+            }
+        }
+    }// unindex()
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + N <= text.length(); ++i) {
+            trigrams.add(text.substring(i, i + N));
+        }
+        return trigrams;
+    }// trigrams()
+
+}// TrigramIndex
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cette classe configure le pool de connexions partagé par l'ensemble des repositories.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Nom du pool (visible dans les logs et les métriques)
+     */
+    private final static String POOL_NAME = "EducationProjectPool";
+
+    /**
+     * Cette fonction construit le pool de connexions à partir des propriétés db.* et db.pool.*
+     * @param driver Driver SQL
+     * @param url Url de la base de données
+     * @param user Compte utilisateur (BD)
+     * @param password Mot de passe du compte utilisateur (BD)
+     * @param maximumPoolSize Nombre maximum de connexions ouvertes
+     * @param minimumIdle Nombre minimum de connexions inactives conservées
+     * @param idleTimeout Durée (ms) au-delà de laquelle une connexion inactive est fermée
+     * @param maxLifetime Durée de vie maximale (ms) d'une connexion
+     * @param connectionTimeout Durée maximale (ms) d'attente d'une connexion libre
+     * @param validationTimeout Durée maximale (ms) de validation d'une connexion
+     * @param leakDetectionThreshold Durée (ms) au-delà de laquelle une connexion non rendue est signalée (0 pour désactiver)
+     * @param connectionTestQuery Requête de validation (facultatif, sinon Connection.isValid() est utilisé)
+     * @param preparedStatementCacheSize Nombre de requêtes préparées conservées par connexion par le driver (0 pour désactiver)
+     * @return Le pool de connexions
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource(@Value("${db.driver}") String driver,
+                                       @Value("${db.url}") String url,
+                                       @Value("${db.user}") String user,
+                                       @Value("${db.password}") String password,
+                                       @Value("${db.pool.maximumPoolSize:10}") int maximumPoolSize,
+                                       @Value("${db.pool.minimumIdle:2}") int minimumIdle,
+                                       @Value("${db.pool.idleTimeout:600000}") long idleTimeout,
+                                       @Value("${db.pool.maxLifetime:1800000}") long maxLifetime,
+                                       @Value("${db.pool.connectionTimeout:30000}") long connectionTimeout,
+                                       @Value("${db.pool.validationTimeout:5000}") long validationTimeout,
+                                       @Value("${db.pool.leakDetectionThreshold:60000}") long leakDetectionThreshold,
+                                       @Value("${db.pool.connectionTestQuery:}") String connectionTestQuery,
+                                       @Value("${db.pool.preparedStatementCacheSize:250}") int preparedStatementCacheSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setDriverClassName(driver);
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(minimumIdle);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setValidationTimeout(validationTimeout);
+        config.setLeakDetectionThreshold(leakDetectionThreshold);
+        if (connectionTestQuery != null && !connectionTestQuery.isEmpty()) {
+            config.setConnectionTestQuery(connectionTestQuery);
+        }
+        if (preparedStatementCacheSize > 0) {
+            configurePreparedStatementCache(config, driver, preparedStatementCacheSize);
+        }
+        // Le pool démarre même si la base n'est pas encore joignable : les connexions
+        // sont (re)créées à la demande, ce qui permet de survivre à un redémarrage de la BD.
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }// dataSource()
+
+    /**
+     * Active le cache de requêtes préparées du driver : une requête déjà préparée sur une connexion
+     * n'est ni réanalysée ni préparée de nouveau par le serveur.
+     * @param config Configuration du pool
+     * @param driver Driver SQL
+     * @param cacheSize Nombre de requêtes préparées conservées par connexion
+     */
+    private void configurePreparedStatementCache(HikariConfig config, String driver, int cacheSize) {
+        if (driver == null) {
+            return;
+        }
+        if (driver.contains("mysql")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(cacheSize));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "4096");
+        } else if (driver.contains("postgresql")) {
+            config.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+            config.addDataSourceProperty("prepareThreshold", "1");
+        }
+    }// configurePreparedStatementCache()
+
+}// DataSourceConfig
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Cette classe configure le pool de threads utilisé pour les traitements
+ * parallèles sur les plannings (génération en masse).
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Cette fonction construit le pool de threads borné utilisé pour générer les plannings en parallèle
+     * @param parallelism Nombre maximum de threads (0 pour le nombre de processeurs disponibles)
+     * @return Le pool de threads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool planningGenerationPool(@Value("${planning.generation.parallelism:0}") int parallelism) {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        return new ForkJoinPool(parallelism);
+    }// planningGenerationPool()
+
+}// ExecutorConfig
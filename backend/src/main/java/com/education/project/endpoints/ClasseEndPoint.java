@@ -129,15 +129,27 @@ public class ClasseEndPoint {
      * @param name Nom de la classe / Sous-chaîne à rechercher (facultatif)
      * @param page N° de la page (facultatif)
      * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @param after Curseur de pagination (facultatif) : si présent (vide pour la première page), retourne une page et le curseur de la page suivante
+     * @param withTotal true pour retourner la page et le nombre total de classes en une seule requête (facultatif)
      * @return Réponse HTTP
      */
     @GetMapping("/classes")
     public ResponseEntity<?> getClasses(@RequestParam(value = "name", required = false) String name,
                                         @RequestParam(value = "page", required = false) Integer page,
-                                        @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage){
+                                        @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage,
+                                        @RequestParam(value = "after", required = false) String after,
+                                        @RequestParam(value = "withTotal", required = false) boolean withTotal){
         try {
+            if (after != null) {
+                return new ResponseEntity<>(new ResponseEndPoint(classeService.getClassesAfter(after, nbElementsPerPage, name), null), HttpStatus.OK);
+            }
+            if (withTotal) {
+                return new ResponseEntity<>(new ResponseEndPoint(classeService.getClassesPage(page, nbElementsPerPage, name), null), HttpStatus.OK);
+            }
             List<Classe> classes = classeService.getClasses(page, nbElementsPerPage, name);
             return new ResponseEntity<>(new ResponseEndPoint(classes, null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
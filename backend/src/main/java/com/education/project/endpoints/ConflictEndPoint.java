@@ -0,0 +1,42 @@
+package com.education.project.endpoints;
+
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.ResponseEndPoint;
+import com.education.project.services.ConflictService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Cette classe contient les endpoints permettant de traiter les requêtes liées aux chevauchements de slots
+ */
+@RestController
+public class ConflictEndPoint {
+    private ConflictService conflictService;
+
+    @Autowired
+    public ConflictEndPoint(ConflictService conflictService) {
+        this.conflictService = conflictService;
+    }//ConflictEndPoint()
+
+    /**
+     * Ce endpoint permet de récupérer les chevauchements de slots : deux slots du même jour, qui se chevauchent,
+     * avec le même enseignant, la même salle ou la même classe (une classe peut être divisée en groupes)
+     * @param ressource Type de ressource : enseignant, salle ou classe (facultatif)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/conflicts")
+    public ResponseEntity<?> getConflicts(@RequestParam(required = false) String ressource){
+        try {
+            return new ResponseEntity<>(new ResponseEndPoint(conflictService.getConflicts(ressource),null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }//getConflicts()
+}//ConflictEndPoint
@@ -1,6 +1,5 @@
 package com.education.project.endpoints;
 
-import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Jour;
 import com.education.project.model.ResponseEndPoint;
 import com.education.project.services.DayService;
@@ -30,11 +29,7 @@ public class DayEndPoint {
      */
     @GetMapping("/jours")
     public ResponseEntity<?> getDays(){
-        try {
-            List<Jour> resultJours = dayService.getDays();
-            return new ResponseEntity<>(new ResponseEndPoint(resultJours,null), HttpStatus.OK);
-        } catch (DataBaseException e) {
-            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        List<Jour> resultJours = dayService.getDays();
+        return new ResponseEntity<>(new ResponseEndPoint(resultJours,null), HttpStatus.OK);
     }//getDays()
 }//DayEndPoint
@@ -108,16 +108,28 @@ public class EnseignantEndPoint {
      * @param prenom            Prénom de l'enseignant à récupérer (facultatif)
      * @param page              nombre de page (facultatif)
      * @param nbElementsPerPage nombre d'éléments à afficher par page (facultatif)
+     * @param after             curseur de pagination (facultatif) : si présent (vide pour la première page), retourne une page et le curseur de la page suivante
+     * @param withTotal         true pour retourner la page et le nombre total d'enseignants en une seule requête (facultatif)
      * @return Réponse HTTP
      */
     @GetMapping("/enseignants")
     public ResponseEntity<?> getEnseignants(@RequestParam(value = "nom", required = false) String nom,
                                             @RequestParam(value = "prenom", required = false) String prenom,
                                             @RequestParam(value = "page", required = false) Integer page,
-                                            @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage) {
+                                            @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage,
+                                            @RequestParam(value = "after", required = false) String after,
+                                            @RequestParam(value = "withTotal", required = false) boolean withTotal) {
         try {
+            if (after != null) {
+                return new ResponseEntity<>(new ResponseEndPoint(enseignantService.getEnseignantsAfter(nom, prenom, after, nbElementsPerPage), null), HttpStatus.OK);
+            }
+            if (withTotal) {
+                return new ResponseEntity<>(new ResponseEndPoint(enseignantService.getEnseignantsPage(nom, prenom, page, nbElementsPerPage), null), HttpStatus.OK);
+            }
             List<Enseignant> enseignants = enseignantService.getEnseignants(nom, prenom, page, nbElementsPerPage);
             return new ResponseEntity<>(new ResponseEndPoint(enseignants, null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -119,14 +119,26 @@ public class MatiereEndPoint {
     /**
      * Ce endpoint permet de récupérer toutes les matières à l'aide de filtres.
      * @param name Nom de la matière à rechercher (optionnel)
+     * @param after Curseur de pagination (optionnel) : si présent (vide pour la première page), retourne une page et le curseur de la page suivante
+     * @param withTotal true pour retourner la page et le nombre total de matières en une seule requête (optionnel)
      * @return Réponse HTTP.
      */
     @GetMapping("/matieres")
     public ResponseEntity<?> getMatieres(@RequestParam(value = "name", required = false) String name,
                                          @RequestParam(value = "page", required = false) Integer page,
-                                         @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage){
+                                         @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage,
+                                         @RequestParam(value = "after", required = false) String after,
+                                         @RequestParam(value = "withTotal", required = false) boolean withTotal){
         try {
+            if (after != null) {
+                return new ResponseEntity<>(new ResponseEndPoint(this.matiereService.getMatieresAfter(name, after, nbElementsPerPage),null), HttpStatus.OK);
+            }
+            if (withTotal) {
+                return new ResponseEntity<>(new ResponseEndPoint(this.matiereService.getMatieresPage(name, page, nbElementsPerPage),null), HttpStatus.OK);
+            }
             return new ResponseEntity<>(new ResponseEndPoint(this.matiereService.getMatieres(name, page, nbElementsPerPage),null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.endpoints;
+
+import com.education.project.model.ResponseEndPoint;
+import com.education.project.services.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Cette classe contient les endpoints exposant les métriques techniques de l'application
+ */
+@RestController
+public class MetricsEndPoint {
+
+    private MetricsService metricsService;
+
+    @Autowired
+    public MetricsEndPoint(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }// MetricsEndPoint()
+
+    /**
+     * Ce endpoint permet de récupérer l'état du pool de connexions (connexions actives, inactives, threads en attente)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/metrics/pool")
+    public ResponseEntity<?> getPoolMetrics() {
+        return new ResponseEntity<>(new ResponseEndPoint(metricsService.getPoolMetrics(), null), HttpStatus.OK);
+    }// getPoolMetrics()
+
+    /**
+     * Ce endpoint permet de récupérer les statistiques des caches (hits, misses, évictions, taille)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/metrics/caches")
+    public ResponseEntity<?> getCachesMetrics() {
+        return new ResponseEntity<>(new ResponseEndPoint(metricsService.getCachesMetrics(), null), HttpStatus.OK);
+    }// getCachesMetrics()
+
+}// MetricsEndPoint
@@ -16,15 +16,32 @@
 package com.education.project.endpoints;
 
 import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.ConflictException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Planning;
+import com.education.project.model.PlanningHours;
+import com.education.project.model.PlanningSolveRequest;
+import com.education.project.model.PlanningsSolveRequest;
 import com.education.project.model.ResponseEndPoint;
 import com.education.project.services.PlanningService;
+import com.education.project.services.PlanningSolverService;
+import com.education.project.utils.EtagUtils;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,9 +51,19 @@ public class PlanningEndPoint {
 
     private PlanningService planningService;
 
+    private PlanningSolverService planningSolverService;
+
+    private ObjectMapper objectMapper;
+
+    private static final String FORMAT_HTML = "html";
+
+    private static final String FORMAT_GRID = "grid";
+
     @Autowired
-    public PlanningEndPoint(PlanningService planningService) {
+    public PlanningEndPoint(PlanningService planningService, PlanningSolverService planningSolverService, ObjectMapper objectMapper) {
         this.planningService = planningService;
+        this.planningSolverService = planningSolverService;
+        this.objectMapper = objectMapper;
     }// PlanningEndPoint()
 
     /**
@@ -59,7 +86,7 @@ public class PlanningEndPoint {
     /**
      * Cet endpoint permet la mise à jour d'un planning dans l'application.
      * @param planning Planning à créer
-     * @return Réponse HTTP
+     * @return Réponse HTTP (409 si le planning a été modifié depuis la date de modification qu'il porte)
      */
     @PutMapping("/planning")
     public ResponseEntity<?> updatePlanning(@RequestBody Planning planning){
@@ -68,6 +95,8 @@ public class PlanningEndPoint {
             return new ResponseEntity<>(new ResponseEndPoint(result, null), HttpStatus.OK);
         } catch (ArgumentException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
+        } catch (ConflictException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.CONFLICT);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -92,47 +121,211 @@ public class PlanningEndPoint {
      * Cet endpoint permet de récupérer toutes les informations d'un planning
      * en fonction de son identifiant.
      * @param id Identifiant du planning
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans contenu si le planning n'a pas changé
      * @return planning
      */
     @GetMapping("/planning/{id}")
-    public ResponseEntity<?> getPlanningById(@PathVariable("id") int id){
+    public ResponseEntity<?> getPlanningById(@PathVariable("id") int id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         try {
-            return new ResponseEntity<>(new ResponseEndPoint(this.planningService.getPlanningById(id), null), HttpStatus.OK);
+            Optional<String> etag = this.planningService.getPlanningEtag(id);
+            if (etag.isEmpty()) {
+                return new ResponseEntity<>(new ResponseEndPoint(this.planningService.getPlanningById(id), null), HttpStatus.OK);
+            }
+            if (EtagUtils.matches(ifNoneMatch, etag.get())) {
+                return new ResponseEntity<>(EtagUtils.headers(etag.get()), HttpStatus.NOT_MODIFIED);
+            }
+            return new ResponseEntity<>(new ResponseEndPoint(this.planningService.getPlanningById(id), null), EtagUtils.headers(etag.get()), HttpStatus.OK);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }// getPlanningById()
 
+    /**
+     * Ce endpoint retourne les heures disposées dans un planning pour chacune de ses matières
+     * et les matières dont le volume horaire hebdomadaire n'est pas respecté.
+     * @param id Identifiant du planning
+     * @return Réponse HTTP
+     */
+    @GetMapping("/planning/{id}/hours")
+    public ResponseEntity<?> getPlanningHours(@PathVariable("id") int id){
+        try {
+            Optional<PlanningHours> planningHours = this.planningService.getPlanningHours(id);
+            if (planningHours.isEmpty()) {
+                return new ResponseEntity<>(new ResponseEndPoint(null, "Le planning d'identifiant " + id + " n'existe pas"), HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(new ResponseEndPoint(planningHours.get(), null), HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// getPlanningHours()
+
     /**
      * Ce endpoint permet de récupérer tous les plannings de l'application en fonction des paramètres passés
      * @param params paramètres d'un planning
      * classeNom : Nom de la classe d'un planning (facultatif)
      * page : N° de la page (facultatif)
      * nbElementsPerPage : Nombre d'éléments par page (facultatif)
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans contenu si les plannings n'ont pas changé
      * @return Réponse HTTP
      */
     @GetMapping("/plannings")
-    public ResponseEntity<?> getPlannings(@RequestParam Map<String,String> params){
+    public ResponseEntity<?> getPlannings(@RequestParam Map<String,String> params, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         try {
+            String etag = planningService.getPlanningsEtag(params);
+            if (EtagUtils.matches(ifNoneMatch, etag)) {
+                return new ResponseEntity<>(EtagUtils.headers(etag), HttpStatus.NOT_MODIFIED);
+            }
             List<Planning> resultPlannings = planningService.getPlannings(params);
-            return new ResponseEntity<>(new ResponseEndPoint(resultPlannings,null),HttpStatus.OK);
+            return new ResponseEntity<>(new ResponseEndPoint(resultPlannings,null),EtagUtils.headers(etag),HttpStatus.OK);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }//getPlannings()
 
+    /**
+     * Cet endpoint retourne la liste des plannings sous forme de tableau JSON écrit au fur et à mesure
+     * de la lecture en base de données : la mémoire utilisée ne dépend pas du nombre de plannings.
+     * @param params Les paramètres (facultatifs) : mêmes clefs que pour /plannings
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans contenu si les plannings n'ont pas changé
+     * @return Réponse HTTP
+     */
+    @GetMapping("/plannings/stream")
+    public ResponseEntity<?> streamPlannings(@RequestParam Map<String,String> params, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        try {
+            String etag = planningService.getPlanningsEtag(params);
+            HttpHeaders headers = EtagUtils.headers(etag);
+            if (EtagUtils.matches(ifNoneMatch, etag)) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+                generator.writeStartArray();
+                try {
+                    planningService.streamPlannings(params, generator::writeObject);
+                } catch (DataBaseException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                generator.writeEndArray();
+                generator.flush();
+            };
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// streamPlannings()
+
     /**
      * Ce endpoint permet de générer un planning à partir de son identifiant.
      * @param id Identifiant du planning à générer
+     * @param format Format de sortie (facultatif) : html (par défaut) ou grid (grille JSON)
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans génération si le planning n'a pas changé
      * @return Réponse HTTP
      */
     @GetMapping("/planning/generate/{id}")
-    public ResponseEntity<?> generatePlanning(@PathVariable("id") Integer id){
+    public ResponseEntity<?> generatePlanning(@PathVariable("id") Integer id, @RequestParam(value = "format", required = false) String format, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (format != null && !FORMAT_HTML.equals(format) && !FORMAT_GRID.equals(format)) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, "Le format " + format + " n'est pas supporté (formats possibles : " + FORMAT_HTML + ", " + FORMAT_GRID + ")"), HttpStatus.BAD_REQUEST);
+        }
+        boolean isGrid = FORMAT_GRID.equals(format);
         try {
-            return new ResponseEntity<>(new ResponseEndPoint(planningService.generatePlanning(id),null),HttpStatus.OK);
+            Optional<String> etag = planningService.getGeneratedPlanningEtag(id).map(e -> isGrid ? EtagUtils.build(e, FORMAT_GRID) : e);
+            if (etag.isEmpty()) {
+                return new ResponseEntity<>(new ResponseEndPoint(generate(id, isGrid),null),HttpStatus.OK);
+            }
+            if (EtagUtils.matches(ifNoneMatch, etag.get())) {
+                return new ResponseEntity<>(EtagUtils.headers(etag.get()), HttpStatus.NOT_MODIFIED);
+            }
+            return new ResponseEntity<>(new ResponseEndPoint(generate(id, isGrid),null),EtagUtils.headers(etag.get()),HttpStatus.OK);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }// generatePlanning()
 
+    /**
+     * Ce endpoint permet de générer en une seule fois plusieurs plannings.
+     * @param ids Identifiants des plannings à générer (facultatif : tous les plannings si absent)
+     * @return Réponse HTTP
+     */
+    @PostMapping("/plannings/generate")
+    public ResponseEntity<?> generatePlannings(@RequestBody(required = false) List<Integer> ids){
+        try {
+            return new ResponseEntity<>(new ResponseEndPoint(planningService.generatePlannings(ids), null), HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// generatePlannings()
+
+    /**
+     * Ce endpoint génère automatiquement le planning d'une classe à partir de ses matières
+     * et des enseignants et salles disponibles. Le planning proposé n'est pas enregistré.
+     * @param request Demande de génération
+     * @return Réponse HTTP
+     */
+    @PostMapping("/planning/solve")
+    public ResponseEntity<?> solvePlanning(@RequestBody PlanningSolveRequest request){
+        try {
+            return new ResponseEntity<>(new ResponseEndPoint(planningSolverService.solvePlanning(request), null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// solvePlanning()
+
+    /**
+     * Ce endpoint génère ensemble les plannings de plusieurs classes, qui partagent leurs enseignants et leurs salles,
+     * et les enregistre si toutes les contraintes sont respectées.
+     * @param request Demande de génération
+     * @return Réponse HTTP
+     */
+    @PostMapping("/plannings/solve")
+    public ResponseEntity<?> solvePlannings(@RequestBody PlanningsSolveRequest request){
+        try {
+            return new ResponseEntity<>(new ResponseEndPoint(planningSolverService.solvePlannings(request), null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// solvePlannings()
+
+    private Object generate(int id, boolean isGrid) throws DataBaseException {
+        return isGrid ? planningService.generatePlanningGrid(id) : planningService.generatePlanning(id);
+    }// generate()
+
+    /**
+     * Cet endpoint retourne le planning généré au format HTML, écrit directement
+     * dans la réponse HTTP au fur et à mesure de sa génération.
+     * @param id Identifiant du planning
+     * @param ifNoneMatch En-tête If-None-Match (facultatif)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/planning/generate/{id}/html")
+    public ResponseEntity<?> generatePlanningHtml(@PathVariable("id") Integer id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        try {
+            Optional<String> etag = planningService.getGeneratedPlanningEtag(id);
+            if (etag.isEmpty()) {
+                return new ResponseEntity<>(new ResponseEndPoint(null, "Le planning d'identifiant " + id + " n'existe pas"), HttpStatus.NOT_FOUND);
+            }
+            HttpHeaders headers = EtagUtils.headers(etag.get());
+            if (EtagUtils.matches(ifNoneMatch, etag.get())) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            headers.setContentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8));
+            StreamingResponseBody body = outputStream -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                try {
+                    planningService.writePlanningHtml(id, writer);
+                } catch (DataBaseException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                writer.flush();
+            };
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// generatePlanningHtml()
+
 }// PlanningEndPoint
@@ -83,10 +83,20 @@ public class SalleEndPoint {
     @GetMapping("/salles")
     public ResponseEntity<?> getSalles(@RequestParam (value = "nom", required = false) String nom,
                                        @RequestParam(value = "page", required = false) Integer page,
-                                       @RequestParam(value = "nbElementsPerPage",required = false) Integer nbElementsPerPage){
+                                       @RequestParam(value = "nbElementsPerPage",required = false) Integer nbElementsPerPage,
+                                       @RequestParam(value = "after", required = false) String after,
+                                       @RequestParam(value = "withTotal", required = false) boolean withTotal){
         try {
+            if (after != null) {
+                return new ResponseEntity<>(new ResponseEndPoint(salleService.getSallesAfter(nom, after, nbElementsPerPage),null),HttpStatus.OK);
+            }
+            if (withTotal) {
+                return new ResponseEntity<>(new ResponseEndPoint(salleService.getSallesPage(nom, page, nbElementsPerPage),null),HttpStatus.OK);
+            }
             List<Salle> resultSalles = salleService.getSalles(nom,page,nbElementsPerPage);
             return new ResponseEntity<>(new ResponseEndPoint(resultSalles,null),HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
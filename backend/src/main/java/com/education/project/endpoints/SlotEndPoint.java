@@ -2,14 +2,23 @@ package com.education.project.endpoints;
 
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.BulkItemResult;
 import com.education.project.model.ResponseEndPoint;
 import com.education.project.model.Slot;
 import com.education.project.services.SlotService;
+import com.education.project.utils.EtagUtils;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,9 +28,12 @@ public class SlotEndPoint {
 
     private SlotService slotService;
 
+    private ObjectMapper objectMapper;
+
     @Autowired
-    public SlotEndPoint(SlotService slotService) {
+    public SlotEndPoint(SlotService slotService, ObjectMapper objectMapper) {
         this.slotService = slotService;
+        this.objectMapper = objectMapper;
     }//SlotEndPoint()
 
     /**
@@ -80,6 +92,49 @@ public class SlotEndPoint {
         return new ResponseEntity<>(new ResponseEndPoint(null,null),HttpStatus.INTERNAL_SERVER_ERROR);
     }//updateSlot()
 
+    /**
+     * Ce endpoint permet d'insérer plusieurs slots en base de données, en une seule transaction.
+     * Aucun slot n'est inséré si l'un d'eux est en erreur : la réponse donne alors les erreurs de chaque slot.
+     * @param slotsToInsert Les slots à insérer
+     * @return Réponse HTTP (résultat de chaque slot, dans l'ordre de la requête)
+     */
+    @PostMapping("/slots/bulk")
+    public ResponseEntity<?> insertSlots(@RequestBody List<Slot> slotsToInsert){
+        try {
+            return bulkResponse(slotService.insertSlots(slotsToInsert));
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }//insertSlots()
+
+    /**
+     * Ce endpoint permet de mettre à jour plusieurs slots en base de données, en une seule transaction.
+     * Aucun slot n'est mis à jour si l'un d'eux est en erreur : la réponse donne alors les erreurs de chaque slot.
+     * @param slotsToUpdate Les slots à mettre à jour
+     * @return Réponse HTTP (résultat de chaque slot, dans l'ordre de la requête)
+     */
+    @PutMapping("/slots/bulk")
+    public ResponseEntity<?> updateSlots(@RequestBody List<Slot> slotsToUpdate){
+        try {
+            return bulkResponse(slotService.updateSlots(slotsToUpdate));
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }//updateSlots()
+
+    private ResponseEntity<?> bulkResponse(List<BulkItemResult<Slot>> results){
+        for (BulkItemResult<Slot> result : results) {
+            if (!result.getErreurs().isEmpty()) {
+                return new ResponseEntity<>(new ResponseEndPoint(null,results),HttpStatus.BAD_REQUEST);
+            }
+        }
+        return new ResponseEntity<>(new ResponseEndPoint(results,null),HttpStatus.OK);
+    }//bulkResponse()
+
     /**
      * Ce endpoint permet de supprimer un slot de la base de données
      * @param id L'identifiant du slot
@@ -133,15 +188,57 @@ public class SlotEndPoint {
      * couleurPolice : c'est la couleur de police du slot
      * salleNom : c'est le nom de la salle
      * jour : C'est le jour lié au slot
+     * withTotal : true pour retourner la page et le nombre total de slots en une seule requête
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans contenu si les slots n'ont pas changé
      * @return Réponse HTTP
      */
     @GetMapping("/slots")
-    public ResponseEntity<?> getSlots(@RequestParam Map<String,String> params){
+    public ResponseEntity<?> getSlots(@RequestParam Map<String,String> params, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         try {
+            String etag = slotService.getSlotsEtag(params);
+            if(EtagUtils.matches(ifNoneMatch, etag)){
+                return new ResponseEntity<>(EtagUtils.headers(etag), HttpStatus.NOT_MODIFIED);
+            }
+            if(Boolean.parseBoolean(params.get("withTotal"))){
+                return new ResponseEntity<>(new ResponseEndPoint(slotService.getSlotsPage(params),null), EtagUtils.headers(etag), HttpStatus.OK);
+            }
             List<Slot> resultSlots = slotService.getSlots(params);
-            return new ResponseEntity<>(new ResponseEndPoint(resultSlots,null), HttpStatus.OK);
+            return new ResponseEntity<>(new ResponseEndPoint(resultSlots,null), EtagUtils.headers(etag), HttpStatus.OK);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }//getSlots()
+
+    /**
+     * Cet endpoint retourne la liste des slots sous forme de tableau JSON écrit au fur et à mesure
+     * de la lecture en base de données : la mémoire utilisée ne dépend pas du nombre de slots.
+     * @param params Les paramètres (facultatifs) : mêmes clefs que pour /slots, y compris page et nbElementsPerPage
+     * @param ifNoneMatch ETag connu du client (facultatif) : réponse 304 sans contenu si les slots n'ont pas changé
+     * @return Réponse HTTP
+     */
+    @GetMapping("/slots/stream")
+    public ResponseEntity<?> streamSlots(@RequestParam Map<String,String> params, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        try {
+            String etag = slotService.getSlotsEtag(params);
+            HttpHeaders headers = EtagUtils.headers(etag);
+            if(EtagUtils.matches(ifNoneMatch, etag)){
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+                generator.writeStartArray();
+                try {
+                    slotService.streamSlots(params, generator::writeObject);
+                } catch (DataBaseException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                generator.writeEndArray();
+                generator.flush();
+            };
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }//streamSlots()
 }//SlotEndPoint
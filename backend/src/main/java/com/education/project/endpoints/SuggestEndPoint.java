@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.endpoints;
+
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.ResponseEndPoint;
+import com.education.project.services.ClasseService;
+import com.education.project.services.EnseignantService;
+import com.education.project.services.MatiereService;
+import com.education.project.services.SalleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Autocomplétion des listes déroulantes (enseignants, matières, salles, classes)
+ */
+@RestController
+public class SuggestEndPoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private static final int MAX_LIMIT = 50;
+
+    private EnseignantService enseignantService;
+
+    private MatiereService matiereService;
+
+    private SalleService salleService;
+
+    private ClasseService classeService;
+
+    @Autowired
+    public SuggestEndPoint(EnseignantService enseignantService, MatiereService matiereService, SalleService salleService, ClasseService classeService) {
+        this.enseignantService = enseignantService;
+        this.matiereService = matiereService;
+        this.salleService = salleService;
+        this.classeService = classeService;
+    }// SuggestEndPoint()
+
+    /**
+     * Ce endpoint retourne les premières entités dont le nom commence par le texte saisi
+     * @param entity enseignants, matieres, salles ou classes
+     * @param q Début du nom saisi (facultatif)
+     * @param limit Nombre maximum de suggestions (10 par défaut, 50 au maximum)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/suggest/{entity}")
+    public ResponseEntity<?> suggest(@PathVariable String entity,
+                                     @RequestParam(value = "q", required = false) String q,
+                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        int nbSuggestions = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        try {
+            List<?> suggestions;
+            switch (entity) {
+                case "enseignants":
+                    suggestions = enseignantService.suggestEnseignants(q, nbSuggestions);
+                    break;
+                case "matieres":
+                    suggestions = matiereService.suggestMatieres(q, nbSuggestions);
+                    break;
+                case "salles":
+                    suggestions = salleService.suggestSalles(q, nbSuggestions);
+                    break;
+                case "classes":
+                    suggestions = classeService.suggestClasses(q, nbSuggestions);
+                    break;
+                default:
+                    return new ResponseEntity<>(new ResponseEndPoint(null, List.of("Suggestions impossibles : " + entity + " n'est pas une entité connue (enseignants, matieres, salles, classes)")), HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(new ResponseEndPoint(suggestions, null), HttpStatus.OK);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }// suggest()
+
+}// SuggestEndPoint
@@ -72,13 +72,20 @@ public class TimeSlotEndPoint {
      * Récupère l'ensemble des créneaux horaires de l'application
      * @param page n° de la page (facultatif)
      * @param nbElementsPerPage Nombre de créneaux horaires par page (facultatif)
+     * @param after Curseur de pagination (facultatif) : si présent (vide pour la première page), retourne une page et le curseur de la page suivante
      * @return Réponse HTTP
      */
     @GetMapping("/timeslots")
     public ResponseEntity<?> getTimeSlots(@RequestParam(value = "page", required = false) Integer page,
-                                          @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage){
+                                          @RequestParam(value = "nbElementsPerPage", required = false) Integer nbElementsPerPage,
+                                          @RequestParam(value = "after", required = false) String after){
         try {
+            if (after != null) {
+                return new ResponseEntity<>(new ResponseEndPoint(this.timeSlotService.getTimeSlotsAfter(after, nbElementsPerPage), null), HttpStatus.OK);
+            }
             return new ResponseEntity<>(new ResponseEndPoint(this.timeSlotService.getTimeSlots(page, nbElementsPerPage), null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null, e.getErreurs()), HttpStatus.BAD_REQUEST);
         } catch (DataBaseException e) {
             return new ResponseEntity<>(new ResponseEndPoint(null, e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,42 @@
+package com.education.project.endpoints;
+
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.ResponseEndPoint;
+import com.education.project.services.WorkloadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Cette classe contient les endpoints permettant de traiter les requêtes liées à la charge des enseignants, des salles et des classes
+ */
+@RestController
+public class WorkloadEndPoint {
+    private WorkloadService workloadService;
+
+    @Autowired
+    public WorkloadEndPoint(WorkloadService workloadService) {
+        this.workloadService = workloadService;
+    }//WorkloadEndPoint()
+
+    /**
+     * Ce endpoint permet de récupérer la charge hebdomadaire de chaque enseignant, salle ou classe utilisé par au moins un slot :
+     * minutes de ses slots et minutes libres entre ses slots, sur la semaine et par jour
+     * @param ressource Type de ressource : enseignant, salle ou classe (facultatif)
+     * @return Réponse HTTP
+     */
+    @GetMapping("/workloads")
+    public ResponseEntity<?> getWorkloads(@RequestParam(required = false) String ressource){
+        try {
+            return new ResponseEntity<>(new ResponseEndPoint(workloadService.getWorkloads(ressource),null), HttpStatus.OK);
+        } catch (ArgumentException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getErreurs()),HttpStatus.BAD_REQUEST);
+        } catch (DataBaseException e) {
+            return new ResponseEntity<>(new ResponseEndPoint(null,e.getMessage()),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }//getWorkloads()
+}//WorkloadEndPoint
@@ -15,27 +15,43 @@
  */
 package com.education.project.enums;
 
+import com.education.project.model.Jour;
+
 /**
  * Enumération représentant un jour de la semaine.
  */
 public enum JourEnum {
-    LUNDI(1),
-    MARDI(2),
-    MERCREDI(3),
-    JEUDI(4),
-    VENDREDI(5),
-    SAMEDI(6);
+    LUNDI(1, "Lundi"),
+    MARDI(2, "Mardi"),
+    MERCREDI(3, "Mercredi"),
+    JEUDI(4, "Jeudi"),
+    VENDREDI(5, "Vendredi"),
+    SAMEDI(6, "Samedi");
 
     private int val;
 
-    JourEnum(int val) {
+    /**
+     * Nom du jour (identique à la table jour)
+     */
+    private String nom;
+
+    JourEnum(int val, String nom) {
         this.val = val;
+        this.nom = nom;
     }// JourEnum()
 
     public int getVal() {
         return val;
     }// getVal()
 
+    public String getNom() {
+        return nom;
+    }// getNom()
+
+    public Jour toJour() {
+        return new Jour(val, nom);
+    }// toJour()
+
     public static JourEnum getEnumByVal(int val) {
         for(JourEnum j : JourEnum.values()){
             if(j.getVal() == val){
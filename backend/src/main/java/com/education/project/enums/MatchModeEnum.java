@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.enums;
+
+/**
+ * Enumération représentant le mode de comparaison d'un filtre texte.
+ * EXACT et PREFIX peuvent utiliser un index sur la colonne filtrée, CONTAINS non.
+ */
+public enum MatchModeEnum {
+    EXACT,
+    PREFIX,
+    CONTAINS;
+
+    /**
+     * Retourne le mode correspondant au paramètre passé (insensible à la casse)
+     * @param param Valeur du paramètre (facultatif)
+     * @return mode de comparaison, CONTAINS par défaut
+     */
+    public static MatchModeEnum fromParam(String param) {
+        if (param != null) {
+            for (MatchModeEnum m : MatchModeEnum.values()) {
+                if (m.name().equalsIgnoreCase(param)) {
+                    return m;
+                }
+            }
+        }
+        return MatchModeEnum.CONTAINS;
+    }// fromParam()
+
+}// MatchModeEnum
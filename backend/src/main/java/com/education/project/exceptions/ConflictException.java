@@ -0,0 +1,26 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.exceptions;
+
+/**
+ * La classe permet de signaler qu'un élément a été modifié par ailleurs depuis sa lecture
+ * (la modification demandée est refusée pour ne pas écraser l'autre modification).
+ */
+public class ConflictException extends Exception {
+    public ConflictException(String s) {
+        super(s);
+    }//ConflictException()
+}//ConflictException
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.generation;
+
+import com.education.project.enums.JourEnum;
+import com.education.project.model.Slot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modèle compact d'un planning mis en page : une ligne par découpage horaire et,
+ * pour chaque jour affiché, les cellules décrites uniquement par des entiers
+ * (rowspan, indice du premier slot, nombre de slots). Ce modèle est indépendant
+ * du format de sortie (HTML, JSON...).
+ */
+public class PlanningGrid {
+
+    /**
+     * Heure de début du planning, en minutes depuis minuit
+     */
+    private int startMinute;
+
+    /**
+     * Découpage du planning en minutes
+     */
+    private int split;
+
+    /**
+     * Nombre de lignes du planning
+     */
+    private int nbRows;
+
+    /**
+     * Colonnes (jours) du planning, dans l'ordre de la semaine
+     */
+    private List<Column> columns;
+
+    public PlanningGrid(int startMinute, int split, int nbRows) {
+        this.startMinute = startMinute;
+        this.split = split;
+        this.nbRows = nbRows;
+        this.columns = new ArrayList<>();
+    }// PlanningGrid()
+
+    /**
+     * Ajoute une colonne (jour) au planning
+     * @param jour Jour de la colonne
+     * @param slots Slots du jour triés par heure de début
+     * @return colonne ajoutée
+     */
+    public Column addColumn(JourEnum jour, List<Slot> slots) {
+        Column column = new Column(jour, slots.toArray(new Slot[0]), nbRows);
+        columns.add(column);
+        return column;
+    }// addColumn()
+
+    /**
+     * Heure de début (en minutes depuis minuit) de la ligne passée en paramètre
+     * @param row indice de la ligne
+     * @return minutes depuis minuit
+     */
+    public int getRowStartMinute(int row) {
+        return startMinute + row * split;
+    }// getRowStartMinute()
+
+    public int getStartMinute() {
+        return startMinute;
+    }// getStartMinute()
+
+    public int getSplit() {
+        return split;
+    }// getSplit()
+
+    public int getNbRows() {
+        return nbRows;
+    }// getNbRows()
+
+    public List<Column> getColumns() {
+        return columns;
+    }// getColumns()
+
+    /**
+     * Colonne d'un jour du planning. Pour chaque ligne :
+     * rowspans[ligne] > 0 si une cellule commence sur cette ligne (0 sinon),
+     * slotFrom[ligne] indice du premier slot de la cellule,
+     * slotCount[ligne] nombre de slots de la cellule (0 pour une cellule vide, plus de 1 pour une cellule divisée en groupes).
+     */
+    public static class Column {
+
+        private JourEnum jour;
+
+        private Slot[] slots;
+
+        private int[] rowspans;
+
+        private int[] slotFrom;
+
+        private int[] slotCount;
+
+        private Column(JourEnum jour, Slot[] slots, int nbRows) {
+            this.jour = jour;
+            this.slots = slots;
+            this.rowspans = new int[nbRows];
+            this.slotFrom = new int[nbRows];
+            this.slotCount = new int[nbRows];
+        }// Column()
+
+        /**
+         * Place une cellule sur la ligne passée en paramètre (ignoré si la ligne est hors du planning)
+         * @param row Ligne de début de la cellule
+         * @param rowspan Nombre de lignes couvertes
+         * @param firstSlot Indice du premier slot de la cellule
+         * @param nbSlots Nombre de slots (0 pour une cellule vide)
+         */
+        public void setCell(int row, int rowspan, int firstSlot, int nbSlots) {
+            if (row < 0 || row >= rowspans.length) {
+                return;
+            }
+            rowspans[row] = rowspan;
+            slotFrom[row] = firstSlot;
+            slotCount[row] = nbSlots;
+        }// setCell()
+
+        public JourEnum getJour() {
+            return jour;
+        }// getJour()
+
+        public Slot getSlot(int index) {
+            return slots[index];
+        }// getSlot()
+
+        public int getNbSlots() {
+            return slots.length;
+        }// getNbSlots()
+
+        public int getRowspan(int row) {
+            return rowspans[row];
+        }// getRowspan()
+
+        public int getSlotFrom(int row) {
+            return slotFrom[row];
+        }// getSlotFrom()
+
+        public int getSlotCount(int row) {
+            return slotCount[row];
+        }// getSlotCount()
+
+    }// Column
+
+}// PlanningGrid
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.generation;
+
+import com.education.project.model.Enseignant;
+import com.education.project.model.Matiere;
+import com.education.project.model.PlanningGeneratedGrid;
+import com.education.project.model.Salle;
+import com.education.project.model.Slot;
+import com.education.project.utils.LocalTimeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cette classe convertit un planning mis en page (PlanningGrid) en grille JSON
+ * compacte (PlanningGeneratedGrid), en dédoublonnant les matières, enseignants et salles.
+ */
+public class PlanningGridExporter {
+
+    /**
+     * Conversion du planning mis en page
+     * @param id Identifiant du planning
+     * @param grid Planning mis en page
+     * @param warnings Avertissements du planning
+     * @return grille du planning
+     */
+    public PlanningGeneratedGrid export(int id, PlanningGrid grid, List<String> warnings) {
+        PlanningGeneratedGrid result = new PlanningGeneratedGrid(id);
+        result.setSplit(grid.getSplit());
+        result.setWarnings(warnings);
+        for (int row = 0; row < grid.getNbRows(); ++row) {
+            result.getRows().add(formatTime(grid.getRowStartMinute(row)) + " - " + formatTime(grid.getRowStartMinute(row + 1)));
+        }
+        Map<Object, Integer> matieres = new HashMap<>();
+        Map<Object, Integer> enseignants = new HashMap<>();
+        Map<Object, Integer> salles = new HashMap<>();
+        for (PlanningGrid.Column column : grid.getColumns()) {
+            PlanningGeneratedGrid.Column resultColumn = new PlanningGeneratedGrid.Column(column.getJour());
+            for (int row = 0; row < grid.getNbRows(); ++row) {
+                int nbSlots = column.getSlotCount(row);
+                if (column.getRowspan(row) == 0 || nbSlots == 0) {
+                    continue;
+                }
+                List<Integer> slotsOfCell = new ArrayList<>(nbSlots);
+                for (int i = 0; i < nbSlots; ++i) {
+                    Slot slot = column.getSlot(column.getSlotFrom(row) + i);
+                    slotsOfCell.add(result.getSlots().size());
+                    result.getSlots().add(new PlanningGeneratedGrid.SlotRef(slot.getId(),
+                            indexOfMatiere(slot.getMatiere(), matieres, result),
+                            indexOfEnseignant(slot.getEnseignant(), enseignants, result),
+                            indexOfSalle(slot.getSalle(), salles, result),
+                            slot.getCouleurFond(), slot.getCouleurPolice(), slot.getComment()));
+                }
+                resultColumn.getCells().add(new PlanningGeneratedGrid.Cell(row, column.getRowspan(row), slotsOfCell));
+            }
+            result.getColumns().add(resultColumn);
+        }
+        return result;
+    }// export()
+
+    private Integer indexOfMatiere(Matiere matiere, Map<Object, Integer> indexes, PlanningGeneratedGrid result) {
+        if (matiere == null) {
+            return null;
+        }
+        return indexes.computeIfAbsent(key(matiere.getId(), matiere.getNom()), k -> {
+            result.getMatieres().add(matiere.getNom());
+            return result.getMatieres().size() - 1;
+        });
+    }// indexOfMatiere()
+
+    private Integer indexOfEnseignant(Enseignant enseignant, Map<Object, Integer> indexes, PlanningGeneratedGrid result) {
+        if (enseignant == null) {
+            return null;
+        }
+        return indexes.computeIfAbsent(key(enseignant.getId(), enseignant.getNom() + " " + enseignant.getPrenom()), k -> {
+            result.getEnseignants().add(new PlanningGeneratedGrid.EnseignantRef(enseignant.getNom(), enseignant.getPrenom()));
+            return result.getEnseignants().size() - 1;
+        });
+    }// indexOfEnseignant()
+
+    private Integer indexOfSalle(Salle salle, Map<Object, Integer> indexes, PlanningGeneratedGrid result) {
+        if (salle == null) {
+            return null;
+        }
+        return indexes.computeIfAbsent(key(salle.getId(), salle.getNom()), k -> {
+            result.getSalles().add(salle.getNom());
+            return result.getSalles().size() - 1;
+        });
+    }// indexOfSalle()
+
+    /**
+     * Clé de dédoublonnage : l'identifiant de l'entité ou, à défaut, son libellé
+     */
+    private Object key(Integer id, String label) {
+        return id != null ? id : "#" + label;
+    }// key()
+
+    private String formatTime(int minutes) {
+        return LocalTimeUtils.formatTime(minutes / 60 % 24) + ":" + LocalTimeUtils.formatTime(minutes % 60);
+    }// formatTime()
+
+}// PlanningGridExporter
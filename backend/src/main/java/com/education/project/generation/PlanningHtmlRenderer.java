@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.generation;
+
+import com.education.project.model.Slot;
+import com.education.project.utils.LocalTimeUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Cette classe écrit un planning mis en page (PlanningGrid) en HTML directement
+ * dans un flux, sans construire de chaînes intermédiaires par cellule.
+ */
+public class PlanningHtmlRenderer {
+
+    /**
+     * Écrit le planning en HTML dans le flux passé en paramètre
+     * @param grid Planning mis en page
+     * @param writer Flux de sortie
+     * @throws IOException
+     */
+    public void render(PlanningGrid grid, Writer writer) throws IOException {
+        writer.write("<table><thead><tr><th></th>");
+        for (PlanningGrid.Column column : grid.getColumns()) {
+            writer.write("<th>");
+            writer.write(column.getJour().toString());
+            writer.write("</th>");
+        }
+        writer.write("</tr></thead>");
+        for (int row = 0; row < grid.getNbRows(); ++row) {
+            writer.write("<tr><td>");
+            writeTime(grid.getRowStartMinute(row), writer);
+            writer.write(" - ");
+            writeTime(grid.getRowStartMinute(row + 1), writer);
+            writer.write("</td> ");
+            for (PlanningGrid.Column column : grid.getColumns()) {
+                if (column.getRowspan(row) != 0) {
+                    writeCell(column, row, writer);
+                    writer.write(' ');
+                }
+            }
+            writer.write("</tr>");
+        }
+        writer.write("</table>");
+    }// render()
+
+    /**
+     * Écrit une cellule : vide, simple ou divisée en groupes (plusieurs slots sur le même créneau)
+     */
+    private void writeCell(PlanningGrid.Column column, int row, Writer writer) throws IOException {
+        int nbSlots = column.getSlotCount(row);
+        if (nbSlots == 0) {
+            writer.write("<td rowspan=\"");
+            writer.write(String.valueOf(column.getRowspan(row)));
+            writer.write("\"></td>");
+        } else if (nbSlots == 1) {
+            Slot slot = column.getSlot(column.getSlotFrom(row));
+            writer.write("<td ");
+            writeStyle(slot, writer);
+            writer.write(" rowspan=\"");
+            writer.write(String.valueOf(column.getRowspan(row)));
+            writer.write("\">");
+            writeSlotContent(slot, writer);
+            writer.write("</td>");
+        } else {
+            writer.write("<td class=\"no-padding\"");
+            if (column.getRowspan(row) > 1) {
+                writer.write(" rowspan=\"");
+                writer.write(String.valueOf(column.getRowspan(row)));
+                writer.write('"');
+            }
+            writer.write('>');
+            for (int i = 0; i < nbSlots; ++i) {
+                Slot slot = column.getSlot(column.getSlotFrom(row) + i);
+                writer.write("<div ");
+                writeStyle(slot, writer);
+                if (i > 0) {
+                    writer.write(" class=\"group\"");
+                }
+                writer.write('>');
+                writeSlotContent(slot, writer);
+                if (slot.getComment() != null) {
+                    writer.write("<div class=\"comment-slot\">");
+                    writer.write(slot.getComment());
+                    writer.write("</div>");
+                }
+                writer.write("</div>");
+            }
+            writer.write("</td>");
+        }
+    }// writeCell()
+
+    private void writeStyle(Slot slot, Writer writer) throws IOException {
+        writer.write("style=\"color : ");
+        writer.write(String.valueOf(slot.getCouleurPolice()));
+        writer.write(";background-color : ");
+        writer.write(String.valueOf(slot.getCouleurFond()));
+        writer.write(";\"");
+    }// writeStyle()
+
+    private void writeSlotContent(Slot slot, Writer writer) throws IOException {
+        writer.write("<div>");
+        writer.write(String.valueOf(slot.getMatiere().getNom()));
+        writer.write("</div>");
+        if (slot.getEnseignant() != null) {
+            writer.write("<div>");
+            writer.write(slot.getEnseignant().getNom() != null ? slot.getEnseignant().getNom() : "");
+            writer.write(' ');
+            writer.write(slot.getEnseignant().getPrenom() != null ? slot.getEnseignant().getPrenom() : "");
+            writer.write("</div>");
+        }
+        if (slot.getSalle() != null) {
+            writer.write("<div>");
+            writer.write(slot.getSalle().getNom() != null ? slot.getSalle().getNom() : "");
+            writer.write("</div>");
+        }
+    }// writeSlotContent()
+
+    private void writeTime(int minutes, Writer writer) throws IOException {
+        writer.write(LocalTimeUtils.formatTime(minutes / 60 % 24));
+        writer.write(':');
+        writer.write(LocalTimeUtils.formatTime(minutes % 60));
+    }// writeTime()
+
+}// PlanningHtmlRenderer
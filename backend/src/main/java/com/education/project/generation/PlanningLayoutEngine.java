@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.generation;
+
+import com.education.project.enums.JourEnum;
+import com.education.project.model.Options;
+import com.education.project.model.Slot;
+
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moteur de mise en page d'un planning. Chaque slot est converti une seule fois
+ * en intervalle de minutes [début, fin[, les intervalles sont triés par jour puis
+ * les cellules sont calculées en un seul parcours linéaire.
+ * Les slots qui se chevauchent (quel que soit leur nombre) sont regroupés dans
+ * une même cellule divisée en groupes couvrant l'union de leurs créneaux.
+ * Le résultat (PlanningGrid) est indépendant du format de sortie.
+ */
+public class PlanningLayoutEngine {
+
+    private static final Comparator<Slot> COMPARE_BY_TIMESLOT = Comparator
+            .comparingInt((Slot slot) -> slot.getTimeSlot().getStart().get(ChronoField.MINUTE_OF_DAY))
+            .thenComparingInt(slot -> slot.getTimeSlot().getEnd().get(ChronoField.MINUTE_OF_DAY));
+
+    /**
+     * Mise en page du planning : seuls les jours ayant au moins un slot apparaissent,
+     * dans l'ordre de la semaine.
+     *
+     * @param options Options de l'application (découpage, heures de début et de fin)
+     * @param slotsByDay Slots par jour (clé : valeur de JourEnum)
+     * @return planning mis en page
+     */
+    public PlanningGrid layout(Options options, Map<Integer, List<Slot>> slotsByDay) {
+        int split = options.getSplitPlanning();
+        int startMinute = options.getStartHourPlanning().get(ChronoField.MINUTE_OF_DAY);
+        int endMinute = options.getEndHourPlanning().get(ChronoField.MINUTE_OF_DAY);
+        int nbRows = Math.max(0, (endMinute - startMinute) / split);
+        PlanningGrid grid = new PlanningGrid(startMinute, split, nbRows);
+        for (JourEnum jour : JourEnum.values()) {
+            List<Slot> slotsOfDay = slotsByDay.get(jour.getVal());
+            if (slotsOfDay == null || slotsOfDay.isEmpty()) {
+                continue;
+            }
+            List<Slot> sortedSlots = new ArrayList<>(slotsOfDay);
+            sortedSlots.sort(COMPARE_BY_TIMESLOT);
+            layoutColumn(grid.addColumn(jour, sortedSlots), sortedSlots, startMinute, split, nbRows);
+        }
+        return grid;
+    }// layout()
+
+    /**
+     * Calcul des cellules d'une colonne en un seul parcours des slots triés.
+     *
+     * @param column Colonne à remplir
+     * @param sortedSlots Slots du jour triés par début puis par fin
+     * @param startMinute Heure de début du planning en minutes
+     * @param split Découpage du planning en minutes
+     * @param nbRows Nombre de lignes du planning
+     */
+    private void layoutColumn(PlanningGrid.Column column, List<Slot> sortedSlots, int startMinute, int split, int nbRows) {
+        int nbSlots = sortedSlots.size();
+        int[] starts = new int[nbSlots];
+        int[] ends = new int[nbSlots];
+        for (int i = 0; i < nbSlots; ++i) {
+            starts[i] = sortedSlots.get(i).getTimeSlot().getStart().get(ChronoField.MINUTE_OF_DAY) - startMinute;
+            ends[i] = sortedSlots.get(i).getTimeSlot().getEnd().get(ChronoField.MINUTE_OF_DAY) - startMinute;
+        }
+
+        int cursorRow = 0;
+        int i = 0;
+        while (i < nbSlots && cursorRow < nbRows) {
+            // Regroupement des slots qui chevauchent le slot courant
+            int groupEnd = ends[i];
+            int next = i + 1;
+            while (next < nbSlots && starts[next] < groupEnd) {
+                groupEnd = Math.max(groupEnd, ends[next]);
+                ++next;
+            }
+            if (groupEnd <= 0 || starts[i] >= nbRows * split) {
+                i = next; // slots en dehors des heures du planning
+                continue;
+            }
+            // Une cellule couvre au minimum une ligne ; si elle est décalée par la précédente, elle garde sa durée
+            int naturalFirstRow = Math.max(0, Math.floorDiv(starts[i], split));
+            int rowspan = Math.max(1, ceilDiv(groupEnd, split) - naturalFirstRow);
+            int firstRow = Math.max(cursorRow, naturalFirstRow);
+            int lastRow = Math.min(nbRows, firstRow + rowspan);
+            if (firstRow > cursorRow) {
+                column.setCell(cursorRow, firstRow - cursorRow, -1, 0); // cellule vide
+            }
+            column.setCell(firstRow, lastRow - firstRow, i, next - i);
+            cursorRow = lastRow;
+            i = next;
+        }
+        // On s'occupe des cellules entre le dernier slot et la dernière heure du planning
+        for (; cursorRow < nbRows; ++cursorRow) {
+            column.setCell(cursorRow, 1, -1, 0);
+        }
+    }// layoutColumn()
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }// ceilDiv()
+
+}// PlanningLayoutEngine
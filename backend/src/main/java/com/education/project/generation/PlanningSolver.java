@@ -0,0 +1,890 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.generation;
+
+import com.education.project.enums.JourEnum;
+import com.education.project.model.*;
+import com.education.project.utils.LocalTimeUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moteur de génération automatique des plannings d'une ou plusieurs classes, qui partagent les mêmes
+ * enseignants et les mêmes salles.
+ * Le volume horaire de chaque matière d'une classe est découpé en cours dont la durée correspond à un créneau horaire,
+ * puis chaque cours reçoit un emplacement (jour et créneau), un enseignant et une salle.
+ * Plusieurs recherches locales indépendantes (construction gloutonne aléatoire puis mouvements
+ * déplacer / échanger / changer d'enseignant ou de salle) sont menées en parallèle jusqu'à la fin
+ * du temps imparti, ou jusqu'à ce que l'une d'elles trouve une solution sans aucune pénalité.
+ * Le score d'une solution compte les contraintes fortes non respectées (une classe, un enseignant ou une salle
+ * a deux cours en même temps, l'enseignant ou la salle est déjà occupé par un slot existant) puis les préférences
+ * non respectées (une matière deux fois le même jour, deux enseignants pour la même matière d'une classe) :
+ * la meilleure solution est celle qui a le moins de contraintes fortes non respectées, puis le moins de préférences
+ * non respectées. Chaque recherche tient à jour le nombre de cours par emplacement de chaque classe, enseignant
+ * et salle : un mouvement est évalué par différence de score, en ne parcourant que les emplacements qui
+ * chevauchent ceux qu'il modifie.
+ */
+public class PlanningSolver {
+
+    private final static Logger LOGGER = LogManager.getLogger(PlanningSolver.class);
+
+    /**
+     * Poids d'une contrainte forte dans le score (une contrainte forte compte plus que toutes les préférences)
+     */
+    private static final long HARD_WEIGHT = 1_000_000_000L;
+
+    /**
+     * Probabilité, sur 1000, d'accepter un mouvement qui dégrade le score (pour sortir d'un minimum local)
+     */
+    private static final int WORSE_ACCEPTANCE = 5;
+
+    /**
+     * Nombre de mouvements sans amélioration après lequel une recherche repart de sa meilleure solution
+     */
+    private static final int RESTART_AFTER = 50_000;
+
+    /**
+     * Nombre de tirages pour trouver un cours en conflit à déplacer (un mouvement sur deux)
+     */
+    private static final int CONFLICT_PICKS = 8;
+
+    /**
+     * Emplacement possible d'un cours : un créneau horaire un jour donné
+     */
+    public static class Cell {
+
+        private final int jour;
+
+        private final TimeSlot timeSlot;
+
+        private final int start;
+
+        private final int end;
+
+        public Cell(int jour, TimeSlot timeSlot) {
+            this.jour = jour;
+            this.timeSlot = timeSlot;
+            this.start = timeSlot.getStart().toSecondOfDay() / 60;
+            this.end = timeSlot.getEnd().toSecondOfDay() / 60;
+        }// Cell()
+
+        public int getJour() {
+            return jour;
+        }// getJour()
+
+        public TimeSlot getTimeSlot() {
+            return timeSlot;
+        }// getTimeSlot()
+
+        private int duration() {
+            return end - start;
+        }// duration()
+
+        private boolean overlaps(Cell other) {
+            return jour == other.jour && start < other.end && other.start < end;
+        }// overlaps()
+
+        /**
+         * @return vrai si aucune minute du créneau n'est occupée ce jour-là
+         */
+        private boolean isFree(Map<Integer, BitSet> occupiedMinutesByJour) {
+            BitSet minutes = occupiedMinutesByJour != null ? occupiedMinutesByJour.get(jour) : null;
+            if (minutes == null) {
+                return true;
+            }
+            int next = minutes.nextSetBit(start);
+            return next < 0 || next >= end;
+        }// isFree()
+
+    }// Cell
+
+    /**
+     * Planning à générer : la classe, ses matières, les enseignants et les salles qu'elle peut utiliser
+     * (aucun enseignant ou aucune salle n'est affecté si la liste est vide) et ses jours
+     */
+    public static class Demand {
+
+        private final Classe classe;
+
+        private final List<Matiere> matieres;
+
+        private final List<Enseignant> enseignants;
+
+        private final List<Salle> salles;
+
+        private final Set<Integer> jours;
+
+        public Demand(Classe classe, List<Matiere> matieres, List<Enseignant> enseignants, List<Salle> salles, Set<Integer> jours) {
+            this.classe = classe;
+            this.matieres = matieres;
+            this.enseignants = enseignants;
+            this.salles = salles;
+            this.jours = jours;
+        }// Demand()
+
+        public Classe getClasse() {
+            return classe;
+        }// getClasse()
+
+        public List<Matiere> getMatieres() {
+            return matieres;
+        }// getMatieres()
+
+        public List<Enseignant> getEnseignants() {
+            return enseignants;
+        }// getEnseignants()
+
+        public List<Salle> getSalles() {
+            return salles;
+        }// getSalles()
+
+        public Set<Integer> getJours() {
+            return jours;
+        }// getJours()
+
+    }// Demand
+
+    /**
+     * Résultat de la recherche : slots de la meilleure solution trouvée (sans couleurs ni identifiants) et son score
+     */
+    public static class Result {
+
+        private final List<List<Slot>> slotsByDemand;
+
+        private final int hardScore;
+
+        private final int softScore;
+
+        private final long iterations;
+
+        private final int workers;
+
+        private final List<PlanningSolution.Progress> progress;
+
+        private Result(List<List<Slot>> slotsByDemand, long score, long iterations, int workers, List<PlanningSolution.Progress> progress) {
+            this.slotsByDemand = slotsByDemand;
+            this.hardScore = (int) (score / HARD_WEIGHT);
+            this.softScore = (int) (score % HARD_WEIGHT);
+            this.iterations = iterations;
+            this.workers = workers;
+            this.progress = progress;
+        }// Result()
+
+        /**
+         * @param demand Indice du planning demandé
+         * @return slots du planning, triés par jour puis par heure de début
+         */
+        public List<Slot> getSlots(int demand) {
+            return slotsByDemand.get(demand);
+        }// getSlots()
+
+        public int getHardScore() {
+            return hardScore;
+        }// getHardScore()
+
+        public int getSoftScore() {
+            return softScore;
+        }// getSoftScore()
+
+        public long getIterations() {
+            return iterations;
+        }// getIterations()
+
+        public int getWorkers() {
+            return workers;
+        }// getWorkers()
+
+        public List<PlanningSolution.Progress> getProgress() {
+            return progress;
+        }// getProgress()
+
+    }// Result
+
+    /**
+     * Suivi du meilleur score toutes recherches confondues
+     */
+    private static class Tracker {
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong iterations = new AtomicLong();
+
+        private final AtomicBoolean solved = new AtomicBoolean();
+
+        private final List<PlanningSolution.Progress> progress = new ArrayList<>();
+
+        private long bestScore = Long.MAX_VALUE;
+
+        private synchronized void offer(long score) {
+            if (score >= bestScore) {
+                return;
+            }
+            bestScore = score;
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+            progress.add(new PlanningSolution.Progress(elapsedMillis, iterations.get(), (int) (score / HARD_WEIGHT), (int) (score % HARD_WEIGHT)));
+            LOGGER.debug("Génération des plannings : score {}/{} après {} ms", score / HARD_WEIGHT, score % HARD_WEIGHT, elapsedMillis);
+            if (score == 0) {
+                solved.set(true);
+            }
+        }// offer()
+
+    }// Tracker
+
+    /**
+     * Solution en cours d'une recherche : emplacement, enseignant et salle de chaque cours (indices, -1 si aucun)
+     * et compteurs nécessaires au calcul du score par différence
+     */
+    private class State {
+
+        private final int[] cell;
+
+        private final int[] enseignant;
+
+        private final int[] salle;
+
+        /**
+         * Nombre de cours par emplacement de chaque classe, de chaque enseignant et de chaque salle
+         */
+        private final int[][] classeCount;
+
+        private final int[][] enseignantCount;
+
+        private final int[][] salleCount;
+
+        /**
+         * Nombre de cours placés de chaque matière d'une classe, par jour et par enseignant
+         * (indice dans les enseignants de la classe, + 1 : 0 pour aucun enseignant)
+         */
+        private final int[] groupCount;
+
+        private final int[][] groupJourCount;
+
+        private final int[][] groupEnseignantCount;
+
+        private long hard;
+
+        private long soft;
+
+        private State() {
+            int nbLessons = durationOf.length;
+            cell = new int[nbLessons];
+            enseignant = new int[nbLessons];
+            salle = new int[nbLessons];
+            Arrays.fill(cell, -1);
+            classeCount = new int[demands.size()][cells.size()];
+            enseignantCount = new int[enseignants.size()][cells.size()];
+            salleCount = new int[salles.size()][cells.size()];
+            groupCount = new int[lessonsOfGroup.length];
+            groupJourCount = new int[lessonsOfGroup.length][JourEnum.values().length + 1];
+            groupEnseignantCount = new int[lessonsOfGroup.length][];
+            for (int g = 0; g < lessonsOfGroup.length; ++g) {
+                groupEnseignantCount[g] = new int[allowedEnseignants[demandOfGroup[g]].length + 1];
+            }
+        }// State()
+
+        private long score() {
+            return hard * HARD_WEIGHT + soft;
+        }// score()
+
+        /**
+         * Place un cours (non placé) et met à jour le score
+         */
+        private void place(int i, int c, int e, int s) {
+            int k = demandOf[i];
+            int g = groupOf[i];
+            hard += overlapping(classeCount[k], c);
+            classeCount[k][c]++;
+            if (e >= 0) {
+                hard += overlapping(enseignantCount[e], c);
+                enseignantCount[e][c]++;
+            }
+            if (s >= 0) {
+                hard += overlapping(salleCount[s], c);
+                salleCount[s][c]++;
+            }
+            hard += unavailability(i, c, e, s);
+            soft += groupJourCount[g][jourOf[c]]++;
+            int local = e >= 0 ? localEnseignant[k][e] + 1 : 0;
+            soft += groupCount[g] - groupEnseignantCount[g][local];
+            groupEnseignantCount[g][local]++;
+            groupCount[g]++;
+            cell[i] = c;
+            enseignant[i] = e;
+            salle[i] = s;
+        }// place()
+
+        /**
+         * Retire un cours placé et met à jour le score
+         */
+        private void unplace(int i) {
+            int k = demandOf[i];
+            int g = groupOf[i];
+            int c = cell[i];
+            int e = enseignant[i];
+            int s = salle[i];
+            int local = e >= 0 ? localEnseignant[k][e] + 1 : 0;
+            groupCount[g]--;
+            groupEnseignantCount[g][local]--;
+            soft -= groupCount[g] - groupEnseignantCount[g][local];
+            soft -= --groupJourCount[g][jourOf[c]];
+            hard -= unavailability(i, c, e, s);
+            if (s >= 0) {
+                salleCount[s][c]--;
+                hard -= overlapping(salleCount[s], c);
+            }
+            if (e >= 0) {
+                enseignantCount[e][c]--;
+                hard -= overlapping(enseignantCount[e], c);
+            }
+            classeCount[k][c]--;
+            hard -= overlapping(classeCount[k], c);
+            cell[i] = -1;
+        }// unplace()
+
+        /**
+         * @return nombre de contraintes fortes non respectées par un cours placé
+         */
+        private long conflicts(int i) {
+            int c = cell[i];
+            long conflicts = overlapping(classeCount[demandOf[i]], c) - 1 + unavailability(i, c, enseignant[i], salle[i]);
+            if (enseignant[i] >= 0) {
+                conflicts += overlapping(enseignantCount[enseignant[i]], c) - 1;
+            }
+            if (salle[i] >= 0) {
+                conflicts += overlapping(salleCount[salle[i]], c) - 1;
+            }
+            return conflicts;
+        }// conflicts()
+
+        /**
+         * Replace tous les cours selon une solution
+         */
+        private void reset(int[] cells, int[] enseignants, int[] salles) {
+            for (int i = 0; i < cell.length; ++i) {
+                if (cell[i] >= 0) {
+                    unplace(i);
+                }
+            }
+            for (int i = 0; i < cell.length; ++i) {
+                place(i, cells[i], enseignants[i], salles[i]);
+            }
+        }// reset()
+
+    }// State
+
+    private final List<Cell> cells;
+
+    private final List<Demand> demands;
+
+    /**
+     * Enseignants et salles de toutes les classes (sans doublon)
+     */
+    private final List<Enseignant> enseignants = new ArrayList<>();
+
+    private final List<Salle> salles = new ArrayList<>();
+
+    /**
+     * Enseignants et salles utilisables par chaque classe (indices dans les listes précédentes) et position
+     * de chaque enseignant dans les enseignants de la classe
+     */
+    private final int[][] allowedEnseignants;
+
+    private final int[][] allowedSalles;
+
+    private final int[][] localEnseignant;
+
+    /**
+     * Jour de chaque emplacement et emplacements qui chevauchent chaque emplacement (lui compris)
+     */
+    private final int[] jourOf;
+
+    private final int[][] overlapping;
+
+    /**
+     * Disponibilité de chaque enseignant et de chaque salle sur chaque emplacement
+     */
+    private final boolean[][] enseignantFree;
+
+    private final boolean[][] salleFree;
+
+    /**
+     * Planning demandé, matière (d'une classe) et durée en minutes de chaque cours
+     */
+    private final int[] demandOf;
+
+    private final int[] groupOf;
+
+    private final int[] durationOf;
+
+    /**
+     * Planning demandé et matière de chaque matière d'une classe, et ses cours
+     */
+    private final int[] demandOfGroup;
+
+    private final Matiere[] matiereOfGroup;
+
+    private final int[][] lessonsOfGroup;
+
+    /**
+     * Emplacements possibles de chaque cours (créneaux de même durée, les jours du planning)
+     */
+    private final int[][] candidates;
+
+    /**
+     * Autres cours de la même classe et de même durée que chaque cours (échanges possibles)
+     */
+    private final int[][] sameDuration;
+
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * @param cells Emplacements utilisables
+     * @param demands Plannings à générer
+     * @param enseignantsOccupiedMinutes Minutes déjà occupées par jour, par identifiant d'enseignant
+     * @param sallesOccupiedMinutes Minutes déjà occupées par jour, par identifiant de salle
+     */
+    public PlanningSolver(List<Cell> cells, List<Demand> demands, Map<Integer, Map<Integer, BitSet>> enseignantsOccupiedMinutes,
+                          Map<Integer, Map<Integer, BitSet>> sallesOccupiedMinutes) {
+        this.cells = cells;
+        this.demands = demands;
+        int nbCells = cells.size();
+        jourOf = new int[nbCells];
+        overlapping = new int[nbCells][];
+        for (int c = 0; c < nbCells; ++c) {
+            jourOf[c] = cells.get(c).jour;
+            List<Integer> others = new ArrayList<>();
+            for (int d = 0; d < nbCells; ++d) {
+                if (cells.get(c).overlaps(cells.get(d))) {
+                    others.add(d);
+                }
+            }
+            overlapping[c] = toArray(others);
+        }
+        Map<Integer, Integer> enseignantIndexes = new HashMap<>();
+        Map<Integer, Integer> salleIndexes = new HashMap<>();
+        allowedEnseignants = new int[demands.size()][];
+        allowedSalles = new int[demands.size()][];
+        for (int k = 0; k < demands.size(); ++k) {
+            Demand demand = demands.get(k);
+            allowedEnseignants[k] = new int[demand.enseignants.size()];
+            for (int e = 0; e < demand.enseignants.size(); ++e) {
+                Enseignant enseignant = demand.enseignants.get(e);
+                allowedEnseignants[k][e] = enseignantIndexes.computeIfAbsent(enseignant.getId(), id -> {
+                    enseignants.add(enseignant);
+                    return enseignants.size() - 1;
+                });
+            }
+            allowedSalles[k] = new int[demand.salles.size()];
+            for (int s = 0; s < demand.salles.size(); ++s) {
+                Salle salle = demand.salles.get(s);
+                allowedSalles[k][s] = salleIndexes.computeIfAbsent(salle.getId(), id -> {
+                    salles.add(salle);
+                    return salles.size() - 1;
+                });
+            }
+        }
+        localEnseignant = new int[demands.size()][enseignants.size()];
+        for (int k = 0; k < demands.size(); ++k) {
+            for (int e = 0; e < allowedEnseignants[k].length; ++e) {
+                localEnseignant[k][allowedEnseignants[k][e]] = e;
+            }
+        }
+        enseignantFree = new boolean[enseignants.size()][nbCells];
+        for (int e = 0; e < enseignants.size(); ++e) {
+            for (int c = 0; c < nbCells; ++c) {
+                enseignantFree[e][c] = cells.get(c).isFree(enseignantsOccupiedMinutes.get(enseignants.get(e).getId()));
+            }
+        }
+        salleFree = new boolean[salles.size()][nbCells];
+        for (int s = 0; s < salles.size(); ++s) {
+            for (int c = 0; c < nbCells; ++c) {
+                salleFree[s][c] = cells.get(c).isFree(sallesOccupiedMinutes.get(salles.get(s).getId()));
+            }
+        }
+        List<Integer> lessonDemands = new ArrayList<>();
+        List<Integer> lessonGroups = new ArrayList<>();
+        List<Integer> lessonDurations = new ArrayList<>();
+        List<Integer> groupDemands = new ArrayList<>();
+        List<Matiere> groupMatieres = new ArrayList<>();
+        List<int[]> groupLessons = new ArrayList<>();
+        List<int[]> lessonCandidates = new ArrayList<>();
+        for (int k = 0; k < demands.size(); ++k) {
+            Demand demand = demands.get(k);
+            Map<Integer, List<Integer>> cellsByDuration = new TreeMap<>(Comparator.reverseOrder());
+            for (int c = 0; c < nbCells; ++c) {
+                if (demand.jours.contains(jourOf[c])) {
+                    cellsByDuration.computeIfAbsent(cells.get(c).duration(), key -> new ArrayList<>()).add(c);
+                }
+            }
+            int[] durations = toArray(cellsByDuration.keySet());
+            for (Matiere matiere : demand.matieres) {
+                int volume = (int) LocalTimeUtils.hhmmToLong(matiere.getVolumeHoraire());
+                List<Integer> parts = decompose(volume, durations);
+                int placed = parts.stream().mapToInt(Integer::intValue).sum();
+                if (placed < volume) {
+                    warnings.add((demands.size() > 1 ? "Classe " + demand.classe.getNom() + " : l" : "L") + "e volume horaire de la matière "
+                            + matiere.getNom() + " (" + matiere.getVolumeHoraire() + ") ne peut pas être atteint avec les créneaux horaires disponibles : "
+                            + toHhmm(placed) + " placées");
+                }
+                int[] lessons = new int[parts.size()];
+                for (int p = 0; p < parts.size(); ++p) {
+                    lessons[p] = lessonDemands.size();
+                    lessonDemands.add(k);
+                    lessonGroups.add(groupDemands.size());
+                    lessonDurations.add(parts.get(p));
+                    lessonCandidates.add(toArray(cellsByDuration.get(parts.get(p))));
+                }
+                groupDemands.add(k);
+                groupMatieres.add(matiere);
+                groupLessons.add(lessons);
+            }
+        }
+        demandOf = toArray(lessonDemands);
+        groupOf = toArray(lessonGroups);
+        durationOf = toArray(lessonDurations);
+        demandOfGroup = toArray(groupDemands);
+        matiereOfGroup = groupMatieres.toArray(new Matiere[0]);
+        lessonsOfGroup = groupLessons.toArray(new int[0][]);
+        candidates = lessonCandidates.toArray(new int[0][]);
+        Map<Long, List<Integer>> lessonsByDemandAndDuration = new HashMap<>();
+        for (int i = 0; i < durationOf.length; ++i) {
+            lessonsByDemandAndDuration.computeIfAbsent(((long) demandOf[i] << 32) | durationOf[i], key -> new ArrayList<>()).add(i);
+        }
+        sameDuration = new int[durationOf.length][];
+        for (int i = 0; i < durationOf.length; ++i) {
+            int lesson = i;
+            sameDuration[i] = lessonsByDemandAndDuration.get(((long) demandOf[i] << 32) | durationOf[i]).stream()
+                    .filter(j -> j != lesson).mapToInt(Integer::intValue).toArray();
+        }
+    }// PlanningSolver()
+
+    /**
+     * @return avertissements sur les volumes horaires impossibles à atteindre
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }// getWarnings()
+
+    /**
+     * @return nombre de cours à placer
+     */
+    public int getNbLessons() {
+        return durationOf.length;
+    }// getNbLessons()
+
+    /**
+     * Recherche de la meilleure solution : une recherche par thread du pool, jusqu'à la fin du temps imparti
+     * ou jusqu'à ce qu'une recherche trouve une solution sans pénalité.
+     * @param pool Pool de threads
+     * @param timeBudgetMillis Temps de recherche maximum en millisecondes
+     * @return meilleure solution trouvée
+     */
+    public Result solve(ForkJoinPool pool, long timeBudgetMillis) {
+        Tracker tracker = new Tracker();
+        if (durationOf.length == 0) {
+            return new Result(toSlots(null), 0, 0, 0, tracker.progress);
+        }
+        long deadline = tracker.startNanos + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        int nbWorkers = Math.max(1, pool.getParallelism());
+        long seed = System.nanoTime();
+        List<Callable<State>> tasks = new ArrayList<>(nbWorkers);
+        for (int w = 0; w < nbWorkers; ++w) {
+            Random random = new Random(seed + w);
+            tasks.add(() -> search(random, deadline, tracker));
+        }
+        State best = null;
+        try {
+            for (Future<State> future : pool.invokeAll(tasks)) {
+                State state = future.get();
+                if (best == null || state.score() < best.score()) {
+                    best = state;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération des plannings interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur lors de la génération des plannings", e.getCause());
+        }
+        return new Result(toSlots(best), best.score(), tracker.iterations.get(), nbWorkers, tracker.progress);
+    }// solve()
+
+    /**
+     * Recherche locale à partir d'une construction gloutonne aléatoire
+     * @return meilleure solution trouvée par cette recherche
+     */
+    private State search(Random random, long deadline, Tracker tracker) {
+        State state = construct(random);
+        int nbLessons = durationOf.length;
+        int[] bestCell = state.cell.clone();
+        int[] bestEnseignant = state.enseignant.clone();
+        int[] bestSalle = state.salle.clone();
+        long bestScore = state.score();
+        tracker.offer(bestScore);
+        int[] moved = new int[nbLessons];
+        int[] oldCell = new int[nbLessons];
+        int[] oldEnseignant = new int[nbLessons];
+        int[] oldSalle = new int[nbLessons];
+        long iterations = 0;
+        int stale = 0;
+        while (bestScore > 0 && !tracker.solved.get()) {
+            if ((++iterations & 0xFF) == 0) {
+                tracker.iterations.addAndGet(0x100);
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+            long before = state.score();
+            int i = pick(state, random);
+            int kind = random.nextInt(10);
+            int nbMoved = 0;
+            int k = demandOf[i];
+            if (kind >= 5 && kind <= 6 && sameDuration[i].length > 0) {
+                int j = sameDuration[i][random.nextInt(sameDuration[i].length)];
+                nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, 0, i);
+                nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, nbMoved, j);
+                state.unplace(i);
+                state.unplace(j);
+                state.place(i, oldCell[1], oldEnseignant[0], oldSalle[0]);
+                state.place(j, oldCell[0], oldEnseignant[1], oldSalle[1]);
+            } else if (kind == 7 && allowedEnseignants[k].length > 0) {
+                nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, 0, i);
+                state.unplace(i);
+                state.place(i, oldCell[0], allowedEnseignants[k][random.nextInt(allowedEnseignants[k].length)], oldSalle[0]);
+            } else if (kind == 8 && allowedEnseignants[k].length > 0) {
+                int enseignant = allowedEnseignants[k][random.nextInt(allowedEnseignants[k].length)];
+                for (int j : lessonsOfGroup[groupOf[i]]) {
+                    nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, nbMoved, j);
+                    state.unplace(j);
+                    state.place(j, oldCell[nbMoved - 1], enseignant, oldSalle[nbMoved - 1]);
+                }
+            } else if (kind == 9 && allowedSalles[k].length > 0) {
+                nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, 0, i);
+                state.unplace(i);
+                state.place(i, oldCell[0], oldEnseignant[0], allowedSalles[k][random.nextInt(allowedSalles[k].length)]);
+            } else {
+                nbMoved = save(state, moved, oldCell, oldEnseignant, oldSalle, 0, i);
+                state.unplace(i);
+                state.place(i, candidates[i][random.nextInt(candidates[i].length)], oldEnseignant[0], oldSalle[0]);
+            }
+            long score = state.score();
+            if (score > before && random.nextInt(1000) >= WORSE_ACCEPTANCE) {
+                for (int m = nbMoved - 1; m >= 0; --m) {
+                    state.unplace(moved[m]);
+                }
+                for (int m = 0; m < nbMoved; ++m) {
+                    state.place(moved[m], oldCell[m], oldEnseignant[m], oldSalle[m]);
+                }
+                score = before;
+            }
+            if (score < bestScore) {
+                System.arraycopy(state.cell, 0, bestCell, 0, nbLessons);
+                System.arraycopy(state.enseignant, 0, bestEnseignant, 0, nbLessons);
+                System.arraycopy(state.salle, 0, bestSalle, 0, nbLessons);
+                bestScore = score;
+                stale = 0;
+                tracker.offer(bestScore);
+            } else if (++stale >= RESTART_AFTER) {
+                state.reset(bestCell, bestEnseignant, bestSalle);
+                stale = 0;
+            }
+        }
+        tracker.iterations.addAndGet(iterations & 0xFF);
+        state.reset(bestCell, bestEnseignant, bestSalle);
+        return state;
+    }// search()
+
+    /**
+     * Choix du cours à modifier : un cours en conflit une fois sur deux (s'il en est trouvé un), sinon un cours quelconque
+     */
+    private int pick(State state, Random random) {
+        int i = random.nextInt(durationOf.length);
+        if (state.hard > 0 && random.nextBoolean()) {
+            for (int p = 0; p < CONFLICT_PICKS && state.conflicts(i) == 0; ++p) {
+                i = random.nextInt(durationOf.length);
+            }
+        }
+        return i;
+    }// pick()
+
+    /**
+     * Mémorise l'emplacement, l'enseignant et la salle d'un cours avant un mouvement
+     * @return nombre de cours mémorisés
+     */
+    private static int save(State state, int[] moved, int[] oldCell, int[] oldEnseignant, int[] oldSalle, int nbMoved, int i) {
+        moved[nbMoved] = i;
+        oldCell[nbMoved] = state.cell[i];
+        oldEnseignant[nbMoved] = state.enseignant[i];
+        oldSalle[nbMoved] = state.salle[i];
+        return nbMoved + 1;
+    }// save()
+
+    /**
+     * Construction gloutonne : les cours les plus longs sont placés en premier, chacun sur l'emplacement, avec l'enseignant
+     * et la salle, les moins pénalisés (à pénalité égale, le premier emplacement rencontré à partir d'une position aléatoire)
+     */
+    private State construct(Random random) {
+        int nbLessons = durationOf.length;
+        List<Integer> order = new ArrayList<>(nbLessons);
+        for (int i = 0; i < nbLessons; ++i) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+        order.sort(Comparator.comparingInt((Integer i) -> durationOf[i]).reversed());
+        State state = new State();
+        int[] enseignantOfGroup = new int[lessonsOfGroup.length];
+        Arrays.fill(enseignantOfGroup, -1);
+        for (int i : order) {
+            int k = demandOf[i];
+            int g = groupOf[i];
+            long bestCost = Long.MAX_VALUE;
+            int bestCell = -1;
+            int bestEnseignant = -1;
+            int bestSalle = -1;
+            int offset = random.nextInt(candidates[i].length);
+            for (int n = 0; n < candidates[i].length && bestCost > 0; ++n) {
+                int c = candidates[i][(offset + n) % candidates[i].length];
+                long cost = overlapping(state.classeCount[k], c) * HARD_WEIGHT + state.groupJourCount[g][jourOf[c]];
+                int enseignant = -1;
+                long enseignantCost = allowedEnseignants[k].length > 0 ? Long.MAX_VALUE : 0;
+                for (int e : allowedEnseignants[k]) {
+                    long eCost = (overlapping(state.enseignantCount[e], c) + (enseignantFree[e][c] ? 0 : 1)) * HARD_WEIGHT
+                            + (enseignantOfGroup[g] < 0 || enseignantOfGroup[g] == e ? 0 : 1);
+                    if (eCost < enseignantCost) {
+                        enseignantCost = eCost;
+                        enseignant = e;
+                    }
+                }
+                int salle = -1;
+                long salleCost = allowedSalles[k].length > 0 ? Long.MAX_VALUE : 0;
+                int salleOffset = allowedSalles[k].length > 0 ? random.nextInt(allowedSalles[k].length) : 0;
+                for (int n2 = 0; n2 < allowedSalles[k].length && salleCost > 0; ++n2) {
+                    int s = allowedSalles[k][(salleOffset + n2) % allowedSalles[k].length];
+                    long sCost = (overlapping(state.salleCount[s], c) + (salleFree[s][c] ? 0 : 1)) * HARD_WEIGHT;
+                    if (sCost < salleCost) {
+                        salleCost = sCost;
+                        salle = s;
+                    }
+                }
+                cost += enseignantCost + salleCost;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestCell = c;
+                    bestEnseignant = enseignant;
+                    bestSalle = salle;
+                }
+            }
+            state.place(i, bestCell, bestEnseignant, bestSalle);
+            if (enseignantOfGroup[g] < 0) {
+                enseignantOfGroup[g] = bestEnseignant;
+            }
+        }
+        return state;
+    }// construct()
+
+    /**
+     * @return nombre de cours placés sur les emplacements qui chevauchent un emplacement
+     */
+    private int overlapping(int[] countByCell, int c) {
+        int count = 0;
+        for (int d : overlapping[c]) {
+            count += countByCell[d];
+        }
+        return count;
+    }// overlapping()
+
+    /**
+     * @return nombre de ressources manquantes ou déjà occupées par un slot existant pour un cours placé sur un emplacement
+     */
+    private int unavailability(int i, int c, int e, int s) {
+        int k = demandOf[i];
+        int unavailability = 0;
+        if (allowedEnseignants[k].length > 0 && (e < 0 || !enseignantFree[e][c])) {
+            unavailability++;
+        }
+        if (allowedSalles[k].length > 0 && (s < 0 || !salleFree[s][c])) {
+            unavailability++;
+        }
+        return unavailability;
+    }// unavailability()
+
+    /**
+     * Conversion d'une solution en slots par planning demandé, triés par jour puis par heure de début
+     */
+    private List<List<Slot>> toSlots(State state) {
+        List<List<Slot>> slotsByDemand = new ArrayList<>(demands.size());
+        for (int k = 0; k < demands.size(); ++k) {
+            slotsByDemand.add(new ArrayList<>());
+        }
+        for (int i = 0; i < durationOf.length; ++i) {
+            Cell cell = cells.get(state.cell[i]);
+            Slot slot = new Slot(null, null, null, null, null, null, cell.timeSlot,
+                    state.enseignant[i] >= 0 ? enseignants.get(state.enseignant[i]) : null,
+                    matiereOfGroup[groupOf[i]],
+                    state.salle[i] >= 0 ? salles.get(state.salle[i]) : null);
+            slot.setJour(JourEnum.getEnumByVal(cell.jour).toJour());
+            slotsByDemand.get(demandOf[i]).add(slot);
+        }
+        for (List<Slot> slots : slotsByDemand) {
+            slots.sort(Comparator.comparingInt((Slot slot) -> slot.getJour().getId()).thenComparing(slot -> slot.getTimeSlot().getStart()));
+        }
+        return slotsByDemand;
+    }// toSlots()
+
+    /**
+     * Découpage d'un volume horaire en un minimum de cours dont les durées sont celles des créneaux horaires
+     * @param volume Volume horaire en minutes
+     * @param durations Durées des créneaux horaires en minutes
+     * @return durées des cours (de somme inférieure au volume si celui-ci ne peut pas être atteint exactement)
+     */
+    private static List<Integer> decompose(int volume, int[] durations) {
+        int[] count = new int[volume + 1];
+        int[] last = new int[volume + 1];
+        Arrays.fill(count, Integer.MAX_VALUE);
+        count[0] = 0;
+        for (int v = 1; v <= volume; ++v) {
+            for (int duration : durations) {
+                if (duration <= v && count[v - duration] != Integer.MAX_VALUE && count[v - duration] + 1 < count[v]) {
+                    count[v] = count[v - duration] + 1;
+                    last[v] = duration;
+                }
+            }
+        }
+        int reached = volume;
+        while (count[reached] == Integer.MAX_VALUE) {
+            reached--;
+        }
+        List<Integer> parts = new ArrayList<>();
+        for (int v = reached; v > 0; v -= last[v]) {
+            parts.add(last[v]);
+        }
+        return parts;
+    }// decompose()
+
+    private static int[] toArray(Collection<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }// toArray()
+
+    private static String toHhmm(int minutes) {
+        return LocalTimeUtils.formatTime(minutes / 60) + ":" + LocalTimeUtils.formatTime(minutes % 60);
+    }// toHhmm()
+
+}// PlanningSolver
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Résultat d'un élément d'une opération en masse (ex : création de plusieurs slots)
+ * @param <T> Type des éléments
+ */
+public class BulkItemResult<T> {
+
+    /**
+     * Position de l'élément dans la requête (à partir de 0)
+     */
+    private int index;
+
+    /**
+     * Élément enregistré (avec son identifiant), null s'il n'a pas été enregistré
+     */
+    private T value;
+
+    /**
+     * Erreurs de l'élément (vide si l'élément est valide)
+     */
+    private List<String> erreurs;
+
+    public BulkItemResult() {
+    }// BulkItemResult()
+
+    public BulkItemResult(int index, T value, List<String> erreurs) {
+        this.index = index;
+        this.value = value;
+        this.erreurs = erreurs;
+    }// BulkItemResult()
+
+    public int getIndex() {
+        return index;
+    }// getIndex()
+
+    public void setIndex(int index) {
+        this.index = index;
+    }// setIndex()
+
+    public T getValue() {
+        return value;
+    }// getValue()
+
+    public void setValue(T value) {
+        this.value = value;
+    }// setValue()
+
+    public List<String> getErreurs() {
+        return erreurs;
+    }// getErreurs()
+
+    public void setErreurs(List<String> erreurs) {
+        this.erreurs = erreurs;
+    }// setErreurs()
+
+}// BulkItemResult
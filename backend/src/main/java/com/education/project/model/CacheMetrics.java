@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+/**
+ * Classe représentant les statistiques d'un cache à un instant donné.
+ */
+public class CacheMetrics {
+
+    /**
+     * Nom du cache
+     */
+    private String nom;
+
+    /**
+     * Nombre de lectures servies par le cache
+     */
+    private long hits;
+
+    /**
+     * Nombre de lectures ayant nécessité un accès à la base de données
+     */
+    private long misses;
+
+    /**
+     * Nombre d'éléments retirés du cache (invalidation ou dépassement de capacité)
+     */
+    private long evictions;
+
+    /**
+     * Nombre d'éléments actuellement dans le cache
+     */
+    private int size;
+
+    public CacheMetrics() {
+    }// CacheMetrics()
+
+    public CacheMetrics(String nom, long hits, long misses, long evictions, int size) {
+        this.nom = nom;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }// CacheMetrics()
+
+    /**
+     * Taux de succès du cache
+     * @return valeur entre 0 et 1
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }// getHitRatio()
+
+    public String getNom() {
+        return nom;
+    }// getNom()
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }// setNom()
+
+    public long getHits() {
+        return hits;
+    }// getHits()
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }// setHits()
+
+    public long getMisses() {
+        return misses;
+    }// getMisses()
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }// setMisses()
+
+    public long getEvictions() {
+        return evictions;
+    }// getEvictions()
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }// setEvictions()
+
+    public int getSize() {
+        return size;
+    }// getSize()
+
+    public void setSize(int size) {
+        this.size = size;
+    }// setSize()
+
+}// CacheMetrics
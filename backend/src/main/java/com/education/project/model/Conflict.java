@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.time.LocalTime;
+
+/**
+ * Chevauchement de deux slots utilisant la même ressource (enseignant, salle ou classe) le même jour
+ */
+public class Conflict {
+
+    /**
+     * Type de la ressource (enseignant, salle ou classe)
+     */
+    private String ressource;
+
+    /**
+     * Identifiant de la ressource
+     */
+    private int idRessource;
+
+    /**
+     * Identifiant du jour
+     */
+    private int idJour;
+
+    /**
+     * Identifiants des deux slots qui se chevauchent
+     */
+    private int idSlot;
+
+    private int idAutreSlot;
+
+    /**
+     * Début et fin du chevauchement
+     */
+    private LocalTime start;
+
+    private LocalTime end;
+
+    public Conflict() {
+    }// Conflict()
+
+    public Conflict(String ressource, int idRessource, int idJour, int idSlot, int idAutreSlot, LocalTime start, LocalTime end) {
+        this.ressource = ressource;
+        this.idRessource = idRessource;
+        this.idJour = idJour;
+        this.idSlot = idSlot;
+        this.idAutreSlot = idAutreSlot;
+        this.start = start;
+        this.end = end;
+    }// Conflict()
+
+    public String getRessource() {
+        return ressource;
+    }// getRessource()
+
+    public void setRessource(String ressource) {
+        this.ressource = ressource;
+    }// setRessource()
+
+    public int getIdRessource() {
+        return idRessource;
+    }// getIdRessource()
+
+    public void setIdRessource(int idRessource) {
+        this.idRessource = idRessource;
+    }// setIdRessource()
+
+    public int getIdJour() {
+        return idJour;
+    }// getIdJour()
+
+    public void setIdJour(int idJour) {
+        this.idJour = idJour;
+    }// setIdJour()
+
+    public int getIdSlot() {
+        return idSlot;
+    }// getIdSlot()
+
+    public void setIdSlot(int idSlot) {
+        this.idSlot = idSlot;
+    }// setIdSlot()
+
+    public int getIdAutreSlot() {
+        return idAutreSlot;
+    }// getIdAutreSlot()
+
+    public void setIdAutreSlot(int idAutreSlot) {
+        this.idAutreSlot = idAutreSlot;
+    }// setIdAutreSlot()
+
+    public LocalTime getStart() {
+        return start;
+    }// getStart()
+
+    public void setStart(LocalTime start) {
+        this.start = start;
+    }// setStart()
+
+    public LocalTime getEnd() {
+        return end;
+    }// getEnd()
+
+    public void setEnd(LocalTime end) {
+        this.end = end;
+    }// setEnd()
+
+}// Conflict
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Page d'éléments retournée par les listings paginés (par curseur ou par numéro de page)
+ * @param <T> Type des éléments
+ */
+public class Page<T> {
+
+    /**
+     * Éléments de la page
+     */
+    private List<T> items;
+
+    /**
+     * Curseur à passer (paramètre after) pour obtenir la page suivante, null s'il s'agit de la dernière page
+     */
+    private String nextCursor;
+
+    /**
+     * Nombre total d'éléments correspondant aux filtres (pagination par numéro de page uniquement)
+     */
+    private Long total;
+
+    public Page() {
+    }// Page()
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }// Page()
+
+    public Page(List<T> items, long total) {
+        this.items = items;
+        this.total = total;
+    }// Page()
+
+    public List<T> getItems() {
+        return items;
+    }// getItems()
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }// setItems()
+
+    public String getNextCursor() {
+        return nextCursor;
+    }// getNextCursor()
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }// setNextCursor()
+
+    public Long getTotal() {
+        return total;
+    }// getTotal()
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }// setTotal()
+
+}// Page
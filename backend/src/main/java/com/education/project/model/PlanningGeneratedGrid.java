@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import com.education.project.enums.JourEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planning généré sous forme de grille (alternative au HTML) : une colonne par jour,
+ * les libellés des lignes et uniquement les cellules contenant des slots.
+ * Les lignes non couvertes par une cellule sont vides.
+ * Les slots, matières, enseignants et salles sont dédoublonnés dans des tables
+ * référencées par leur indice.
+ */
+public class PlanningGeneratedGrid {
+
+    /**
+     * Identifiant du planning généré
+     */
+    private int id;
+
+    /**
+     * Découpage du planning en minutes
+     */
+    private int split;
+
+    /**
+     * Libellés des lignes (ex : 08:00 - 09:00)
+     */
+    private List<String> rows;
+
+    /**
+     * Colonnes (jours) du planning
+     */
+    private List<Column> columns;
+
+    /**
+     * Slots référencés par les cellules
+     */
+    private List<SlotRef> slots;
+
+    /**
+     * Noms des matières référencées par les slots
+     */
+    private List<String> matieres;
+
+    /**
+     * Enseignants référencés par les slots
+     */
+    private List<EnseignantRef> enseignants;
+
+    /**
+     * Noms des salles référencées par les slots
+     */
+    private List<String> salles;
+
+    /**
+     * Avertissements liés au non respect de certaines règles métiers
+     */
+    private List<String> warnings;
+
+    public PlanningGeneratedGrid() {
+        this.rows = new ArrayList<>();
+        this.columns = new ArrayList<>();
+        this.slots = new ArrayList<>();
+        this.matieres = new ArrayList<>();
+        this.enseignants = new ArrayList<>();
+        this.salles = new ArrayList<>();
+        this.warnings = new ArrayList<>();
+    }// PlanningGeneratedGrid()
+
+    public PlanningGeneratedGrid(int id) {
+        this();
+        this.id = id;
+    }// PlanningGeneratedGrid()
+
+    public int getId() {
+        return id;
+    }// getId()
+
+    public void setId(int id) {
+        this.id = id;
+    }// setId()
+
+    public int getSplit() {
+        return split;
+    }// getSplit()
+
+    public void setSplit(int split) {
+        this.split = split;
+    }// setSplit()
+
+    public List<String> getRows() {
+        return rows;
+    }// getRows()
+
+    public List<Column> getColumns() {
+        return columns;
+    }// getColumns()
+
+    public List<SlotRef> getSlots() {
+        return slots;
+    }// getSlots()
+
+    public List<String> getMatieres() {
+        return matieres;
+    }// getMatieres()
+
+    public List<EnseignantRef> getEnseignants() {
+        return enseignants;
+    }// getEnseignants()
+
+    public List<String> getSalles() {
+        return salles;
+    }// getSalles()
+
+    public List<String> getWarnings() {
+        return warnings;
+    }// getWarnings()
+
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }// setWarnings()
+
+    /**
+     * Colonne (jour) du planning
+     */
+    public static class Column {
+
+        private JourEnum jour;
+
+        private List<Cell> cells;
+
+        public Column(JourEnum jour) {
+            this.jour = jour;
+            this.cells = new ArrayList<>();
+        }// Column()
+
+        public JourEnum getJour() {
+            return jour;
+        }// getJour()
+
+        public List<Cell> getCells() {
+            return cells;
+        }// getCells()
+
+    }// Column
+
+    /**
+     * Cellule du planning : ligne de début, nombre de lignes couvertes
+     * et indices des slots (plusieurs slots pour une cellule divisée en groupes)
+     */
+    public static class Cell {
+
+        private int row;
+
+        private int rowspan;
+
+        private List<Integer> slots;
+
+        public Cell(int row, int rowspan, List<Integer> slots) {
+            this.row = row;
+            this.rowspan = rowspan;
+            this.slots = slots;
+        }// Cell()
+
+        public int getRow() {
+            return row;
+        }// getRow()
+
+        public int getRowspan() {
+            return rowspan;
+        }// getRowspan()
+
+        public List<Integer> getSlots() {
+            return slots;
+        }// getSlots()
+
+    }// Cell
+
+    /**
+     * Slot référencé par une cellule. Matière, enseignant et salle sont des indices
+     * dans les tables du planning (null si non renseigné).
+     */
+    public static class SlotRef {
+
+        private Integer id;
+
+        private Integer matiere;
+
+        private Integer enseignant;
+
+        private Integer salle;
+
+        private String couleurFond;
+
+        private String couleurPolice;
+
+        private String comment;
+
+        public SlotRef(Integer id, Integer matiere, Integer enseignant, Integer salle, String couleurFond, String couleurPolice, String comment) {
+            this.id = id;
+            this.matiere = matiere;
+            this.enseignant = enseignant;
+            this.salle = salle;
+            this.couleurFond = couleurFond;
+            this.couleurPolice = couleurPolice;
+            this.comment = comment;
+        }// SlotRef()
+
+        public Integer getId() {
+            return id;
+        }// getId()
+
+        public Integer getMatiere() {
+            return matiere;
+        }// getMatiere()
+
+        public Integer getEnseignant() {
+            return enseignant;
+        }// getEnseignant()
+
+        public Integer getSalle() {
+            return salle;
+        }// getSalle()
+
+        public String getCouleurFond() {
+            return couleurFond;
+        }// getCouleurFond()
+
+        public String getCouleurPolice() {
+            return couleurPolice;
+        }// getCouleurPolice()
+
+        public String getComment() {
+            return comment;
+        }// getComment()
+
+    }// SlotRef
+
+    /**
+     * Enseignant référencé par un slot
+     */
+    public static class EnseignantRef {
+
+        private String nom;
+
+        private String prenom;
+
+        public EnseignantRef(String nom, String prenom) {
+            this.nom = nom;
+            this.prenom = prenom;
+        }// EnseignantRef()
+
+        public String getNom() {
+            return nom;
+        }// getNom()
+
+        public String getPrenom() {
+            return prenom;
+        }// getPrenom()
+
+    }// EnseignantRef
+
+}// PlanningGeneratedGrid
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heures disposées dans un planning pour chacune de ses matières,
+ * comparées au volume horaire hebdomadaire des matières
+ */
+public class PlanningHours {
+
+    /**
+     * Heures d'une matière dans le planning
+     */
+    public static class MatiereHours {
+
+        private int idMatiere;
+
+        private String nom;
+
+        /**
+         * Volume horaire hebdomadaire de la matière (HH:mm, null s'il n'est pas renseigné)
+         */
+        private String volumeHoraire;
+
+        /**
+         * Minutes disposées dans le planning sur la semaine
+         */
+        private int minutes;
+
+        /**
+         * Minutes disposées par identifiant de jour (les jours sans slot de la matière sont absents)
+         */
+        private Map<Integer, Integer> minutesByJour;
+
+        public MatiereHours() {
+        }// MatiereHours()
+
+        public MatiereHours(int idMatiere, String nom, String volumeHoraire, int minutes, Map<Integer, Integer> minutesByJour) {
+            this.idMatiere = idMatiere;
+            this.nom = nom;
+            this.volumeHoraire = volumeHoraire;
+            this.minutes = minutes;
+            this.minutesByJour = minutesByJour;
+        }// MatiereHours()
+
+        public int getIdMatiere() {
+            return idMatiere;
+        }// getIdMatiere()
+
+        public void setIdMatiere(int idMatiere) {
+            this.idMatiere = idMatiere;
+        }// setIdMatiere()
+
+        public String getNom() {
+            return nom;
+        }// getNom()
+
+        public void setNom(String nom) {
+            this.nom = nom;
+        }// setNom()
+
+        public String getVolumeHoraire() {
+            return volumeHoraire;
+        }// getVolumeHoraire()
+
+        public void setVolumeHoraire(String volumeHoraire) {
+            this.volumeHoraire = volumeHoraire;
+        }// setVolumeHoraire()
+
+        public int getMinutes() {
+            return minutes;
+        }// getMinutes()
+
+        public void setMinutes(int minutes) {
+            this.minutes = minutes;
+        }// setMinutes()
+
+        public Map<Integer, Integer> getMinutesByJour() {
+            return minutesByJour;
+        }// getMinutesByJour()
+
+        public void setMinutesByJour(Map<Integer, Integer> minutesByJour) {
+            this.minutesByJour = minutesByJour;
+        }// setMinutesByJour()
+
+    }// MatiereHours
+
+    /**
+     * Identifiant du planning
+     */
+    private int id;
+
+    /**
+     * Heures de chaque matière, triées par identifiant de matière
+     */
+    private List<MatiereHours> matieres = new ArrayList<>();
+
+    /**
+     * Minutes disposées dans le planning sur la semaine, toutes matières confondues
+     */
+    private int minutes;
+
+    /**
+     * Matières dont le volume horaire hebdomadaire n'est pas respecté
+     */
+    private List<String> warnings = new ArrayList<>();
+
+    public PlanningHours() {
+    }// PlanningHours()
+
+    public PlanningHours(int id) {
+        this.id = id;
+    }// PlanningHours()
+
+    public int getId() {
+        return id;
+    }// getId()
+
+    public void setId(int id) {
+        this.id = id;
+    }// setId()
+
+    public List<MatiereHours> getMatieres() {
+        return matieres;
+    }// getMatieres()
+
+    public void setMatieres(List<MatiereHours> matieres) {
+        this.matieres = matieres;
+    }// setMatieres()
+
+    public int getMinutes() {
+        return minutes;
+    }// getMinutes()
+
+    public void setMinutes(int minutes) {
+        this.minutes = minutes;
+    }// setMinutes()
+
+    public List<String> getWarnings() {
+        return warnings;
+    }// getWarnings()
+
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }// setWarnings()
+
+}// PlanningHours
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Résultat de la génération automatique d'un planning : le planning proposé (non enregistré)
+ * et la qualité de la solution trouvée
+ */
+public class PlanningSolution {
+
+    /**
+     * Amélioration du meilleur score pendant la recherche
+     */
+    public static class Progress {
+
+        /**
+         * Temps écoulé depuis le début de la recherche en millisecondes
+         */
+        private long elapsedMillis;
+
+        /**
+         * Nombre de mouvements évalués depuis le début de la recherche
+         */
+        private long iterations;
+
+        private int hardScore;
+
+        private int softScore;
+
+        public Progress() {
+        }// Progress()
+
+        public Progress(long elapsedMillis, long iterations, int hardScore, int softScore) {
+            this.elapsedMillis = elapsedMillis;
+            this.iterations = iterations;
+            this.hardScore = hardScore;
+            this.softScore = softScore;
+        }// Progress()
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }// getElapsedMillis()
+
+        public void setElapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+        }// setElapsedMillis()
+
+        public long getIterations() {
+            return iterations;
+        }// getIterations()
+
+        public void setIterations(long iterations) {
+            this.iterations = iterations;
+        }// setIterations()
+
+        public int getHardScore() {
+            return hardScore;
+        }// getHardScore()
+
+        public void setHardScore(int hardScore) {
+            this.hardScore = hardScore;
+        }// setHardScore()
+
+        public int getSoftScore() {
+            return softScore;
+        }// getSoftScore()
+
+        public void setSoftScore(int softScore) {
+            this.softScore = softScore;
+        }// setSoftScore()
+
+    }// Progress
+
+    /**
+     * Planning proposé : ses slots n'ont pas d'identifiant, ils sont à enregistrer par POST /slots/bulk
+     * puis POST /planning
+     */
+    private Planning planning;
+
+    /**
+     * Nombre de contraintes fortes non respectées (chevauchements, enseignant ou salle indisponible) :
+     * 0 si le planning est réalisable
+     */
+    private int hardScore;
+
+    /**
+     * Nombre de préférences non respectées (une matière plusieurs fois le même jour,
+     * plusieurs enseignants pour une même matière)
+     */
+    private int softScore;
+
+    private boolean feasible;
+
+    /**
+     * Nombre de mouvements évalués, durée de la recherche et nombre de recherches menées en parallèle
+     */
+    private long iterations;
+
+    private long elapsedMillis;
+
+    private int workers;
+
+    /**
+     * Améliorations successives du meilleur score
+     */
+    private List<Progress> progress;
+
+    /**
+     * Avertissements (volume horaire impossible à atteindre, couleur manquante, ...)
+     */
+    private List<String> warnings;
+
+    public PlanningSolution() {
+    }// PlanningSolution()
+
+    public PlanningSolution(Planning planning, int hardScore, int softScore, long iterations, long elapsedMillis, int workers, List<Progress> progress, List<String> warnings) {
+        this.planning = planning;
+        this.hardScore = hardScore;
+        this.softScore = softScore;
+        this.feasible = hardScore == 0;
+        this.iterations = iterations;
+        this.elapsedMillis = elapsedMillis;
+        this.workers = workers;
+        this.progress = progress;
+        this.warnings = warnings;
+    }// PlanningSolution()
+
+    public Planning getPlanning() {
+        return planning;
+    }// getPlanning()
+
+    public void setPlanning(Planning planning) {
+        this.planning = planning;
+    }// setPlanning()
+
+    public int getHardScore() {
+        return hardScore;
+    }// getHardScore()
+
+    public void setHardScore(int hardScore) {
+        this.hardScore = hardScore;
+    }// setHardScore()
+
+    public int getSoftScore() {
+        return softScore;
+    }// getSoftScore()
+
+    public void setSoftScore(int softScore) {
+        this.softScore = softScore;
+    }// setSoftScore()
+
+    public boolean isFeasible() {
+        return feasible;
+    }// isFeasible()
+
+    public void setFeasible(boolean feasible) {
+        this.feasible = feasible;
+    }// setFeasible()
+
+    public long getIterations() {
+        return iterations;
+    }// getIterations()
+
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }// setIterations()
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }// getElapsedMillis()
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }// setElapsedMillis()
+
+    public int getWorkers() {
+        return workers;
+    }// getWorkers()
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }// setWorkers()
+
+    public List<Progress> getProgress() {
+        return progress;
+    }// getProgress()
+
+    public void setProgress(List<Progress> progress) {
+        this.progress = progress;
+    }// setProgress()
+
+    public List<String> getWarnings() {
+        return warnings;
+    }// getWarnings()
+
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }// setWarnings()
+
+}// PlanningSolution
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Demande de génération automatique du planning d'une classe
+ */
+public class PlanningSolveRequest {
+
+    /**
+     * Identifiant de la classe
+     */
+    private Integer idClasse;
+
+    /**
+     * Nom du planning (par défaut, dérivé du nom de la classe)
+     */
+    private String nom;
+
+    /**
+     * Identifiants des matières à placer, chacune selon son volume horaire hebdomadaire
+     */
+    private List<Integer> matieres;
+
+    /**
+     * Identifiants des enseignants disponibles (aucun enseignant n'est affecté si la liste est vide)
+     */
+    private List<Integer> enseignants;
+
+    /**
+     * Identifiants des salles disponibles (aucune salle n'est affectée si la liste est vide)
+     */
+    private List<Integer> salles;
+
+    /**
+     * Indique si le planning peut utiliser le mercredi (oui par défaut) et le samedi (non par défaut)
+     */
+    private boolean wednesdayUsed = true;
+
+    private boolean saturdayUsed;
+
+    /**
+     * Temps de recherche maximum en millisecondes (valeur par défaut de l'application si absent)
+     */
+    private Long timeBudgetMillis;
+
+    public PlanningSolveRequest() {
+    }// PlanningSolveRequest()
+
+    public PlanningSolveRequest(Integer idClasse, List<Integer> matieres, List<Integer> enseignants, List<Integer> salles) {
+        this.idClasse = idClasse;
+        this.matieres = matieres;
+        this.enseignants = enseignants;
+        this.salles = salles;
+    }// PlanningSolveRequest()
+
+    public Integer getIdClasse() {
+        return idClasse;
+    }// getIdClasse()
+
+    public void setIdClasse(Integer idClasse) {
+        this.idClasse = idClasse;
+    }// setIdClasse()
+
+    public String getNom() {
+        return nom;
+    }// getNom()
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }// setNom()
+
+    public List<Integer> getMatieres() {
+        return matieres;
+    }// getMatieres()
+
+    public void setMatieres(List<Integer> matieres) {
+        this.matieres = matieres;
+    }// setMatieres()
+
+    public List<Integer> getEnseignants() {
+        return enseignants;
+    }// getEnseignants()
+
+    public void setEnseignants(List<Integer> enseignants) {
+        this.enseignants = enseignants;
+    }// setEnseignants()
+
+    public List<Integer> getSalles() {
+        return salles;
+    }// getSalles()
+
+    public void setSalles(List<Integer> salles) {
+        this.salles = salles;
+    }// setSalles()
+
+    public boolean isWednesdayUsed() {
+        return wednesdayUsed;
+    }// isWednesdayUsed()
+
+    public void setWednesdayUsed(boolean wednesdayUsed) {
+        this.wednesdayUsed = wednesdayUsed;
+    }// setWednesdayUsed()
+
+    public boolean isSaturdayUsed() {
+        return saturdayUsed;
+    }// isSaturdayUsed()
+
+    public void setSaturdayUsed(boolean saturdayUsed) {
+        this.saturdayUsed = saturdayUsed;
+    }// setSaturdayUsed()
+
+    public Long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }// getTimeBudgetMillis()
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }// setTimeBudgetMillis()
+
+}// PlanningSolveRequest
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat de la génération en masse de plannings
+ */
+public class PlanningsGenerated {
+
+    /**
+     * Plannings générés (avec leurs avertissements), triés par identifiant
+     */
+    private List<PlanningGenerated> plannings;
+
+    /**
+     * Temps de génération (ms) de chaque planning, par identifiant de planning
+     */
+    private Map<Integer, Double> latencies;
+
+    /**
+     * Durée totale (ms) de la génération, chargement des données compris
+     */
+    private long totalTime;
+
+    public PlanningsGenerated() {
+        this.plannings = new ArrayList<>();
+        this.latencies = new HashMap<>();
+    }// PlanningsGenerated()
+
+    public List<PlanningGenerated> getPlannings() {
+        return plannings;
+    }// getPlannings()
+
+    public void setPlannings(List<PlanningGenerated> plannings) {
+        this.plannings = plannings;
+    }// setPlannings()
+
+    public Map<Integer, Double> getLatencies() {
+        return latencies;
+    }// getLatencies()
+
+    public void setLatencies(Map<Integer, Double> latencies) {
+        this.latencies = latencies;
+    }// setLatencies()
+
+    public long getTotalTime() {
+        return totalTime;
+    }// getTotalTime()
+
+    public void setTotalTime(long totalTime) {
+        this.totalTime = totalTime;
+    }// setTotalTime()
+
+}// PlanningsGenerated
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Résultat de la génération simultanée des plannings de plusieurs classes
+ */
+public class PlanningsSolution {
+
+    /**
+     * Plannings générés, dans l'ordre de la demande (avec leur identifiant et celui de leurs slots s'ils ont été enregistrés)
+     */
+    private List<Planning> plannings;
+
+    /**
+     * Indique si les plannings ont été enregistrés
+     */
+    private boolean saved;
+
+    /**
+     * Nombre de contraintes fortes non respectées (chevauchements, enseignant ou salle indisponible) :
+     * 0 si les plannings sont réalisables
+     */
+    private int hardScore;
+
+    /**
+     * Nombre de préférences non respectées (une matière plusieurs fois le même jour,
+     * plusieurs enseignants pour une même matière d'une classe)
+     */
+    private int softScore;
+
+    private boolean feasible;
+
+    /**
+     * Nombre de mouvements évalués, durée de la génération et nombre de recherches menées en parallèle
+     */
+    private long iterations;
+
+    private long elapsedMillis;
+
+    private int workers;
+
+    /**
+     * Améliorations successives du meilleur score
+     */
+    private List<PlanningSolution.Progress> progress;
+
+    /**
+     * Avertissements (volume horaire impossible à atteindre, couleur manquante, plannings non enregistrés, ...)
+     */
+    private List<String> warnings;
+
+    public PlanningsSolution() {
+    }// PlanningsSolution()
+
+    public PlanningsSolution(List<Planning> plannings, boolean saved, int hardScore, int softScore, long iterations, long elapsedMillis, int workers,
+                             List<PlanningSolution.Progress> progress, List<String> warnings) {
+        this.plannings = plannings;
+        this.saved = saved;
+        this.hardScore = hardScore;
+        this.softScore = softScore;
+        this.feasible = hardScore == 0;
+        this.iterations = iterations;
+        this.elapsedMillis = elapsedMillis;
+        this.workers = workers;
+        this.progress = progress;
+        this.warnings = warnings;
+    }// PlanningsSolution()
+
+    public List<Planning> getPlannings() {
+        return plannings;
+    }// getPlannings()
+
+    public void setPlannings(List<Planning> plannings) {
+        this.plannings = plannings;
+    }// setPlannings()
+
+    public boolean isSaved() {
+        return saved;
+    }// isSaved()
+
+    public void setSaved(boolean saved) {
+        this.saved = saved;
+    }// setSaved()
+
+    public int getHardScore() {
+        return hardScore;
+    }// getHardScore()
+
+    public void setHardScore(int hardScore) {
+        this.hardScore = hardScore;
+    }// setHardScore()
+
+    public int getSoftScore() {
+        return softScore;
+    }// getSoftScore()
+
+    public void setSoftScore(int softScore) {
+        this.softScore = softScore;
+    }// setSoftScore()
+
+    public boolean isFeasible() {
+        return feasible;
+    }// isFeasible()
+
+    public void setFeasible(boolean feasible) {
+        this.feasible = feasible;
+    }// setFeasible()
+
+    public long getIterations() {
+        return iterations;
+    }// getIterations()
+
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }// setIterations()
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }// getElapsedMillis()
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }// setElapsedMillis()
+
+    public int getWorkers() {
+        return workers;
+    }// getWorkers()
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }// setWorkers()
+
+    public List<PlanningSolution.Progress> getProgress() {
+        return progress;
+    }// getProgress()
+
+    public void setProgress(List<PlanningSolution.Progress> progress) {
+        this.progress = progress;
+    }// setProgress()
+
+    public List<String> getWarnings() {
+        return warnings;
+    }// getWarnings()
+
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }// setWarnings()
+
+}// PlanningsSolution
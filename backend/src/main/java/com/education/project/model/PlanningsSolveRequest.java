@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.List;
+
+/**
+ * Demande de génération simultanée des plannings de plusieurs classes, qui partagent leurs enseignants et leurs salles
+ */
+public class PlanningsSolveRequest {
+
+    /**
+     * Plannings à générer : une classe par planning (le temps de recherche de chaque demande est ignoré)
+     */
+    private List<PlanningSolveRequest> plannings;
+
+    /**
+     * Temps de recherche maximum en millisecondes (valeur par défaut de l'application si absent)
+     */
+    private Long timeBudgetMillis;
+
+    /**
+     * Indique si les plannings générés doivent être enregistrés (oui par défaut). Ils ne le sont que si
+     * toutes les contraintes fortes sont respectées.
+     */
+    private boolean save = true;
+
+    public PlanningsSolveRequest() {
+    }// PlanningsSolveRequest()
+
+    public PlanningsSolveRequest(List<PlanningSolveRequest> plannings) {
+        this.plannings = plannings;
+    }// PlanningsSolveRequest()
+
+    public List<PlanningSolveRequest> getPlannings() {
+        return plannings;
+    }// getPlannings()
+
+    public void setPlannings(List<PlanningSolveRequest> plannings) {
+        this.plannings = plannings;
+    }// setPlannings()
+
+    public Long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }// getTimeBudgetMillis()
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }// setTimeBudgetMillis()
+
+    public boolean isSave() {
+        return save;
+    }// isSave()
+
+    public void setSave(boolean save) {
+        this.save = save;
+    }// setSave()
+
+}// PlanningsSolveRequest
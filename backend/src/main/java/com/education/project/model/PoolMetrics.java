@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+/**
+ * Classe représentant l'état du pool de connexions à un instant donné.
+ */
+public class PoolMetrics {
+
+    /**
+     * Nombre de connexions actuellement utilisées
+     */
+    private int activeConnections;
+
+    /**
+     * Nombre de connexions ouvertes et disponibles
+     */
+    private int idleConnections;
+
+    /**
+     * Nombre total de connexions ouvertes
+     */
+    private int totalConnections;
+
+    /**
+     * Nombre de threads en attente d'une connexion
+     */
+    private int threadsAwaitingConnection;
+
+    /**
+     * Taille maximale du pool
+     */
+    private int maximumPoolSize;
+
+    public PoolMetrics() {
+    }// PoolMetrics()
+
+    public PoolMetrics(int activeConnections, int idleConnections, int totalConnections, int threadsAwaitingConnection, int maximumPoolSize) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.maximumPoolSize = maximumPoolSize;
+    }// PoolMetrics()
+
+    /**
+     * Taux de saturation du pool (connexions actives / taille maximale)
+     * @return valeur entre 0 et 1
+     */
+    public double getSaturation() {
+        return maximumPoolSize == 0 ? 0 : (double) activeConnections / maximumPoolSize;
+    }// getSaturation()
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }// getActiveConnections()
+
+    public void setActiveConnections(int activeConnections) {
+        this.activeConnections = activeConnections;
+    }// setActiveConnections()
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }// getIdleConnections()
+
+    public void setIdleConnections(int idleConnections) {
+        this.idleConnections = idleConnections;
+    }// setIdleConnections()
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }// getTotalConnections()
+
+    public void setTotalConnections(int totalConnections) {
+        this.totalConnections = totalConnections;
+    }// setTotalConnections()
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }// getThreadsAwaitingConnection()
+
+    public void setThreadsAwaitingConnection(int threadsAwaitingConnection) {
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+    }// setThreadsAwaitingConnection()
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }// getMaximumPoolSize()
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }// setMaximumPoolSize()
+
+}// PoolMetrics
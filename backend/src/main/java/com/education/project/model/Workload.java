@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.model;
+
+import java.util.Map;
+
+/**
+ * Charge hebdomadaire d'une ressource (enseignant, salle ou classe) : minutes de ses slots par jour
+ * et temps libre entre ses slots (trous) par jour
+ */
+public class Workload {
+
+    /**
+     * Type de la ressource (enseignant, salle ou classe)
+     */
+    private String ressource;
+
+    /**
+     * Identifiant de la ressource
+     */
+    private int idRessource;
+
+    /**
+     * Nombre de slots utilisant la ressource
+     */
+    private int nbSlots;
+
+    /**
+     * Minutes des slots sur la semaine, et par identifiant de jour (les jours sans slot sont absents)
+     */
+    private int minutes;
+
+    private Map<Integer, Integer> minutesByJour;
+
+    /**
+     * Minutes libres entre le début du premier slot et la fin du dernier slot de chaque jour,
+     * sur la semaine et par identifiant de jour (les jours sans trou sont absents)
+     */
+    private int gapMinutes;
+
+    private Map<Integer, Integer> gapMinutesByJour;
+
+    public Workload() {
+    }// Workload()
+
+    public Workload(String ressource, int idRessource, int nbSlots, Map<Integer, Integer> minutesByJour, Map<Integer, Integer> gapMinutesByJour) {
+        this.ressource = ressource;
+        this.idRessource = idRessource;
+        this.nbSlots = nbSlots;
+        this.minutesByJour = minutesByJour;
+        this.minutes = minutesByJour.values().stream().mapToInt(Integer::intValue).sum();
+        this.gapMinutesByJour = gapMinutesByJour;
+        this.gapMinutes = gapMinutesByJour.values().stream().mapToInt(Integer::intValue).sum();
+    }// Workload()
+
+    public String getRessource() {
+        return ressource;
+    }// getRessource()
+
+    public void setRessource(String ressource) {
+        this.ressource = ressource;
+    }// setRessource()
+
+    public int getIdRessource() {
+        return idRessource;
+    }// getIdRessource()
+
+    public void setIdRessource(int idRessource) {
+        this.idRessource = idRessource;
+    }// setIdRessource()
+
+    public int getNbSlots() {
+        return nbSlots;
+    }// getNbSlots()
+
+    public void setNbSlots(int nbSlots) {
+        this.nbSlots = nbSlots;
+    }// setNbSlots()
+
+    public int getMinutes() {
+        return minutes;
+    }// getMinutes()
+
+    public void setMinutes(int minutes) {
+        this.minutes = minutes;
+    }// setMinutes()
+
+    public Map<Integer, Integer> getMinutesByJour() {
+        return minutesByJour;
+    }// getMinutesByJour()
+
+    public void setMinutesByJour(Map<Integer, Integer> minutesByJour) {
+        this.minutesByJour = minutesByJour;
+    }// setMinutesByJour()
+
+    public int getGapMinutes() {
+        return gapMinutes;
+    }// getGapMinutes()
+
+    public void setGapMinutes(int gapMinutes) {
+        this.gapMinutes = gapMinutes;
+    }// setGapMinutes()
+
+    public Map<Integer, Integer> getGapMinutesByJour() {
+        return gapMinutesByJour;
+    }// getGapMinutesByJour()
+
+    public void setGapMinutesByJour(Map<Integer, Integer> gapMinutesByJour) {
+        this.gapMinutesByJour = gapMinutesByJour;
+    }// setGapMinutesByJour()
+
+}// Workload
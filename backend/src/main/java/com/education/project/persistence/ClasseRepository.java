@@ -15,15 +15,23 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Classe;
+import com.education.project.model.Page;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,46 +43,21 @@ import java.util.Optional;
 public class ClasseRepository {
 
     /**
-     * Driver SQL
-     */
-    private String driver;
-
-    /**
-     * Url de la base de données
+     * Pool de connexions à la base de données
      */
-    private String url;
+    private DataSource dataSource;
 
-    /**
-     * Mot de passe du compte utilisateur (BD)
-     */
-    private String password;
+    private static final Logger LOGGER = LogManager.getLogger(ClasseRepository.class);
 
-    /**
-     * Compte utilisateur (BD)
-     */
-    private String user;
+    private static final QueryBuilder.Template CLASSES_QUERY = new QueryBuilder.Template("SELECT * FROM classe", "ORDER BY nom, id");
 
-    /**
-     * Connexion à la base de données
-     */
-    private Connection connection;
+    private static final QueryBuilder.Template CLASSES_PAGE_QUERY = new QueryBuilder.Template("SELECT classe.*, COUNT(*) OVER() AS total FROM classe", "ORDER BY nom, id");
 
-    private static final Logger LOGGER = LogManager.getLogger(ClasseRepository.class);
+    private static final QueryBuilder.Template COUNT_CLASSES_QUERY = new QueryBuilder.Template("SELECT COUNT(id) FROM classe", null);
 
-    public ClasseRepository(@Value("${db.driver}") String driver,
-                            @Value("${db.url}") String url,
-                            @Value("${db.password}") String password,
-                            @Value("${db.user}") String user) {
-        this.driver = driver;
-        this.url = url;
-        this.password = password;
-        this.user = user;
-        try {
-            Class.forName(this.driver);
-            this.connection = DriverManager.getConnection(this.url, this.user, this.password);
-        }catch(Exception e){
-            LOGGER.error(e.getMessage(), e);
-        }
+    @Autowired
+    public ClasseRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }// ClasseRepository()
 
     /**
@@ -85,8 +68,8 @@ public class ClasseRepository {
      */
     public boolean existsByName(String nom) throws DataBaseException {
         String requestSql = "SELECT COUNT(id) FROM classe WHERE nom = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1, nom);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -105,8 +88,8 @@ public class ClasseRepository {
      */
     public Optional<Classe> insert(Classe classeToInsert) throws DataBaseException {
         String requestSql = "INSERT INTO classe (nom, creationDate, modificationDate) VALUES (?,?,?)";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
             ps.setString(1, classeToInsert.getNom());
             ps.setTimestamp(2, new Timestamp(classeToInsert.getCreationDate().getTime()));
             ps.setTimestamp(3, new Timestamp(classeToInsert.getModificationDate().getTime()));
@@ -132,8 +115,8 @@ public class ClasseRepository {
      */
     public boolean delete(int id) throws DataBaseException {
         String requestSql = "DELETE FROM classe WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             long nbClassesDeleted = ps.executeUpdate();
             return nbClassesDeleted > 0;
@@ -150,8 +133,8 @@ public class ClasseRepository {
      */
     public Optional<Classe> findById(int id) throws DataBaseException {
         String requestSql = "SELECT * FROM classe WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             if(resultSet.next()) {
@@ -165,6 +148,35 @@ public class ClasseRepository {
         }
     }// findById()
 
+    /**
+     * Récupère en une seule requête les classes dont les identifiants sont passés en paramètre
+     * @param ids Identifiants des classes
+     * @return Les classes trouvées (un identifiant inexistant est ignoré)
+     * @throws DataBaseException
+     */
+    public List<Classe> findByIds(Collection<Integer> ids) throws DataBaseException {
+        List<Classe> results = new ArrayList<>();
+        if(ids.isEmpty()){
+            return results;
+        }
+        String requestSql = "SELECT * FROM classe WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for(Integer id : ids){
+                ps.setInt(index++, id);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                results.add(initClasse(resultSet));
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les classes d'identifiants {}", ids, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les classes");
+        }
+        return results;
+    }// findByIds()
+
     /**
      * Met à jour la classe passée en paramètre en base de données
      * @param classeToUpdate Classe à mettre à jour
@@ -172,8 +184,8 @@ public class ClasseRepository {
      */
     public Optional<Classe> update(Classe classeToUpdate) throws DataBaseException {
         String requestSql = "UPDATE classe SET nom = ?, modificationDate = ? WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1, classeToUpdate.getNom());
             ps.setTimestamp(2, new Timestamp(classeToUpdate.getModificationDate().getTime()));
             ps.setInt(3, classeToUpdate.getId());
@@ -196,16 +208,11 @@ public class ClasseRepository {
      * @return nombre total de classes
      */
     public long count(String name) throws DataBaseException{
-        StringBuilder sb = new StringBuilder("SELECT COUNT(id) FROM classe ");
-        if(name != null && !name.isEmpty()){
-            sb.append(" WHERE nom LIKE ?");
-        }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(name != null && !name.isEmpty()){
-                ps.setString(1, "%" + name + "%");
-            }
+        QueryBuilder query = COUNT_CLASSES_QUERY.builder()
+                .match("nom", "nom", name, MatchModeEnum.CONTAINS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
             return resultSet.getLong(1);
@@ -224,25 +231,14 @@ public class ClasseRepository {
      */
     public List<Classe> getClasses(Integer page, Integer nbElementsPerPage, String name) throws DataBaseException {
         List<Classe> results = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT * FROM classe ");
-        int indiceNom = 0;
-        if(name != null && !name.isEmpty()){
-            sb.append(" WHERE nom LIKE ? ");
-            indiceNom = 1;
-        }
+        QueryBuilder query = CLASSES_QUERY.builder()
+                .match("nom", "nom", name, MatchModeEnum.CONTAINS);
         if(page != null && nbElementsPerPage != null){
-            sb.append(" LIMIT ? OFFSET ? ");
+            query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
         }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(name != null && !name.isEmpty()){
-                ps.setString(indiceNom, "%" + name + "%");
-            }
-            if(page != null && nbElementsPerPage != null){
-                ps.setInt(indiceNom+1, nbElementsPerPage);
-                ps.setInt(indiceNom+2, (page-1) * nbElementsPerPage);
-            }
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             while(resultSet.next()){
                 results.add(initClasse(resultSet));
@@ -254,6 +250,64 @@ public class ClasseRepository {
         }
     }// getClasses()
 
+    /**
+     * Récupère une page de classes ainsi que le nombre total de classes correspondant au filtre,
+     * en une seule requête (COUNT(*) OVER())
+     * @param page Numéro de la page
+     * @param nbElementsPerPage Nombre de classes par page
+     * @param name Nom de la classe (facultatif)
+     * @return Page de classes (le total vaut 0 si la page est vide)
+     * @throws DataBaseException
+     */
+    public Page<Classe> getClassesPage(int page, int nbElementsPerPage, String name) throws DataBaseException {
+        List<Classe> results = new ArrayList<>();
+        long total = 0;
+        QueryBuilder query = CLASSES_PAGE_QUERY.builder()
+                .match("nom", "nom", name, MatchModeEnum.CONTAINS)
+                .page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                results.add(initClasse(resultSet));
+                total = resultSet.getLong("total");
+            }
+            return new Page<>(results, total);
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : Impossible de récupérer les classes avec les filtres [page : " + page + ", nbElementsPerPage : " + nbElementsPerPage + ", name : " + name);
+        }
+    }// getClassesPage()
+
+    /**
+     * Retourne les classes situées après le curseur passé en paramètre,
+     * triées par nom puis par identifiant (pagination par curseur).
+     * @param name Nom de la classe (facultatif)
+     * @param after Dernière classe de la page précédente (null pour la première page)
+     * @param limit Nombre maximum de classes à récupérer
+     * @return Liste de classes
+     */
+    public List<Classe> getClassesAfter(String name, CursorUtils.Cursor after, int limit) throws DataBaseException {
+        List<Classe> results = new ArrayList<>();
+        QueryBuilder query = CLASSES_QUERY.builder()
+                .match("nom", "nom", name, MatchModeEnum.CONTAINS)
+                .after("nom", "id", after)
+                .limit(limit);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                results.add(initClasse(resultSet));
+            }
+            return results;
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : Impossible de récupérer les classes avec les filtres [name : " + name + "]");
+        }
+    }// getClassesAfter()
+
     /**
      * Initialise une classe à partir d'un resultSet.
      * @param resultSet resultSet
@@ -277,8 +331,8 @@ public class ClasseRepository {
      */
     public boolean isUsedByPlannings(int id) throws DataBaseException{
         String requestSql = "SELECT COUNT(c.id) FROM classe c INNER JOIN planning p ON c.id = p.idClasse WHERE c.id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -15,15 +15,23 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Enseignant;
+import com.education.project.model.Page;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,44 +43,21 @@ import java.util.Optional;
 public class EnseignantRepository {
 
     /**
-     * Driver SQL
+     * Pool de connexions à la base de données
      */
-    private String driver;
+    private DataSource dataSource;
 
-    /**
-     * Url de la base de donnée
-     */
-    private String url;
+    private static final Logger LOGGER = LogManager.getLogger(EnseignantRepository.class);
 
-    /**
-     * mot de passe du compte utilisateur (BD)
-     */
-    private String password;
+    private static final QueryBuilder.Template ENSEIGNANTS_QUERY = new QueryBuilder.Template("SELECT * FROM enseignant", "ORDER BY nom, id");
 
-    /**
-     * Compte utilisateur (BD)
-     */
-    private String user;
+    private static final QueryBuilder.Template ENSEIGNANTS_PAGE_QUERY = new QueryBuilder.Template("SELECT enseignant.*, COUNT(*) OVER() AS total FROM enseignant", "ORDER BY nom, id");
 
-    /**
-     * Connexion à la base de données
-     */
-    private Connection connection;
+    private static final QueryBuilder.Template COUNT_ENSEIGNANTS_QUERY = new QueryBuilder.Template("SELECT COUNT(id) FROM enseignant", null);
 
-    private static final Logger LOGGER = LogManager.getLogger(EnseignantRepository.class);
-    public EnseignantRepository (@Value("${db.driver}") String driver, @Value("${db.url}") String url,
-                                 @Value("${db.password}") String password, @Value("${db.user}") String user){
-        this.driver = driver;
-        this.url = url;
-        this.password = password;
-        this.user = user;
-
-        try {
-            Class.forName(this.driver);
-            this.connection = DriverManager.getConnection(this.url, this.user, this.password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(),e);
-        }
+    @Autowired
+    public EnseignantRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }//EnseignantRepository()
 
 
@@ -84,8 +69,8 @@ public class EnseignantRepository {
      */
     public Optional<Enseignant> insert(Enseignant enseignant) throws DataBaseException {
         String request = "INSERT INTO enseignant (nom,prenom,creationDate,modificationDate) VALUES (?,?,?,?)";
-        try {
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request,Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request,Statement.RETURN_GENERATED_KEYS);
             preparedStatement.setString(1, enseignant.getNom());
             preparedStatement.setString(2, enseignant.getPrenom());
             preparedStatement.setTimestamp(3, new java.sql.Timestamp(enseignant.getCreationDate().getTime()));
@@ -116,8 +101,8 @@ public class EnseignantRepository {
      */
     public boolean isExistByName(String nom, String prenom) throws DataBaseException {
         String request = "SELECT COUNT(id) FROM enseignant WHERE nom = ? AND prenom = ?";
-        try {
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request);
             preparedStatement.setString(1,nom);
             preparedStatement.setString(2,prenom);
             ResultSet rs = preparedStatement.executeQuery();
@@ -135,8 +120,8 @@ public class EnseignantRepository {
 
     public boolean delete(int id) throws DataBaseException {
         String requestSql = "DELETE FROM enseignant where id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1,id);
             long rowsDeleted = ps.executeUpdate();
             if(rowsDeleted > 0){
@@ -157,8 +142,8 @@ public class EnseignantRepository {
      */
     public Optional<Enseignant> update(Enseignant enseignantToUpdate) throws DataBaseException {
         String requestSql = "UPDATE enseignant SET nom = ?, prenom = ?, modificationDate = ? WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1,enseignantToUpdate.getNom());
             ps.setString(2, enseignantToUpdate.getPrenom());
             ps.setTimestamp(3,new Timestamp(enseignantToUpdate.getModificationDate().getTime()));
@@ -186,8 +171,8 @@ public class EnseignantRepository {
      */
     public Optional<Enseignant> findById(int id) throws DataBaseException {
         String requestSql = "SELECT * FROM enseignant WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -204,6 +189,41 @@ public class EnseignantRepository {
         }
     }//findById()
 
+    /**
+     * Récupère en une seule requête les enseignants dont les identifiants sont passés en paramètre
+     * @param ids Identifiants des enseignants
+     * @return Les enseignants trouvés (un identifiant inexistant est ignoré)
+     * @throws DataBaseException
+     */
+    public List<Enseignant> findByIds(Collection<Integer> ids) throws DataBaseException {
+        List<Enseignant> results = new ArrayList<>();
+        if(ids.isEmpty()){
+            return results;
+        }
+        String requestSql = "SELECT * FROM enseignant WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for(Integer id : ids){
+                ps.setInt(index++, id);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Enseignant enseignant = new Enseignant();
+                enseignant.setId(resultSet.getInt("id"));
+                enseignant.setNom(resultSet.getString("nom"));
+                enseignant.setPrenom(resultSet.getString("prenom"));
+                enseignant.setCreationDate(resultSet.getTimestamp("creationDate"));
+                enseignant.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                results.add(enseignant);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les enseignants d'identifiants {}", ids, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les enseignants");
+        }
+        return results;
+    }//findByIds()
+
     /**
      * Cette fonction permet de retourner une liste d'enseignants avec les informations passés en paramètres
      * @param nom Nom de l'enseignant à retourner
@@ -215,37 +235,15 @@ public class EnseignantRepository {
      */
     public List<Enseignant> getEnseignants(String nom, String prenom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
         List<Enseignant> resultEnseignants = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT * FROM enseignant WHERE TRUE");
-        int indiceNom = 0;
-        int indicePrenom = 0;
-        if(nom != null && !nom.isEmpty()){
-            sb.append(" AND nom LIKE ? ");
-            indiceNom = 1;
-        }
-        if(prenom != null && !prenom.isEmpty()){
-            sb.append(" AND prenom LIKE ? ");
-            indicePrenom = 1;
-        }
+        QueryBuilder query = ENSEIGNANTS_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .match("prenom", "prenom", prenom, MatchModeEnum.CONTAINS);
         if(page != null && nbElementsPerPage != null){
-            sb.append(" LIMIT ? OFFSET ? ");
+            query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
         }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(nom != null && !nom.isEmpty() && indiceNom == 1){
-                ps.setString(indiceNom,"%"+ nom +"%");
-            }
-            if(prenom != null && !prenom.isEmpty()){
-                if(indiceNom == 1){
-                    indicePrenom = 2;
-                }
-                ps.setString(indicePrenom,"%" + prenom + "%");
-            }
-            if(page != null && nbElementsPerPage != null){
-                int indiceMax = Math.max(indicePrenom, indiceNom);
-                ps.setInt(indiceMax+1,nbElementsPerPage);
-                ps.setInt(indiceMax+2,(page - 1) * nbElementsPerPage);
-            }
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             while(resultSet.next()){
                 Enseignant enseignant = new Enseignant();
@@ -263,30 +261,86 @@ public class EnseignantRepository {
         return resultEnseignants;
     }//getEnseignants()
 
-    public long countEnseignants(String nom, String prenom) throws DataBaseException {
-        StringBuilder sb = new StringBuilder("SELECT COUNT(id) FROM enseignant WHERE TRUE ");
-        int indiceNom = 0, indicePrenom = 0;
-
-        if(nom != null && !nom.isEmpty()){
-            sb.append("AND nom LIKE ? ");
-            indiceNom = 1;
-        }
-        if(prenom != null && !prenom.isEmpty()){
-            sb.append("AND prenom LIKE ? ");
-            indicePrenom = 1;
-        }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(nom != null && !nom.isEmpty() && indiceNom == 1){
-                ps.setString(indiceNom,"%" + nom + "%");
+    /**
+     * Cette fonction permet de récupérer une page d'enseignants ainsi que le nombre total d'enseignants
+     * correspondant aux filtres, en une seule requête (COUNT(*) OVER())
+     * @param nom Nom de l'enseignant (facultatif)
+     * @param prenom Prénom de l'enseignant (facultatif)
+     * @param page Numéro de la page
+     * @param nbElementsPerPage Nombre d'enseignants par page
+     * @return La page d'enseignants (le total vaut 0 si la page est vide)
+     */
+    public Page<Enseignant> getEnseignantsPage(String nom, String prenom, int page, int nbElementsPerPage) throws DataBaseException {
+        List<Enseignant> resultEnseignants = new ArrayList<>();
+        long total = 0;
+        QueryBuilder query = ENSEIGNANTS_PAGE_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .match("prenom", "prenom", prenom, MatchModeEnum.CONTAINS);
+        query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Enseignant enseignant = new Enseignant();
+                enseignant.setId(resultSet.getInt("id"));
+                enseignant.setNom(resultSet.getString("nom"));
+                enseignant.setPrenom(resultSet.getString("prenom"));
+                enseignant.setCreationDate(resultSet.getTimestamp("creationDate"));
+                enseignant.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                resultEnseignants.add(enseignant);
+                total = resultSet.getLong("total");
             }
-            if(prenom != null && !prenom.isEmpty()){
-                if(indiceNom == 1){
-                    indicePrenom = 2;
-                }
-                ps.setString(indicePrenom,"%" + prenom + "%");
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer la page " + page + " des enseignants", e);
+            throw new DataBaseException("Erreur technique : impossible de récuperer les enseignants");
+        }
+        return new Page<>(resultEnseignants, total);
+    }//getEnseignantsPage()
+
+    /**
+     * Cette fonction permet de récupérer les enseignants situés après le curseur passé en paramètre,
+     * triés par nom puis par identifiant (pagination par curseur)
+     * @param nom Nom de l'enseignant (facultatif)
+     * @param prenom Prénom de l'enseignant (facultatif)
+     * @param after Dernier enseignant de la page précédente (null pour la première page)
+     * @param limit Nombre maximum d'enseignants à récupérer
+     * @return Les enseignants récupérés
+     */
+    public List<Enseignant> getEnseignantsAfter(String nom, String prenom, CursorUtils.Cursor after, int limit) throws DataBaseException {
+        List<Enseignant> resultEnseignants = new ArrayList<>();
+        QueryBuilder query = ENSEIGNANTS_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .match("prenom", "prenom", prenom, MatchModeEnum.CONTAINS)
+                .after("nom", "id", after)
+                .limit(limit);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Enseignant enseignant = new Enseignant();
+                enseignant.setId(resultSet.getInt("id"));
+                enseignant.setNom(resultSet.getString("nom"));
+                enseignant.setPrenom(resultSet.getString("prenom"));
+                enseignant.setCreationDate(resultSet.getTimestamp("creationDate"));
+                enseignant.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                resultEnseignants.add(enseignant);
             }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les enseignants",e);
+            throw new DataBaseException("Erreur technique : impossible de récuperer les enseignants");
+        }
+        return resultEnseignants;
+    }//getEnseignantsAfter()
+
+    public long countEnseignants(String nom, String prenom) throws DataBaseException {
+        QueryBuilder query = COUNT_ENSEIGNANTS_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .match("prenom", "prenom", prenom, MatchModeEnum.CONTAINS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
             return resultSet.getLong(1);
@@ -304,8 +358,8 @@ public class EnseignantRepository {
      */
     public boolean isUsedBySlots(int id) throws DataBaseException{
         String requestSql = "SELECT COUNT(e.id) FROM enseignant e INNER JOIN slot s ON e.id = s.idEnseignant WHERE e.id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.persistence;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table d'identité utilisée le temps d'une requête : une entité jointe (enseignant, matière, salle,
+ * créneau horaire, jour) n'est construite qu'une seule fois par résultat, puis partagée par toutes
+ * les lignes qui la référencent.
+ */
+public class IdentityMap {
+
+    /**
+     * Construction d'une entité à partir de la ligne courante
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+        T create() throws SQLException;
+    }
+
+    /**
+     * Entités déjà construites, par type puis par identifiant
+     */
+    private final Map<Class<?>, Map<Integer, Object>> entities = new HashMap<>();
+
+    /**
+     * Retourne l'entité déjà construite pour cet identifiant, ou la construit à partir de la ligne courante
+     * @param type Type de l'entité
+     * @param id Identifiant de l'entité
+     * @param factory Construction de l'entité (appelée uniquement à la première occurrence)
+     * @return entité
+     * @throws SQLException
+     */
+    public <T> T get(Class<T> type, int id, Factory<T> factory) throws SQLException {
+        Map<Integer, Object> byId = entities.computeIfAbsent(type, k -> new HashMap<>());
+        Object entity = byId.get(id);
+        if (entity == null) {
+            entity = factory.create();
+            byId.put(id, entity);
+        }
+        return type.cast(entity);
+    }// get()
+
+}// IdentityMap
@@ -15,15 +15,23 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Matiere;
+import com.education.project.model.Page;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,17 +41,22 @@ import java.util.Optional;
 @Repository
 public class MatiereRepository {
 
-    private Connection connection;
+    /**
+     * Pool de connexions à la base de données
+     */
+    private DataSource dataSource;
 
     private static final Logger LOGGER = LogManager.getLogger(MatiereRepository.class);
 
-    public MatiereRepository(@Value("${db.user}") String user, @Value("${db.password}") String password, @Value("${db.driver}") String driver, @Value("${db.url}") String url){
-        try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(url,user,password);
-        } catch (Exception throwables) {
-            throwables.printStackTrace();
-        }
+    private static final QueryBuilder.Template MATIERES_QUERY = new QueryBuilder.Template("SELECT * FROM matiere", "ORDER BY nom ASC, id ASC");
+
+    private static final QueryBuilder.Template MATIERES_PAGE_QUERY = new QueryBuilder.Template("SELECT matiere.*, COUNT(*) OVER() AS total FROM matiere", "ORDER BY nom ASC, id ASC");
+
+    private static final QueryBuilder.Template COUNT_MATIERES_QUERY = new QueryBuilder.Template("SELECT COUNT(id) FROM matiere", null);
+
+    @Autowired
+    public MatiereRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }//MatiereRepository
 
     /**
@@ -53,8 +66,8 @@ public class MatiereRepository {
      */
     public Optional<Matiere> insert(Matiere matiere) throws DataBaseException {
         String request = "INSERT INTO matiere (nom,volumeHoraire,description,creationDate,modificationDate) VALUES (?,?,?,?,?)";
-        try {
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request,Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request,Statement.RETURN_GENERATED_KEYS);
             preparedStatement.setString(1,matiere.getNom());
             preparedStatement.setString(2,matiere.getVolumeHoraire());
             preparedStatement.setString(3,matiere.getDescription());
@@ -85,8 +98,8 @@ public class MatiereRepository {
      */
     public Optional<Matiere> update(Matiere matiere) throws DataBaseException {
         String request = "UPDATE matiere SET nom = ?, volumeHoraire = ?, description = ?, modificationDate = ? WHERE id = ? ";
-        try{
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request);
             preparedStatement.setString(1, matiere.getNom());
             preparedStatement.setString(2, matiere.getVolumeHoraire());
             preparedStatement.setString(3, matiere.getDescription());
@@ -113,8 +126,8 @@ public class MatiereRepository {
      */
     public boolean deleteMatiere(int id) throws DataBaseException {
         String request = "DELETE FROM matiere WHERE id = ?";
-        try {
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request);
             preparedStatement.setInt(1,id);
             int nbRowsDeleted = preparedStatement.executeUpdate();
             if(nbRowsDeleted > 0){
@@ -135,9 +148,9 @@ public class MatiereRepository {
      */
     public Optional<Matiere> findById(Integer id) throws DataBaseException {
         if(id != null){
-            try {
+            try (Connection connection = this.dataSource.getConnection()) {
                 String request = "SELECT * FROM matiere WHERE id = ?";
-                PreparedStatement preparedStatement = this.connection.prepareStatement(request);
+                PreparedStatement preparedStatement = connection.prepareStatement(request);
                 preparedStatement.setInt(1, id);
                 ResultSet rs = preparedStatement.executeQuery();
                 if(rs.next()){
@@ -162,10 +175,43 @@ public class MatiereRepository {
         return Optional.empty();
     }//findById()
 
+    /**
+     * Récupère en une seule requête les matières dont les identifiants sont passés en paramètre
+     * @param ids Identifiants des matières
+     * @return Les matières trouvées (un identifiant inexistant est ignoré)
+     * @throws DataBaseException
+     */
+    public List<Matiere> findByIds(Collection<Integer> ids) throws DataBaseException {
+        List<Matiere> results = new ArrayList<>();
+        if(ids.isEmpty()){
+            return results;
+        }
+        String requestSql = "SELECT * FROM matiere WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for(Integer id : ids){
+                ps.setInt(index++, id);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Matiere resultat = new Matiere(resultSet.getString("nom"), resultSet.getString("volumeHoraire"), resultSet.getString("description"));
+                resultat.setId(resultSet.getInt("id"));
+                resultat.setCreationDate(new java.util.Date(resultSet.getTimestamp("creationDate").getTime()));
+                resultat.setModificationDate(new java.util.Date(resultSet.getTimestamp("modificationDate").getTime()));
+                results.add(resultat);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les matières d'identifiants {}", ids, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les matières");
+        }
+        return results;
+    }//findByIds()
+
     public boolean isExistByName(String nom) throws DataBaseException {
         String request = "SELECT COUNT(*) FROM matiere WHERE nom = ?";
-        try {
-            PreparedStatement preparedStatement = this.connection.prepareStatement(request);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(request);
             preparedStatement.setString(1,nom);
             ResultSet resultSet = preparedStatement.executeQuery();
             resultSet.next();
@@ -189,31 +235,15 @@ public class MatiereRepository {
      */
     public List<Matiere> findAll(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
         List<Matiere> results = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT * FROM matiere ");
-        if(nom != null && !nom.isEmpty()){
-            sb.append("WHERE nom LIKE ?");
-        }
-        sb.append(" ORDER BY nom ASC ");
+        QueryBuilder query = MATIERES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
         if(page != null && nbElementsPerPage != null){
-            sb.append("LIMIT ? OFFSET ?");
+            query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
         }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            int indiceNom = 0;
-            if(nom != null && !nom.isEmpty()){
-                ++indiceNom;
-                ps.setString(indiceNom, "%" + nom + "%");
-            }
-            if(page != null && nbElementsPerPage != null){
-                ps.setInt(indiceNom+1,nbElementsPerPage);
-                ps.setInt(indiceNom+2,(page-1) * nbElementsPerPage);
-            }
-            if(!ps.execute()){
-                LOGGER.error("Erreur technique : impossible de récupérer les matières");
-                throw new DataBaseException("Erreur technique : impossible de récupérer les matières");
-            }
-            ResultSet resultSet = ps.getResultSet();
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
             while(resultSet.next()){
                 int idFromBd = resultSet.getInt("id");
                 String nomFromBd = resultSet.getString("nom");
@@ -234,27 +264,85 @@ public class MatiereRepository {
         return results;
     }// findAll()
 
+    /**
+     * Récupère une page de matières ainsi que le nombre total de matières correspondant au filtre,
+     * en une seule requête (COUNT(*) OVER())
+     *
+     * @param nom Nom de la matière (facultatif)
+     * @param page Numéro de la page
+     * @param nbElementsPerPage Nombre de matières par page
+     * @return Page de matières (le total vaut 0 si la page est vide)
+     * @throws DataBaseException
+     */
+    public Page<Matiere> findPage(String nom, int page, int nbElementsPerPage) throws DataBaseException {
+        List<Matiere> results = new ArrayList<>();
+        long total = 0;
+        QueryBuilder query = MATIERES_PAGE_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
+        query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Matiere resultat = new Matiere(resultSet.getString("nom"), resultSet.getString("volumeHoraire"), resultSet.getString("description"));
+                resultat.setId(resultSet.getInt("id"));
+                resultat.setCreationDate(new Date(resultSet.getTimestamp("creationDate").getTime()));
+                resultat.setModificationDate(new Date(resultSet.getTimestamp("modificationDate").getTime()));
+                results.add(resultat);
+                total = resultSet.getLong("total");
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer la page " + page + " des matières", e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les matières");
+        }
+        return new Page<>(results, total);
+    }// findPage()
+
+    /**
+     * Récupère les matières situées après le curseur passé en paramètre,
+     * triées par nom puis par identifiant (pagination par curseur)
+     * @param nom Nom de la matière (facultatif)
+     * @param after Dernière matière de la page précédente (null pour la première page)
+     * @param limit Nombre maximum de matières à récupérer
+     * @return Matières récupérées
+     */
+    public List<Matiere> findAllAfter(String nom, CursorUtils.Cursor after, int limit) throws DataBaseException {
+        List<Matiere> results = new ArrayList<>();
+        QueryBuilder query = MATIERES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .after("nom", "id", after)
+                .limit(limit);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Matiere resultat = new Matiere(resultSet.getString("nom"), resultSet.getString("volumeHoraire"), resultSet.getString("description"));
+                resultat.setId(resultSet.getInt("id"));
+                resultat.setCreationDate(new Date(resultSet.getTimestamp("creationDate").getTime()));
+                resultat.setModificationDate(new Date(resultSet.getTimestamp("modificationDate").getTime()));
+                results.add(resultat);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les matières", e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les matières");
+        }
+        return results;
+    }// findAllAfter()
+
     /**
      * Compte le nombre total de matières
      * @param nom Nom / Expression incomplète (optionnel)
      * @return nombre total de matières
      */
     public long count(String nom) throws DataBaseException {
-        StringBuilder sb = new StringBuilder("SELECT COUNT(id) FROM matiere ");
-        if(nom != null && !nom.isEmpty()){
-            sb.append("WHERE nom LIKE ?");
-        }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(nom != null && !nom.isEmpty()){
-                ps.setString(1, "%" + nom + "%");
-            }
-            if(!ps.execute()){
-                LOGGER.error("Erreur technique : impossible de compter les matières");
-                throw new DataBaseException("Erreur technique : impossible de compter les matières");
-            }
-            ResultSet resultSet = ps.getResultSet();
+        QueryBuilder query = COUNT_MATIERES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
             resultSet.next();
             return resultSet.getLong(1);
         } catch (SQLException e) {
@@ -271,8 +359,8 @@ public class MatiereRepository {
      */
     public boolean isUsedBySlots(int id) throws DataBaseException{
         String requestSql = "SELECT COUNT(m.id) FROM matiere m INNER JOIN slot s ON m.id = s.idMatiere WHERE m.id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
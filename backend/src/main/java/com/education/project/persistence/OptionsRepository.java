@@ -19,9 +19,11 @@ import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Options;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
 import java.util.Optional;
 
@@ -33,17 +35,16 @@ import java.util.Optional;
 @Repository
 public class OptionsRepository {
 
-    private Connection connection;
+    /**
+     * Pool de connexions à la base de données
+     */
+    private DataSource dataSource;
 
     private static final Logger LOGGER = LogManager.getLogger(OptionsRepository.class);
 
-    public OptionsRepository(@Value("${db.user}") String user, @Value("${db.password}") String password, @Value("${db.driver}") String driver, @Value("${db.url}") String url){
-        try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(url,user,password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+    @Autowired
+    public OptionsRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }// OptionsRepository()
 
     /**
@@ -80,8 +81,8 @@ public class OptionsRepository {
         requestSql = sb.toString();
         requestSql = requestSql.substring(0, requestSql.length()-2); // j'enlève la virgule en trop
         requestSql = requestSql + " WHERE id = 1";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             if(fullOptions.getSplitPlanning() != null){
                 ps.setInt(idxSplitPlanning , fullOptions.getSplitPlanning());
             }
@@ -103,9 +104,9 @@ public class OptionsRepository {
      * @return Options générales
      */
     public Optional<Options> getOptions() throws DataBaseException{
-        try {
+        try (Connection connection = this.dataSource.getConnection()) {
             String requestSql = "SELECT * FROM options WHERE id = 1";
-            Statement statement = this.connection.createStatement();
+            Statement statement = connection.createStatement();
             ResultSet resultSet = statement.executeQuery(requestSql);
             resultSet.next();
             Options options = new Options(resultSet.getInt("splitplanning"),
@@ -15,34 +15,54 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
+import com.education.project.exceptions.ConflictException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.*;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
+import com.education.project.utils.StreamingUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public class PlanningRepository {
 
-    private Connection connection;
+    /**
+     * Pool de connexions à la base de données
+     */
+    private DataSource dataSource;
+
+    private SlotRepository slotRepository;
 
     private Logger LOGGER = LogManager.getLogger(PlanningRepository.class);
 
-    public PlanningRepository(@Value("${db.user}") String user, @Value("${db.password}") String password, @Value("${db.driver}") String driver, @Value("${db.url}") String url) {
-        try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(url, user, password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+    private static final QueryBuilder.Template PLANNINGS_QUERY = new QueryBuilder.Template(
+            "SELECT p.id AS pid, p.nom AS pnom, p.creationDate AS pcreationDate, p.modificationDate AS pmodificationDate, p.wednesdayUsed AS pwednesdayUsed, p.saturdayUsed AS psaturdayUsed, " +
+            "p.idClasse AS pidClasse, c.nom AS cnom, c.creationDate AS ccreationDate, c.modificationDate AS cmodificationDate " +
+            "FROM planning p INNER JOIN classe c ON c.id = p.idClasse ", "ORDER BY p.id");
+
+    @Autowired
+    public PlanningRepository(DataSource dataSource, SlotRepository slotRepository) {
+        this.dataSource = dataSource;
+        this.slotRepository = slotRepository;
     }// PlanningRepository()
 
     /**
@@ -54,24 +74,33 @@ public class PlanningRepository {
      */
     public Optional<Planning> insert(Planning planningToInsert) throws DataBaseException {
         String requestSql = "INSERT INTO planning (nom, idClasse, creationDate, modificationDate, wednesdayUsed, saturdayUsed) VALUES (?, ?, ?, ?, ?, ?)";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, planningToInsert.getNom());
-            ps.setInt(2, planningToInsert.getClasse().getId());
-            ps.setTimestamp(3, new Timestamp(planningToInsert.getCreationDate().getTime()));
-            ps.setTimestamp(4, new Timestamp(planningToInsert.getModificationDate().getTime()));
-            ps.setBoolean(5, planningToInsert.isWednesdayUsed());
-            ps.setBoolean(6, planningToInsert.isSaturdayUsed());
-            if (ps.executeUpdate() == 0) {
-                throw new DataBaseException("Erreur technique : Il est impossible de créér le planning");
-            }
-            ResultSet generatedKeys = ps.getGeneratedKeys();
-            generatedKeys.next();
-            Integer idGenerated = generatedKeys.getInt(1);
-            planningToInsert.setId(idGenerated);
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, planningToInsert.getNom());
+                ps.setInt(2, planningToInsert.getClasse().getId());
+                ps.setTimestamp(3, new Timestamp(planningToInsert.getCreationDate().getTime()));
+                ps.setTimestamp(4, new Timestamp(planningToInsert.getModificationDate().getTime()));
+                ps.setBoolean(5, planningToInsert.isWednesdayUsed());
+                ps.setBoolean(6, planningToInsert.isSaturdayUsed());
+                if (ps.executeUpdate() == 0) {
+                    throw new SQLException("Aucun planning créé");
+                }
+                ResultSet generatedKeys = ps.getGeneratedKeys();
+                generatedKeys.next();
+                Integer idGenerated = generatedKeys.getInt(1);
 
-            bindPlanningWithSlots(planningToInsert, idGenerated);
-            return Optional.of(planningToInsert);
+                insertSlotsOfPlanning(connection, idGenerated, slotIds(planningToInsert));
+                connection.commit();
+                planningToInsert.setId(idGenerated);
+                return Optional.of(planningToInsert);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             LOGGER.error(e.getMessage(), e);
             throw new DataBaseException("Erreur technique : Il est impossible de créér le planning");
@@ -79,41 +108,157 @@ public class PlanningRepository {
     }// insert()
 
     /**
-     * Met à jour le planning dans la base de données
+     * Crée des plannings et leurs slots (qui n'existent pas encore) dans la base de données, en une seule transaction
+     * et en un envoi de requêtes (batch JDBC) par table : les slots, les plannings puis leurs associations.
+     * Aucun planning ni aucun slot n'est créé en cas d'erreur.
+     *
+     * @param plannings Plannings à créer avec leurs slots (dates de création et de modification renseignées),
+     *                  complétés par leur identifiant et celui de leurs slots
+     * @return Plannings créés
+     * @throws DataBaseException
+     */
+    public List<Planning> insertAllWithSlots(List<Planning> plannings) throws DataBaseException {
+        String requestSql = "INSERT INTO planning (nom, idClasse, creationDate, modificationDate, wednesdayUsed, saturdayUsed) VALUES (?, ?, ?, ?, ?, ?)";
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Slot> slots = new ArrayList<>();
+                for (Planning planning : plannings) {
+                    slots.addAll(planning.getSlots());
+                }
+                slotRepository.insertAll(connection, slots);
+                PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+                for (Planning planning : plannings) {
+                    ps.setString(1, planning.getNom());
+                    ps.setInt(2, planning.getClasse().getId());
+                    ps.setTimestamp(3, new Timestamp(planning.getCreationDate().getTime()));
+                    ps.setTimestamp(4, new Timestamp(planning.getModificationDate().getTime()));
+                    ps.setBoolean(5, planning.isWednesdayUsed());
+                    ps.setBoolean(6, planning.isSaturdayUsed());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                ResultSet generatedKeys = ps.getGeneratedKeys();
+                for (Planning planning : plannings) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Identifiants des plannings créés incomplets");
+                    }
+                    planning.setId(generatedKeys.getInt(1));
+                }
+                ps = connection.prepareStatement("INSERT INTO planning_has_slots (idPlanning, idSlot) VALUES (?, ?)");
+                for (Planning planning : plannings) {
+                    for (Slot slot : planning.getSlots()) {
+                        ps.setInt(1, planning.getId());
+                        ps.setInt(2, slot.getId());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+                connection.commit();
+                return plannings;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de créer les {} plannings et leurs slots dans la base de données", plannings.size(), e);
+            throw new DataBaseException("Erreur technique : Il est impossible de créer les plannings");
+        }
+    }// insertAllWithSlots()
+
+    /**
+     * Met à jour le planning dans la base de données, en une seule transaction : seules les associations
+     * avec les slots retirés ou ajoutés sont supprimées ou créées.
+     * Si la date de modification attendue est donnée, le planning n'est mis à jour que s'il n'a pas été
+     * modifié depuis (verrouillage optimiste).
      *
-     * @param planning Planning à mettre à jour
+     * @param planning Planning à mettre à jour (avec sa nouvelle date de modification)
+     * @param expectedModificationDate Date de modification du planning lors de sa lecture (facultatif)
      * @return Planning mis à jour
      * @throws DataBaseException
+     * @throws ConflictException si le planning a été modifié depuis sa lecture
      */
-    public Optional<Planning> update(Planning planning) throws DataBaseException {
+    public Optional<Planning> update(Planning planning, Date expectedModificationDate) throws DataBaseException, ConflictException {
         String requestSql = "UPDATE planning SET nom = ?, idClasse = ?, modificationDate = ?, wednesdayUsed = ?, saturdayUsed = ? WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            ps.setString(1, planning.getNom());
-            ps.setInt(2, planning.getClasse().getId());
-            ps.setTimestamp(3, new Timestamp(planning.getModificationDate().getTime()));
-            ps.setBoolean(4, planning.isWednesdayUsed());
-            ps.setBoolean(5, planning.isSaturdayUsed());
-            ps.setInt(6, planning.getId());
-            if (ps.executeUpdate() == 0) {
-                throw new DataBaseException("Erreur technique : Il est impossible de mettre à jour le planning");
-            }
+        if (expectedModificationDate != null) {
+            requestSql += " AND modificationDate = ?";
+        }
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement ps = connection.prepareStatement(requestSql);
+                ps.setString(1, planning.getNom());
+                ps.setInt(2, planning.getClasse().getId());
+                ps.setTimestamp(3, new Timestamp(planning.getModificationDate().getTime()));
+                ps.setBoolean(4, planning.isWednesdayUsed());
+                ps.setBoolean(5, planning.isSaturdayUsed());
+                ps.setInt(6, planning.getId());
+                if (expectedModificationDate != null) {
+                    ps.setTimestamp(7, new Timestamp(expectedModificationDate.getTime()));
+                }
+                if (ps.executeUpdate() == 0) {
+                    connection.rollback();
+                    if (expectedModificationDate != null && exists(connection, planning.getId())) {
+                        throw new ConflictException("Le planning a été modifié depuis sa lecture, veuillez le recharger");
+                    }
+                    throw new DataBaseException("Erreur technique : Il est impossible de mettre à jour le planning");
+                }
 
-            requestSql = "DELETE FROM planning_has_slots WHERE idPlanning = ?";
-            ps = this.connection.prepareStatement(requestSql);
-            ps.setInt(1, planning.getId());
-            if (ps.executeUpdate() == 0) {
-                throw new DataBaseException("Erreur technique : Il est impossible de mettre à jour le planning");
-            }
+                // La ligne du planning reste verrouillée jusqu'à la fin de la transaction : les associations lues sont à jour
+                Set<Integer> oldSlotIds = new HashSet<>();
+                ps = connection.prepareStatement("SELECT idSlot FROM planning_has_slots WHERE idPlanning = ?");
+                ps.setInt(1, planning.getId());
+                ResultSet resultSet = ps.executeQuery();
+                while (resultSet.next()) {
+                    oldSlotIds.add(resultSet.getInt(1));
+                }
+                Set<Integer> newSlotIds = slotIds(planning);
+                Set<Integer> slotIdsToDelete = new HashSet<>(oldSlotIds);
+                slotIdsToDelete.removeAll(newSlotIds);
+                newSlotIds.removeAll(oldSlotIds);
 
-            bindPlanningWithSlots(planning, planning.getId());
-            return Optional.of(planning);
+                if (!slotIdsToDelete.isEmpty()) {
+                    ps = connection.prepareStatement("DELETE FROM planning_has_slots WHERE idPlanning = ? AND idSlot = ?");
+                    for (Integer slotId : slotIdsToDelete) {
+                        ps.setInt(1, planning.getId());
+                        ps.setInt(2, slotId);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                insertSlotsOfPlanning(connection, planning.getId(), newSlotIds);
+                connection.commit();
+                return Optional.of(planning);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             LOGGER.error(e.getMessage(), e);
             throw new DataBaseException("Erreur technique : Il est impossible de mettre à jour le planning");
         }
     }// update()
 
+    /**
+     * Vérifie l'existence d'un planning
+     *
+     * @param connection Connexion utilisée par la mise à jour du planning
+     * @param id Identifiant du planning
+     * @return true si le planning existe
+     * @throws SQLException
+     */
+    private boolean exists(Connection connection, int id) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("SELECT COUNT(id) FROM planning WHERE id = ?");
+        ps.setInt(1, id);
+        ResultSet resultSet = ps.executeQuery();
+        resultSet.next();
+        return resultSet.getLong(1) > 0;
+    }// exists()
+
     /**
      * Cette fonction permet de supprimer un planning de la base de données
      *
@@ -122,14 +267,14 @@ public class PlanningRepository {
      * @throws DataBaseException
      */
     public boolean deletePlanning(Integer id) throws DataBaseException {
-        try {
+        try (Connection connection = this.dataSource.getConnection()) {
             String requestSql = "DELETE FROM planning_has_slots WHERE idPlanning = ?";
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             int rowsDeleted = ps.executeUpdate();
 
             requestSql = "DELETE FROM planning WHERE id = ?";
-            ps = this.connection.prepareStatement(requestSql);
+            ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             rowsDeleted += ps.executeUpdate();
             return rowsDeleted > 1;
@@ -146,65 +291,83 @@ public class PlanningRepository {
      * @return Planning
      */
     public Optional<Planning> findById(int id) throws DataBaseException {
-        StringBuilder sb = new StringBuilder("SELECT p.id AS pid, p.nom AS pnom, p.creationDate AS pcreationDate, p.modificationDate AS pmodificationDate, p.wednesdayUsed AS pwednesdayUsed, p.saturdayUsed AS psaturdayUsed,");
-        sb.append("p.idClasse AS pidClasse, c.nom AS cnom, c.creationDate AS ccreationDate, c.modificationDate AS cmodificationDate,");
-        sb.append("s.id AS slotId, s.comment AS slotComment, s.creationDate AS slotCreationDate, s.modificationDate AS slotModificationDate, ");
-        sb.append("s.couleurFond AS slotCouleurFond, s.couleurPolice AS slotCouleurPolice, ");
-        sb.append("j.id AS jourId, j.nom AS jourNom, e.id AS enseignantId, e.nom AS enseignantNom, e.prenom AS enseignantPrenom, e.creationDate AS enseignantCreationDate, e.modificationDate AS enseignantModificationDate, ");
-        sb.append("m.id AS matiereId, m.nom AS matiereNom,m.volumeHoraire AS matiereVolumeHoraire, m.description AS matiereDescription, m.creationDate AS matiereCreationDate, m.modificationDate AS matiereModificationDate, ");
-        sb.append("t.id AS timeslotId, t.startHour AS timeslotStartHour, t.endHour AS timeslotEndHour, ");
-        sb.append(" sa.id AS salleId, sa.nom AS salleNom, sa.creationDate AS salleCreationDate, sa.modificationDate AS salleModificationDate ");
-        sb.append("FROM planning p ");
-        sb.append("INNER JOIN classe c ON c.id = p.idClasse ");
-        sb.append("INNER JOIN planning_has_slots phs ON phs.idPlanning = p.id ");
-        sb.append("INNER JOIN slot s ON phs.idSlot = s.id ");
-        sb.append("LEFT JOIN enseignant e ON s.idEnseignant = e.id ");
-        sb.append("INNER JOIN matiere m ON s.idMatiere = m.id ");
-        sb.append("INNER JOIN timeslot t ON s.idTimeslot = t.id ");
-        sb.append("LEFT JOIN salle sa ON s.idSalle = sa.id ");
-        sb.append("INNER JOIN jour j ON s.idJour = j.id ");
-        sb.append("WHERE p.id = ?");
-
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        String requestSql = selectPlanningsWithSlots() + "WHERE p.id = ?";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             Planning planning = new Planning();
             planning.setSlots(new ArrayList<>());
+            IdentityMap identityMap = new IdentityMap();
             while (resultSet.next()) {
                 if (planning.getId() == null) {
-                    planning.setId(resultSet.getInt("pid"));
-                    planning.setNom(resultSet.getString("pnom"));
-                    planning.setModificationDate(resultSet.getTimestamp("pmodificationDate"));
-                    planning.setCreationDate(resultSet.getTimestamp("pcreationDate"));
-                    Classe classe = new Classe(
-                            resultSet.getInt("pidClasse"),
-                            resultSet.getString("cnom"),
-                            resultSet.getTimestamp("ccreationDate"),
-                            resultSet.getTimestamp("cmodificationDate")
-                    );
-                    planning.setClasse(classe);
-                    planning.setSaturdayUsed(resultSet.getBoolean("psaturdayUsed"));
-                    planning.setWednesdayUsed(resultSet.getBoolean("pwednesdayUsed"));
+                    initPlanning(planning, resultSet);
                 }
-                Enseignant enseignant = new Enseignant(resultSet.getInt("enseignantId"), resultSet.getString("enseignantNom"), resultSet.getString("enseignantPrenom"), resultSet.getTimestamp("enseignantCreationDate"), resultSet.getTimestamp("enseignantModificationDate"));
-                Matiere matiere = new Matiere(resultSet.getInt("matiereId"), resultSet.getString("matiereNom"), resultSet.getString("matiereVolumeHoraire"), resultSet.getString("matiereDescription"), resultSet.getTimestamp("matiereCreationDate"), resultSet.getTimestamp("matiereModificationDate"));
-                Salle salle = new Salle(resultSet.getInt("salleId"), resultSet.getString("salleNom"), resultSet.getTimestamp("salleCreationDate"), resultSet.getTimestamp("salleModificationDate"));
-                TimeSlot timeSlot = new TimeSlot(resultSet.getInt("timeslotId"), LocalTime.parse(resultSet.getString("timeslotStartHour")), LocalTime.parse(resultSet.getString("timeslotEndHour")));
-                Jour jour = new Jour(resultSet.getInt("jourId"), resultSet.getString("jourNom"));
+                planning.getSlots().add(initSlot(resultSet, identityMap));
+            }
+            return Optional.of(planning);
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Impossible de récupérer le planning n°" + id);
+        }
+    }// findById()
+
+    /**
+     * Récupère un planning en deux requêtes légères : l'en-tête du planning (une seule ligne) puis
+     * ses slots, dont les entités utilisées (classe, enseignant, matière, salle, créneau horaire, jour)
+     * ne sont renseignées que par leur identifiant (0 si le slot n'a pas d'enseignant ou de salle).
+     * Les entités doivent ensuite être complétées par l'appelant.
+     *
+     * @param id Identifiant du planning à récupérer
+     * @return Planning (vide s'il n'existe pas)
+     */
+    public Optional<Planning> findByIdWithSlotKeys(int id) throws DataBaseException {
+        String planningSql = "SELECT id, nom, creationDate, modificationDate, wednesdayUsed, saturdayUsed, idClasse FROM planning WHERE id = ?";
+        String slotsSql = "SELECT s.id, s.comment, s.creationDate, s.modificationDate, s.couleurFond, s.couleurPolice, " +
+                "s.idEnseignant, s.idMatiere, s.idTimeslot, s.idSalle, s.idJour " +
+                "FROM planning_has_slots phs INNER JOIN slot s ON phs.idSlot = s.id WHERE phs.idPlanning = ?";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(planningSql);
+            ps.setInt(1, id);
+            ResultSet resultSet = ps.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            Planning planning = new Planning();
+            planning.setId(resultSet.getInt("id"));
+            planning.setNom(resultSet.getString("nom"));
+            planning.setCreationDate(resultSet.getTimestamp("creationDate"));
+            planning.setModificationDate(resultSet.getTimestamp("modificationDate"));
+            planning.setWednesdayUsed(resultSet.getBoolean("wednesdayUsed"));
+            planning.setSaturdayUsed(resultSet.getBoolean("saturdayUsed"));
+            Classe classe = new Classe();
+            classe.setId(resultSet.getInt("idClasse"));
+            planning.setClasse(classe);
+            planning.setSlots(new ArrayList<>());
+            ps = connection.prepareStatement(slotsSql);
+            ps.setInt(1, id);
+            resultSet = ps.executeQuery();
+            while (resultSet.next()) {
                 Slot slot = new Slot();
-                slot.setId(resultSet.getInt("slotId"));
-                slot.setCouleurFond(resultSet.getString("slotCouleurFond"));
-                slot.setCouleurPolice(resultSet.getString("slotCouleurPolice"));
-                slot.setComment(resultSet.getString("slotComment"));
-                slot.setCreationDate(resultSet.getTimestamp("slotCreationDate"));
-                slot.setModificationDate(resultSet.getTimestamp("slotModificationDate"));
+                slot.setId(resultSet.getInt("id"));
+                slot.setComment(resultSet.getString("comment"));
+                slot.setCreationDate(resultSet.getTimestamp("creationDate"));
+                slot.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                slot.setCouleurFond(resultSet.getString("couleurFond"));
+                slot.setCouleurPolice(resultSet.getString("couleurPolice"));
+                Enseignant enseignant = new Enseignant();
+                enseignant.setId(resultSet.getInt("idEnseignant"));
                 slot.setEnseignant(enseignant);
+                Matiere matiere = new Matiere();
+                matiere.setId(resultSet.getInt("idMatiere"));
                 slot.setMatiere(matiere);
-                slot.setSalle(salle);
+                TimeSlot timeSlot = new TimeSlot();
+                timeSlot.setId(resultSet.getInt("idTimeslot"));
                 slot.setTimeSlot(timeSlot);
-                slot.setJour(jour);
+                Salle salle = new Salle();
+                salle.setId(resultSet.getInt("idSalle"));
+                slot.setSalle(salle);
+                slot.setJour(new Jour(resultSet.getInt("idJour"), null));
                 planning.getSlots().add(slot);
             }
             return Optional.of(planning);
@@ -212,44 +375,179 @@ public class PlanningRepository {
             LOGGER.error(e.getMessage(), e);
             throw new DataBaseException("Impossible de récupérer le planning n°" + id);
         }
-    }// findById()
+    }// findByIdWithSlotKeys()
 
     /**
-     * Cette fonction permet de récupérer tous les plannings dans la base de données
+     * Récupère en une seule requête les plannings (avec leurs slots) dont les identifiants
+     * sont passés en paramètre, ou tous les plannings si aucun identifiant n'est donné.
      *
-     * @return liste des plannings
+     * @param ids Identifiants des plannings à récupérer (facultatif)
+     * @return Plannings triés par identifiant
      */
-    public List<Planning> getPlannings(Map<String, String> params) throws DataBaseException {
-        List<Planning> resultPlannings = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT p.id AS pid, p.nom AS pnom, p.creationDate AS pcreationDate, p.modificationDate AS pmodificationDate, p.wednesdayUsed AS pwednesdayUsed, p.saturdayUsed AS psaturdayUsed, ");
-        sb.append("p.idClasse AS pidClasse, c.nom AS cnom, c.creationDate AS ccreationDate, c.modificationDate AS cmodificationDate ");
-        sb.append("FROM planning p INNER JOIN classe c ON c.id = p.idClasse ");
-        if (params != null) {
-            if (params.containsKey("classeNom") && params.get("classeNom") != null && !params.get("classeNom").isEmpty()) {
-                sb.append("WHERE c.nom LIKE ? ");
-            }
+    public List<Planning> findAllWithSlots(List<Integer> ids) throws DataBaseException {
+        StringBuilder sb = new StringBuilder(selectPlanningsWithSlots());
+        if (ids != null && !ids.isEmpty()) {
+            sb.append("WHERE p.id IN (");
+            sb.append(String.join(",", Collections.nCopies(ids.size(), "?")));
+            sb.append(") ");
         }
+        sb.append("ORDER BY p.id");
         String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if (params != null) {
-                if (params.containsKey("classeNom") && params.get("classeNom") != null && !params.get("classeNom").isEmpty()) {
-                    ps.setString(1, "%" + params.get("classeNom") + "%");
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            if (ids != null) {
+                for (int i = 0; i < ids.size(); ++i) {
+                    ps.setInt(i + 1, ids.get(i));
                 }
             }
             ResultSet resultSet = ps.executeQuery();
+            List<Planning> plannings = new ArrayList<>();
+            Planning planning = null;
+            IdentityMap identityMap = new IdentityMap();
+            while (resultSet.next()) {
+                if (planning == null || planning.getId() != resultSet.getInt("pid")) {
+                    planning = new Planning();
+                    planning.setSlots(new ArrayList<>());
+                    initPlanning(planning, resultSet);
+                    plannings.add(planning);
+                }
+                planning.getSlots().add(initSlot(resultSet, identityMap));
+            }
+            return plannings;
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les plannings et leurs slots");
+        }
+    }// findAllWithSlots()
+
+    /**
+     * Récupère en une seule requête la classe et les slots de chaque planning,
+     * renseignés par leur seul identifiant.
+     *
+     * @return Plannings (sans nom ni dates)
+     */
+    public List<Planning> findSlotBindings() throws DataBaseException {
+        String requestSql = "SELECT p.id, p.idClasse, phs.idSlot FROM planning p " +
+                "INNER JOIN planning_has_slots phs ON phs.idPlanning = p.id ORDER BY p.id";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            ResultSet resultSet = ps.executeQuery();
+            List<Planning> plannings = new ArrayList<>();
+            Planning planning = null;
+            while (resultSet.next()) {
+                if (planning == null || planning.getId() != resultSet.getInt("id")) {
+                    planning = new Planning();
+                    planning.setId(resultSet.getInt("id"));
+                    Classe classe = new Classe();
+                    classe.setId(resultSet.getInt("idClasse"));
+                    planning.setClasse(classe);
+                    planning.setSlots(new ArrayList<>());
+                    plannings.add(planning);
+                }
+                planning.getSlots().add(new Slot(resultSet.getInt("idSlot")));
+            }
+            return plannings;
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les slots des plannings");
+        }
+    }// findSlotBindings()
+
+    /**
+     * Requête de sélection d'un planning avec sa classe et ses slots (une ligne par slot)
+     *
+     * @return début de requête SQL (sans clause WHERE)
+     */
+    private String selectPlanningsWithSlots() {
+        StringBuilder sb = new StringBuilder("SELECT p.id AS pid, p.nom AS pnom, p.creationDate AS pcreationDate, p.modificationDate AS pmodificationDate, p.wednesdayUsed AS pwednesdayUsed, p.saturdayUsed AS psaturdayUsed,");
+        sb.append("p.idClasse AS pidClasse, c.nom AS cnom, c.creationDate AS ccreationDate, c.modificationDate AS cmodificationDate,");
+        sb.append("s.id AS slotId, s.comment AS slotComment, s.creationDate AS slotCreationDate, s.modificationDate AS slotModificationDate, ");
+        sb.append("s.couleurFond AS slotCouleurFond, s.couleurPolice AS slotCouleurPolice, ");
+        sb.append("j.id AS jourId, j.nom AS jourNom, e.id AS enseignantId, e.nom AS enseignantNom, e.prenom AS enseignantPrenom, e.creationDate AS enseignantCreationDate, e.modificationDate AS enseignantModificationDate, ");
+        sb.append("m.id AS matiereId, m.nom AS matiereNom,m.volumeHoraire AS matiereVolumeHoraire, m.description AS matiereDescription, m.creationDate AS matiereCreationDate, m.modificationDate AS matiereModificationDate, ");
+        sb.append("t.id AS timeslotId, t.startHour AS timeslotStartHour, t.endHour AS timeslotEndHour, ");
+        sb.append(" sa.id AS salleId, sa.nom AS salleNom, sa.creationDate AS salleCreationDate, sa.modificationDate AS salleModificationDate ");
+        sb.append("FROM planning p ");
+        sb.append("INNER JOIN classe c ON c.id = p.idClasse ");
+        sb.append("INNER JOIN planning_has_slots phs ON phs.idPlanning = p.id ");
+        sb.append("INNER JOIN slot s ON phs.idSlot = s.id ");
+        sb.append("LEFT JOIN enseignant e ON s.idEnseignant = e.id ");
+        sb.append("INNER JOIN matiere m ON s.idMatiere = m.id ");
+        sb.append("INNER JOIN timeslot t ON s.idTimeslot = t.id ");
+        sb.append("LEFT JOIN salle sa ON s.idSalle = sa.id ");
+        sb.append("INNER JOIN jour j ON s.idJour = j.id ");
+        return sb.toString();
+    }// selectPlanningsWithSlots()
+
+    /**
+     * Initialise un planning (et sa classe) à partir d'un resultSet
+     *
+     * @param planning Planning à initialiser
+     * @param resultSet resultSet
+     * @throws SQLException
+     */
+    private void initPlanning(Planning planning, ResultSet resultSet) throws SQLException {
+        planning.setId(resultSet.getInt("pid"));
+        planning.setNom(resultSet.getString("pnom"));
+        planning.setModificationDate(resultSet.getTimestamp("pmodificationDate"));
+        planning.setCreationDate(resultSet.getTimestamp("pcreationDate"));
+        Classe classe = new Classe(
+                resultSet.getInt("pidClasse"),
+                resultSet.getString("cnom"),
+                resultSet.getTimestamp("ccreationDate"),
+                resultSet.getTimestamp("cmodificationDate")
+        );
+        planning.setClasse(classe);
+        planning.setSaturdayUsed(resultSet.getBoolean("psaturdayUsed"));
+        planning.setWednesdayUsed(resultSet.getBoolean("pwednesdayUsed"));
+    }// initPlanning()
+
+    /**
+     * Initialise un slot (et les entités qu'il utilise) à partir d'un resultSet
+     *
+     * @param resultSet resultSet
+     * @param identityMap Entités déjà lues par la requête en cours
+     * @return slot
+     * @throws SQLException
+     */
+    private Slot initSlot(ResultSet resultSet, IdentityMap identityMap) throws SQLException {
+        Enseignant enseignant = identityMap.get(Enseignant.class, resultSet.getInt("enseignantId"), () -> new Enseignant(resultSet.getInt("enseignantId"), resultSet.getString("enseignantNom"), resultSet.getString("enseignantPrenom"), resultSet.getTimestamp("enseignantCreationDate"), resultSet.getTimestamp("enseignantModificationDate")));
+        Matiere matiere = identityMap.get(Matiere.class, resultSet.getInt("matiereId"), () -> new Matiere(resultSet.getInt("matiereId"), resultSet.getString("matiereNom"), resultSet.getString("matiereVolumeHoraire"), resultSet.getString("matiereDescription"), resultSet.getTimestamp("matiereCreationDate"), resultSet.getTimestamp("matiereModificationDate")));
+        Salle salle = identityMap.get(Salle.class, resultSet.getInt("salleId"), () -> new Salle(resultSet.getInt("salleId"), resultSet.getString("salleNom"), resultSet.getTimestamp("salleCreationDate"), resultSet.getTimestamp("salleModificationDate")));
+        TimeSlot timeSlot = identityMap.get(TimeSlot.class, resultSet.getInt("timeslotId"), () -> new TimeSlot(resultSet.getInt("timeslotId"), LocalTime.parse(resultSet.getString("timeslotStartHour")), LocalTime.parse(resultSet.getString("timeslotEndHour"))));
+        Jour jour = identityMap.get(Jour.class, resultSet.getInt("jourId"), () -> new Jour(resultSet.getInt("jourId"), resultSet.getString("jourNom")));
+        Slot slot = new Slot();
+        slot.setId(resultSet.getInt("slotId"));
+        slot.setCouleurFond(resultSet.getString("slotCouleurFond"));
+        slot.setCouleurPolice(resultSet.getString("slotCouleurPolice"));
+        slot.setComment(resultSet.getString("slotComment"));
+        slot.setCreationDate(resultSet.getTimestamp("slotCreationDate"));
+        slot.setModificationDate(resultSet.getTimestamp("slotModificationDate"));
+        slot.setEnseignant(enseignant);
+        slot.setMatiere(matiere);
+        slot.setSalle(salle);
+        slot.setTimeSlot(timeSlot);
+        slot.setJour(jour);
+        return slot;
+    }// initSlot()
+
+    /**
+     * Cette fonction permet de récupérer tous les plannings dans la base de données
+     *
+     * @return liste des plannings
+     */
+    public List<Planning> getPlannings(Map<String, String> params) throws DataBaseException {
+        List<Planning> resultPlannings = new ArrayList<>();
+        QueryBuilder query = filterPlannings(params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
 
             Planning planning;
             while (resultSet.next()) {
                 planning = new Planning();
-                planning.setId(resultSet.getInt("pid"));
-                planning.setNom(resultSet.getString("pnom"));
-                planning.setModificationDate(resultSet.getTimestamp("pmodificationDate"));
-                planning.setCreationDate(resultSet.getTimestamp("pcreationDate"));
-                Classe classe = new Classe(resultSet.getInt("pidClasse"), resultSet.getString("cnom"), resultSet.getTimestamp("ccreationDate"), resultSet.getTimestamp("cmodificationDate"));
-                planning.setClasse(classe);
-                planning.setSaturdayUsed(resultSet.getBoolean("psaturdayUsed"));
-                planning.setWednesdayUsed(resultSet.getBoolean("pwednesdayUsed"));
+                initPlanning(planning, resultSet);
                 resultPlannings.add(planning);
             }
             return resultPlannings;
@@ -259,24 +557,152 @@ public class PlanningRepository {
         }
     }//getPlannings()
 
+    /**
+     * Lit en flux les plannings (sans leurs slots) : chaque planning est transmis au handler
+     * dès sa lecture, sans que la liste complète soit chargée en mémoire.
+     *
+     * @param params paramètres du planning
+     * @param handler Traitement appelé pour chaque planning lu
+     * @throws IOException si le handler ne peut pas écrire un planning
+     */
+    public void streamPlannings(Map<String, String> params, RowHandler<Planning> handler) throws DataBaseException, IOException {
+        QueryBuilder query = filterPlannings(params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            StreamingUtils.prepareForStreaming(connection, ps.getPreparedStatement());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                Planning planning = new Planning();
+                initPlanning(planning, resultSet);
+                handler.handle(planning);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de lire les plannings dans la base de données", e);
+            throw new DataBaseException("Erreur technique impossible de récupérer les plannings dans la base de données");
+        }
+    }// streamPlannings()
+
+    /**
+     * Requête de sélection des plannings (avec leur classe) triés par identifiant, filtrée par nom de classe
+     * (paramètre match : exact, prefix ou contains par défaut) et paginée si le numéro de page et le
+     * nombre d'éléments par page sont renseignés
+     *
+     * @param params paramètres du planning
+     * @return requête
+     */
+    private QueryBuilder filterPlannings(Map<String, String> params) {
+        Map<String, String> filters = params != null ? params : Collections.emptyMap();
+        QueryBuilder query = PLANNINGS_QUERY.builder()
+                .match("classeNom", "c.nom", filters.get("classeNom"), MatchModeEnum.fromParam(filters.get("match")));
+        if (filters.get("page") != null && !filters.get("page").isEmpty()
+                && filters.get("nbElementsPerPage") != null && !filters.get("nbElementsPerPage").isEmpty()) {
+            // Le nombre d'éléments par page est borné pour limiter la taille des réponses
+            int nbElementsPerPage = CursorUtils.pageSize(Integer.valueOf(filters.get("nbElementsPerPage")));
+            query.page(nbElementsPerPage, Math.max(0, Integer.valueOf(filters.get("page")) - 1) * nbElementsPerPage);
+        }
+        return query;
+    }// filterPlannings()
+
+    /**
+     * Retourne l'empreinte de l'état d'un planning : dates de modification les plus récentes
+     * du planning, de sa classe et de ses slots (matières, enseignants, salles) ainsi que le nombre de slots.
+     * Cette empreinte change dès qu'une donnée affichée par le planning est modifiée.
+     *
+     * @param id Identifiant du planning
+     * @return empreinte (vide si le planning n'existe pas)
+     * @throws DataBaseException
+     */
+    public Optional<String> getVersion(int id) throws DataBaseException {
+        StringBuilder sb = new StringBuilder("SELECT p.modificationDate AS pmodificationDate, c.modificationDate AS cmodificationDate, ");
+        sb.append("MAX(s.modificationDate) AS smodificationDate, MAX(m.modificationDate) AS mmodificationDate, ");
+        sb.append("MAX(e.modificationDate) AS emodificationDate, MAX(sa.modificationDate) AS samodificationDate, COUNT(s.id) AS nbSlots ");
+        sb.append("FROM planning p ");
+        sb.append("INNER JOIN classe c ON c.id = p.idClasse ");
+        sb.append("LEFT JOIN planning_has_slots phs ON phs.idPlanning = p.id ");
+        sb.append("LEFT JOIN slot s ON phs.idSlot = s.id ");
+        sb.append("LEFT JOIN matiere m ON s.idMatiere = m.id ");
+        sb.append("LEFT JOIN enseignant e ON s.idEnseignant = e.id ");
+        sb.append("LEFT JOIN salle sa ON s.idSalle = sa.id ");
+        sb.append("WHERE p.id = ? ");
+        sb.append("GROUP BY p.modificationDate, c.modificationDate");
+        String requestSql = sb.toString();
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            ps.setInt(1, id);
+            ResultSet resultSet = ps.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            long maxModificationDate = 0;
+            for (String column : new String[]{"pmodificationDate", "cmodificationDate", "smodificationDate", "mmodificationDate", "emodificationDate", "samodificationDate"}) {
+                Timestamp modificationDate = resultSet.getTimestamp(column);
+                if (modificationDate != null) {
+                    maxModificationDate = Math.max(maxModificationDate, modificationDate.getTime());
+                }
+            }
+            return Optional.of(maxModificationDate + "-" + resultSet.getLong("nbSlots"));
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer la version du planning n°" + id);
+        }
+    }// getVersion()
+
+    /**
+     * Retourne l'empreinte de l'état de l'ensemble des plannings (nombre de plannings et
+     * dates de modification les plus récentes des plannings et des classes).
+     *
+     * @return empreinte
+     * @throws DataBaseException
+     */
+    public String getPlanningsVersion() throws DataBaseException {
+        String requestSql = "SELECT (SELECT COUNT(id) FROM planning) AS nbPlannings, (SELECT MAX(modificationDate) FROM planning) AS pmodificationDate, (SELECT MAX(modificationDate) FROM classe) AS cmodificationDate";
+        try (Connection connection = this.dataSource.getConnection()) {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(requestSql);
+            resultSet.next();
+            Timestamp planningModificationDate = resultSet.getTimestamp("pmodificationDate");
+            Timestamp classeModificationDate = resultSet.getTimestamp("cmodificationDate");
+            return resultSet.getLong("nbPlannings") + "-"
+                    + (planningModificationDate != null ? planningModificationDate.getTime() : 0) + "-"
+                    + (classeModificationDate != null ? classeModificationDate.getTime() : 0);
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer la version des plannings");
+        }
+    }// getPlanningsVersion()
+
     /**
      * Associe un planning à des slots
-     * @param planning planning à créer ou à mettre à jour
+     * @param connection Connexion utilisée par l'insertion ou la mise à jour du planning
      * @param planningId Identifiant du planning à créer ou à mettre à jour
+     * @param slotIds Identifiants des slots à associer
      * @throws SQLException
-     * @throws DataBaseException
      */
-    private void bindPlanningWithSlots(Planning planning, int planningId) throws SQLException, DataBaseException {
+    private void insertSlotsOfPlanning(Connection connection, int planningId, Set<Integer> slotIds) throws SQLException {
+        if (slotIds.isEmpty()) {
+            return;
+        }
         String requestSql = "INSERT INTO planning_has_slots (idPlanning, idSlot) VALUES (?, ?)";
-        PreparedStatement ps = this.connection.prepareStatement(requestSql);
-        for (Slot slot : planning.getSlots()) {
+        PreparedStatement ps = connection.prepareStatement(requestSql);
+        for (Integer slotId : slotIds) {
             ps.setInt(1, planningId);
-            ps.setInt(2, slot.getId());
+            ps.setInt(2, slotId);
             ps.addBatch();
         }
-        if (ps.executeBatch().length == 0) {
-            throw new DataBaseException("Erreur technique : Il est impossible de créér le planning");
+        ps.executeBatch();
+    }// insertSlotsOfPlanning()
+
+    /**
+     * @param planning Planning
+     * @return identifiants (sans doublon) des slots du planning
+     */
+    private Set<Integer> slotIds(Planning planning) {
+        Set<Integer> slotIds = new LinkedHashSet<>();
+        for (Slot slot : planning.getSlots()) {
+            slotIds.add(slot.getId());
         }
-    }// bindPlanningWithSlots()
+        return slotIds;
+    }// slotIds()
 
 }// PlanningRepository
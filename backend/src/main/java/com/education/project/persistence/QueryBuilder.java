@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.persistence;
+
+import com.education.project.enums.MatchModeEnum;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Construction d'une requête à filtres facultatifs : la clause WHERE (à paramètres nommés)
+ * et les valeurs à lier sont produites en un seul passage sur les filtres.
+ * Chaque appel de filtre occupe un bit du masque (qu'il soit appliqué ou non), et deux pour une
+ * comparaison texte (appliquée, puis faite par LIKE plutôt que par égalité) : pour un même
+ * modèle de requête, appelé toujours dans le même ordre, le masque identifie la forme de la
+ * requête, dont le texte SQL est conservé dans le modèle.
+ */
+public class QueryBuilder {
+
+    /**
+     * Caractère d'échappement des jokers (% et _) dans les valeurs comparées avec LIKE
+     */
+    private final static char LIKE_ESCAPE = '!';
+
+    /**
+     * Modèle de requête : début (SELECT ... FROM ...) et fin (ORDER BY ...) fixes,
+     * textes SQL déjà construits indexés par masque de filtres.
+     */
+    public static class Template {
+
+        private String select;
+
+        private String orderBy;
+
+        private Map<Long, String> sqlByShape;
+
+        /**
+         * @param select Début de la requête (SELECT ... FROM ... JOIN ...), sans clause WHERE
+         * @param orderBy Tri de la requête (facultatif)
+         */
+        public Template(String select, String orderBy) {
+            this.select = select;
+            this.orderBy = orderBy;
+            this.sqlByShape = new ConcurrentHashMap<>();
+        }// Template()
+
+        public QueryBuilder builder() {
+            return new QueryBuilder(this);
+        }// builder()
+
+    }// Template
+
+    /**
+     * Pagination de la requête : aucune, par nombre de lignes (LIMIT) ou par page (LIMIT et OFFSET)
+     */
+    private enum Pagination {
+        NONE, LIMIT, PAGE
+    }// Pagination
+
+    private Template template;
+
+    private StringBuilder where;
+
+    private Map<String, Object> values;
+
+    private long shape;
+
+    private int nbFilters;
+
+    private Pagination pagination = Pagination.NONE;
+
+    private QueryBuilder(Template template) {
+        this.template = template;
+        this.where = new StringBuilder();
+        this.values = new LinkedHashMap<>();
+    }// QueryBuilder()
+
+    /**
+     * Ajoute une comparaison texte si la valeur est renseignée
+     * @param name Nom du paramètre
+     * @param column Colonne comparée
+     * @param value Valeur recherchée (facultatif)
+     * @param mode Mode de comparaison
+     * @return le builder
+     */
+    public QueryBuilder match(String name, String column, String value, MatchModeEnum mode) {
+        boolean apply = next(value != null && !value.isEmpty());
+        boolean like = next(apply && mode != MatchModeEnum.EXACT);
+        if (!apply) {
+            return this;
+        }
+        if (!like) {
+            where.append("AND ").append(column).append(" = :").append(name).append(' ');
+            values.put(name, value);
+            return this;
+        }
+        where.append("AND ").append(column).append(" LIKE :").append(name).append(" ESCAPE '").append(LIKE_ESCAPE).append("' ");
+        values.put(name, mode == MatchModeEnum.PREFIX ? escapeLike(value) + "%" : "%" + escapeLike(value) + "%");
+        return this;
+    }// match()
+
+    /**
+     * Ajoute une égalité si la valeur est renseignée
+     * @param name Nom du paramètre
+     * @param column Colonne comparée
+     * @param value Valeur recherchée (facultatif)
+     * @return le builder
+     */
+    public QueryBuilder equal(String name, String column, Object value) {
+        if (next(value != null && !"".equals(value))) {
+            where.append("AND ").append(column).append(" = :").append(name).append(' ');
+            values.put(name, value);
+        }
+        return this;
+    }// equal()
+
+    /**
+     * Ajoute une condition quelconque si elle doit s'appliquer. Le filtre doit être ajouté
+     * même s'il ne s'applique pas, pour que le masque reste cohérent.
+     * @param apply true si la condition s'applique
+     * @param condition Condition SQL à paramètres nommés (un nom peut être utilisé plusieurs fois)
+     * @param namesAndValues Noms des paramètres et valeurs associées, en alternance
+     * @return le builder
+     */
+    public QueryBuilder condition(boolean apply, String condition, Object... namesAndValues) {
+        if (next(apply)) {
+            where.append("AND ").append(condition).append(' ');
+            for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+                values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+            }
+        }
+        return this;
+    }// condition()
+
+    /**
+     * Ne retient que les lignes situées après le curseur, dans l'ordre (clé de tri, identifiant)
+     * qui doit être celui du tri du modèle (pagination par curseur)
+     * @param keyColumn Colonne de la clé de tri
+     * @param idColumn Colonne de l'identifiant
+     * @param after Dernière ligne de la page précédente (null pour la première page)
+     * @return le builder
+     */
+    public QueryBuilder after(String keyColumn, String idColumn, CursorUtils.Cursor after) {
+        return condition(after != null, "(" + keyColumn + " > :afterKey OR (" + keyColumn + " = :afterKey AND " + idColumn + " > :afterId))",
+                "afterKey", after != null ? after.getKey() : null, "afterId", after != null ? after.getId() : null);
+    }// after()
+
+    /**
+     * Limite le nombre de lignes retournées
+     * @param limit Nombre maximum de lignes
+     * @param offset Nombre de lignes à sauter
+     * @return le builder
+     */
+    public QueryBuilder page(int limit, int offset) {
+        pagination = Pagination.PAGE;
+        values.put("limit", limit);
+        values.put("offset", offset);
+        return this;
+    }// page()
+
+    /**
+     * Limite le nombre de lignes retournées, sans en sauter (pagination par curseur)
+     * @param limit Nombre maximum de lignes
+     * @return le builder
+     */
+    public QueryBuilder limit(int limit) {
+        pagination = Pagination.LIMIT;
+        values.put("limit", limit);
+        values.remove("offset");
+        return this;
+    }// limit()
+
+    /**
+     * @return texte SQL de la requête à paramètres nommés (construit une seule fois par forme de requête)
+     */
+    public String toSql() {
+        long key = shape | (long) pagination.ordinal() << (Long.SIZE - 2);
+        return template.sqlByShape.computeIfAbsent(key, k -> {
+            StringBuilder sb = new StringBuilder(template.select);
+            if (where.length() > 0) {
+                sb.append(" WHERE TRUE ").append(where);
+            }
+            if (template.orderBy != null) {
+                sb.append(' ').append(template.orderBy);
+            }
+            if (pagination != Pagination.NONE) {
+                sb.append(pagination == Pagination.PAGE ? " LIMIT :limit OFFSET :offset" : " LIMIT :limit");
+            }
+            return sb.toString();
+        });
+    }// toSql()
+
+    /**
+     * Lie les valeurs des filtres appliqués à la requête
+     * @param ps Requête préparée à partir de toSql()
+     * @throws SQLException
+     */
+    public void bind(NamePreparedStatement ps) throws SQLException {
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            ps.setObject(value.getKey(), value.getValue());
+        }
+    }// bind()
+
+    public long getShape() {
+        return shape;
+    }// getShape()
+
+    private boolean next(boolean apply) {
+        if (nbFilters >= Long.SIZE - 2) {
+            throw new IllegalStateException("Trop de filtres pour une même requête");
+        }
+        if (apply) {
+            shape |= 1L << nbFilters;
+        }
+        ++nbFilters;
+        return apply;
+    }// next()
+
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }// escapeLike()
+
+}// QueryBuilder
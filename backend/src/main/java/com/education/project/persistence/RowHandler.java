@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.persistence;
+
+import java.io.IOException;
+
+/**
+ * Traitement appelé pour chaque élément lu lors d'une lecture en flux
+ * @param <T> Type des éléments lus
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * Traite un élément lu
+     * @param row Élément lu
+     * @throws IOException si l'élément ne peut pas être écrit
+     */
+    void handle(T row) throws IOException;
+
+}// RowHandler
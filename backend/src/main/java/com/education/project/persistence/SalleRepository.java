@@ -15,15 +15,23 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Page;
 import com.education.project.model.Salle;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,43 +42,21 @@ import java.util.Optional;
 public class SalleRepository{
 
     /**
-     * SQL driver
-     */
-    private String driver;
-    /**
-     * Url de la base de donnée
+     * Pool de connexions à la base de données
      */
-    private String url;
+    private DataSource dataSource;
 
-    /**
-     * Identifiant du compte utilisateur BD
-     */
-    private String user;
+    private static final Logger LOGGER = LogManager.getLogger(SalleRepository.class);
 
-    /**
-     * Mot de passe du compte utilisateur BD
-     */
-    private String password;
+    private static final QueryBuilder.Template SALLES_QUERY = new QueryBuilder.Template("SELECT * FROM salle", "ORDER BY nom, id");
 
-    /**
-     * Connexion à la base de donnée
-     */
-    private Connection connection;
+    private static final QueryBuilder.Template SALLES_PAGE_QUERY = new QueryBuilder.Template("SELECT salle.*, COUNT(*) OVER() AS total FROM salle", "ORDER BY nom, id");
 
-    private static final Logger LOGGER = LogManager.getLogger(SalleRepository.class);
+    private static final QueryBuilder.Template COUNT_SALLES_QUERY = new QueryBuilder.Template("SELECT COUNT(id) FROM salle", null);
 
-    public SalleRepository(@Value("${db.driver}") String driver,@Value("${db.url}") String url,@Value("${db.user}") String user,
-                           @Value("${db.password}") String password){
-        this.driver = driver;
-        this.url = url;
-        this.user = user;
-        this.password = password;
-        try {
-            Class.forName(this.driver);
-            this.connection = DriverManager.getConnection(this.url,this.user,this.password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(),e);
-        }
+    @Autowired
+    public SalleRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }//SalleRepository()
 
     /**
@@ -80,8 +66,8 @@ public class SalleRepository{
      */
     public boolean isExistByName(String nom) throws DataBaseException {
         String requestSql = "SELECT COUNT(id) FROM salle WHERE nom = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1,nom);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -100,8 +86,8 @@ public class SalleRepository{
      */
     public Optional<Salle> insert(Salle salleToInsert) throws DataBaseException {
         String requestSql = "INSERT INTO salle (nom,creationDate,modificationDate) VALUES (?,?,?)";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql,Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql,Statement.RETURN_GENERATED_KEYS);
             ps.setString(1,salleToInsert.getNom());
             ps.setTimestamp(2,new Timestamp(salleToInsert.getCreationDate().getTime()));
             ps.setTimestamp(3,new Timestamp(salleToInsert.getModificationDate().getTime()));
@@ -130,8 +116,8 @@ public class SalleRepository{
      */
     public Optional<Salle> update(Salle salleToUpdate) throws DataBaseException {
         String requestSql = "UPDATE salle SET nom = ?, modificationDate = ? WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1,salleToUpdate.getNom());
             ps.setTimestamp(2, new Timestamp(salleToUpdate.getModificationDate().getTime()));
             ps.setInt(3,salleToUpdate.getId());
@@ -158,25 +144,14 @@ public class SalleRepository{
      */
     public List<Salle> getSalles(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
         List<Salle> resultSalles = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT * FROM salle ");
-        int indiceNom = 0;
-        if(nom != null && !nom.isEmpty()){
-            sb.append("WHERE nom LIKE ? ");
-            indiceNom = 1;
-        }
+        QueryBuilder query = SALLES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
         if(page != null && nbElementsPerPage != null){
-            sb.append("LIMIT ? OFFSET ?");
+            query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
         }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(nom != null && !nom.isEmpty()){
-                ps.setString(indiceNom, "%" + nom + "%");
-            }
-            if(page != null && nbElementsPerPage != null){
-                ps.setInt(indiceNom+1,nbElementsPerPage);
-                ps.setInt(indiceNom+2,(page-1) * nbElementsPerPage);
-            }
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             while(resultSet.next()){
                 Salle salle = new Salle();
@@ -193,6 +168,73 @@ public class SalleRepository{
         return resultSalles;
     }//getClasses()
 
+    /**
+     * Cette fonction permet de récupérer les salles situées après le curseur passé en paramètre,
+     * triées par nom puis par identifiant (pagination par curseur)
+     * @param nom Nom de la salle à récupérer (facultatif)
+     * @param after Dernière salle de la page précédente (null pour la première page)
+     * @param limit Nombre maximum de salles à récupérer
+     * @return Les salles récupérées
+     */
+    public List<Salle> getSallesAfter(String nom, CursorUtils.Cursor after, int limit) throws DataBaseException {
+        List<Salle> resultSalles = new ArrayList<>();
+        QueryBuilder query = SALLES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS)
+                .after("nom", "id", after)
+                .limit(limit);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Salle salle = new Salle();
+                salle.setId(resultSet.getInt("id"));
+                salle.setNom(resultSet.getString("nom"));
+                salle.setCreationDate(resultSet.getTimestamp("creationDate"));
+                salle.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                resultSalles.add(salle);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récuperer les salles après le curseur", e);
+            throw new DataBaseException("Erreur technique : impossible de récuperer les salles dans la base de données");
+        }
+        return resultSalles;
+    }//getSallesAfter()
+
+    /**
+     * Cette fonction permet de récupérer une page de salles ainsi que le nombre total de salles
+     * correspondant au filtre, en une seule requête (COUNT(*) OVER())
+     * @param nom Nom de la salle à récupérer (facultatif)
+     * @param page Numéro de la page
+     * @param nbElementsPerPage Nombre de salles par page
+     * @return La page de salles (le total vaut 0 si la page est vide)
+     */
+    public Page<Salle> getSallesPage(String nom, int page, int nbElementsPerPage) throws DataBaseException {
+        List<Salle> resultSalles = new ArrayList<>();
+        long total = 0;
+        QueryBuilder query = SALLES_PAGE_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
+        query.page(nbElementsPerPage, (page - 1) * nbElementsPerPage);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Salle salle = new Salle();
+                salle.setId(resultSet.getInt("id"));
+                salle.setNom(resultSet.getString("nom"));
+                salle.setCreationDate(resultSet.getTimestamp("creationDate"));
+                salle.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                resultSalles.add(salle);
+                total = resultSet.getLong("total");
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récuperer la page " + page + " des salles dans la base de données", e);
+            throw new DataBaseException("Erreur technique : impossible de récuperer les salles dans la base de données");
+        }
+        return new Page<>(resultSalles, total);
+    }//getSallesPage()
+
     /**
      * Cette fonction permet de compter le nombre de salles en base de données avec les informations passées en paramètre (facultatif)
      * @param nom Nom de la salle à compter (facultatif)
@@ -200,18 +242,11 @@ public class SalleRepository{
      * @throws DataBaseException
      */
     public long countByName(String nom) throws DataBaseException {
-        StringBuilder sb = new StringBuilder("SELECT COUNT(id) FROM salle ");
-        int indiceNom = 0;
-        if(nom != null && !nom.isEmpty()){
-            sb.append("WHERE nom LIKE ?");
-            indiceNom = 1;
-        }
-        String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
-            if(nom != null && !nom.isEmpty()){
-                ps.setString(indiceNom,"%" + nom + "%");
-            }
+        QueryBuilder query = COUNT_SALLES_QUERY.builder()
+                .match("nom", "nom", nom, MatchModeEnum.CONTAINS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
             return resultSet.getLong(1);
@@ -228,8 +263,8 @@ public class SalleRepository{
      */
     public boolean delete(int id) throws DataBaseException {
         String requestSql = "DELETE FROM salle WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1,id);
             int rowsDeleted = ps.executeUpdate();
             return rowsDeleted > 0;
@@ -246,8 +281,8 @@ public class SalleRepository{
      */
     public Optional<Salle> findById(int id) throws DataBaseException {
         String requeteSql = "SELECT * FROM salle WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requeteSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requeteSql);
             ps.setInt(1,id);
             ResultSet resultSet = ps.executeQuery();
             if(resultSet.next()){
@@ -265,6 +300,40 @@ public class SalleRepository{
         return Optional.empty();
     }//findById()
 
+    /**
+     * Récupère en une seule requête les salles dont les identifiants sont passés en paramètre
+     * @param ids Identifiants des salles
+     * @return Les salles trouvées (un identifiant inexistant est ignoré)
+     * @throws DataBaseException
+     */
+    public List<Salle> findByIds(Collection<Integer> ids) throws DataBaseException {
+        List<Salle> results = new ArrayList<>();
+        if(ids.isEmpty()){
+            return results;
+        }
+        String requestSql = "SELECT * FROM salle WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for(Integer id : ids){
+                ps.setInt(index++, id);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while(resultSet.next()){
+                Salle salle = new Salle();
+                salle.setId(resultSet.getInt("id"));
+                salle.setNom(resultSet.getString("nom"));
+                salle.setCreationDate(resultSet.getTimestamp("creationDate"));
+                salle.setModificationDate(resultSet.getTimestamp("modificationDate"));
+                results.add(salle);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer les salles d'identifiants {}", ids, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les salles");
+        }
+        return results;
+    }//findByIds()
+
     /**
      * Vérifie que la salle est utilisée par d'autres slots.
      * @param id identifiant de la salle
@@ -273,8 +342,8 @@ public class SalleRepository{
      */
     public boolean isUsedBySlots(int id) throws DataBaseException{
         String requestSql = "SELECT COUNT(m.id) FROM salle m INNER JOIN slot s ON m.id = s.idSalle WHERE m.id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
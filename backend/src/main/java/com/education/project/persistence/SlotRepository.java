@@ -15,20 +15,24 @@
  */
 package com.education.project.persistence;
 
+import com.education.project.enums.MatchModeEnum;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.*;
+import com.education.project.utils.CursorUtils;
 import com.education.project.utils.NamePreparedStatement;
+import com.education.project.utils.StreamingUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 /**
  * Cette classe permet de gérer les échanges entre la base de données et les slots
@@ -37,44 +41,35 @@ import java.util.Optional;
 public class SlotRepository {
 
     /**
-     * C'est l'url de la base de données
+     * Pool de connexions à la base de données
      */
-    private String url;
+    private DataSource dataSource;
 
-    /**
-     * C'est le driver de la base de données
-     */
-    private String driver;
+    private static final Logger LOGGER = LogManager.getLogger(SlotRepository.class);
 
-    /**
-     * C'est l'identifiant de l'utilisateur de la base de données
-     */
-    private String user;
+    private static final String SLOT_COLUMNS = "s.id AS slotId, s.comment AS slotComment, s.creationDate AS slotCreationDate, s.modificationDate AS slotModificationDate, " +
+            "s.couleurFond AS slotCouleurFond, s.couleurPolice AS slotCouleurPolice, " +
+            "j.id AS jourId, j.nom AS jourNom, e.id AS enseignantId, e.nom AS enseignantNom, e.prenom AS enseignantPrenom, e.creationDate AS enseignantCreationDate, e.modificationDate AS enseignantModificationDate, " +
+            "m.id AS matiereId, m.nom AS matiereNom,m.volumeHoraire AS matiereVolumeHoraire, m.description AS matiereDescription, m.creationDate AS matiereCreationDate, m.modificationDate AS matiereModificationDate, " +
+            "t.id AS timeslotId, t.startHour AS timeslotStartHour, t.endHour AS timeslotEndHour, " +
+            "sa.id AS salleId, sa.nom AS salleNom, sa.creationDate AS salleCreationDate, sa.modificationDate AS salleModificationDate ";
 
-    /**
-     * C'est le mot de passe de l'utilisateur de la base de données
-     */
-    private String password;
+    private static final String FROM_SLOTS = "FROM slot s " +
+            "LEFT JOIN enseignant e ON s.idEnseignant = e.id " +
+            "INNER JOIN matiere m ON s.idMatiere = m.id " +
+            "INNER JOIN timeslot t ON s.idTimeslot = t.id " +
+            "LEFT JOIN salle sa ON s.idSalle = sa.id " +
+            "INNER JOIN jour j ON s.idJour = j.id ";
 
-    /**
-     * C'est la connection à la base de données
-     */
-    private Connection connection;
-    private static final Logger LOGGER = LogManager.getLogger(SlotRepository.class);
+    private static final QueryBuilder.Template SLOTS_QUERY = new QueryBuilder.Template("SELECT " + SLOT_COLUMNS + FROM_SLOTS, "ORDER BY s.id ASC");
 
+    private static final QueryBuilder.Template SLOTS_WITH_TOTAL_QUERY = new QueryBuilder.Template("SELECT COUNT(*) OVER() AS total, " + SLOT_COLUMNS + FROM_SLOTS, "ORDER BY s.id ASC");
 
-    public SlotRepository(@Value("${db.driver}") String driver, @Value("${db.url}") String url,
-                          @Value("${db.user}") String user, @Value("${db.password}") String password) {
-        this.driver = driver;
-        this.url = url;
-        this.user = user;
-        this.password = password;
-        try {
-            Class.forName(this.driver);
-            this.connection = DriverManager.getConnection(this.url, this.user, this.password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+    private static final QueryBuilder.Template COUNT_SLOTS_QUERY = new QueryBuilder.Template("SELECT COUNT(s.id) " + FROM_SLOTS, null);
+
+    @Autowired
+    public SlotRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }//SlotRepository()
 
     /**
@@ -85,26 +80,14 @@ public class SlotRepository {
      */
     public Optional<Slot> insert(Slot slotToInsert) throws DataBaseException {
         String requestSql = "INSERT INTO slot (comment,creationDate,modificationDate,couleurFond,couleurPolice,idTimeslot,idMatiere,idJour,idEnseignant,idSalle) VALUES (?,?,?,?,?,?,?,?,?,?)";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
             ps.setString(1, slotToInsert.getComment());
             ps.setTimestamp(2, new Timestamp(slotToInsert.getCreationDate().getTime()));
             ps.setTimestamp(3, new Timestamp(slotToInsert.getModificationDate().getTime()));
             ps.setString(4, slotToInsert.getCouleurFond());
             ps.setString(5, slotToInsert.getCouleurPolice());
-            ps.setInt(6, slotToInsert.getTimeSlot().getId());
-            ps.setInt(7, slotToInsert.getMatiere().getId());
-            ps.setInt(8, slotToInsert.getJour().getId());
-            if (slotToInsert.getEnseignant() != null && slotToInsert.getEnseignant().getId() != null) {
-                ps.setInt(9, slotToInsert.getEnseignant().getId());
-            } else {
-                ps.setObject(9, null);
-            }
-            if (slotToInsert.getSalle() != null && slotToInsert.getSalle().getId() != null) {
-                ps.setInt(10, slotToInsert.getSalle().getId());
-            } else {
-                ps.setObject(10, null);
-            }
+            setReferences(ps, slotToInsert, 6);
             int rowsAdded = ps.executeUpdate();
             if (rowsAdded > 0) {
                 ResultSet generatedKeys = ps.getGeneratedKeys();
@@ -141,8 +124,8 @@ public class SlotRepository {
                 "INNER JOIN jour j ON s.idJour = j.id " +
                 "LEFT JOIN salle sa ON s.idSalle = sa.id " +
                 "WHERE s.id = ?;";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             if (resultSet.next()) {
@@ -181,25 +164,13 @@ public class SlotRepository {
     public Optional<Slot> update(Slot slotToUpdate) throws DataBaseException {
         String requestSql = "UPDATE slot SET comment = ?, modificationDate = ?, couleurFond = ?, couleurPolice = ?," +
                 " idTimeslot = ?, idMatiere = ?, idJour = ?, idEnseignant = ?, idSalle = ? WHERE id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1, slotToUpdate.getComment());
             ps.setTimestamp(2, new Timestamp(slotToUpdate.getModificationDate().getTime()));
             ps.setString(3, slotToUpdate.getCouleurFond());
             ps.setString(4, slotToUpdate.getCouleurPolice());
-            ps.setInt(5, slotToUpdate.getTimeSlot().getId());
-            ps.setInt(6, slotToUpdate.getMatiere().getId());
-            ps.setInt(7, slotToUpdate.getJour().getId());
-            if (slotToUpdate.getEnseignant() != null && slotToUpdate.getEnseignant().getId() != null) {
-                ps.setInt(8, slotToUpdate.getEnseignant().getId());
-            } else {
-                ps.setObject(8, null);
-            }
-            if (slotToUpdate.getSalle() != null && slotToUpdate.getSalle().getId() != null) {
-                ps.setInt(9, slotToUpdate.getSalle().getId());
-            } else {
-                ps.setObject(9, null);
-            }
+            setReferences(ps, slotToUpdate, 5);
             ps.setInt(10, slotToUpdate.getId());
             int rowsUpdated = ps.executeUpdate();
             if (rowsUpdated > 0) {
@@ -213,6 +184,131 @@ public class SlotRepository {
         }
     }//update
 
+    /**
+     * Cette fonction permet d'insérer plusieurs slots en base de données, en une seule transaction
+     * et en un seul envoi de requêtes (batch JDBC)
+     *
+     * @param slotsToInsert Les slots à insérer
+     * @return les slots insérés, avec leur identifiant
+     */
+    public List<Slot> insertAll(List<Slot> slotsToInsert) throws DataBaseException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                insertAll(connection, slotsToInsert);
+                connection.commit();
+                return slotsToInsert;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de créer les {} slots dans la base de données", slotsToInsert.size(), e);
+            throw new DataBaseException("Erreur technique : impossible de créer les slots dans la base de données.");
+        }
+    }//insertAll()
+
+    /**
+     * Insère plusieurs slots en un seul envoi de requêtes (batch JDBC) avec la connexion passée en paramètre,
+     * sans valider la transaction (utilisé pour enregistrer des slots et leurs plannings dans une même transaction)
+     *
+     * @param connection Connexion (transaction en cours)
+     * @param slotsToInsert Les slots à insérer, complétés par leur identifiant
+     * @throws SQLException
+     */
+    void insertAll(Connection connection, List<Slot> slotsToInsert) throws SQLException {
+        String requestSql = "INSERT INTO slot (comment,creationDate,modificationDate,couleurFond,couleurPolice,idTimeslot,idMatiere,idJour,idEnseignant,idSalle) VALUES (?,?,?,?,?,?,?,?,?,?)";
+        PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+        for (Slot slotToInsert : slotsToInsert) {
+            ps.setString(1, slotToInsert.getComment());
+            ps.setTimestamp(2, new Timestamp(slotToInsert.getCreationDate().getTime()));
+            ps.setTimestamp(3, new Timestamp(slotToInsert.getModificationDate().getTime()));
+            ps.setString(4, slotToInsert.getCouleurFond());
+            ps.setString(5, slotToInsert.getCouleurPolice());
+            setReferences(ps, slotToInsert, 6);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+        ResultSet generatedKeys = ps.getGeneratedKeys();
+        for (Slot slotToInsert : slotsToInsert) {
+            if (!generatedKeys.next()) {
+                throw new SQLException("Identifiants des slots créés incomplets");
+            }
+            slotToInsert.setId(generatedKeys.getInt(1));
+        }
+    }//insertAll()
+
+    /**
+     * Cette fonction permet de mettre à jour plusieurs slots en base de données, en une seule transaction
+     * et en un seul envoi de requêtes (batch JDBC). Aucun slot n'est mis à jour si l'un d'eux n'existe pas.
+     *
+     * @param slotsToUpdate Les slots à mettre à jour
+     * @return les slots mis à jour
+     */
+    public List<Slot> updateAll(List<Slot> slotsToUpdate) throws DataBaseException {
+        String requestSql = "UPDATE slot SET comment = ?, modificationDate = ?, couleurFond = ?, couleurPolice = ?," +
+                " idTimeslot = ?, idMatiere = ?, idJour = ?, idEnseignant = ?, idSalle = ? WHERE id = ?";
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement ps = connection.prepareStatement(requestSql);
+                for (Slot slotToUpdate : slotsToUpdate) {
+                    ps.setString(1, slotToUpdate.getComment());
+                    ps.setTimestamp(2, new Timestamp(slotToUpdate.getModificationDate().getTime()));
+                    ps.setString(3, slotToUpdate.getCouleurFond());
+                    ps.setString(4, slotToUpdate.getCouleurPolice());
+                    setReferences(ps, slotToUpdate, 5);
+                    ps.setInt(10, slotToUpdate.getId());
+                    ps.addBatch();
+                }
+                int[] rowsUpdated = ps.executeBatch();
+                for (int i = 0; i < rowsUpdated.length; ++i) {
+                    if (rowsUpdated[i] == 0) {
+                        connection.rollback();
+                        throw new DataBaseException("Erreur technique : le slot n°" + slotsToUpdate.get(i).getId() + " n'existe pas, aucun slot n'a été mis à jour");
+                    }
+                }
+                connection.commit();
+                return slotsToUpdate;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de mettre à jour les {} slots dans la base de données", slotsToUpdate.size(), e);
+            throw new DataBaseException("Erreur technique : impossible de mettre à jour les slots dans la base de données");
+        }
+    }//updateAll()
+
+    /**
+     * Renseigne le créneau horaire, la matière, le jour, l'enseignant et la salle (facultatifs) d'un slot,
+     * dans cet ordre, à partir de l'index donné
+     *
+     * @param ps Requête préparée
+     * @param slot Le slot
+     * @param index Index du premier paramètre
+     * @throws SQLException
+     */
+    private void setReferences(PreparedStatement ps, Slot slot, int index) throws SQLException {
+        ps.setInt(index, slot.getTimeSlot().getId());
+        ps.setInt(index + 1, slot.getMatiere().getId());
+        ps.setInt(index + 2, slot.getJour().getId());
+        if (slot.getEnseignant() != null && slot.getEnseignant().getId() != null) {
+            ps.setInt(index + 3, slot.getEnseignant().getId());
+        } else {
+            ps.setObject(index + 3, null);
+        }
+        if (slot.getSalle() != null && slot.getSalle().getId() != null) {
+            ps.setInt(index + 4, slot.getSalle().getId());
+        } else {
+            ps.setObject(index + 4, null);
+        }
+    }//setReferences()
+
     /**
      * Cette fonction permet de vérifier qu'un slot avec un certain fond de couleur existe déjà en base de données
      *
@@ -222,8 +318,8 @@ public class SlotRepository {
      */
     public boolean isExistByColorFondAndByDiscipline(Slot slotToInsert) throws DataBaseException {
         String requestSql = "SELECT COUNT(id) FROM slot WHERE couleurFond = ? AND idMatiere != ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setString(1, slotToInsert.getCouleurFond());
             ps.setInt(2, slotToInsert.getMatiere().getId());
             ResultSet resultSet = ps.executeQuery();
@@ -245,8 +341,8 @@ public class SlotRepository {
      */
     public long countByJour(int jourId, TimeSlot timeSlot) throws DataBaseException {
         String requestSql = "SELECT COUNT(s.id) FROM slot s WHERE s.idJour = ? AND s.idTimeslot = ? ";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, jourId);
             ps.setInt(2, timeSlot.getId());
             ResultSet resultSet = ps.executeQuery();
@@ -258,6 +354,128 @@ public class SlotRepository {
         }
     }//countByJour()
 
+    /**
+     * Cette fonction permet de compter, en une seule requête, le nombre de slots de chaque jour et de chaque créneau horaire.
+     *
+     * @return Nombre de slots par identifiant de jour puis par identifiant de créneau horaire
+     * @throws DataBaseException
+     */
+    public Map<Integer, Map<Integer, Long>> countByJourAndTimeslot() throws DataBaseException {
+        String requestSql = "SELECT s.idJour, s.idTimeslot, COUNT(s.id) FROM slot s GROUP BY s.idJour, s.idTimeslot";
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                counts.computeIfAbsent(resultSet.getInt(1), k -> new HashMap<>()).put(resultSet.getInt(2), resultSet.getLong(3));
+            }
+            return counts;
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : Impossible de compter le nombre de slots par jour et par créneau horaire", e);
+            throw new DataBaseException("Erreur technique : Impossible de compter le nombre de slots");
+        }
+    }//countByJourAndTimeslot()
+
+    /**
+     * Cette fonction permet de récupérer, en une seule requête, le jour et le créneau horaire actuels des slots donnés
+     * (renseignés par leur seul identifiant).
+     *
+     * @param ids Identifiants des slots
+     * @return Les slots par identifiant (un identifiant inexistant est absent)
+     * @throws DataBaseException
+     */
+    public Map<Integer, Slot> findJourAndTimeslotByIds(Collection<Integer> ids) throws DataBaseException {
+        Map<Integer, Slot> slots = new HashMap<>();
+        if (ids.isEmpty()) {
+            return slots;
+        }
+        String requestSql = "SELECT id, idJour, idTimeslot FROM slot WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for (Integer id : ids) {
+                ps.setInt(index++, id);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                Slot slot = new Slot(resultSet.getInt(1));
+                slot.setJour(new Jour(resultSet.getInt(2), null));
+                slot.setTimeSlot(new TimeSlot(resultSet.getInt(3), null, null));
+                slots.put(slot.getId(), slot);
+            }
+            return slots;
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de retrouver le jour et le créneau horaire des slots {}", ids, e);
+            throw new DataBaseException("Erreur technique : impossible de retrouver les slots en base de données");
+        }
+    }//findJourAndTimeslotByIds()
+
+    /**
+     * Cette fonction permet de récupérer, en une seule requête, l'emplacement de tous les slots : jour, horaires du créneau,
+     * enseignant, salle et matière (renseignés par leur seul identifiant, 0 si le slot n'a pas d'enseignant ou de salle).
+     *
+     * @return les slots
+     * @throws DataBaseException
+     */
+    public List<Slot> findPlacements() throws DataBaseException {
+        String requestSql = "SELECT s.id, s.idJour, s.idEnseignant, s.idSalle, s.idMatiere, t.id AS timeslotId, t.startHour, t.endHour " +
+                "FROM slot s INNER JOIN timeslot t ON s.idTimeslot = t.id";
+        List<Slot> slots = new ArrayList<>();
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                Slot slot = new Slot(resultSet.getInt("id"));
+                slot.setJour(new Jour(resultSet.getInt("idJour"), null));
+                slot.setTimeSlot(new TimeSlot(resultSet.getInt("timeslotId"), LocalTime.parse(resultSet.getString("startHour")), LocalTime.parse(resultSet.getString("endHour"))));
+                Enseignant enseignant = new Enseignant();
+                enseignant.setId(resultSet.getInt("idEnseignant"));
+                slot.setEnseignant(enseignant);
+                Salle salle = new Salle();
+                salle.setId(resultSet.getInt("idSalle"));
+                slot.setSalle(salle);
+                Matiere matiere = new Matiere();
+                matiere.setId(resultSet.getInt("idMatiere"));
+                slot.setMatiere(matiere);
+                slots.add(slot);
+            }
+            return slots;
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de récupérer l'emplacement des slots", e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les slots de la base de données");
+        }
+    }//findPlacements()
+
+    /**
+     * Cette fonction permet de récupérer, en une seule requête, les matières des slots utilisant les couleurs de fond données.
+     *
+     * @param couleursFond Couleurs de fond recherchées
+     * @return Identifiants des matières par couleur de fond (seules les couleurs utilisées sont présentes)
+     * @throws DataBaseException
+     */
+    public Map<String, Set<Integer>> findMatieresByCouleurFond(Collection<String> couleursFond) throws DataBaseException {
+        Map<String, Set<Integer>> matieres = new HashMap<>();
+        if (couleursFond.isEmpty()) {
+            return matieres;
+        }
+        String requestSql = "SELECT DISTINCT couleurFond, idMatiere FROM slot WHERE couleurFond IN (" + String.join(",", Collections.nCopies(couleursFond.size(), "?")) + ")";
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int index = 1;
+            for (String couleurFond : couleursFond) {
+                ps.setString(index++, couleurFond);
+            }
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                matieres.computeIfAbsent(resultSet.getString(1), k -> new HashSet<>()).add(resultSet.getInt(2));
+            }
+            return matieres;
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de retrouver les slots possédant les couleurs de fond {} en base de données ", couleursFond, e);
+            throw new DataBaseException("Erreur technique : impossible de retrouver les slots par couleur de fond en base de données");
+        }
+    }//findMatieresByCouleurFond()
+
     /**
      * Cette fonction permet de supprimer un slot de la base de données avec l'identifiant passé en paramètre
      *
@@ -265,14 +483,14 @@ public class SlotRepository {
      * @return boolean
      */
     public boolean deleteSlot(int id) throws DataBaseException {
-        try {
+        try (Connection connection = this.dataSource.getConnection()) {
             String requestSql = "DELETE FROM planning_has_slots WHERE idSlot = ?";
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             int rowsDeleted = ps.executeUpdate();
 
             requestSql = "DELETE FROM slot WHERE id = ?";
-            ps = this.connection.prepareStatement(requestSql);
+            ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             rowsDeleted += ps.executeUpdate();
             return rowsDeleted > 1;
@@ -291,80 +509,15 @@ public class SlotRepository {
      * @throws DataBaseException
      */
     public long countSlot(Map<String, String> params) throws DataBaseException {
-        StringBuilder sb = new StringBuilder("SELECT COUNT(s.id) FROM slot s ");
-        sb.append("LEFT JOIN enseignant e ON s.idEnseignant = e.id ");
-        sb.append("INNER JOIN matiere m ON s.idMatiere = m.id ");
-        sb.append("INNER JOIN timeslot t ON s.idTimeslot = t.id ");
-        sb.append("LEFT JOIN salle sa ON s.idSalle = sa.id ");
-        sb.append("INNER JOIN jour j ON s.idJour = j.id ");
-        sb.append("WHERE TRUE ");
-        if(params != null){
-            if(params.containsKey("jour") && params.get("jour") != null && !params.get("jour").isEmpty()){
-                sb.append("AND j.nom LIKE :jourNom ");
-            }
-            if (params.containsKey("couleurFond") && params.get("couleurFond") != null && !params.get("couleurFond").isEmpty()) {
-                sb.append("AND s.couleurFond = :couleurFond ");
-            }
-            if (params.containsKey("couleurPolice") && params.get("couleurPolice") != null && !params.get("couleurFond").isEmpty()) {
-                sb.append("AND s.couleurPolice = :couleurPolice ");
-            }
-            if (params.containsKey("enseignantNom") && params.get("enseignantNom") != null && !params.get("enseignantNom").isEmpty()) {
-                sb.append("AND e.nom LIKE :enseignantNom ");
-            }
-            if (params.containsKey("enseignantPrenom") && params.get("enseignantPrenom") != null && !params.get("enseignantPrenom").isEmpty()) {
-                sb.append("AND e.prenom LIKE :enseignantPrenom ");
-            }
-            if (params.containsKey("matiereNom") && params.get("matiereNom") != null && !params.get("matiereNom").isEmpty()) {
-                sb.append("AND m.nom LIKE :matiereNom ");
-            }
-            if (params.containsKey("startHour") && params.get("startHour") != null && !params.get("startHour").isEmpty()) {
-                sb.append("AND t.startHour = :startHour ");
-            }
-            if (params.containsKey("endHour") && params.get("endHour") != null && !params.get("endHour").isEmpty()) {
-                sb.append("AND t.endHour = :endHour ");
-            }
-            if (params.containsKey("salleNom") && params.get("salleNom") != null && !params.get("salleNom").isEmpty()) {
-                sb.append("AND sa.nom LIKE :salleNom ");
-            }
-        }
-
-        String requestSql = sb.toString();
-        try {
-            NamePreparedStatement ps = new NamePreparedStatement(this.connection, requestSql);
-            if(params != null){
-                if(params.containsKey("jour") && params.get("jour") != null && !params.get("jour").isEmpty()){
-                    ps.setString("jourNom", "%" + params.get("jour") + "%");
-                }
-                if (params.containsKey("couleurFond") && params.get("couleurFond") != null && !params.get("couleurFond").isEmpty()) {
-                    ps.setString("couleurFond", "%" + params.get("couleurFond") + "%");
-                }
-                if (params.containsKey("couleurPolice") && params.get("couleurPolice") != null && !params.get("couleurPolice").isEmpty()) {
-                    ps.setString("couleurPolice", "%" + params.get("couleurPolice") + "%");
-                }
-                if (params.containsKey("enseignantNom") && params.get("enseignantNom") != null && !params.get("enseignantNom").isEmpty()) {
-                    ps.setString("enseignantNom", "%" + params.get("enseignantNom") + "%");
-                }
-                if (params.containsKey("enseignantPrenom") && params.get("enseignantPrenom") != null && !params.get("enseignantPrenom").isEmpty()) {
-                    ps.setString("enseignantPrenom", "%" + params.get("enseignantPrenom") + "%");
-                }
-                if (params.containsKey("matiereNom") && params.get("matiereNom") != null && !params.get("matiereNom").isEmpty()) {
-                    ps.setString("matiereNom", "%" + params.get("matiereNom") + "%");
-                }
-                if (params.containsKey("startHour") && params.get("startHour") != null && !params.get("startHour").isEmpty()) {
-                    ps.setString("startHour", "%" + params.get("startHour") + "%");
-                }
-                if (params.containsKey("endHour") && params.get("endHour") != null && !params.get("endHour").isEmpty()) {
-                    ps.setString("endHour", params.get("endHour"));
-                }
-                if (params.containsKey("salleNom") && params.get("salleNom") != null && !params.get("salleNom").isEmpty()) {
-                    ps.setString("salleNom", "%" + params.get("salleNom") + "%");
-                }
-            }
+        QueryBuilder query = filterSlots(COUNT_SLOTS_QUERY, params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
             return resultSet.getLong(1);
         } catch (SQLException e) {
-            LOGGER.error("Erreur technique : impossible de compter le nombre de slots {} dans la base de données", params.toString(), e);
+            LOGGER.error("Erreur technique : impossible de compter le nombre de slots {} dans la base de données", params, e);
             throw new DataBaseException("Erreur technique : impossible de compter le nombre de slots dans la base de données");
         }
     }//countSlot()
@@ -376,115 +529,179 @@ public class SlotRepository {
      */
     public List<Slot> getSlots(Map<String, String> params) throws DataBaseException {
         List<Slot> resultSlots = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT s.id AS slotId, s.comment AS slotComment, s.creationDate AS slotCreationDate, s.modificationDate AS slotModificationDate, ");
-        sb.append("s.couleurFond AS slotCouleurFond, s.couleurPolice AS slotCouleurPolice, ");
-        sb.append("j.id AS jourId, j.nom AS jourNom, e.id AS enseignantId, e.nom AS enseignantNom, e.prenom AS enseignantPrenom, e.creationDate AS enseignantCreationDate, e.modificationDate AS enseignantModificationDate, ");
-        sb.append("m.id AS matiereId, m.nom AS matiereNom,m.volumeHoraire AS matiereVolumeHoraire, m.description AS matiereDescription, m.creationDate AS matiereCreationDate, m.modificationDate AS matiereModificationDate, ");
-        sb.append("t.id AS timeslotId, t.startHour AS timeslotStartHour, t.endHour AS timeslotEndHour, ");
-        sb.append(" sa.id AS salleId, sa.nom AS salleNom, sa.creationDate AS salleCreationDate, sa.modificationDate AS salleModificationDate ");
-        sb.append("FROM slot s ");
-        sb.append("LEFT JOIN enseignant e ON s.idEnseignant = e.id ");
-        sb.append("INNER JOIN matiere m ON s.idMatiere = m.id ");
-        sb.append("INNER JOIN timeslot t ON s.idTimeslot = t.id ");
-        sb.append("LEFT JOIN salle sa ON s.idSalle = sa.id ");
-        sb.append("INNER JOIN jour j ON s.idJour = j.id ");
-        sb.append("WHERE TRUE ");
-        if(params != null){
-            if(params.containsKey("jour") && params.get("jour") != null && !params.get("jour").isEmpty()){
-                sb.append("AND j.nom LIKE :jourNom ");
-            }
-            if (params.containsKey("couleurFond") && params.get("couleurFond") != null && !params.get("couleurFond").isEmpty()) {
-                sb.append(" AND s.couleurFond = :couleurFond ");
-            }
-            if (params.containsKey("couleurPolice") && params.get("couleurPolice") != null && !params.get("couleurFond").isEmpty()) {
-                sb.append("AND s.couleurPolice = :couleurPolice ");
-            }
-            if (params.containsKey("enseignantNom") && params.get("enseignantNom") != null && !params.get("enseignantNom").isEmpty()) {
-                sb.append("AND e.nom LIKE :enseignantNom ");
-            }
-            if (params.containsKey("enseignantPrenom") && params.get("enseignantPrenom") != null && !params.get("enseignantPrenom").isEmpty()) {
-                sb.append("AND e.prenom LIKE :enseignantPrenom ");
-            }
-            if (params.containsKey("matiereNom") && params.get("matiereNom") != null && !params.get("matiereNom").isEmpty()) {
-                sb.append("AND m.nom LIKE :matiereNom ");
-            }
-            if (params.containsKey("startHour") && params.get("startHour") != null && !params.get("startHour").isEmpty()) {
-                sb.append("AND t.startHour = :startHour ");
-            }
-            if (params.containsKey("endHour") && params.get("endHour") != null && !params.get("endHour").isEmpty()) {
-                sb.append("AND t.endHour = :endHour ");
-            }
-            if (params.containsKey("salleNom") && params.get("salleNom") != null && !params.get("salleNom").isEmpty()) {
-                sb.append("AND sa.nom LIKE :salleNom ");
+        QueryBuilder query = paginate(filterSlots(SLOTS_QUERY, params), params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            IdentityMap identityMap = new IdentityMap();
+            while (resultSet.next()) {
+                resultSlots.add(initSlot(resultSet, identityMap));
             }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur techinque : impossible de récupérer les slots {} de la base de données", params, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les slots de la base de données");
         }
-        sb.append("ORDER BY s.id ASC ");
-        if ((params != null && params.containsKey("page") && params.get("page") != null && !params.get("page").isEmpty()) && (params != null && params.containsKey("nbElementsPerPage") && params.get("nbElementsPerPage") != null && !params.get("nbElementsPerPage").isEmpty())) {
-            sb.append("LIMIT :nbElementsPerPage OFFSET :offset");
-        }
-        String requestSql = sb.toString();
-        try {
-            NamePreparedStatement ps = new NamePreparedStatement(this.connection, requestSql);
-            if(params != null){
-                if(params.containsKey("jour") && params.get("jour") != null && !params.get("jour").isEmpty()){
-                    ps.setString("jourNom", "%" + params.get("jour") + "%");
-                }
-                if (params.containsKey("couleurFond") && params.get("couleurFond") != null && !params.get("couleurFond").isEmpty()) {
-                    ps.setString("couleurFond", "%" + params.get("couleurFond") + "%");
-                }
-                if (params.containsKey("couleurPolice") && params.get("couleurPolice") != null && !params.get("couleurPolice").isEmpty()) {
-                    ps.setString("couleurPolice", "%" + params.get("couleurPolice") + "%");
-                }
-                if (params.containsKey("enseignantNom") && params.get("enseignantNom") != null && !params.get("enseignantNom").isEmpty()) {
-                    ps.setString("enseignantNom", "%" + params.get("enseignantNom") + "%");
-                }
-                if (params.containsKey("enseignantPrenom") && params.get("enseignantPrenom") != null && !params.get("enseignantPrenom").isEmpty()) {
-                    ps.setString("enseignantPrenom", "%" + params.get("enseignantPrenom") + "%");
-                }
-                if (params.containsKey("matiereNom") && params.get("matiereNom") != null && !params.get("matiereNom").isEmpty()) {
-                    ps.setString("matiereNom", "%" + params.get("matiereNom") + "%");
-                }
-                if (params.containsKey("startHour") && params.get("startHour") != null && !params.get("startHour").isEmpty()) {
-                    ps.setString("startHour",  params.get("startHour"));
-                }
-                if (params.containsKey("endHour") && params.get("endHour") != null && !params.get("endHour").isEmpty()) {
-                    ps.setString("endHour", params.get("endHour"));
-                }
-                if (params.containsKey("salleNom") && params.get("salleNom") != null && !params.get("salleNom").isEmpty()) {
-                    ps.setString("salleNom", "%" + params.get("salleNom") + "%");
-                }
-                if (params.containsKey("nbElementsPerPage") && params.get("nbElementsPerPage") != null && !params.get("nbElementsPerPage").isEmpty()) {
-                    ps.setInt("nbElementsPerPage", Integer.valueOf(params.get("nbElementsPerPage")));
-                }
-                if (params.containsKey("page") && params.get("page") != null && !params.get("page").isEmpty() && params.containsKey("nbElementsPerPage") && params.get("nbElementsPerPage") != null && !params.get("nbElementsPerPage").isEmpty()) {
-                    ps.setInt("offset", (Integer.valueOf(params.get("page")) - 1) * (Integer.valueOf(params.get("nbElementsPerPage"))));
-                }
+        return resultSlots;
+    }//getSlots()
+
+    /**
+     * Cette fonction lit en flux les slots correspondant aux informations passées en paramètres :
+     * chaque slot est transmis au handler dès sa lecture, sans que la liste complète soit chargée en mémoire.
+     * @param params informations liés aux slots
+     * @param handler Traitement appelé pour chaque slot lu
+     * @throws IOException si le handler ne peut pas écrire un slot
+     */
+    public void streamSlots(Map<String, String> params, RowHandler<Slot> handler) throws DataBaseException, IOException {
+        QueryBuilder query = paginate(filterSlots(SLOTS_QUERY, params), params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            StreamingUtils.prepareForStreaming(connection, ps.getPreparedStatement());
+            query.bind(ps);
+            ResultSet resultSet = ps.executeQuery();
+            IdentityMap identityMap = new IdentityMap();
+            while (resultSet.next()) {
+                handler.handle(initSlot(resultSet, identityMap));
             }
+        } catch (SQLException e) {
+            LOGGER.error("Erreur technique : impossible de lire les slots {} de la base de données", params, e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer les slots de la base de données");
+        }
+    }//streamSlots()
+
+    /**
+     * Cette fonction permet de récupérer une page de slots ainsi que le nombre total de slots
+     * correspondant aux paramètres, en une seule requête (COUNT(*) OVER())
+     * @param params informations liés aux slots (page et nbElementsPerPage obligatoires)
+     * @return la page de slots (le total vaut 0 si la page est vide)
+     */
+    public Page<Slot> getSlotsPage(Map<String, String> params) throws DataBaseException {
+        List<Slot> resultSlots = new ArrayList<>();
+        long total = 0;
+        QueryBuilder query = paginate(filterSlots(SLOTS_WITH_TOTAL_QUERY, params), params);
+        try (Connection connection = this.dataSource.getConnection()) {
+            NamePreparedStatement ps = new NamePreparedStatement(connection, query.toSql());
+            query.bind(ps);
             ResultSet resultSet = ps.executeQuery();
+            IdentityMap identityMap = new IdentityMap();
             while (resultSet.next()) {
-                Enseignant enseignant = new Enseignant(resultSet.getInt("enseignantId"),resultSet.getString("enseignantNom"),resultSet.getString("enseignantPrenom"),resultSet.getTimestamp("enseignantCreationDate"),resultSet.getTimestamp("enseignantModificationDate"));
-                Matiere matiere = new Matiere(resultSet.getInt("matiereId"),resultSet.getString("matiereNom"),resultSet.getString("matiereVolumeHoraire"),resultSet.getString("matiereDescription"),resultSet.getTimestamp("matiereCreationDate"),resultSet.getTimestamp("matiereModificationDate"));
-                Salle salle = new Salle(resultSet.getInt("salleId"),resultSet.getString("salleNom"),resultSet.getTimestamp("salleCreationDate"),resultSet.getTimestamp("salleModificationDate"));
-                TimeSlot timeSlot = new TimeSlot(resultSet.getInt("timeslotId"),LocalTime.parse(resultSet.getString("timeslotStartHour")),LocalTime.parse(resultSet.getString("timeslotEndHour")));
-                Jour jour = new Jour(resultSet.getInt("jourId"), resultSet.getString("jourNom"));
-                Slot slot = new Slot();
-                slot.setId(resultSet.getInt("slotId"));
-                slot.setCouleurFond(resultSet.getString("slotCouleurFond"));
-                slot.setCouleurPolice(resultSet.getString("slotCouleurPolice"));
-                slot.setComment(resultSet.getString("slotComment"));
-                slot.setCreationDate(resultSet.getTimestamp("slotCreationDate"));
-                slot.setModificationDate(resultSet.getTimestamp("slotModificationDate"));
-                slot.setEnseignant(enseignant);
-                slot.setMatiere(matiere);
-                slot.setSalle(salle);
-                slot.setTimeSlot(timeSlot);
-                slot.setJour(jour);
-                resultSlots.add(slot);
+                resultSlots.add(initSlot(resultSet, identityMap));
+                total = resultSet.getLong("total");
             }
         } catch (SQLException e) {
-            LOGGER.error("Erreur techinque : impossible de récupérer les slots {} de la base de données", params.toString(),e);
+            LOGGER.error("Erreur technique : impossible de récupérer la page de slots {} de la base de données", params, e);
             throw new DataBaseException("Erreur technique : impossible de récupérer les slots de la base de données");
         }
-        return resultSlots;
-    }//getSlots()
+        return new Page<>(resultSlots, total);
+    }//getSlotsPage()
+
+    /**
+     * Ajoute à la requête les filtres facultatifs des slots. Le paramètre match (exact, prefix ou contains,
+     * contains par défaut) s'applique aux filtres texte ; les couleurs et les heures sont comparées exactement.
+     * @param template Modèle de requête
+     * @param params informations liés aux slots
+     * @return requête filtrée
+     */
+    private QueryBuilder filterSlots(QueryBuilder.Template template, Map<String, String> params) {
+        Map<String, String> filters = params != null ? params : Collections.emptyMap();
+        MatchModeEnum match = MatchModeEnum.fromParam(filters.get("match"));
+        return template.builder()
+                .match("jourNom", "j.nom", filters.get("jour"), match)
+                .equal("couleurFond", "s.couleurFond", filters.get("couleurFond"))
+                .equal("couleurPolice", "s.couleurPolice", filters.get("couleurPolice"))
+                .match("enseignantNom", "e.nom", filters.get("enseignantNom"), match)
+                .match("enseignantPrenom", "e.prenom", filters.get("enseignantPrenom"), match)
+                .match("matiereNom", "m.nom", filters.get("matiereNom"), match)
+                .equal("startHour", "t.startHour", toTime(filters.get("startHour")))
+                .equal("endHour", "t.endHour", toTime(filters.get("endHour")))
+                .match("salleNom", "sa.nom", filters.get("salleNom"), match);
+    }//filterSlots()
+
+    /**
+     * Pagine la requête si le numéro de page et le nombre d'éléments par page sont renseignés
+     * @param query Requête filtrée
+     * @param params informations liés aux slots
+     * @return requête
+     */
+    private QueryBuilder paginate(QueryBuilder query, Map<String, String> params) {
+        if (params != null && params.get("page") != null && !params.get("page").isEmpty() && params.get("nbElementsPerPage") != null && !params.get("nbElementsPerPage").isEmpty()) {
+            // Le nombre d'éléments par page est borné pour limiter la taille des réponses
+            int nbElementsPerPage = CursorUtils.pageSize(Integer.valueOf(params.get("nbElementsPerPage")));
+            query.page(nbElementsPerPage, Math.max(0, Integer.valueOf(params.get("page")) - 1) * nbElementsPerPage);
+        }
+        return query;
+    }//paginate()
+
+    /**
+     * Convertit une heure (HH:mm ou HH:mm:ss) pour la comparer à une colonne de type TIME
+     * @param value heure (facultatif)
+     * @return heure convertie, ou la valeur telle quelle si elle n'est pas une heure
+     */
+    private Object toTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Time.valueOf(LocalTime.parse(value));
+        } catch (DateTimeParseException e) {
+            return value;
+        }
+    }//toTime()
+
+    /**
+     * Initialise un slot (et les entités qu'il utilise) à partir d'un resultSet
+     * @param resultSet resultSet
+     * @param identityMap Entités déjà lues par la requête en cours
+     * @return slot
+     * @throws SQLException
+     */
+    private Slot initSlot(ResultSet resultSet, IdentityMap identityMap) throws SQLException {
+        Enseignant enseignant = identityMap.get(Enseignant.class, resultSet.getInt("enseignantId"), () -> new Enseignant(resultSet.getInt("enseignantId"),resultSet.getString("enseignantNom"),resultSet.getString("enseignantPrenom"),resultSet.getTimestamp("enseignantCreationDate"),resultSet.getTimestamp("enseignantModificationDate")));
+        Matiere matiere = identityMap.get(Matiere.class, resultSet.getInt("matiereId"), () -> new Matiere(resultSet.getInt("matiereId"),resultSet.getString("matiereNom"),resultSet.getString("matiereVolumeHoraire"),resultSet.getString("matiereDescription"),resultSet.getTimestamp("matiereCreationDate"),resultSet.getTimestamp("matiereModificationDate")));
+        Salle salle = identityMap.get(Salle.class, resultSet.getInt("salleId"), () -> new Salle(resultSet.getInt("salleId"),resultSet.getString("salleNom"),resultSet.getTimestamp("salleCreationDate"),resultSet.getTimestamp("salleModificationDate")));
+        TimeSlot timeSlot = identityMap.get(TimeSlot.class, resultSet.getInt("timeslotId"), () -> new TimeSlot(resultSet.getInt("timeslotId"), LocalTime.parse(resultSet.getString("timeslotStartHour")), LocalTime.parse(resultSet.getString("timeslotEndHour"))));
+        Jour jour = identityMap.get(Jour.class, resultSet.getInt("jourId"), () -> new Jour(resultSet.getInt("jourId"),resultSet.getString("jourNom")));
+        Slot slot = new Slot();
+        slot.setId(resultSet.getInt("slotId"));
+        slot.setCouleurFond(resultSet.getString("slotCouleurFond"));
+        slot.setCouleurPolice(resultSet.getString("slotCouleurPolice"));
+        slot.setComment(resultSet.getString("slotComment"));
+        slot.setCreationDate(resultSet.getTimestamp("slotCreationDate"));
+        slot.setModificationDate(resultSet.getTimestamp("slotModificationDate"));
+        slot.setEnseignant(enseignant);
+        slot.setMatiere(matiere);
+        slot.setSalle(salle);
+        slot.setTimeSlot(timeSlot);
+        slot.setJour(jour);
+        return slot;
+    }//initSlot()
+
+    /**
+     * Cette fonction retourne l'empreinte de l'état des slots : nombre de slots et dates de modification
+     * les plus récentes des slots, matières, enseignants et salles.
+     * @return empreinte
+     * @throws DataBaseException
+     */
+    public String getSlotsVersion() throws DataBaseException {
+        StringBuilder sb = new StringBuilder("SELECT (SELECT COUNT(id) FROM slot) AS nbSlots, ");
+        sb.append("(SELECT MAX(modificationDate) FROM slot) AS smodificationDate, ");
+        sb.append("(SELECT MAX(modificationDate) FROM matiere) AS mmodificationDate, ");
+        sb.append("(SELECT MAX(modificationDate) FROM enseignant) AS emodificationDate, ");
+        sb.append("(SELECT MAX(modificationDate) FROM salle) AS samodificationDate");
+        String requestSql = sb.toString();
+        try (Connection connection = this.dataSource.getConnection()) {
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(requestSql);
+            resultSet.next();
+            StringBuilder version = new StringBuilder(String.valueOf(resultSet.getLong("nbSlots")));
+            for (String column : new String[]{"smodificationDate", "mmodificationDate", "emodificationDate", "samodificationDate"}) {
+                Timestamp modificationDate = resultSet.getTimestamp(column);
+                version.append('-').append(modificationDate != null ? modificationDate.getTime() : 0);
+            }
+            return version.toString();
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur technique : impossible de récupérer la version des slots");
+        }
+    }//getSlotsVersion()
 }//SlotRepository()
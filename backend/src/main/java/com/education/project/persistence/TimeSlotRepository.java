@@ -19,10 +19,13 @@ import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.TimeSlot;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+
 import java.sql.*;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,17 +33,16 @@ import java.util.Optional;
 @Repository
 public class TimeSlotRepository {
 
-    private Connection connection;
+    /**
+     * Pool de connexions à la base de données
+     */
+    private DataSource dataSource;
 
     private static final Logger LOGGER = LogManager.getLogger(TimeSlotRepository.class);
 
-    public TimeSlotRepository(@Value("${db.user}") String user, @Value("${db.password}") String password, @Value("${db.driver}") String driver, @Value("${db.url}") String url){
-        try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(url,user,password);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+    @Autowired
+    public TimeSlotRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }// TimeSlotRepository()
 
     /**
@@ -51,8 +53,8 @@ public class TimeSlotRepository {
      */
     public Optional<TimeSlot> insert(TimeSlot ts) throws DataBaseException {
         String requestSql = "INSERT INTO timeslot (startHour, endHour) VALUES (?,?)";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql, Statement.RETURN_GENERATED_KEYS);
             ps.setTime(1, Time.valueOf(ts.getStart()));
             ps.setTime(2, Time.valueOf(ts.getEnd()));
             int nbRowsAdded = ps.executeUpdate();
@@ -77,8 +79,8 @@ public class TimeSlotRepository {
      */
     public boolean exists(TimeSlot ts) throws DataBaseException {
         String requestSql = "SELECT COUNT(id) FROM timeslot WHERE startHour = ? AND endHour = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setTime(1, Time.valueOf(ts.getStart()));
             ps.setTime(2, Time.valueOf(ts.getEnd()));
             ResultSet resultSet = ps.executeQuery();
@@ -98,8 +100,8 @@ public class TimeSlotRepository {
      */
     public long count() throws DataBaseException {
         String requestSql = "SELECT COUNT(id) FROM timeslot";
-        try {
-            Statement s = this.connection.createStatement();
+        try (Connection connection = this.dataSource.getConnection()) {
+            Statement s = connection.createStatement();
             ResultSet resultSet = s.executeQuery(requestSql);
             resultSet.next();
             return resultSet.getLong(1);
@@ -117,8 +119,8 @@ public class TimeSlotRepository {
      */
     public boolean delete(int id) throws DataBaseException {
         String requestSql = "DELETE FROM timeslot WHERE id = ?";
-        try{
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             return ps.executeUpdate() == 1;
         }catch(SQLException e){
@@ -136,13 +138,13 @@ public class TimeSlotRepository {
      */
     public List<TimeSlot> findAll(Integer page, Integer nbElementsPerPage) throws DataBaseException {
         List<TimeSlot> results = new ArrayList<>();
-        StringBuilder sb = new StringBuilder("SELECT * FROM timeslot");
+        StringBuilder sb = new StringBuilder("SELECT * FROM timeslot ORDER BY startHour, id");
         if(page != null && nbElementsPerPage != null){
             sb.append(" LIMIT ? OFFSET ? ");
         }
         String requestSql = sb.toString();
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             if(page != null && nbElementsPerPage != null){
                 ps.setInt(1, nbElementsPerPage);
                 ps.setInt(2, (page - 1) * nbElementsPerPage);
@@ -162,6 +164,47 @@ public class TimeSlotRepository {
         }
     }// findAll()
 
+    /**
+     * Récupère les créneaux horaires situés après le curseur passé en paramètre,
+     * triés par heure de début puis par identifiant (pagination par curseur)
+     * @param afterStart Heure de début du dernier créneau de la page précédente (null pour la première page)
+     * @param afterId Identifiant du dernier créneau de la page précédente
+     * @param limit Nombre maximum de créneaux horaires à récupérer
+     * @return créneaux horaires
+     * @throws DataBaseException
+     */
+    public List<TimeSlot> findAllAfter(LocalTime afterStart, int afterId, int limit) throws DataBaseException {
+        List<TimeSlot> results = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("SELECT * FROM timeslot ");
+        if(afterStart != null){
+            sb.append("WHERE (startHour > ? OR (startHour = ? AND id > ?)) ");
+        }
+        sb.append("ORDER BY startHour, id LIMIT ?");
+        String requestSql = sb.toString();
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
+            int indice = 0;
+            if(afterStart != null){
+                ps.setTime(++indice, Time.valueOf(afterStart));
+                ps.setTime(++indice, Time.valueOf(afterStart));
+                ps.setInt(++indice, afterId);
+            }
+            ps.setInt(++indice, limit);
+            ResultSet resultSet = ps.executeQuery();
+            while (resultSet.next()){
+                results.add(
+                    new TimeSlot(resultSet.getInt("id"),
+                                 resultSet.getTime("starthour").toLocalTime(),
+                                 resultSet.getTime("endhour").toLocalTime())
+                );
+            }
+            return results;
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DataBaseException("Erreur Technique : Impossible de récupérer les créneaux horaires");
+        }
+    }// findAllAfter()
+
     /**
      * Vérifie que le créneau horaire est utilisé par d'autres slots.
      * @param id identifiant du créneau horaire
@@ -170,8 +213,8 @@ public class TimeSlotRepository {
      */
     public boolean isUsedBySlots(int id) throws DataBaseException{
         String requestSql = "SELECT COUNT(ts.id) FROM timeslot ts INNER JOIN slot s ON ts.id = s.idTimeslot WHERE ts.id = ?";
-        try {
-            PreparedStatement ps = this.connection.prepareStatement(requestSql);
+        try (Connection connection = this.dataSource.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(requestSql);
             ps.setInt(1, id);
             ResultSet resultSet = ps.executeQuery();
             resultSet.next();
@@ -15,14 +15,23 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCache;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.PrefixTrie;
+import com.education.project.cache.TrigramIndex;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Classe;
+import com.education.project.model.Page;
 import com.education.project.persistence.ClasseRepository;
+import com.education.project.utils.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -36,9 +45,29 @@ public class ClasseService {
 
     private ClasseRepository classeRepository;
 
+    /**
+     * Recherche par nom dans l'index de trigrammes en mémoire plutôt qu'en base de données
+     */
+    private boolean trigramSearch;
+
+    private TrigramIndex<Classe> classeIndex = new TrigramIndex<>(Classe::getId, List.of(Classe::getNom));
+
+    private PrefixTrie<Classe> classeSuggestions = new PrefixTrie<>(Classe::getId, List.of(Classe::getNom));
+
+    /**
+     * Cache des classes lues par identifiant
+     */
+    private EntityCache<Classe> classeCache;
+
+    private PlanningGeneratedCache planningGeneratedCache;
+
     @Autowired
-    public ClasseService(ClasseRepository classeRepository) {
+    public ClasseService(ClasseRepository classeRepository, PlanningGeneratedCache planningGeneratedCache,
+                         @Value("${search.trigram.enabled:false}") boolean trigramSearch, EntityCaches entityCaches) {
         this.classeRepository = classeRepository;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.trigramSearch = trigramSearch;
+        this.classeCache = entityCaches.getClasses();
     }// ClasseService()
 
     /**
@@ -53,7 +82,10 @@ public class ClasseService {
         Date now = new Date();
         classeToInsert.setCreationDate(now);
         classeToInsert.setModificationDate(now);
-        return classeRepository.insert(classeToInsert);
+        Optional<Classe> classeInserted = classeRepository.insert(classeToInsert);
+        classeInserted.ifPresent(classeIndex::put);
+        classeInserted.ifPresent(classeSuggestions::put);
+        return classeInserted;
     }// insertClasse()
 
     /**
@@ -62,7 +94,7 @@ public class ClasseService {
      * @return Classe
      */
     public Optional<Classe> getClasse(int id) throws DataBaseException {
-        return classeRepository.findById(id);
+        return classeCache.get(id, classeRepository::findById);
     }// getClasse()
 
     /**
@@ -75,9 +107,33 @@ public class ClasseService {
         this.checkBusiness(classeToUpdate, true);
         Date now = new Date();
         classeToUpdate.setModificationDate(now);
-        return classeRepository.update(classeToUpdate);
+        Optional<Classe> classeUpdated = classeRepository.update(classeToUpdate);
+        classeCache.invalidate(classeToUpdate.getId());
+        if(classeUpdated.isPresent()){
+            reindexClasse(classeToUpdate.getId());
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.CLASSE, classeToUpdate.getId());
+        return classeUpdated;
     }// updateClasse()
 
+    /**
+     * Réindexe la classe relue en base de données : l'objet reçu lors de la modification peut être incomplet
+     * (date de création absente) ou modifié ensuite par l'appelant
+     * @param id Identifiant de la classe modifiée
+     * @throws DataBaseException
+     */
+    private void reindexClasse(int id) throws DataBaseException {
+        Optional<Classe> classeFromBd = classeCache.get(id, classeRepository::findById);
+        if(classeFromBd.isPresent()){
+            classeIndex.put(classeFromBd.get());
+            classeSuggestions.put(classeFromBd.get());
+        }
+        else{
+            classeIndex.remove(id);
+            classeSuggestions.remove(id);
+        }
+    }//reindexClasse()
+
     /**
      * Supprime la classe dont l'identifiant est passé en paramètre
      * @param id Identifiant de la classe à supprimer
@@ -88,7 +144,14 @@ public class ClasseService {
         if(classeRepository.isUsedByPlannings(id)){
             throw new DataBaseException("Impossible de supprimer la classe : La classe que vous tentez de supprimer est peut-être utilisée par un ou plusieurs planning(s)");
         }
-        return classeRepository.delete(id);
+        boolean deleted = classeRepository.delete(id);
+        if(deleted){
+            classeIndex.remove(id);
+            classeCache.invalidate(id);
+            classeSuggestions.remove(id);
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.CLASSE, id);
+        return deleted;
     }// deleteClass()
 
     /**
@@ -136,6 +199,10 @@ public class ClasseService {
      * @return nombre total de classes
      */
     public long getCount(String name) throws DataBaseException {
+        Optional<List<Classe>> found = searchIndex(name);
+        if (found.isPresent()) {
+            return found.get().size();
+        }
         return classeRepository.count(name);
     }// getCount()
 
@@ -147,7 +214,88 @@ public class ClasseService {
      * @return Liste de classes
      */
     public List<Classe> getClasses(Integer page, Integer nbElementsPerPage, String name) throws DataBaseException {
+        Optional<List<Classe>> found = searchIndex(name);
+        if (found.isPresent()) {
+            return CursorUtils.slice(found.get(), page, nbElementsPerPage);
+        }
         return classeRepository.getClasses(page, nbElementsPerPage, name);
     }// getClasses()
 
+    /**
+     * Retourne une page de classes triées par nom (pagination par curseur).
+     * @param after Curseur retourné par la page précédente (vide pour la première page)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @param name Nom de la classe (facultatif)
+     * @return Page de classes et curseur de la page suivante
+     * @throws ArgumentException si le curseur est invalide
+     */
+    public Page<Classe> getClassesAfter(String after, Integer nbElementsPerPage, String name) throws ArgumentException, DataBaseException {
+        int pageSize = CursorUtils.pageSize(nbElementsPerPage);
+        List<Classe> classes = classeRepository.getClassesAfter(name, CursorUtils.decode(after), pageSize + 1);
+        return CursorUtils.page(classes, pageSize, Classe::getNom, Classe::getId);
+    }// getClassesAfter()
+
+    /**
+     * Retourne une page de classes et le nombre total de classes correspondant au filtre.
+     * @param page N° de la page (facultatif, 1 par défaut)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @param name Nom de la classe (facultatif)
+     * @return Page de classes et nombre total de classes
+     * @throws DataBaseException
+     */
+    public Page<Classe> getClassesPage(Integer page, Integer nbElementsPerPage, String name) throws DataBaseException {
+        int numPage = CursorUtils.pageNumber(page);
+        Optional<List<Classe>> found = searchIndex(name);
+        if (found.isPresent()) {
+            return new Page<>(CursorUtils.slice(found.get(), numPage, CursorUtils.pageSize(nbElementsPerPage)), found.get().size());
+        }
+        Page<Classe> result = classeRepository.getClassesPage(numPage, CursorUtils.pageSize(nbElementsPerPage), name);
+        if (result.getItems().isEmpty() && numPage > 1) {
+            // Au-delà de la dernière page, aucune ligne ne porte le total
+            result.setTotal(classeRepository.count(name));
+        }
+        return result;
+    }// getClassesPage()
+
+    /**
+     * Recherche les classes par nom dans l'index en mémoire (chargé à la première recherche)
+     * @param name Nom de la classe ou expression incomplète
+     * @return Classes classées par pertinence (vide si l'index n'est pas utilisé)
+     * @throws DataBaseException
+     */
+    private Optional<List<Classe>> searchIndex(String name) throws DataBaseException {
+        if (!trigramSearch || name == null || name.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!classeIndex.isLoaded()) {
+            long version = classeIndex.getVersion();
+            classeIndex.load(classeRepository.getClasses(null, null, null), version);
+        }
+        return classeIndex.search(name);
+    }// searchIndex()
+
+    /**
+     * Cette fonction permet de proposer les classes dont le nom (ou un mot du nom) commence par le texte saisi,
+     * sans interroger la base de données une fois les suggestions chargées
+     * @param q Début du nom saisi (sans tenir compte des accents)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions par ordre alphabétique
+     * @throws DataBaseException
+     */
+    public List<Classe> suggestClasses(String q, int limit) throws DataBaseException {
+        if(classeSuggestions.isLoaded()){
+            Optional<List<Classe>> suggestions = classeSuggestions.suggest(q, limit);
+            if(suggestions.isPresent()){
+                return suggestions.get();
+            }
+        }
+        long version = classeSuggestions.getVersion();
+        List<Classe> rows = classeRepository.getClasses(null, null, null);
+        if(!classeSuggestions.load(rows, version)){
+            // Modification pendant le chargement : mêmes suggestions que le trie, calculées sur les lignes lues
+            return classeSuggestions.suggest(rows, q, limit);
+        }
+        return classeSuggestions.suggest(q, limit).orElseGet(Collections::emptyList);
+    }// suggestClasses()
+
 }// ClasseService
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Conflict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ce service gère le rapport des chevauchements de slots (enseignant, salle ou classe
+ * utilisés par deux slots en même temps)
+ */
+@Service
+public class ConflictService {
+
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    public ConflictService(OccupancyIndex occupancyIndex) {
+        this.occupancyIndex = occupancyIndex;
+    }// ConflictService()
+
+    /**
+     * Retourne les chevauchements de slots
+     * @param ressource Type de ressource : enseignant, salle ou classe (facultatif : toutes les ressources)
+     * @return chevauchements
+     * @throws ArgumentException si le type de ressource n'existe pas
+     * @throws DataBaseException
+     */
+    public List<Conflict> getConflicts(String ressource) throws ArgumentException, DataBaseException {
+        if (ressource == null || ressource.isEmpty()) {
+            return occupancyIndex.getConflicts();
+        }
+        boolean exists = false;
+        for (OccupancyIndex.Ressource value : OccupancyIndex.Ressource.values()) {
+            exists |= value.name().equalsIgnoreCase(ressource);
+        }
+        if (!exists) {
+            throw new ArgumentException(Collections.singletonList("La ressource doit être enseignant, salle ou classe"));
+        }
+        return occupancyIndex.getConflicts().stream()
+                .filter(conflict -> conflict.getRessource().equalsIgnoreCase(ressource))
+                .collect(Collectors.toList());
+    }// getConflicts()
+
+}// ConflictService
@@ -15,12 +15,11 @@
  */
 package com.education.project.services;
 
-import com.education.project.exceptions.DataBaseException;
+import com.education.project.enums.JourEnum;
 import com.education.project.model.Jour;
-import com.education.project.persistence.DayRepository;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,19 +28,16 @@ import java.util.List;
 @Service
 public class DayService {
 
-    private DayRepository dayRepository;
-
-    @Autowired
-    public DayService(DayRepository dayRepository) {
-        this.dayRepository = dayRepository;
-    }//DayService()
-
     /**
-     * Cette fonction permet de récupérer les jours en base de données
+     * Cette fonction permet de récupérer les jours de la semaine. La table jour est une donnée de référence
+     * qui ne change pas : les jours sont construits à partir de JourEnum, sans accès à la base de données.
      * @return Liste des jours
-     * @throws DataBaseException
      */
-    public List<Jour> getDays() throws DataBaseException {
-        return dayRepository.getDays();
+    public List<Jour> getDays() {
+        List<Jour> jours = new ArrayList<>();
+        for(JourEnum jour : JourEnum.values()){
+            jours.add(jour.toJour());
+        }
+        return jours;
     }//getDays()
 }//DayService
@@ -15,14 +15,23 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCache;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.PrefixTrie;
+import com.education.project.cache.TrigramIndex;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Enseignant;
+import com.education.project.model.Page;
 import com.education.project.persistence.EnseignantRepository;
+import com.education.project.utils.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -35,9 +44,30 @@ public class EnseignantService {
 
     private EnseignantRepository enseignantRepository;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    /**
+     * Recherche par nom et prénom dans l'index de trigrammes en mémoire plutôt qu'en base de données
+     */
+    private boolean trigramSearch;
+
+    private TrigramIndex<Enseignant> enseignantIndex = new TrigramIndex<>(Enseignant::getId, List.of(Enseignant::getNom, Enseignant::getPrenom));
+
+    private PrefixTrie<Enseignant> enseignantSuggestions = new PrefixTrie<>(Enseignant::getId,
+            List.of(enseignant -> enseignant.getNom() + " " + enseignant.getPrenom(), enseignant -> enseignant.getPrenom() + " " + enseignant.getNom()));
+
+    /**
+     * Cache des enseignants lus par identifiant
+     */
+    private EntityCache<Enseignant> enseignantCache;
+
     @Autowired
-    public EnseignantService(EnseignantRepository enseignantRepository){
+    public EnseignantService(EnseignantRepository enseignantRepository, PlanningGeneratedCache planningGeneratedCache,
+                             @Value("${search.trigram.enabled:false}") boolean trigramSearch, EntityCaches entityCaches){
         this.enseignantRepository = enseignantRepository;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.trigramSearch = trigramSearch;
+        this.enseignantCache = entityCaches.getEnseignants();
     }//EnseignantService()
 
 
@@ -53,7 +83,10 @@ public class EnseignantService {
         Date now = new Date();
         enseignant.setCreationDate(now);
         enseignant.setModificationDate(now);
-        return enseignantRepository.insert(enseignant);
+        Optional<Enseignant> enseignantInserted = enseignantRepository.insert(enseignant);
+        enseignantInserted.ifPresent(enseignantIndex::put);
+        enseignantInserted.ifPresent(enseignantSuggestions::put);
+        return enseignantInserted;
     }//insertEnseignant()
 
     /**
@@ -65,7 +98,14 @@ public class EnseignantService {
         if(enseignantRepository.isUsedBySlots(id)){
             throw new DataBaseException("Impossible de supprimer l'enseignant : L'enseignant que vous tentez de supprimer est peut-être utilisé par un ou plusieurs slot(s)");
         }
-        return enseignantRepository.delete(id);
+        boolean deleted = enseignantRepository.delete(id);
+        if(deleted){
+            enseignantIndex.remove(id);
+            enseignantCache.invalidate(id);
+            enseignantSuggestions.remove(id);
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.ENSEIGNANT, id);
+        return deleted;
     }//deleteEnseignant()
 
     /**
@@ -78,9 +118,33 @@ public class EnseignantService {
     public Optional<Enseignant> updateEnseignant(Enseignant enseignantToUpdate) throws ArgumentException, DataBaseException {
         checkBusiness(enseignantToUpdate, true);
         enseignantToUpdate.setModificationDate(new Date());
-        return enseignantRepository.update(enseignantToUpdate);
+        Optional<Enseignant> enseignantUpdated = enseignantRepository.update(enseignantToUpdate);
+        enseignantCache.invalidate(enseignantToUpdate.getId());
+        if(enseignantUpdated.isPresent()){
+            reindexEnseignant(enseignantToUpdate.getId());
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.ENSEIGNANT, enseignantToUpdate.getId());
+        return enseignantUpdated;
     }//updateEnseignant()
 
+    /**
+     * Réindexe l'enseignant relu en base de données : l'objet reçu lors de la modification peut être incomplet
+     * (date de création absente) ou modifié ensuite par l'appelant
+     * @param id Identifiant de l'enseignant modifié
+     * @throws DataBaseException
+     */
+    private void reindexEnseignant(int id) throws DataBaseException {
+        Optional<Enseignant> enseignantFromBd = enseignantCache.get(id, enseignantRepository::findById);
+        if(enseignantFromBd.isPresent()){
+            enseignantIndex.put(enseignantFromBd.get());
+            enseignantSuggestions.put(enseignantFromBd.get());
+        }
+        else{
+            enseignantIndex.remove(id);
+            enseignantSuggestions.remove(id);
+        }
+    }//reindexEnseignant()
+
     /**
      * Cette fonction permet de contrôler les règles métiers liées aux enseignants
      * @param enseignant L'enseignant à vérifier
@@ -120,7 +184,7 @@ public class EnseignantService {
      * @return L'enseignant récupéré
      */
     public Optional<Enseignant> getEnseignant(int id) throws DataBaseException {
-        return enseignantRepository.findById(id);
+        return enseignantCache.get(id, enseignantRepository::findById);
     }//getEnseignant
 
     /**
@@ -132,9 +196,50 @@ public class EnseignantService {
      * @return Liste d'enseignants
      */
     public List<Enseignant> getEnseignants(String nom, String prenom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        Optional<List<Enseignant>> found = searchIndex(nom, prenom);
+        if(found.isPresent()){
+            return CursorUtils.slice(found.get(), page, nbElementsPerPage);
+        }
         return enseignantRepository.getEnseignants(nom,prenom,page,nbElementsPerPage);
     }//getEnseignants()
 
+    /**
+     * Cette fonction permet de récupérer une page d'enseignants triés par nom (pagination par curseur)
+     * @param nom Nom de l'enseignant à récupérer (facultatif)
+     * @param prenom Prenom de l'enseignant à récupérer (facultatif)
+     * @param after Curseur retourné par la page précédente (vide pour la première page)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @return Page d'enseignants et curseur de la page suivante
+     * @throws ArgumentException si le curseur est invalide
+     */
+    public Page<Enseignant> getEnseignantsAfter(String nom, String prenom, String after, Integer nbElementsPerPage) throws ArgumentException, DataBaseException {
+        int pageSize = CursorUtils.pageSize(nbElementsPerPage);
+        List<Enseignant> enseignants = enseignantRepository.getEnseignantsAfter(nom, prenom, CursorUtils.decode(after), pageSize + 1);
+        return CursorUtils.page(enseignants, pageSize, Enseignant::getNom, Enseignant::getId);
+    }//getEnseignantsAfter()
+
+    /**
+     * Cette fonction permet de récupérer une page d'enseignants et le nombre total d'enseignants correspondant aux filtres
+     * @param nom Nom de l'enseignant à récupérer (facultatif)
+     * @param prenom Prenom de l'enseignant à récupérer (facultatif)
+     * @param page N° de la page (facultatif, 1 par défaut)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @return Page d'enseignants et nombre total d'enseignants
+     */
+    public Page<Enseignant> getEnseignantsPage(String nom, String prenom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        int numPage = CursorUtils.pageNumber(page);
+        Optional<List<Enseignant>> found = searchIndex(nom, prenom);
+        if(found.isPresent()){
+            return new Page<>(CursorUtils.slice(found.get(), numPage, CursorUtils.pageSize(nbElementsPerPage)), found.get().size());
+        }
+        Page<Enseignant> result = enseignantRepository.getEnseignantsPage(nom, prenom, numPage, CursorUtils.pageSize(nbElementsPerPage));
+        if(result.getItems().isEmpty() && numPage > 1){
+            // Au-delà de la dernière page, aucune ligne ne porte le total
+            result.setTotal(enseignantRepository.countEnseignants(nom, prenom));
+        }
+        return result;
+    }//getEnseignantsPage()
+
     /**
      * Cette fonction permet de retourner le nombre d'enseignants en base de données
      * @param nom Le nom de l'enseignant à chercher (facultatif)
@@ -142,6 +247,52 @@ public class EnseignantService {
      * @return Le nombre d'enseignants en base de données
      */
     public long countEnseignants(String nom, String prenom) throws DataBaseException {
+        Optional<List<Enseignant>> found = searchIndex(nom, prenom);
+        if(found.isPresent()){
+            return found.get().size();
+        }
         return enseignantRepository.countEnseignants(nom,prenom);
     }//countEnseignants()
+
+    /**
+     * Cette fonction permet de rechercher les enseignants par nom et prénom dans l'index en mémoire (chargé à la première recherche)
+     * @param nom Le nom de l'enseignant ou expression incomplète (facultatif)
+     * @param prenom Le prénom de l'enseignant ou expression incomplète (facultatif)
+     * @return Les enseignants classés par pertinence (vide si l'index n'est pas utilisé)
+     * @throws DataBaseException
+     */
+    private Optional<List<Enseignant>> searchIndex(String nom, String prenom) throws DataBaseException {
+        if(!trigramSearch || ((nom == null || nom.isEmpty()) && (prenom == null || prenom.isEmpty()))){
+            return Optional.empty();
+        }
+        if(!enseignantIndex.isLoaded()){
+            long version = enseignantIndex.getVersion();
+            enseignantIndex.load(enseignantRepository.getEnseignants(null, null, null, null), version);
+        }
+        return enseignantIndex.search(nom, prenom);
+    }//searchIndex()
+
+    /**
+     * Cette fonction permet de proposer les enseignants dont le nom (ou un mot du nom) commence par le texte saisi,
+     * sans interroger la base de données une fois les suggestions chargées
+     * @param q Début du nom saisi (sans tenir compte des accents)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions par ordre alphabétique
+     * @throws DataBaseException
+     */
+    public List<Enseignant> suggestEnseignants(String q, int limit) throws DataBaseException {
+        if(enseignantSuggestions.isLoaded()){
+            Optional<List<Enseignant>> suggestions = enseignantSuggestions.suggest(q, limit);
+            if(suggestions.isPresent()){
+                return suggestions.get();
+            }
+        }
+        long version = enseignantSuggestions.getVersion();
+        List<Enseignant> rows = enseignantRepository.getEnseignants(null, null, null, null);
+        if(!enseignantSuggestions.load(rows, version)){
+            // Modification pendant le chargement : mêmes suggestions que le trie, calculées sur les lignes lues
+            return enseignantSuggestions.suggest(rows, q, limit);
+        }
+        return enseignantSuggestions.suggest(q, limit).orElseGet(Collections::emptyList);
+    }//suggestEnseignants()
 }//EnseignantService
@@ -15,12 +15,20 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCache;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.PrefixTrie;
+import com.education.project.cache.TrigramIndex;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Matiere;
+import com.education.project.model.Page;
 import com.education.project.persistence.MatiereRepository;
+import com.education.project.utils.CursorUtils;
 import com.education.project.utils.LocalTimeUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -36,9 +44,29 @@ public class MatiereService {
      */
     private MatiereRepository matiereRepository;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    /**
+     * Recherche par nom dans l'index de trigrammes en mémoire plutôt qu'en base de données
+     */
+    private boolean trigramSearch;
+
+    private TrigramIndex<Matiere> matiereIndex = new TrigramIndex<>(Matiere::getId, List.of(Matiere::getNom));
+
+    private PrefixTrie<Matiere> matiereSuggestions = new PrefixTrie<>(Matiere::getId, List.of(Matiere::getNom));
+
+    /**
+     * Cache des matières lues par identifiant
+     */
+    private EntityCache<Matiere> matiereCache;
+
     @Autowired
-    public MatiereService(MatiereRepository matiereRepository) {
+    public MatiereService(MatiereRepository matiereRepository, PlanningGeneratedCache planningGeneratedCache,
+                          @Value("${search.trigram.enabled:false}") boolean trigramSearch, EntityCaches entityCaches) {
         this.matiereRepository = matiereRepository;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.trigramSearch = trigramSearch;
+        this.matiereCache = entityCaches.getMatieres();
     }//MatiereService()
 
     /**
@@ -52,7 +80,10 @@ public class MatiereService {
         checkBusinessForCreationAndUpdate(matiere);
         matiere.setCreationDate(new Date());
         matiere.setModificationDate(new Date());
-        return matiereRepository.insert(matiere);
+        Optional<Matiere> matiereInserted = matiereRepository.insert(matiere);
+        matiereInserted.ifPresent(matiereIndex::put);
+        matiereInserted.ifPresent(matiereSuggestions::put);
+        return matiereInserted;
     }//insertMatiere()
 
     /**
@@ -74,13 +105,37 @@ public class MatiereService {
                 matFromBd.setDescription(matiere.getDescription());
             }
             matiere.setModificationDate(new Date());
-            return matiereRepository.update(matiere);
+            Optional<Matiere> matiereUpdated = matiereRepository.update(matiere);
+            matiereCache.invalidate(matiere.getId());
+            if(matiereUpdated.isPresent()){
+                reindexMatiere(matiere.getId());
+            }
+            planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.MATIERE, matiere.getId());
+            return matiereUpdated;
         }
         List<String> errors = new ArrayList<>();
         errors.add("La modification de la matière est impossible : l'identifiant n'est pas renseigné.");
         throw new ArgumentException(errors);
     }//updateMatiere()
 
+    /**
+     * Réindexe la matière relue en base de données : l'objet reçu lors de la modification peut être incomplet
+     * (date de création absente) ou modifié ensuite par l'appelant
+     * @param id Identifiant de la matière modifiée
+     * @throws DataBaseException
+     */
+    private void reindexMatiere(int id) throws DataBaseException {
+        Optional<Matiere> matiereFromBd = matiereCache.get(id, matiereRepository::findById);
+        if(matiereFromBd.isPresent()){
+            matiereIndex.put(matiereFromBd.get());
+            matiereSuggestions.put(matiereFromBd.get());
+        }
+        else{
+            matiereIndex.remove(id);
+            matiereSuggestions.remove(id);
+        }
+    }//reindexMatiere()
+
     /**
      * La fonction permet de supprimer une matière grâce à son identifiant
      * @param id L'identifiant de la matière à supprimer
@@ -90,7 +145,14 @@ public class MatiereService {
         if(matiereRepository.isUsedBySlots(id)){
             throw new DataBaseException("Impossible de supprimer la matière : La matière que vous tentez de supprimer est peut-être utilisée par un ou plusieurs slot(s)");
         }
-        return matiereRepository.deleteMatiere(id);
+        boolean deleted = matiereRepository.deleteMatiere(id);
+        if(deleted){
+            matiereIndex.remove(id);
+            matiereCache.invalidate(id);
+            matiereSuggestions.remove(id);
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.MATIERE, id);
+        return deleted;
     }//deleteMatiere()
 
     /**
@@ -99,7 +161,7 @@ public class MatiereService {
      * @return boolean
      */
     public Optional<Matiere> getMatiere(int id) throws DataBaseException {
-        return  matiereRepository.findById(id);
+        return matiereCache.get(id, matiereRepository::findById);
     }//getMatiere()
 
     /**
@@ -110,18 +172,104 @@ public class MatiereService {
      * @return Liste de matières
      */
     public List<Matiere> getMatieres(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        Optional<List<Matiere>> found = searchIndex(nom);
+        if(found.isPresent()){
+            return CursorUtils.slice(found.get(), page, nbElementsPerPage);
+        }
         return matiereRepository.findAll(nom, page, nbElementsPerPage);
     }//getMatieres()
 
+    /**
+     * Cette fonction permet de récupérer une page de matières triées par nom (pagination par curseur)
+     * @param nom Le nom de la matière ou expression incomplète (optionnel)
+     * @param after Curseur retourné par la page précédente (vide pour la première page)
+     * @param nbElementsPerPage Nombre d'éléments par page (optionnel)
+     * @return Page de matières et curseur de la page suivante
+     * @throws ArgumentException si le curseur est invalide
+     */
+    public Page<Matiere> getMatieresAfter(String nom, String after, Integer nbElementsPerPage) throws ArgumentException, DataBaseException {
+        int pageSize = CursorUtils.pageSize(nbElementsPerPage);
+        List<Matiere> matieres = matiereRepository.findAllAfter(nom, CursorUtils.decode(after), pageSize + 1);
+        return CursorUtils.page(matieres, pageSize, Matiere::getNom, Matiere::getId);
+    }//getMatieresAfter()
+
+    /**
+     * Récupère une page de matières et le nombre total de matières correspondant au filtre
+     *
+     * @param nom Nom de la matière (facultatif)
+     * @param page N° de la page (facultatif, 1 par défaut)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @return Page de matières et nombre total de matières
+     * @throws DataBaseException
+     */
+    public Page<Matiere> getMatieresPage(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        int numPage = CursorUtils.pageNumber(page);
+        Optional<List<Matiere>> found = searchIndex(nom);
+        if (found.isPresent()) {
+            return new Page<>(CursorUtils.slice(found.get(), numPage, CursorUtils.pageSize(nbElementsPerPage)), found.get().size());
+        }
+        Page<Matiere> result = matiereRepository.findPage(nom, numPage, CursorUtils.pageSize(nbElementsPerPage));
+        if (result.getItems().isEmpty() && numPage > 1) {
+            // Au-delà de la dernière page, aucune ligne ne porte le total
+            result.setTotal(matiereRepository.count(nom));
+        }
+        return result;
+    }//getMatieresPage()
+
     /**
      * Cette fonction permet de compter un ensemble de matières grâce à un nom et la couleur de police passés en paramètre
      * @param nom Le nom de la matière ou expression incomplète (optionnel)
      * @return nombre de matières
      */
     public long countMatieres(String nom) throws DataBaseException {
+        Optional<List<Matiere>> found = searchIndex(nom);
+        if(found.isPresent()){
+            return found.get().size();
+        }
         return matiereRepository.count(nom);
     }// countMatieres()
 
+    /**
+     * Cette fonction permet de rechercher les matières par nom dans l'index en mémoire (chargé à la première recherche)
+     * @param nom Le nom de la matière ou expression incomplète
+     * @return Les matières classées par pertinence (vide si l'index n'est pas utilisé)
+     * @throws DataBaseException
+     */
+    private Optional<List<Matiere>> searchIndex(String nom) throws DataBaseException {
+        if(!trigramSearch || nom == null || nom.isEmpty()){
+            return Optional.empty();
+        }
+        if(!matiereIndex.isLoaded()){
+            long version = matiereIndex.getVersion();
+            matiereIndex.load(matiereRepository.findAll(null, null, null), version);
+        }
+        return matiereIndex.search(nom);
+    }//searchIndex()
+
+    /**
+     * Cette fonction permet de proposer les matières dont le nom (ou un mot du nom) commence par le texte saisi,
+     * sans interroger la base de données une fois les suggestions chargées
+     * @param q Début du nom saisi (sans tenir compte des accents)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions par ordre alphabétique
+     * @throws DataBaseException
+     */
+    public List<Matiere> suggestMatieres(String q, int limit) throws DataBaseException {
+        if(matiereSuggestions.isLoaded()){
+            Optional<List<Matiere>> suggestions = matiereSuggestions.suggest(q, limit);
+            if(suggestions.isPresent()){
+                return suggestions.get();
+            }
+        }
+        long version = matiereSuggestions.getVersion();
+        List<Matiere> rows = matiereRepository.findAll(null, null, null);
+        if(!matiereSuggestions.load(rows, version)){
+            // Modification pendant le chargement : mêmes suggestions que le trie, calculées sur les lignes lues
+            return matiereSuggestions.suggest(rows, q, limit);
+        }
+        return matiereSuggestions.suggest(q, limit).orElseGet(Collections::emptyList);
+    }//suggestMatieres()
+
     /**
      * La fonction permet de vérifier les règles métiers.
      * @param matiere La matière à vérifier.
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.model.CacheMetrics;
+import com.education.project.model.PoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cette classe expose les métriques techniques de l'application
+ */
+@Service
+public class MetricsService {
+
+    private HikariDataSource dataSource;
+
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private EntityCaches entityCaches;
+
+    @Autowired
+    public MetricsService(HikariDataSource dataSource, PlanningGeneratedCache planningGeneratedCache, EntityCaches entityCaches) {
+        this.dataSource = dataSource;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.entityCaches = entityCaches;
+    }// MetricsService()
+
+    /**
+     * Cette fonction permet de récupérer l'état courant du pool de connexions
+     * @return métriques du pool (vides si le pool n'est pas encore démarré)
+     */
+    public PoolMetrics getPoolMetrics() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return new PoolMetrics(0, 0, 0, 0, dataSource.getMaximumPoolSize());
+        }
+        return new PoolMetrics(pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(), dataSource.getMaximumPoolSize());
+    }// getPoolMetrics()
+
+    /**
+     * Cette fonction permet de récupérer les statistiques des caches de l'application
+     * @return statistiques de chaque cache (hits, misses, évictions, taille)
+     */
+    public List<CacheMetrics> getCachesMetrics() {
+        List<CacheMetrics> results = new ArrayList<>();
+        results.add(planningGeneratedCache.getMetrics());
+        results.addAll(entityCaches.getMetrics());
+        return results;
+    }// getCachesMetrics()
+
+}// MetricsService
@@ -1,5 +1,7 @@
 package com.education.project.services;
 
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Options;
@@ -24,10 +26,17 @@ public class OptionsService {
 
     private List<Integer> valuesSplitPlanningAccepted;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private ReferenceDataCache referenceDataCache;
+
     @Autowired
-    public OptionsService(OptionsRepository optionsRepository, @Value("${options.valid.split.time.values}") List<Integer> valuesSplitPlanningAccepted){
+    public OptionsService(OptionsRepository optionsRepository, @Value("${options.valid.split.time.values}") List<Integer> valuesSplitPlanningAccepted,
+                          PlanningGeneratedCache planningGeneratedCache, ReferenceDataCache referenceDataCache){
         this.optionsRepository = optionsRepository;
         this.valuesSplitPlanningAccepted = valuesSplitPlanningAccepted;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.referenceDataCache = referenceDataCache;
     }// OptionsService()
 
     /**
@@ -39,8 +48,12 @@ public class OptionsService {
      * @throws DataBaseException
      */
     public boolean changeOptions(Options fullOptions) throws ArgumentException, DataBaseException {
-        boolean result = checkBusiness(fullOptions);
-        return result && optionsRepository.update(fullOptions);
+        boolean result = checkBusiness(fullOptions) && optionsRepository.update(fullOptions);
+        if(result){
+            referenceDataCache.invalidateOptions();
+            planningGeneratedCache.invalidateAll();
+        }
+        return result;
     }// changeOptions()
 
     /**
@@ -49,7 +62,7 @@ public class OptionsService {
      * @throws DataBaseException
      */
     public Optional<Options> getOptions() throws DataBaseException {
-        return optionsRepository.getOptions();
+        return referenceDataCache.getOptions();
     }// getOptions()
 
     /**
@@ -65,7 +78,7 @@ public class OptionsService {
         if(fullOptions == null){
             errors.add("Options is missing");
         }else{
-            Optional<Options> currentOptions = optionsRepository.getOptions();
+            Optional<Options> currentOptions = referenceDataCache.getOptions();
             if(fullOptions.getSplitPlanning() == null && fullOptions.getStartHourPlanning() == null &&
                 fullOptions.getEndHourPlanning() == null){
                 return false;
@@ -15,25 +15,36 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.DimensionResolver;
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.enums.JourEnum;
 import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.ConflictException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.generation.PlanningGridExporter;
+import com.education.project.generation.PlanningHtmlRenderer;
+import com.education.project.generation.PlanningLayoutEngine;
 import com.education.project.model.*;
-import com.education.project.persistence.OptionsRepository;
 import com.education.project.persistence.PlanningRepository;
-import com.education.project.utils.HtmlUtils;
-import com.education.project.utils.LocalTimeUtils;
+import com.education.project.persistence.RowHandler;
+import com.education.project.utils.EtagUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static com.education.project.utils.LocalTimeUtils.hhmmToLong;
@@ -47,14 +58,46 @@ public class PlanningService {
 
     private PlanningRepository planningRepository;
 
-    private OptionsRepository optionsRepository;
+    private ReferenceDataCache referenceDataCache;
+
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private PlanningLayoutEngine planningLayoutEngine;
+
+    private PlanningHtmlRenderer planningHtmlRenderer;
+
+    private PlanningGridExporter planningGridExporter;
+
+    /**
+     * Pool de threads borné pour la génération en masse des plannings
+     */
+    private ForkJoinPool planningGenerationPool;
+
+    private DimensionResolver dimensionResolver;
+
+    private OccupancyIndex occupancyIndex;
+
+    /**
+     * Lecture d'un planning en requêtes légères (identifiants des entités complétés depuis les caches)
+     * plutôt que par une jointure sur toutes les entités de ses slots
+     */
+    private boolean slimFetch;
 
     private final static Logger LOGGER = LogManager.getLogger(PlanningService.class);
 
     @Autowired
-    public PlanningService(PlanningRepository planningRepository, OptionsRepository optionsRepository) {
+    public PlanningService(PlanningRepository planningRepository, ReferenceDataCache referenceDataCache, PlanningGeneratedCache planningGeneratedCache, ForkJoinPool planningGenerationPool,
+                           DimensionResolver dimensionResolver, OccupancyIndex occupancyIndex, @Value("${planning.fetch.slim:false}") boolean slimFetch) {
         this.planningRepository = planningRepository;
-        this.optionsRepository = optionsRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.planningGenerationPool = planningGenerationPool;
+        this.dimensionResolver = dimensionResolver;
+        this.occupancyIndex = occupancyIndex;
+        this.slimFetch = slimFetch;
+        this.planningLayoutEngine = new PlanningLayoutEngine();
+        this.planningHtmlRenderer = new PlanningHtmlRenderer();
+        this.planningGridExporter = new PlanningGridExporter();
     }// PlanningService()
 
     /**
@@ -67,26 +110,57 @@ public class PlanningService {
      */
     public Optional<Planning> insertPlanning(Planning planningToInsert) throws ArgumentException, DataBaseException {
         checkBusiness(planningToInsert, false);
-        Date now = new Date();
+        Date now = nextModificationDate(null);
         planningToInsert.setCreationDate(now);
         planningToInsert.setModificationDate(now);
-        return planningRepository.insert(planningToInsert);
+        Optional<Planning> planningInserted = planningRepository.insert(planningToInsert);
+        planningInserted.ifPresent(p -> {
+            planningGeneratedCache.invalidatePlanning(p.getId());
+            occupancyIndex.putPlanning(p);
+        });
+        return planningInserted;
     }// insertPlanning()
 
     /**
-     * Met à jour un planning au niveau de l'application
+     * Met à jour un planning au niveau de l'application.
+     * Si le planning porte une date de modification (celle de sa lecture), la mise à jour
+     * est refusée lorsque le planning a été modifié depuis.
      *
      * @param planning Planning à mettre à jour
      * @return Planning mis à jour
      * @throws ArgumentException
      * @throws DataBaseException
+     * @throws ConflictException si le planning a été modifié depuis sa lecture
      */
-    public Optional<Planning> updatePlanning(Planning planning) throws ArgumentException, DataBaseException {
+    public Optional<Planning> updatePlanning(Planning planning) throws ArgumentException, DataBaseException, ConflictException {
         checkBusiness(planning, true);
-        planning.setModificationDate(new Date());
-        return planningRepository.update(planning);
+        Date expectedModificationDate = planning.getModificationDate();
+        planning.setModificationDate(nextModificationDate(expectedModificationDate));
+        try {
+            Optional<Planning> planningUpdated = planningRepository.update(planning, expectedModificationDate);
+            planningUpdated.ifPresent(occupancyIndex::putPlanning);
+            return planningUpdated;
+        } finally {
+            planningGeneratedCache.invalidatePlanning(planning.getId());
+        }
     }// updatePlanning()
 
+    /**
+     * Date de modification à enregistrer : la date courante à la seconde près (précision des colonnes
+     * TIMESTAMP de MySQL, pour que la date renvoyée soit celle relue en base), strictement postérieure
+     * à la date de modification précédente pour que le verrouillage optimiste la distingue.
+     *
+     * @param previous Date de modification précédente (facultatif)
+     * @return Date de modification
+     */
+    static Date nextModificationDate(Date previous) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        if (previous != null && now <= previous.getTime()) {
+            now = previous.getTime() / 1000 * 1000 + 1000;
+        }
+        return new Date(now);
+    }// nextModificationDate()
+
     /**
      * Contrôle des règles métiers
      *
@@ -127,9 +201,29 @@ public class PlanningService {
      * @return Planning
      */
     public Optional<Planning> getPlanningById(int id) throws DataBaseException {
-        return planningRepository.findById(id);
+        return findPlanning(id);
     }// getPlanningById()
 
+    /**
+     * Lit un planning avec ses slots, selon la stratégie de lecture configurée
+     * (planning.fetch.slim). Si une entité ne peut pas être complétée depuis les caches,
+     * le planning est relu par jointure.
+     *
+     * @param id Identifiant du planning à récupérer
+     * @return Planning
+     * @throws DataBaseException
+     */
+    private Optional<Planning> findPlanning(int id) throws DataBaseException {
+        if (!slimFetch) {
+            return planningRepository.findById(id);
+        }
+        Optional<Planning> optPlanning = planningRepository.findByIdWithSlotKeys(id);
+        if (optPlanning.isEmpty() || dimensionResolver.resolve(optPlanning.get())) {
+            return optPlanning;
+        }
+        return planningRepository.findById(id);
+    }// findPlanning()
+
     /**
      * Cette fonction permet de supprimer un planning en base de données grâce à son identifiant passé en paramètre
      *
@@ -137,7 +231,10 @@ public class PlanningService {
      * @return boolean
      */
     public boolean deletePlanning(Integer id) throws DataBaseException {
-        return planningRepository.deletePlanning(id);
+        boolean deleted = planningRepository.deletePlanning(id);
+        planningGeneratedCache.invalidatePlanning(id);
+        occupancyIndex.removePlanning(id);
+        return deleted;
     }//deletePlanning()
 
     /**
@@ -151,332 +248,315 @@ public class PlanningService {
     }//getPlannings()
 
     /**
-     * Génération du planning dont l'identifiant est donné en paramètre
+     * Lit en flux les plannings correspondant aux paramètres : chaque planning est transmis
+     * au handler dès sa lecture en base de données
+     * @param params paramètres du planning
+     * @param handler Traitement appelé pour chaque planning lu
+     * @throws IOException si le handler ne peut pas écrire un planning
+     */
+    public void streamPlannings(Map<String, String> params, RowHandler<Planning> handler) throws DataBaseException, IOException {
+        planningRepository.streamPlannings(params, handler);
+    }// streamPlannings()
+
+    /**
+     * Retourne l'ETag d'un planning, calculé à partir de l'état du planning et des entités qu'il utilise.
      *
      * @param id Identifiant du planning
-     * @return Planning généré en HTML
+     * @return ETag (vide si le planning n'existe pas)
      * @throws DataBaseException
      */
-    public PlanningGenerated generatePlanning(int id) throws DataBaseException {
-        StringBuilder sb = new StringBuilder();
-        Optional<Planning> optPlanning = planningRepository.findById(id);
-        Optional<Options> optOptions = optionsRepository.getOptions();
-        List<String> warnings = new ArrayList<>();
-        if (optPlanning.isPresent() && optOptions.isPresent()) {
-            Planning planning = optPlanning.get();
-            Options options = optOptions.get();
-            String[][] results = generateFirstColumn(planning, options);
-            final int nbColumns = results[0].length;
-            List<Integer> gardesFou = initGardesFou(nbColumns);
-            Map<Integer, List<Slot>> slotsByDay = initSlotsByDay(planning);
-            warnings = checkWarnings(slotsByDay);
-
-            long minutesBetween;
-            for (int i = 0, cursorColumn = 1; i < results.length; ++i, ++cursorColumn) { // colonne 0 déjà remplie
-                if (slotsByDay.containsKey(cursorColumn)) {
-                    List<Slot> slotsOfCurrentDay = slotsByDay.get(cursorColumn);
-
-                    boolean firstTime = true;
-                    for (int j = 0, prevIndex = 0; j < slotsOfCurrentDay.size(); ++prevIndex) {
-                        if (firstTime) {
-                            minutesBetween = getMinutesBetweenForFirstIteration(options, slotsOfCurrentDay, j);
-                        } else {
-                            minutesBetween = getMinutesBetweenForOtherIterations(slotsOfCurrentDay, j, prevIndex);
-                        }
-
-                        int rowspan = (int) minutesBetween / options.getSplitPlanning();
-                        if (rowspan == 0) {
-                            rowspan = 1;
-                        }
-                        if (firstTime) {
-                            j = initFirstCells(options, results, gardesFou, cursorColumn, slotsOfCurrentDay, j, rowspan);
-                            firstTime = false;
-                        } else if (!firstTime && j < slotsOfCurrentDay.size()) { // On s'occupe de tous les éléments sauf les derniers slots
-                            if (j != prevIndex || slotsOfCurrentDay.get(j - 1).getTimeSlot().getEnd().equals(slotsOfCurrentDay.get(j).getTimeSlot().getStart())) {
-
-                                if(j > 0 && results[gardesFou.get(cursorColumn)][cursorColumn] != null && slotsOfCurrentDay.get(j - 1).getTimeSlot().getStart().equals(slotsOfCurrentDay.get(j).getTimeSlot().getStart())
-                                && slotsOfCurrentDay.get(j - 1).getTimeSlot().getEnd().equals(slotsOfCurrentDay.get(j).getTimeSlot().getEnd())){
-                                    // On divise la cellule en deux
-                                    String styleFirstCell = initStyle(slotsOfCurrentDay.get(j-1));
-                                    String styleLastCell = initStyle(slotsOfCurrentDay.get(j));
-                                    String commentFirstCell = slotsOfCurrentDay.get(j-1).getComment() != null ? "<div class=\"comment-slot\">" + slotsOfCurrentDay.get(j-1).getComment() + "</div>" : "";
-                                    String commentLastCell = slotsOfCurrentDay.get(j).getComment() != null ? "<div class=\"comment-slot\">" + slotsOfCurrentDay.get(j).getComment() + "</div>" : "";
-                                    results[gardesFou.get(cursorColumn)][cursorColumn] = "<td class=\"no-padding\"><div "+styleFirstCell+">" + HtmlUtils.removeTagsTd(results[gardesFou.get(cursorColumn)][cursorColumn])
-                                            + commentFirstCell + "</div><div "+styleLastCell+" class=\"group\">" + HtmlUtils.removeTagsTd(initSlot(slotsOfCurrentDay.get(j), rowspan)) + commentLastCell + "</div></td>";
-                                }else {
-                                    results[gardesFou.get(cursorColumn)][cursorColumn] = initSlot(slotsOfCurrentDay.get(j), rowspan);
-                                }
-
-                                ++j;
-                                prevIndex = j - 1;
-                            } else if (j == prevIndex) {
-                                results[gardesFou.get(cursorColumn)][cursorColumn] = emptySlot(rowspan); // cellule vide
-                            }
-                            if (j == slotsOfCurrentDay.size()) { // On s'occupe des cellules entre le dernier slot et la dernière heure du planning
-                                int k = gardesFou.get(cursorColumn) + rowspan;
-                                for (; k < results.length; ++k) {
-                                    results[k][cursorColumn] = "<td rowspan=\"1\"></td>";
-                                }
-                            }
-                            gardesFou.set(cursorColumn, gardesFou.get(cursorColumn) + rowspan);
-                        }
-                    }
-                }
-            }
-
-            boolean[] hasElementsByDay = new boolean[nbColumns];
-            String bodyPlanning = generateBodyPlanning(results, hasElementsByDay);
-            String headerPlanning = generateHeaderPlanning(hasElementsByDay);
-            sb.append("<table>");
-            sb.append(headerPlanning);
-            sb.append(bodyPlanning);
-            sb.append("</table>");
-            LOGGER.info("Code HTML du planning généré : {}", sb.toString()); // debug
+    public Optional<String> getPlanningEtag(int id) throws DataBaseException {
+        Optional<String> version = planningRepository.getVersion(id);
+        if (version.isEmpty()) {
+            return Optional.empty();
         }
-        return new PlanningGenerated(id, sb.toString(), warnings);
-    }// generatePlanning()
+        return Optional.of(EtagUtils.build("planning", id, version.get(), planningGeneratedCache.getDataVersion()));
+    }// getPlanningEtag()
 
     /**
-     * Cette fonction retourne un ensemble d'avertissements liés à des
-     * règles de gestion concernant le planning négligés.
-     * Exemple : Le non respect du volume horaire hebdomadaire de matières du planning
-     * @param slotsByDay Slots par jour
-     * @return liste d'avertissements
+     * Retourne l'ETag d'un planning généré : état du planning et des entités qu'il utilise
+     * ainsi que les options (découpage, heures de début et de fin) utilisées pour la génération.
+     *
+     * @param id Identifiant du planning
+     * @return ETag (vide si le planning n'existe pas)
+     * @throws DataBaseException
      */
-    private List<String> checkWarnings(Map<Integer, List<Slot>> slotsByDay){
-        List<String> warnings = new ArrayList<>();
-        final Set<Matiere> matieres = new HashSet<>();
-        if(slotsByDay != null && !slotsByDay.isEmpty()){
-            // 1) Récupération de toutes les matières utilisées dans le planning
-            slotsByDay.forEach((day, slots) ->
-                matieres.addAll(slots.stream().map(slot -> slot.getMatiere())
-                        .collect(Collectors.toSet()))
-            );
-            // 2) Pour chaque matière (si son volume horaire est renseigné), on calcule
-            // ses heures disposées dans le planning :
-            matieres.forEach(matiere -> {
-                if(matiere.getVolumeHoraire() != null && !matiere.getVolumeHoraire().isEmpty()) {
-                    long sumOfWeek = 0L;
-                    for(Map.Entry<Integer, List<Slot>> entry : slotsByDay.entrySet()) {
-                        List<Slot> slots = entry.getValue();
-                        sumOfWeek += slots.stream()
-                                .filter(slot -> slot.getMatiere().getId().equals(matiere.getId()))
-                                .mapToLong(slot -> ChronoUnit.MINUTES.between(slot.getTimeSlot().getEnd(), slot.getTimeSlot().getStart()))
-                                .sum();
-                    }
-
-                    long volHebd = hhmmToLong(matiere.getVolumeHoraire());
-                    if(volHebd != sumOfWeek){
-                        warnings.add("La matière " + matiere.getNom() + " ne respecte pas son volume horaire hebdomadaire de " + matiere.getVolumeHoraire().replace(":", "H"));
-                    }
-                }
-            });
+    public Optional<String> getGeneratedPlanningEtag(int id) throws DataBaseException {
+        Optional<String> version = planningRepository.getVersion(id);
+        if (version.isEmpty()) {
+            return Optional.empty();
         }
-        return warnings;
-    }//checkWarnings()
+        String optionsVersion = referenceDataCache.getOptions()
+                .map(options -> options.getSplitPlanning() + "/" + options.getStartHourPlanning() + "/" + options.getEndHourPlanning())
+                .orElse("");
+        return Optional.of(EtagUtils.build("generatedPlanning", id, version.get(), optionsVersion, planningGeneratedCache.getDataVersion()));
+    }// getGeneratedPlanningEtag()
 
-    private String initStyle(Slot slot){
-        if(slot == null){
-            return "";
-        }
-        StringBuilder style = new StringBuilder("style=\"");
-        style.append("color : ").append(slot.getCouleurPolice()).append(";");
-        style.append("background-color : ").append(slot.getCouleurFond()).append(";");
-        style.append("\"");
-        return style.toString();
-    }// initStyle()
+    /**
+     * Retourne l'ETag de la liste des plannings correspondant aux paramètres passés.
+     *
+     * @param params paramètres du planning
+     * @return ETag
+     * @throws DataBaseException
+     */
+    public String getPlanningsEtag(Map<String, String> params) throws DataBaseException {
+        return EtagUtils.build("plannings", EtagUtils.canonicalParams(params), planningRepository.getPlanningsVersion(), planningGeneratedCache.getDataVersion());
+    }// getPlanningsEtag()
 
     /**
-     * Initialisation d'une cellule Slot
-     * @param slot Slot
-     * @param rowspan rowspan calculé
-     * @return cellule slot
+     * Génération du planning dont l'identifiant est donné en paramètre.
+     * Le résultat est conservé en cache jusqu'à la modification du planning,
+     * d'une entité qu'il utilise ou des options.
+     *
+     * @param id Identifiant du planning
+     * @return Planning généré en HTML
+     * @throws DataBaseException
      */
-    private String initSlot(Slot slot, int rowspan){
-        StringBuilder sb = new StringBuilder();
-        if(slot == null){
-            return sb.toString();
+    public PlanningGenerated generatePlanning(int id) throws DataBaseException {
+        Optional<PlanningGenerated> planningInCache = planningGeneratedCache.get(id);
+        if (planningInCache.isPresent()) {
+            return planningInCache.get();
         }
-
-        sb.append("<td ");
-        sb.append(initStyle(slot));
-        sb.append(" rowspan=\"");
-        sb.append(rowspan);
-        sb.append("\"><div>");
-        sb.append(slot.getMatiere().getNom());
-        sb.append("</div>");
-        if(slot.getEnseignant() != null){
-            sb.append("<div>");
-            sb.append(slot.getEnseignant().getNom() != null ? slot.getEnseignant().getNom() : "");
-            sb.append(" ");
-            sb.append(slot.getEnseignant().getPrenom() != null ? slot.getEnseignant().getPrenom() : "");
-            sb.append("</div>");
+        long cacheVersion = planningGeneratedCache.getVersion();
+        Optional<Planning> optPlanning = findPlanning(id);
+        Optional<Options> optOptions = referenceDataCache.getOptions();
+        if (optPlanning.isEmpty() || optOptions.isEmpty()) {
+            return new PlanningGenerated(id, "", new ArrayList<>());
         }
-        if(slot.getSalle() != null){
-            sb.append("<div>");
-            sb.append(slot.getSalle().getNom() != null ? slot.getSalle().getNom() : "");
-            sb.append("</div>");
+        Planning planning = optPlanning.get();
+        PlanningGenerated planningGenerated = renderPlanning(id, planning, optOptions.get());
+        if (planning.getId() != null) {
+            planningGeneratedCache.put(planningGenerated, planning, cacheVersion);
         }
-        sb.append("</td>");
-        return sb.toString();
-    }// initSlot()
+        return planningGenerated;
+    }// generatePlanning()
 
     /**
-     * Initialisation d'une cellule vide
-     * @param rowspan rowspan calculé
-     * @return cellule vide
+     * Génération en masse des plannings dont les identifiants sont passés en paramètre
+     * (tous les plannings si aucun identifiant n'est donné). Les plannings absents du cache
+     * sont chargés en une seule requête puis générés en parallèle sur un pool de threads borné.
+     * Les identifiants inconnus sont ignorés.
+     *
+     * @param ids Identifiants des plannings à générer (facultatif)
+     * @return Plannings générés, temps de génération de chacun et durée totale
+     * @throws DataBaseException
      */
-    private String emptySlot(int rowspan){
-        StringBuilder sb = new StringBuilder("<td rowspan=\"");
-        sb.append(rowspan);
-        sb.append("\"></td>");
-        return sb.toString();
-    }// emptySlot()
+    public PlanningsGenerated generatePlannings(List<Integer> ids) throws DataBaseException {
+        long start = System.nanoTime();
+        PlanningsGenerated result = new PlanningsGenerated();
+        Optional<Options> optOptions = referenceDataCache.getOptions();
+        if (optOptions.isEmpty()) {
+            result.setTotalTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        }
+        Options options = optOptions.get();
+        Map<Integer, Double> latencies = new ConcurrentHashMap<>();
+        List<PlanningGenerated> plannings = new ArrayList<>();
+        List<Integer> idsToLoad = new ArrayList<>();
+        if (ids != null) {
+            for (Integer id : new LinkedHashSet<>(ids)) {
+                long startItem = System.nanoTime();
+                Optional<PlanningGenerated> planningInCache = planningGeneratedCache.get(id);
+                if (planningInCache.isPresent()) {
+                    plannings.add(planningInCache.get());
+                    latencies.put(id, toMillis(System.nanoTime() - startItem));
+                } else {
+                    idsToLoad.add(id);
+                }
+            }
+        }
+
+        if (ids == null || ids.isEmpty() || !idsToLoad.isEmpty()) {
+            long cacheVersion = planningGeneratedCache.getVersion();
+            List<Planning> planningsToGenerate = planningRepository.findAllWithSlots(idsToLoad);
+            List<Callable<PlanningGenerated>> tasks = new ArrayList<>(planningsToGenerate.size());
+            for (Planning planning : planningsToGenerate) {
+                tasks.add(() -> {
+                    long startItem = System.nanoTime();
+                    PlanningGenerated planningGenerated = renderPlanning(planning.getId(), planning, options);
+                    latencies.put(planning.getId(), toMillis(System.nanoTime() - startItem));
+                    return planningGenerated;
+                });
+            }
+            List<PlanningGenerated> planningsGenerated = invokeAll(tasks);
+            for (int i = 0; i < planningsGenerated.size(); ++i) {
+                planningGeneratedCache.put(planningsGenerated.get(i), planningsToGenerate.get(i), cacheVersion);
+            }
+            plannings.addAll(planningsGenerated);
+        }
+
+        plannings.sort(Comparator.comparingInt(PlanningGenerated::getId));
+        result.setPlannings(plannings);
+        result.setLatencies(new TreeMap<>(latencies));
+        result.setTotalTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.info("{} planning(s) généré(s) en {} ms", plannings.size(), result.getTotalTime());
+        return result;
+    }// generatePlannings()
 
     /**
-     * Initialisation des premières cellules.
+     * Exécution des tâches de génération sur le pool de threads dédié
      *
-     * @param options
-     * @param results
-     * @param gardesFou
-     * @param cursorColumn
-     * @param slotsOfCurrentDay
-     * @param j
-     * @param rowspan
-     * @return indice incrémenté (ou non)
+     * @param tasks Tâches de génération
+     * @return Plannings générés, dans l'ordre des tâches
      */
-    private int initFirstCells(Options options, String[][] results, List<Integer> gardesFou, int cursorColumn, List<Slot> slotsOfCurrentDay, int j, int rowspan) {
-        if (options.getStartHourPlanning().equals(slotsOfCurrentDay.get(j).getTimeSlot().getStart())) {
-            results[gardesFou.get(cursorColumn)][cursorColumn] = initSlot(slotsOfCurrentDay.get(j), rowspan);
-            ++j;
-        } else {
-            results[gardesFou.get(cursorColumn)][cursorColumn] = emptySlot(rowspan); // cellule vide
+    private List<PlanningGenerated> invokeAll(List<Callable<PlanningGenerated>> tasks) {
+        List<PlanningGenerated> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<PlanningGenerated> future : planningGenerationPool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération des plannings interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur lors de la génération des plannings", e.getCause());
         }
-        gardesFou.set(cursorColumn, gardesFou.get(cursorColumn) + rowspan);
-        return j;
-    }// initFirstCells()
+        return results;
+    }// invokeAll()
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }// toMillis()
 
     /**
-     * Récupération de la différence de minutes uniquement pour la première itération.
+     * Génération HTML d'un planning déjà chargé
      *
-     * @param options           Options de l'application
-     * @param slotsOfCurrentDay Slots du jour courant
-     * @param j                 indice du slot courant
-     * @return différence de minutes
+     * @param id Identifiant du planning
+     * @param planning Planning avec ses slots
+     * @param options Options de l'application
+     * @return Planning généré
      */
-    private long getMinutesBetweenForFirstIteration(Options options, List<Slot> slotsOfCurrentDay, int j) {
-        long minutesBetween;
-        if (options.getStartHourPlanning().equals(slotsOfCurrentDay.get(j).getTimeSlot().getStart())) {
-            minutesBetween = ChronoUnit.MINUTES.between(slotsOfCurrentDay.get(j).getTimeSlot().getStart(), slotsOfCurrentDay.get(j).getTimeSlot().getEnd());
-        } else {
-            minutesBetween = ChronoUnit.MINUTES.between(options.getStartHourPlanning(), slotsOfCurrentDay.get(j).getTimeSlot().getStart());
+    private PlanningGenerated renderPlanning(int id, Planning planning, Options options) {
+        Map<Integer, List<Slot>> slotsByDay = initSlotsByDay(planning);
+        List<String> warnings = checkWarnings(slotsByDay);
+        StringWriter html = new StringWriter();
+        try {
+            planningHtmlRenderer.render(planningLayoutEngine.layout(options, slotsByDay), html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return minutesBetween;
-    }// getMinutesBetweenForFirstIteration()
+        LOGGER.debug("Planning {} généré ({} caractères)", id, html.getBuffer().length());
+        return new PlanningGenerated(id, html.toString(), warnings);
+    }// renderPlanning()
 
     /**
-     * Récupération de la différence de minutes pour toutes les autres itérations (sauf la première).
+     * Écrit le planning généré en HTML directement dans le flux passé en paramètre,
+     * sans construire le document complet en mémoire (sauf s'il est déjà en cache).
      *
-     * @param slotsOfCurrentDay Slots du jour courant
-     * @param j                 indice du slot courant
-     * @param prevIndex         précédent indice (boucle)
-     * @return différence de minutes
+     * @param id Identifiant du planning
+     * @param writer Flux de sortie
+     * @return false si le planning ou les options n'existent pas
+     * @throws DataBaseException
+     * @throws IOException
      */
-    private long getMinutesBetweenForOtherIterations(List<Slot> slotsOfCurrentDay, int j, int prevIndex) {
-        long minutesBetween;
-        if (j != prevIndex || slotsOfCurrentDay.get(j - 1).getTimeSlot().getEnd().equals(slotsOfCurrentDay.get(j).getTimeSlot().getStart())) {
-            minutesBetween = ChronoUnit.MINUTES.between(slotsOfCurrentDay.get(j).getTimeSlot().getStart(), slotsOfCurrentDay.get(j).getTimeSlot().getEnd());
-        } else {
-            minutesBetween = ChronoUnit.MINUTES.between(slotsOfCurrentDay.get(j - 1).getTimeSlot().getEnd(), slotsOfCurrentDay.get(j).getTimeSlot().getStart());
+    public boolean writePlanningHtml(int id, Writer writer) throws DataBaseException, IOException {
+        Optional<PlanningGenerated> planningInCache = planningGeneratedCache.get(id);
+        if (planningInCache.isPresent()) {
+            writer.write(planningInCache.get().getContentHtml());
+            return true;
+        }
+        Optional<Planning> optPlanning = findPlanning(id);
+        Optional<Options> optOptions = referenceDataCache.getOptions();
+        if (optPlanning.isEmpty() || optOptions.isEmpty()) {
+            return false;
         }
-        return minutesBetween;
-    }// getMinutesBetweenForOtherIterations()
+        planningHtmlRenderer.render(planningLayoutEngine.layout(optOptions.get(), initSlotsByDay(optPlanning.get())), writer);
+        return true;
+    }// writePlanningHtml()
 
     /**
-     * Génération de la première colonne du planning affichant les
-     * créneaux horaires.
+     * Génération du planning dont l'identifiant est donné en paramètre sous forme
+     * de grille (colonnes par jour, cellules et tables de référence) plutôt qu'en HTML.
      *
-     * @param planning Planning
-     * @param options  Options de l'application
-     * @return Matrice qui contiendra tout le planning (corps) généré plus tard.
+     * @param id Identifiant du planning
+     * @return Planning généré sous forme de grille
+     * @throws DataBaseException
      */
-    private String[][] generateFirstColumn(Planning planning, Options options) {
-        LocalTime cursor = options.getStartHourPlanning();
-        int nbRows = 0, nbCols = 7; // col vide + lundi, mardi, mercredi, jeudi, vendredi, samedi
-        while (!cursor.equals(options.getEndHourPlanning())) {
-            ++nbRows;
-            cursor = cursor.plusMinutes(options.getSplitPlanning());
-        }
-        if (!planning.isWednesdayUsed()) {
-            --nbCols;
+    public PlanningGeneratedGrid generatePlanningGrid(int id) throws DataBaseException {
+        Optional<Planning> optPlanning = findPlanning(id);
+        Optional<Options> optOptions = referenceDataCache.getOptions();
+        if (optPlanning.isEmpty() || optOptions.isEmpty()) {
+            return new PlanningGeneratedGrid(id);
         }
-        if (!planning.isSaturdayUsed()) {
-            --nbCols;
-        }
-        String[][] matrice = new String[nbRows][nbCols];
-        int i = 0;
-        cursor = options.getStartHourPlanning();
-        while (!cursor.equals(options.getEndHourPlanning())) {
-            matrice[i][0] = LocalTimeUtils.formatTime(cursor.getHour()) + ":" + LocalTimeUtils.formatTime(cursor.getMinute()) + " - ";
-            cursor = cursor.plusMinutes(options.getSplitPlanning());
-            matrice[i][0] = "<td>" + matrice[i][0] + LocalTimeUtils.formatTime(cursor.getHour()) + ":" + LocalTimeUtils.formatTime(cursor.getMinute()) + "</td>";
-            ++i;
+        Map<Integer, List<Slot>> slotsByDay = initSlotsByDay(optPlanning.get());
+        return planningGridExporter.export(id, planningLayoutEngine.layout(optOptions.get(), slotsByDay), checkWarnings(slotsByDay));
+    }// generatePlanningGrid()
+
+    /**
+     * Cette fonction retourne un ensemble d'avertissements liés à des
+     * règles de gestion concernant le planning négligés.
+     * Exemple : Le non respect du volume horaire hebdomadaire de matières du planning
+     * @param slotsByDay Slots par jour
+     * @return liste d'avertissements
+     */
+    private List<String> checkWarnings(Map<Integer, List<Slot>> slotsByDay){
+        Set<Matiere> matieres = new LinkedHashSet<>();
+        Map<Integer, Long> minutesByMatiere = new HashMap<>();
+        if(slotsByDay != null){
+            // 1) Cumul, en un seul parcours des slots, des minutes disposées pour chaque matière du planning
+            slotsByDay.forEach((day, slots) -> slots.forEach(slot -> {
+                matieres.add(slot.getMatiere());
+                minutesByMatiere.merge(slot.getMatiere().getId(), ChronoUnit.MINUTES.between(slot.getTimeSlot().getStart(), slot.getTimeSlot().getEnd()), Long::sum);
+            }));
         }
-        return matrice;
-    }// generateFirstColumn()
+        // 2) Comparaison au volume horaire de chaque matière (s'il est renseigné)
+        List<String> warnings = new ArrayList<>();
+        matieres.forEach(matiere -> checkVolumeHoraire(matiere, minutesByMatiere.get(matiere.getId())).ifPresent(warnings::add));
+        return warnings;
+    }//checkWarnings()
 
     /**
-     * Génération de l'en-tête du planning. Seuls les colonnes ayant au minimum
-     * une valeur apparaîtront.
-     *
-     * @param hasElementsByDay Compteur d'éléments renseignés par jour
-     * @return en-tête planning
+     * Compare les minutes disposées pour une matière à son volume horaire hebdomadaire
+     * @param matiere Matière
+     * @param minutes Minutes disposées sur la semaine
+     * @return avertissement (vide si le volume horaire est respecté ou n'est pas renseigné)
      */
-    private String generateHeaderPlanning(boolean[] hasElementsByDay) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<thead><tr>");
-        if (hasElementsByDay != null) {
-            for (int i = 0; i < hasElementsByDay.length; ++i) {
-                if (hasElementsByDay[i]) {
-                    String colName = "";
-                    if (i > 0) {
-                        colName = JourEnum.getEnumByVal(i).toString();
-                    }
-                    sb.append("<th>");
-                    sb.append(colName);
-                    sb.append("</th>");
-                }
-            }
+    private static Optional<String> checkVolumeHoraire(Matiere matiere, long minutes){
+        if(matiere.getVolumeHoraire() == null || matiere.getVolumeHoraire().isEmpty() || hhmmToLong(matiere.getVolumeHoraire()) == minutes){
+            return Optional.empty();
         }
-        sb.append("</tr></thead>");
-        return sb.toString();
-    }// generateHeaderPlanning()
+        return Optional.of("La matière " + matiere.getNom() + " ne respecte pas son volume horaire hebdomadaire de " + matiere.getVolumeHoraire().replace(":", "H"));
+    }//checkVolumeHoraire()
 
     /**
-     * Génération du corps du planning à partir de la matrice résultat.
+     * Retourne les heures disposées dans un planning pour chacune de ses matières et les avertissements
+     * sur leur volume horaire hebdomadaire. Les minutes sont lues dans l'index d'occupation,
+     * tenu à jour par les écritures des slots et des plannings : les slots du planning ne sont pas relus.
      *
-     * @param results          matrice
-     * @param hasElementsByDay Compteur d'éléments renseignés par jour
-     * @return corps du planning
+     * @param id Identifiant du planning
+     * @return Heures du planning (vide si le planning n'existe pas)
+     * @throws DataBaseException
      */
-    private String generateBodyPlanning(String results[][], boolean[] hasElementsByDay) {
-        StringBuilder sb = new StringBuilder();
-        if (results != null && hasElementsByDay != null) {
-            for (int i = 0; i < results.length; ++i) {
-                sb.append("<tr>");
-                for (int j = 0; j < results[0].length; ++j) {
-                    String elem = results[i][j];
-                    if (elem != null) {
-                        hasElementsByDay[j] = true;
-                        sb.append(elem);
-                        sb.append(" ");
-                    }
+    public Optional<PlanningHours> getPlanningHours(int id) throws DataBaseException {
+        Optional<Map<Integer, int[]>> minutesByMatiere = occupancyIndex.getMinutesByMatiere(id);
+        if (minutesByMatiere.isEmpty()) {
+            // Planning sans slot, ou inexistant
+            if (planningRepository.getVersion(id).isEmpty()) {
+                return Optional.empty();
+            }
+            minutesByMatiere = Optional.of(Collections.emptyMap());
+        }
+        PlanningHours planningHours = new PlanningHours(id);
+        for (Integer idMatiere : new TreeSet<>(minutesByMatiere.get().keySet())) {
+            int[] minutes = minutesByMatiere.get().get(idMatiere);
+            Map<Integer, Integer> minutesByJour = new TreeMap<>();
+            int minutesOfWeek = 0;
+            for (int jour = 0; jour < minutes.length; ++jour) {
+                if (minutes[jour] != 0) {
+                    minutesByJour.put(jour, minutes[jour]);
+                    minutesOfWeek += minutes[jour];
                 }
-                sb.append("</tr>");
+            }
+            Optional<Matiere> matiere = dimensionResolver.getMatiere(idMatiere);
+            planningHours.getMatieres().add(new PlanningHours.MatiereHours(idMatiere, matiere.map(Matiere::getNom).orElse(null),
+                    matiere.map(Matiere::getVolumeHoraire).orElse(null), minutesOfWeek, minutesByJour));
+            planningHours.setMinutes(planningHours.getMinutes() + minutesOfWeek);
+            if (matiere.isPresent()) {
+                checkVolumeHoraire(matiere.get(), minutesOfWeek).ifPresent(planningHours.getWarnings()::add);
             }
         }
-        return sb.toString();
-    }// generateBodyPlanning()
+        return Optional.of(planningHours);
+    }// getPlanningHours()
 
     private Map<Integer, List<Slot>> initSlotsByDay(Planning planning) {
         Map<Integer, List<Slot>> slotsByDay = new HashMap<>();
@@ -500,20 +580,4 @@ public class PlanningService {
         return slotsByDay;
     }// initSlotsByDay()
 
-    /**
-     * Initialisation des gardes fous. Un garde fou est utilisé comme une sorte de marque page
-     * pour chacun des jours du planning afin de faciliter la construction de la matrice résultat
-     * représentant le corps du planning.
-     *
-     * @param nbColumns Nombre de colonnes du planning
-     * @return gardes fous
-     */
-    private List<Integer> initGardesFou(int nbColumns) {
-        List<Integer> gardesFou = new ArrayList<>();
-        for (int i = 0; i < nbColumns; ++i) {
-            gardesFou.add(0);
-        }
-        return gardesFou;
-    }// initGardesFou()
-
 }// PlanningService
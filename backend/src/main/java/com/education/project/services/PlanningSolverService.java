@@ -0,0 +1,415 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
+import com.education.project.enums.JourEnum;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.generation.PlanningSolver;
+import com.education.project.model.*;
+import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.SlotRepository;
+import com.education.project.utils.LocalTimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Ce service génère automatiquement des plannings : les matières de chaque classe sont placées selon leur
+ * volume horaire sur les créneaux horaires compris entre les heures de début et de fin des options,
+ * avec des enseignants et des salles libres (les slots déjà enregistrés sont pris en compte).
+ * Le planning d'une classe seule est proposé sans être enregistré ; les plannings de plusieurs classes,
+ * générés ensemble pour partager enseignants et salles, sont enregistrés en une seule transaction.
+ */
+@Service
+public class PlanningSolverService {
+
+    /**
+     * Temps de recherche par défaut en millisecondes, pour une classe et pour plusieurs classes
+     */
+    private final static long DEFAULT_TIME_BUDGET_MILLIS = 2000L;
+
+    private final static long DEFAULT_PLANNINGS_TIME_BUDGET_MILLIS = 60000L;
+
+    /**
+     * Couleurs de fond proposées pour les matières (une couleur par matière, toutes les nuances claires
+     * sauf les gris) et couleur de police
+     */
+    private final static List<String> COULEURS_FOND = new ArrayList<>();
+
+    private final static String COULEUR_POLICE = "#000000";
+
+    static {
+        int[] levels = {0xFF, 0xDD, 0xBB, 0x99};
+        for (int r : levels) {
+            for (int g : levels) {
+                for (int b : levels) {
+                    if (r != g || g != b) {
+                        COULEURS_FOND.add(String.format("#%02X%02X%02X", r, g, b));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recherche d'une entité par identifiant
+     */
+    private interface Finder<T> {
+        Optional<T> find(int id) throws DataBaseException;
+    }// Finder
+
+    private ClasseService classeService;
+
+    private MatiereService matiereService;
+
+    private EnseignantService enseignantService;
+
+    private SalleService salleService;
+
+    private ReferenceDataCache referenceDataCache;
+
+    private OccupancyIndex occupancyIndex;
+
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private SlotRepository slotRepository;
+
+    private PlanningRepository planningRepository;
+
+    private ForkJoinPool planningGenerationPool;
+
+    /**
+     * Temps de recherche maximum en millisecondes, pour une classe et pour plusieurs classes
+     */
+    private long maxTimeBudgetMillis;
+
+    private long maxPlanningsTimeBudgetMillis;
+
+    @Autowired
+    public PlanningSolverService(ClasseService classeService, MatiereService matiereService, EnseignantService enseignantService,
+                                 SalleService salleService, ReferenceDataCache referenceDataCache, OccupancyIndex occupancyIndex,
+                                 PlanningGeneratedCache planningGeneratedCache, SlotRepository slotRepository, PlanningRepository planningRepository,
+                                 ForkJoinPool planningGenerationPool,
+                                 @Value("${planning.solve.maxTimeBudgetMillis:10000}") long maxTimeBudgetMillis,
+                                 @Value("${plannings.solve.maxTimeBudgetMillis:600000}") long maxPlanningsTimeBudgetMillis) {
+        this.classeService = classeService;
+        this.matiereService = matiereService;
+        this.enseignantService = enseignantService;
+        this.salleService = salleService;
+        this.referenceDataCache = referenceDataCache;
+        this.occupancyIndex = occupancyIndex;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.slotRepository = slotRepository;
+        this.planningRepository = planningRepository;
+        this.planningGenerationPool = planningGenerationPool;
+        this.maxTimeBudgetMillis = maxTimeBudgetMillis;
+        this.maxPlanningsTimeBudgetMillis = maxPlanningsTimeBudgetMillis;
+    }// PlanningSolverService()
+
+    /**
+     * Génère le planning d'une classe
+     * @param request Classe, matières, enseignants et salles disponibles, jours utilisés et temps de recherche
+     * @return planning proposé (non enregistré), score et progression de la recherche
+     * @throws ArgumentException si la demande est invalide
+     * @throws DataBaseException
+     */
+    public PlanningSolution solvePlanning(PlanningSolveRequest request) throws ArgumentException, DataBaseException {
+        if (request == null) {
+            throw new ArgumentException(Collections.singletonList("La demande de génération est obligatoire"));
+        }
+        List<String> errors = new ArrayList<>();
+        PlanningSolver.Demand demand = toDemand(request, "", errors);
+        long timeBudgetMillis = checkTimeBudget(request.getTimeBudgetMillis(), DEFAULT_TIME_BUDGET_MILLIS, maxTimeBudgetMillis, errors);
+        Options options = checkOptions(errors);
+        if (!errors.isEmpty()) {
+            throw new ArgumentException(errors);
+        }
+        List<PlanningSolver.Demand> demands = Collections.singletonList(demand);
+        PlanningSolver solver = newSolver(buildCells(demands, options, true), demands);
+        long start = System.nanoTime();
+        PlanningSolver.Result result = solver.solve(planningGenerationPool, timeBudgetMillis);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        List<String> warnings = new ArrayList<>(solver.getWarnings());
+        if (result.getHardScore() > 0) {
+            warnings.add("Le planning proposé ne respecte pas " + result.getHardScore() + " contrainte(s) : chevauchement, enseignant ou salle indisponible");
+        }
+        Planning planning = toPlanning(request, demand, result.getSlots(0));
+        colorize(Collections.singletonList(planning), warnings);
+        return new PlanningSolution(planning, result.getHardScore(), result.getSoftScore(), result.getIterations(), elapsedMillis,
+                result.getWorkers(), result.getProgress(), warnings);
+    }// solvePlanning()
+
+    /**
+     * Génère ensemble les plannings de plusieurs classes : un enseignant ou une salle n'est jamais affecté
+     * à deux cours en même temps, quelle que soit leur classe. Si toutes les contraintes fortes sont respectées,
+     * les plannings et leurs slots sont enregistrés en une seule transaction.
+     * La limite du nombre de slots par jour et par créneau horaire, qui compte tous les slots de l'établissement,
+     * ne s'applique pas ici : chaque classe n'a jamais deux cours en même temps.
+     * @param request Plannings à générer, temps de recherche et enregistrement
+     * @return plannings générés, score et progression de la recherche
+     * @throws ArgumentException si la demande est invalide
+     * @throws DataBaseException
+     */
+    public PlanningsSolution solvePlannings(PlanningsSolveRequest request) throws ArgumentException, DataBaseException {
+        if (request == null || request.getPlannings() == null || request.getPlannings().isEmpty()) {
+            throw new ArgumentException(Collections.singletonList("Au moins un planning à générer est obligatoire"));
+        }
+        List<String> errors = new ArrayList<>();
+        List<PlanningSolver.Demand> demands = new ArrayList<>();
+        Set<Integer> idClasses = new HashSet<>();
+        for (int k = 0; k < request.getPlannings().size(); ++k) {
+            PlanningSolveRequest planningRequest = request.getPlannings().get(k);
+            String prefix = "Planning n°" + (k + 1) + " : ";
+            if (planningRequest == null) {
+                errors.add(prefix + "la demande de génération est obligatoire");
+                continue;
+            }
+            if (planningRequest.getIdClasse() != null && !idClasses.add(planningRequest.getIdClasse())) {
+                errors.add(prefix + "la classe n°" + planningRequest.getIdClasse() + " est déjà demandée par un autre planning");
+            }
+            demands.add(toDemand(planningRequest, prefix, errors));
+        }
+        long timeBudgetMillis = checkTimeBudget(request.getTimeBudgetMillis(), DEFAULT_PLANNINGS_TIME_BUDGET_MILLIS, maxPlanningsTimeBudgetMillis, errors);
+        Options options = checkOptions(errors);
+        if (!errors.isEmpty()) {
+            throw new ArgumentException(errors);
+        }
+        PlanningSolver solver = newSolver(buildCells(demands, options, false), demands);
+        long start = System.nanoTime();
+        PlanningSolver.Result result = solver.solve(planningGenerationPool, timeBudgetMillis);
+        List<String> warnings = new ArrayList<>(solver.getWarnings());
+        if (result.getHardScore() > 0) {
+            warnings.add("Les plannings proposés ne respectent pas " + result.getHardScore() + " contrainte(s) : chevauchement, enseignant ou salle indisponible");
+        }
+        List<Planning> plannings = new ArrayList<>();
+        for (int k = 0; k < demands.size(); ++k) {
+            plannings.add(toPlanning(request.getPlannings().get(k), demands.get(k), result.getSlots(k)));
+        }
+        boolean colorized = colorize(plannings, warnings);
+        boolean saved = false;
+        if (request.isSave() && result.getHardScore() == 0 && colorized) {
+            save(plannings);
+            saved = true;
+        } else if (request.isSave()) {
+            warnings.add("Les plannings n'ont pas été enregistrés");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new PlanningsSolution(plannings, saved, result.getHardScore(), result.getSoftScore(), result.getIterations(), elapsedMillis,
+                result.getWorkers(), result.getProgress(), warnings);
+    }// solvePlannings()
+
+    /**
+     * Enregistre les plannings générés et leurs slots en une seule transaction, puis met à jour l'index d'occupation
+     */
+    private void save(List<Planning> plannings) throws DataBaseException {
+        Date now = PlanningService.nextModificationDate(null);
+        for (Planning planning : plannings) {
+            planning.setCreationDate(now);
+            planning.setModificationDate(now);
+            for (Slot slot : planning.getSlots()) {
+                slot.setCreationDate(now);
+                slot.setModificationDate(now);
+            }
+        }
+        planningRepository.insertAllWithSlots(plannings);
+        for (Planning planning : plannings) {
+            for (Slot slot : planning.getSlots()) {
+                occupancyIndex.putSlot(slot);
+            }
+            planningGeneratedCache.invalidatePlanning(planning.getId());
+            occupancyIndex.putPlanning(planning);
+        }
+    }// save()
+
+    /**
+     * Contrôle d'une demande de planning et recherche de ses entités
+     * @param prefix Préfixe des messages d'erreur (planning concerné, vide pour une classe seule)
+     * @param errors Erreurs, complétées si la demande est invalide
+     * @return planning à générer (incomplet si la demande est invalide)
+     */
+    private PlanningSolver.Demand toDemand(PlanningSolveRequest request, String prefix, List<String> errors) throws DataBaseException {
+        List<String> demandErrors = new ArrayList<>();
+        Classe classe = null;
+        if (request.getIdClasse() == null) {
+            demandErrors.add("La classe est obligatoire");
+        } else {
+            classe = classeService.getClasse(request.getIdClasse()).orElse(null);
+            if (classe == null) {
+                demandErrors.add("La classe n°" + request.getIdClasse() + " n'existe pas");
+            }
+        }
+        if (request.getMatieres() == null || request.getMatieres().isEmpty()) {
+            demandErrors.add("Au moins une matière est obligatoire");
+        }
+        List<Matiere> matieres = findAll(request.getMatieres(), matiereService::getMatiere, "La matière", demandErrors);
+        for (Matiere matiere : matieres) {
+            if (!LocalTimeUtils.checkStringIsFormattedForLocalTime(matiere.getVolumeHoraire())) {
+                demandErrors.add("Le volume horaire de la matière " + matiere.getNom() + " doit être au format HH:mm");
+            }
+        }
+        List<Enseignant> enseignants = findAll(request.getEnseignants(), enseignantService::getEnseignant, "L'enseignant", demandErrors);
+        List<Salle> salles = findAll(request.getSalles(), salleService::getSalle, "La salle", demandErrors);
+        for (String error : demandErrors) {
+            errors.add(prefix.isEmpty() ? error : prefix + Character.toLowerCase(error.charAt(0)) + error.substring(1));
+        }
+        Set<Integer> jours = new HashSet<>();
+        for (JourEnum jour : JourEnum.values()) {
+            if ((jour != JourEnum.MERCREDI || request.isWednesdayUsed()) && (jour != JourEnum.SAMEDI || request.isSaturdayUsed())) {
+                jours.add(jour.getVal());
+            }
+        }
+        return new PlanningSolver.Demand(classe, matieres, enseignants, salles, jours);
+    }// toDemand()
+
+    /**
+     * @param requested Temps de recherche demandé (facultatif)
+     * @param errors Erreurs, complétées si le temps de recherche n'est pas compris entre 1 ms et le maximum
+     * @return temps de recherche demandé, ou valeur par défaut
+     */
+    private long checkTimeBudget(Long requested, long defaultTimeBudgetMillis, long max, List<String> errors) {
+        long timeBudgetMillis = requested != null ? requested : Math.min(defaultTimeBudgetMillis, max);
+        if (timeBudgetMillis <= 0 || timeBudgetMillis > max) {
+            errors.add("Le temps de recherche doit être compris entre 1 et " + max + " ms");
+        }
+        return timeBudgetMillis;
+    }// checkTimeBudget()
+
+    /**
+     * @param errors Erreurs, complétées si les options ne sont pas renseignées
+     * @return options de l'application (null si elles ne sont pas renseignées)
+     */
+    private Options checkOptions(List<String> errors) throws DataBaseException {
+        Optional<Options> options = referenceDataCache.getOptions();
+        if (options.isEmpty()) {
+            errors.add("Les options de l'application doivent être renseignées");
+        }
+        return options.orElse(null);
+    }// checkOptions()
+
+    /**
+     * Emplacements utilisables : jours d'au moins un planning et créneaux horaires compris entre les heures de début
+     * et de fin des options
+     * @param limitSlots Indique si les créneaux qui ont déjà atteint le nombre maximum de slots un jour donné sont exclus
+     * @throws ArgumentException si aucun créneau horaire n'est utilisable
+     */
+    private List<PlanningSolver.Cell> buildCells(List<PlanningSolver.Demand> demands, Options options, boolean limitSlots) throws ArgumentException, DataBaseException {
+        Map<Integer, Map<Integer, Long>> countsByJour = limitSlots ? slotRepository.countByJourAndTimeslot() : Collections.emptyMap();
+        Set<Integer> jours = new TreeSet<>();
+        demands.forEach(demand -> jours.addAll(demand.getJours()));
+        List<PlanningSolver.Cell> cells = new ArrayList<>();
+        for (Integer jour : jours) {
+            for (TimeSlot timeSlot : referenceDataCache.getTimeSlots()) {
+                boolean inOptions = timeSlot.getStart() != null && timeSlot.getEnd() != null && timeSlot.getStart().isBefore(timeSlot.getEnd())
+                        && !timeSlot.getStart().isBefore(options.getStartHourPlanning()) && !timeSlot.getEnd().isAfter(options.getEndHourPlanning());
+                long count = countsByJour.getOrDefault(jour, Collections.emptyMap()).getOrDefault(timeSlot.getId(), 0L);
+                if (inOptions && count <= SlotService.MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY) {
+                    cells.add(new PlanningSolver.Cell(jour, timeSlot));
+                }
+            }
+        }
+        if (cells.isEmpty()) {
+            throw new ArgumentException(Collections.singletonList("Aucun créneau horaire n'est disponible entre "
+                    + options.getStartHourPlanning() + " et " + options.getEndHourPlanning()));
+        }
+        return cells;
+    }// buildCells()
+
+    /**
+     * Moteur de génération, avec l'occupation actuelle des enseignants et des salles des plannings demandés
+     */
+    private PlanningSolver newSolver(List<PlanningSolver.Cell> cells, List<PlanningSolver.Demand> demands) throws DataBaseException {
+        Set<Integer> idEnseignants = new HashSet<>();
+        Set<Integer> idSalles = new HashSet<>();
+        for (PlanningSolver.Demand demand : demands) {
+            demand.getEnseignants().forEach(enseignant -> idEnseignants.add(enseignant.getId()));
+            demand.getSalles().forEach(salle -> idSalles.add(salle.getId()));
+        }
+        return new PlanningSolver(cells, demands,
+                occupancyIndex.getOccupiedMinutes(OccupancyIndex.Ressource.ENSEIGNANT, idEnseignants),
+                occupancyIndex.getOccupiedMinutes(OccupancyIndex.Ressource.SALLE, idSalles));
+    }// newSolver()
+
+    private Planning toPlanning(PlanningSolveRequest request, PlanningSolver.Demand demand, List<Slot> slots) {
+        String nom = request.getNom() != null && !request.getNom().isEmpty() ? request.getNom() : "Planning " + demand.getClasse().getNom();
+        Planning planning = new Planning(nom, demand.getClasse(), slots);
+        planning.setWednesdayUsed(request.isWednesdayUsed());
+        planning.setSaturdayUsed(request.isSaturdayUsed());
+        return planning;
+    }// toPlanning()
+
+    /**
+     * Colore les slots des plannings : une couleur de fond par matière, qu'un slot de la matière (et d'elle seule)
+     * utilise déjà, sinon la première couleur qu'aucun slot n'utilise
+     * @param warnings Avertissements, complétés pour chaque matière sans couleur libre
+     * @return vrai si toutes les matières ont une couleur
+     */
+    private boolean colorize(List<Planning> plannings, List<String> warnings) throws DataBaseException {
+        Map<String, Set<Integer>> matieresByCouleurFond = slotRepository.findMatieresByCouleurFond(COULEURS_FOND);
+        Map<Integer, String> couleurs = new HashMap<>();
+        Set<String> taken = new HashSet<>();
+        boolean colorized = true;
+        for (Planning planning : plannings) {
+            for (Slot slot : planning.getSlots()) {
+                Matiere matiere = slot.getMatiere();
+                if (!couleurs.containsKey(matiere.getId())) {
+                    String couleur = COULEURS_FOND.stream()
+                            .filter(c -> !taken.contains(c) && Collections.singleton(matiere.getId()).equals(matieresByCouleurFond.get(c)))
+                            .findFirst()
+                            .orElseGet(() -> COULEURS_FOND.stream().filter(c -> !taken.contains(c) && !matieresByCouleurFond.containsKey(c)).findFirst().orElse(null));
+                    if (couleur != null) {
+                        taken.add(couleur);
+                    } else {
+                        colorized = false;
+                        warnings.add("Aucune couleur de fond libre pour la matière " + matiere.getNom() + " : elle est à choisir avant l'enregistrement");
+                    }
+                    couleurs.put(matiere.getId(), couleur);
+                }
+                slot.setCouleurFond(couleurs.get(matiere.getId()));
+                slot.setCouleurPolice(COULEUR_POLICE);
+            }
+        }
+        return colorized;
+    }// colorize()
+
+    /**
+     * Recherche des entités dont les identifiants sont passés en paramètre (les doublons sont ignorés)
+     * @param label Libellé de l'entité dans les messages d'erreur
+     * @param errors Erreurs, complétées pour chaque identifiant inconnu
+     */
+    private <T> List<T> findAll(List<Integer> ids, Finder<T> finder, String label, List<String> errors) throws DataBaseException {
+        List<T> entities = new ArrayList<>();
+        if (ids == null) {
+            return entities;
+        }
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            Optional<T> entity = id != null ? finder.find(id) : Optional.empty();
+            if (entity.isPresent()) {
+                entities.add(entity.get());
+            } else {
+                errors.add(label + " n°" + id + " n'existe pas");
+            }
+        }
+        return entities;
+    }// findAll()
+
+}// PlanningSolverService
@@ -15,14 +15,23 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCache;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.PrefixTrie;
+import com.education.project.cache.TrigramIndex;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Page;
 import com.education.project.model.Salle;
 import com.education.project.persistence.SalleRepository;
+import com.education.project.utils.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -32,9 +41,29 @@ public class SalleService {
 
     private SalleRepository salleRepository;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    /**
+     * Recherche par nom dans l'index de trigrammes en mémoire plutôt qu'en base de données
+     */
+    private boolean trigramSearch;
+
+    private TrigramIndex<Salle> salleIndex = new TrigramIndex<>(Salle::getId, List.of(Salle::getNom));
+
+    private PrefixTrie<Salle> salleSuggestions = new PrefixTrie<>(Salle::getId, List.of(Salle::getNom));
+
+    /**
+     * Cache des salles lues par identifiant
+     */
+    private EntityCache<Salle> salleCache;
+
     @Autowired
-    public SalleService(SalleRepository salleRepository) {
+    public SalleService(SalleRepository salleRepository, PlanningGeneratedCache planningGeneratedCache,
+                        @Value("${search.trigram.enabled:false}") boolean trigramSearch, EntityCaches entityCaches) {
         this.salleRepository = salleRepository;
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.trigramSearch = trigramSearch;
+        this.salleCache = entityCaches.getSalles();
     }//SalleService()
 
     /**
@@ -49,16 +78,43 @@ public class SalleService {
         Date now = new Date();
         salleToInsert.setCreationDate(now);
         salleToInsert.setModificationDate(now);
-        return salleRepository.insert(salleToInsert);
+        Optional<Salle> salleInserted = salleRepository.insert(salleToInsert);
+        salleInserted.ifPresent(salleIndex::put);
+        salleInserted.ifPresent(salleSuggestions::put);
+        return salleInserted;
     }//insertSalle()
 
     public Optional<Salle> updateSalle(Salle salleToUpdate) throws ArgumentException, DataBaseException {
         checkBusiness(salleToUpdate,true);
         Date now = new Date();
         salleToUpdate.setModificationDate(now);
-        return salleRepository.update(salleToUpdate);
+        Optional<Salle> salleUpdated = salleRepository.update(salleToUpdate);
+        salleCache.invalidate(salleToUpdate.getId());
+        if(salleUpdated.isPresent()){
+            reindexSalle(salleToUpdate.getId());
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SALLE, salleToUpdate.getId());
+        return salleUpdated;
     }//updateSalle()
 
+    /**
+     * Réindexe la salle relue en base de données : l'objet reçu lors de la modification peut être incomplet
+     * (date de création absente) ou modifié ensuite par l'appelant
+     * @param id Identifiant de la salle modifiée
+     * @throws DataBaseException
+     */
+    private void reindexSalle(int id) throws DataBaseException {
+        Optional<Salle> salleFromBd = salleCache.get(id, salleRepository::findById);
+        if(salleFromBd.isPresent()){
+            salleIndex.put(salleFromBd.get());
+            salleSuggestions.put(salleFromBd.get());
+        }
+        else{
+            salleIndex.remove(id);
+            salleSuggestions.remove(id);
+        }
+    }//reindexSalle()
+
     /**
      * Cette fonction permet de récupérer la liste des salles en base de données grâce aux informations passés en paramètres
      * @param nom Nom de la salle
@@ -68,9 +124,91 @@ public class SalleService {
      * @throws DataBaseException
      */
     public List<Salle> getSalles(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        Optional<List<Salle>> found = searchIndex(nom);
+        if(found.isPresent()){
+            return CursorUtils.slice(found.get(), page, nbElementsPerPage);
+        }
         return salleRepository.getSalles(nom,page,nbElementsPerPage);
     }//getSalles()
 
+    /**
+     * Cette fonction permet de récupérer une page de salles triées par nom (pagination par curseur)
+     * @param nom Nom de la salle (facultatif)
+     * @param after Curseur retourné par la page précédente (vide pour la première page)
+     * @param nbElementsPerPage Nombre de salles par page (facultatif)
+     * @return La page de salles et le curseur de la page suivante
+     * @throws ArgumentException si le curseur est invalide
+     * @throws DataBaseException
+     */
+    public Page<Salle> getSallesAfter(String nom, String after, Integer nbElementsPerPage) throws ArgumentException, DataBaseException {
+        int pageSize = CursorUtils.pageSize(nbElementsPerPage);
+        List<Salle> salles = salleRepository.getSallesAfter(nom, CursorUtils.decode(after), pageSize + 1);
+        return CursorUtils.page(salles, pageSize, Salle::getNom, Salle::getId);
+    }//getSallesAfter()
+
+    /**
+     * Cette fonction permet de récupérer une page de salles et le nombre total de salles correspondant au filtre
+     * @param nom Nom de la salle (facultatif)
+     * @param page N° de la page (facultatif, 1 par défaut)
+     * @param nbElementsPerPage Nombre de salles par page (facultatif)
+     * @return La page de salles et le nombre total de salles
+     * @throws DataBaseException
+     */
+    public Page<Salle> getSallesPage(String nom, Integer page, Integer nbElementsPerPage) throws DataBaseException {
+        int numPage = CursorUtils.pageNumber(page);
+        Optional<List<Salle>> found = searchIndex(nom);
+        if(found.isPresent()){
+            return new Page<>(CursorUtils.slice(found.get(), numPage, CursorUtils.pageSize(nbElementsPerPage)), found.get().size());
+        }
+        Page<Salle> result = salleRepository.getSallesPage(nom, numPage, CursorUtils.pageSize(nbElementsPerPage));
+        if(result.getItems().isEmpty() && numPage > 1){
+            // Au-delà de la dernière page, aucune ligne ne porte le total
+            result.setTotal(salleRepository.countByName(nom));
+        }
+        return result;
+    }//getSallesPage()
+
+    /**
+     * Cette fonction permet de rechercher les salles par nom dans l'index en mémoire (chargé à la première recherche)
+     * @param nom Nom de la salle ou expression incomplète
+     * @return Les salles classées par pertinence (vide si l'index n'est pas utilisé)
+     * @throws DataBaseException
+     */
+    private Optional<List<Salle>> searchIndex(String nom) throws DataBaseException {
+        if(!trigramSearch || nom == null || nom.isEmpty()){
+            return Optional.empty();
+        }
+        if(!salleIndex.isLoaded()){
+            long version = salleIndex.getVersion();
+            salleIndex.load(salleRepository.getSalles(null, null, null), version);
+        }
+        return salleIndex.search(nom);
+    }//searchIndex()
+
+    /**
+     * Cette fonction permet de proposer les salles dont le nom (ou un mot du nom) commence par le texte saisi,
+     * sans interroger la base de données une fois les suggestions chargées
+     * @param q Début du nom saisi (sans tenir compte des accents)
+     * @param limit Nombre maximum de suggestions
+     * @return Les suggestions par ordre alphabétique
+     * @throws DataBaseException
+     */
+    public List<Salle> suggestSalles(String q, int limit) throws DataBaseException {
+        if(salleSuggestions.isLoaded()){
+            Optional<List<Salle>> suggestions = salleSuggestions.suggest(q, limit);
+            if(suggestions.isPresent()){
+                return suggestions.get();
+            }
+        }
+        long version = salleSuggestions.getVersion();
+        List<Salle> rows = salleRepository.getSalles(null, null, null);
+        if(!salleSuggestions.load(rows, version)){
+            // Modification pendant le chargement : mêmes suggestions que le trie, calculées sur les lignes lues
+            return salleSuggestions.suggest(rows, q, limit);
+        }
+        return salleSuggestions.suggest(q, limit).orElseGet(Collections::emptyList);
+    }//suggestSalles()
+
     /**
      * Cette fonction permet de vérifier les règles métiers liées aux salles
      * @param salle La salle à vérifier
@@ -103,6 +241,10 @@ public class SalleService {
     }//checkBusiness()
 
     public long countSalles(String nom) throws DataBaseException {
+        Optional<List<Salle>> found = searchIndex(nom);
+        if(found.isPresent()){
+            return found.get().size();
+        }
         return salleRepository.countByName(nom);
     }
 
@@ -115,10 +257,17 @@ public class SalleService {
         if(salleRepository.isUsedBySlots(id)){
             throw new DataBaseException("Impossible de supprimer la salle : La salle que vous tentez de supprimer est peut-être utilisée par un ou plusieurs slot(s)");
         }
-        return salleRepository.delete(id);
+        boolean deleted = salleRepository.delete(id);
+        if(deleted){
+            salleIndex.remove(id);
+            salleCache.invalidate(id);
+            salleSuggestions.remove(id);
+        }
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SALLE, id);
+        return deleted;
     }//deleteSalle()
 
     public Optional<Salle> getSalle(int id) throws DataBaseException {
-        return salleRepository.findById(id);
+        return salleCache.get(id, salleRepository::findById);
     }//getSalle()
 }//SalleService
@@ -15,14 +15,22 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.BulkItemResult;
+import com.education.project.model.Page;
 import com.education.project.model.Slot;
+import com.education.project.persistence.RowHandler;
 import com.education.project.persistence.SlotRepository;
 import com.education.project.utils.ColorUtils;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.EtagUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -33,18 +41,29 @@ public class SlotService {
 
     private SlotRepository slotRepository;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private OccupancyIndex occupancyIndex;
+
     private ColorUtils colorUtils;
 
     /**
      * Nombre de slots maximum pour le même créneau horaire et le
      * même jour. (Utile pour la division d'une classe en groupes)
      */
-    private final static int MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY = 2;
+    public final static int MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY = 2;
+
+    /**
+     * Nombre de slots maximum créés ou mis à jour en une seule requête
+     */
+    private final static int MAX_SLOTS_PER_BULK = 200;
 
     @Autowired
-    public SlotService(SlotRepository slotRepository) {
+    public SlotService(SlotRepository slotRepository, PlanningGeneratedCache planningGeneratedCache, OccupancyIndex occupancyIndex) {
         this.slotRepository = slotRepository;
         this.colorUtils = new ColorUtils();
+        this.planningGeneratedCache = planningGeneratedCache;
+        this.occupancyIndex = occupancyIndex;
     }//SlotService()
 
     /**
@@ -58,7 +77,12 @@ public class SlotService {
         Date now = new Date();
         slotToInsert.setCreationDate(now);
         slotToInsert.setModificationDate(now);
-        return slotRepository.insert(slotToInsert);
+        Optional<Slot> slotInserted = slotRepository.insert(slotToInsert);
+        if (slotInserted.isPresent()) {
+            planningGeneratedCache.touch();
+            occupancyIndex.putSlot(slotInserted.get());
+        }
+        return slotInserted;
     }//insertSlot()
 
     /**
@@ -78,7 +102,12 @@ public class SlotService {
     public Optional<Slot> updateSlot(Slot slotToUpdate) throws ArgumentException, DataBaseException {
         checkBusiness(slotToUpdate,true);
         slotToUpdate.setModificationDate(new Date());
-        return slotRepository.update(slotToUpdate);
+        Optional<Slot> slotUpdated = slotRepository.update(slotToUpdate);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SLOT, slotToUpdate.getId());
+        if (slotUpdated.isPresent()) {
+            occupancyIndex.putSlot(slotUpdated.get());
+        }
+        return slotUpdated;
     }//updateSlot()
 
     /**
@@ -87,9 +116,132 @@ public class SlotService {
      * @return boolean
      */
     public boolean deleteSlot(int id) throws DataBaseException {
-        return slotRepository.deleteSlot(id);
+        boolean deleted = slotRepository.deleteSlot(id);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SLOT, id);
+        occupancyIndex.removeSlot(id);
+        return deleted;
     }//deleteSlot()
 
+    /**
+     * Cette fonction permet d'insérer plusieurs slots en base de données, en une seule transaction.
+     * Aucun slot n'est inséré si l'un d'eux ne respecte pas les règles métiers.
+     *
+     * @param slotsToInsert Les slots à insérer
+     * @return le résultat de chaque slot (slot inséré ou erreurs), dans l'ordre de la requête
+     */
+    public List<BulkItemResult<Slot>> insertSlots(List<Slot> slotsToInsert) throws ArgumentException, DataBaseException {
+        return saveSlots(slotsToInsert, false);
+    }//insertSlots()
+
+    /**
+     * Cette fonction permet de mettre à jour plusieurs slots en base de données, en une seule transaction.
+     * Aucun slot n'est mis à jour si l'un d'eux ne respecte pas les règles métiers.
+     *
+     * @param slotsToUpdate Les slots à mettre à jour
+     * @return le résultat de chaque slot (slot mis à jour ou erreurs), dans l'ordre de la requête
+     */
+    public List<BulkItemResult<Slot>> updateSlots(List<Slot> slotsToUpdate) throws ArgumentException, DataBaseException {
+        return saveSlots(slotsToUpdate, true);
+    }//updateSlots()
+
+    /**
+     * Cette fonction vérifie les règles métiers de tous les slots à partir d'une seule lecture des slots existants
+     * (nombre de slots par jour et par créneau horaire, matières par couleur de fond), puis les enregistre
+     * en une seule transaction si aucun slot n'est en erreur. Chaque slot valide est pris en compte
+     * dans la vérification des slots suivants, comme s'ils étaient enregistrés un par un : un slot modifié
+     * quitte son jour et son créneau horaire actuels pour occuper les nouveaux.
+     *
+     * @param slots Les slots à enregistrer
+     * @param isUpdate true s'il s'agit d'une mise à jour
+     * @return le résultat de chaque slot
+     */
+    private List<BulkItemResult<Slot>> saveSlots(List<Slot> slots, boolean isUpdate) throws ArgumentException, DataBaseException {
+        if (slots == null || slots.isEmpty()) {
+            throw new ArgumentException(Collections.singletonList("Un ou plusieurs slot(s) est/sont obligatoire(s)"));
+        }
+        if (slots.size() > MAX_SLOTS_PER_BULK) {
+            throw new ArgumentException(Collections.singletonList("Le nombre de slots est limité à " + MAX_SLOTS_PER_BULK + " par requête"));
+        }
+        Map<Integer, Map<Integer, Long>> countsByJour = slotRepository.countByJourAndTimeslot();
+        Map<String, Set<Integer>> matieresByCouleurFond = new HashMap<>();
+        Map<Integer, Slot> slotsFromBd = new HashMap<>();
+        if (isUpdate) {
+            Set<Integer> ids = new HashSet<>();
+            for (Slot slot : slots) {
+                if (slot != null && slot.getId() != null) {
+                    ids.add(slot.getId());
+                }
+            }
+            slotsFromBd = new HashMap<>(slotRepository.findJourAndTimeslotByIds(ids));
+        } else {
+            Set<String> couleursFond = new HashSet<>();
+            for (Slot slot : slots) {
+                if (slot != null && slot.getCouleurFond() != null) {
+                    couleursFond.add(slot.getCouleurFond());
+                }
+            }
+            matieresByCouleurFond = slotRepository.findMatieresByCouleurFond(couleursFond);
+        }
+        List<BulkItemResult<Slot>> results = new ArrayList<>();
+        boolean valid = true;
+        for (int i = 0; i < slots.size(); ++i) {
+            Slot slot = slots.get(i);
+            List<String> errors = new ArrayList<>();
+            if (slot == null) {
+                errors.add("Le slot est obligatoire");
+            } else if (slot.getId() == null && isUpdate) {
+                errors.add("Le slot doit obligatoirement avoir un identifiant");
+            } else {
+                checkFields(slot, errors);
+                boolean hasMatiere = slot.getMatiere() != null && slot.getMatiere().getId() != null;
+                if (!isUpdate && hasMatiere && slot.getCouleurFond() != null) {
+                    Set<Integer> matieres = matieresByCouleurFond.getOrDefault(slot.getCouleurFond(), Collections.emptySet());
+                    if (matieres.stream().anyMatch(idMatiere -> !idMatiere.equals(slot.getMatiere().getId()))) {
+                        errors.add("Il existe déjà un slot avec ce fond de couleur");
+                    }
+                }
+                boolean hasJourAndTimeSlot = slot.getJour() != null && slot.getJour().getId() != null && slot.getTimeSlot() != null && slot.getTimeSlot().getId() != null;
+                if (hasJourAndTimeSlot && countsByJour.getOrDefault(slot.getJour().getId(), Collections.emptyMap()).getOrDefault(slot.getTimeSlot().getId(), 0L) > MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY) {
+                    errors.add("Le nombre de slots pour le même jour et le même créneau horaire est limité à " + MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY + " slots");
+                }
+                errors.addAll(occupancyIndex.check(slot, slots));
+                if (errors.isEmpty()) {
+                    if (!isUpdate) {
+                        matieresByCouleurFond.computeIfAbsent(slot.getCouleurFond(), k -> new HashSet<>()).add(slot.getMatiere().getId());
+                    }
+                    // Un slot présent plusieurs fois dans la requête quitte l'emplacement où il a été déplacé
+                    Slot slotFromBd = isUpdate ? slotsFromBd.put(slot.getId(), slot) : null;
+                    if (slotFromBd != null) {
+                        countsByJour.computeIfAbsent(slotFromBd.getJour().getId(), k -> new HashMap<>()).merge(slotFromBd.getTimeSlot().getId(), -1L, Long::sum);
+                    }
+                    countsByJour.computeIfAbsent(slot.getJour().getId(), k -> new HashMap<>()).merge(slot.getTimeSlot().getId(), 1L, Long::sum);
+                }
+            }
+            valid &= errors.isEmpty();
+            results.add(new BulkItemResult<>(i, null, errors));
+        }
+        if (!valid) {
+            return results;
+        }
+        Date now = new Date();
+        for (Slot slot : slots) {
+            if (!isUpdate) {
+                slot.setCreationDate(now);
+            }
+            slot.setModificationDate(now);
+        }
+        List<Slot> slotsSaved = isUpdate ? slotRepository.updateAll(slots) : slotRepository.insertAll(slots);
+        for (int i = 0; i < slotsSaved.size(); ++i) {
+            results.get(i).setValue(slotsSaved.get(i));
+            if (isUpdate) {
+                planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SLOT, slotsSaved.get(i).getId());
+            }
+            occupancyIndex.putSlot(slotsSaved.get(i));
+        }
+        planningGeneratedCache.touch();
+        return results;
+    }//saveSlots()
+
     /**
      * Cette fonction permet de vérifier les règles métiers liées aux slots
      * @param slotToInsert Le slot à vérifier
@@ -105,42 +257,14 @@ public class SlotService {
             if (slotToInsert.getId() == null && isUpdate) {
                 errors.add("Le slot doit obligatoirement avoir un identifiant");
             } else {
-                if (slotToInsert.getMatiere() == null) {
-                    errors.add("La matière est obligatoire");
-                }
-                if (slotToInsert.getMatiere() != null && slotToInsert.getMatiere().getId() == null) {
-                    errors.add("L'identifiant de la matière est obligatoire");
-                }
-                if(slotToInsert.getJour() == null || slotToInsert.getJour().getId() == null){
-                    errors.add("Le jour est obligatoire");
-                }
-                if (slotToInsert.getTimeSlot() == null) {
-                    errors.add("Le créneau horaire est obligatoire");
-                }
-                if (slotToInsert.getTimeSlot() != null && slotToInsert.getTimeSlot().getId() == null) {
-                    errors.add("L'identifiant du créneau horaire est obligatoire");
-                }
-                if (slotToInsert.getCouleurFond() == null || slotToInsert.getCouleurFond().isEmpty()) {
-                    errors.add("La couleur de fond est obligatoire");
-                }
-                if (slotToInsert.getCouleurPolice() == null || slotToInsert.getCouleurPolice().isEmpty()) {
-                    errors.add("La couleur de la police est obligatoire");
-                }
-                if (slotToInsert.getCouleurFond() != null && slotToInsert.getCouleurPolice() != null && slotToInsert.getCouleurPolice().equals(slotToInsert.getCouleurFond())) {
-                    errors.add("La couleur de fond et de la police ne peuvent pas être la même");
-                }
-                if (slotToInsert.getCouleurFond() != null && !slotToInsert.getCouleurFond().isEmpty() && !colorUtils.isHex(slotToInsert.getCouleurFond())) {
-                    errors.add("La couleur de fond doit être au format hexadécimal");
-                }
-                if (slotToInsert.getCouleurPolice() != null && !slotToInsert.getCouleurPolice().isEmpty() && !colorUtils.isHex(slotToInsert.getCouleurPolice())) {
-                    errors.add("La couleur de la police doit être au format hexadécimal");
-                }
+                checkFields(slotToInsert, errors);
                 if (!isUpdate && slotRepository.isExistByColorFondAndByDiscipline(slotToInsert)) {
                     errors.add("Il existe déjà un slot avec ce fond de couleur");
                 }
                 if(slotToInsert.getJour() != null && slotToInsert.getJour().getId() != null && slotToInsert.getTimeSlot() != null && slotRepository.countByJour(slotToInsert.getJour().getId(), slotToInsert.getTimeSlot()) > MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY){
                     errors.add("Le nombre de slots pour le même jour et le même créneau horaire est limité à " + MAX_SLOTS_IN_SAME_TIMESLOT_AND_SAME_DAY + " slots");
                 }
+                errors.addAll(occupancyIndex.check(slotToInsert, Collections.emptyList()));
             }
         }
         if(!errors.isEmpty()) {
@@ -148,6 +272,45 @@ public class SlotService {
         }
     }//checkBusiness()
 
+    /**
+     * Cette fonction permet de vérifier les champs obligatoires et les couleurs d'un slot
+     * (règles métiers ne nécessitant pas d'accès à la base de données)
+     * @param slot Le slot à vérifier
+     * @param errors Liste des erreurs à compléter
+     */
+    private void checkFields(Slot slot, List<String> errors) {
+        if (slot.getMatiere() == null) {
+            errors.add("La matière est obligatoire");
+        }
+        if (slot.getMatiere() != null && slot.getMatiere().getId() == null) {
+            errors.add("L'identifiant de la matière est obligatoire");
+        }
+        if(slot.getJour() == null || slot.getJour().getId() == null){
+            errors.add("Le jour est obligatoire");
+        }
+        if (slot.getTimeSlot() == null) {
+            errors.add("Le créneau horaire est obligatoire");
+        }
+        if (slot.getTimeSlot() != null && slot.getTimeSlot().getId() == null) {
+            errors.add("L'identifiant du créneau horaire est obligatoire");
+        }
+        if (slot.getCouleurFond() == null || slot.getCouleurFond().isEmpty()) {
+            errors.add("La couleur de fond est obligatoire");
+        }
+        if (slot.getCouleurPolice() == null || slot.getCouleurPolice().isEmpty()) {
+            errors.add("La couleur de la police est obligatoire");
+        }
+        if (slot.getCouleurFond() != null && slot.getCouleurPolice() != null && slot.getCouleurPolice().equals(slot.getCouleurFond())) {
+            errors.add("La couleur de fond et de la police ne peuvent pas être la même");
+        }
+        if (slot.getCouleurFond() != null && !slot.getCouleurFond().isEmpty() && !colorUtils.isHex(slot.getCouleurFond())) {
+            errors.add("La couleur de fond doit être au format hexadécimal");
+        }
+        if (slot.getCouleurPolice() != null && !slot.getCouleurPolice().isEmpty() && !colorUtils.isHex(slot.getCouleurPolice())) {
+            errors.add("La couleur de la police doit être au format hexadécimal");
+        }
+    }//checkFields()
+
     public long countSlots(Map<String,String> mapSlot) throws DataBaseException {
         return slotRepository.countSlot(mapSlot);
     }//countSlots()
@@ -160,5 +323,51 @@ public class SlotService {
     public List<Slot> getSlots(Map<String, String> params) throws DataBaseException {
         return slotRepository.getSlots(params);
     }//getSlots
+
+    /**
+     * Cette fonction permet de récupérer une page de slots et le nombre total de slots correspondant aux paramètres
+     * @param params paramètres liés au slot (page : 1 par défaut, nbElementsPerPage : borné)
+     * @return la page de slots et le nombre total de slots
+     */
+    public Page<Slot> getSlotsPage(Map<String, String> params) throws DataBaseException {
+        Map<String, String> pageParams = params != null ? new HashMap<>(params) : new HashMap<>();
+        int numPage = CursorUtils.pageNumber(parseInteger(pageParams.get("page")));
+        pageParams.put("page", String.valueOf(numPage));
+        pageParams.put("nbElementsPerPage", String.valueOf(CursorUtils.pageSize(parseInteger(pageParams.get("nbElementsPerPage")))));
+        Page<Slot> result = slotRepository.getSlotsPage(pageParams);
+        if(result.getItems().isEmpty() && numPage > 1){
+            // Au-delà de la dernière page, aucune ligne ne porte le total
+            result.setTotal(slotRepository.countSlot(params));
+        }
+        return result;
+    }//getSlotsPage()
+
+    private Integer parseInteger(String value) {
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }//parseInteger()
+
+    /**
+     * Cette fonction lit en flux les slots correspondant aux paramètres : chaque slot est transmis
+     * au handler dès sa lecture en base de données
+     * @param params paramètres liés au slot
+     * @param handler Traitement appelé pour chaque slot lu
+     * @throws IOException si le handler ne peut pas écrire un slot
+     */
+    public void streamSlots(Map<String, String> params, RowHandler<Slot> handler) throws DataBaseException, IOException {
+        slotRepository.streamSlots(params, handler);
+    }//streamSlots()
+
+    /**
+     * Cette fonction retourne l'ETag de la liste des slots correspondant aux paramètres passés
+     * @param params paramètres liés au slot
+     * @return ETag
+     */
+    public String getSlotsEtag(Map<String, String> params) throws DataBaseException {
+        return EtagUtils.build("slots", EtagUtils.canonicalParams(params), slotRepository.getSlotsVersion(), planningGeneratedCache.getDataVersion());
+    }//getSlotsEtag()
 }//SlotService
 
@@ -15,16 +15,22 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Page;
 import com.education.project.model.TimeSlot;
-import com.education.project.persistence.OptionsRepository;
 import com.education.project.persistence.TimeSlotRepository;
+import com.education.project.utils.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,12 +42,15 @@ public class TimeSlotService {
 
     private TimeSlotRepository timeSlotRepository;
 
-    private OptionsRepository optionsRepository;
+    private ReferenceDataCache referenceDataCache;
+
+    private PlanningGeneratedCache planningGeneratedCache;
 
     @Autowired
-    public TimeSlotService(TimeSlotRepository timeSlotRepository, OptionsRepository optionsRepository) {
+    public TimeSlotService(TimeSlotRepository timeSlotRepository, ReferenceDataCache referenceDataCache, PlanningGeneratedCache planningGeneratedCache) {
         this.timeSlotRepository = timeSlotRepository;
-        this.optionsRepository = optionsRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.planningGeneratedCache = planningGeneratedCache;
     }// TimeSlotService()
 
     /**
@@ -53,7 +62,9 @@ public class TimeSlotService {
      */
     public Optional<TimeSlot> insert(TimeSlot ts) throws DataBaseException, ArgumentException {
         checkBusiness(ts);
-        return timeSlotRepository.insert(ts);
+        Optional<TimeSlot> inserted = timeSlotRepository.insert(ts);
+        referenceDataCache.invalidateTimeSlots();
+        return inserted;
     }// insert()
 
     /**
@@ -66,7 +77,10 @@ public class TimeSlotService {
         if(timeSlotRepository.isUsedBySlots(id)){
             throw new DataBaseException("Impossible de supprimer le créneau horaire : Le créneau horaire que vous tentez de supprimer est peut-être utilisé par ou plusieurs slot(s)");
         }
-        return timeSlotRepository.delete(id);
+        boolean deleted = timeSlotRepository.delete(id);
+        referenceDataCache.invalidateTimeSlots();
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.TIMESLOT, id);
+        return deleted;
     }// delete()
 
     /**
@@ -86,7 +100,7 @@ public class TimeSlotService {
                 if(ts.getStart().equals(ts.getEnd()) || ts.getStart().isAfter(ts.getEnd())){
                     errors.add("L'heure de début ne doit pas être supérieur ou égal à l'heure de fin");
                 }
-                this.optionsRepository.getOptions().ifPresent(options -> {
+                this.referenceDataCache.getOptions().ifPresent(options -> {
                     long diff = ChronoUnit.MINUTES.between(ts.getEnd(), ts.getStart());
                     if(diff % options.getSplitPlanning() != 0){
                         errors.add("L'heure de fin et l'heure de début doivent être cohérents avec le découpage du planning");
@@ -115,9 +129,31 @@ public class TimeSlotService {
      * @return créneaux horaires
      */
     public List<TimeSlot> getTimeSlots(Integer page, Integer nbElementsPerPage) throws DataBaseException {
-        return timeSlotRepository.findAll(page, nbElementsPerPage);
+        return CursorUtils.slice(referenceDataCache.getTimeSlots(), page, nbElementsPerPage);
     }// getTimeSlots()
 
+    /**
+     * Récupère une page de créneaux horaires triés par heure de début (pagination par curseur).
+     * @param after Curseur retourné par la page précédente (vide pour la première page)
+     * @param nbElementsPerPage Nombre de créneaux horaires par page (facultatif)
+     * @return page de créneaux horaires et curseur de la page suivante
+     * @throws ArgumentException si le curseur est invalide
+     */
+    public Page<TimeSlot> getTimeSlotsAfter(String after, Integer nbElementsPerPage) throws ArgumentException, DataBaseException {
+        int pageSize = CursorUtils.pageSize(nbElementsPerPage);
+        CursorUtils.Cursor cursor = CursorUtils.decode(after);
+        LocalTime afterStart = null;
+        if (cursor != null) {
+            try {
+                afterStart = LocalTime.parse(cursor.getKey());
+            } catch (DateTimeParseException e) {
+                throw new ArgumentException(Collections.singletonList("Le curseur de pagination est invalide"));
+            }
+        }
+        List<TimeSlot> timeSlots = timeSlotRepository.findAllAfter(afterStart, cursor != null ? cursor.getId() : 0, pageSize + 1);
+        return CursorUtils.page(timeSlots, pageSize, timeSlot -> timeSlot.getStart().toString(), TimeSlot::getId);
+    }// getTimeSlotsAfter()
+
     /**
      * Retourne le nombre total de créneaux horaires stockés
      * dans l'application.
@@ -125,7 +161,7 @@ public class TimeSlotService {
      * @throws DataBaseException
      */
     public long count() throws DataBaseException {
-        return this.timeSlotRepository.count();
+        return this.referenceDataCache.getTimeSlots().size();
     }// count()
 
 }// TimeSlotService
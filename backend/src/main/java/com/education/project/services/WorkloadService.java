@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Workload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ce service gère la charge hebdomadaire des enseignants, des salles et des classes
+ * (minutes de leurs slots et trous entre leurs slots, par jour)
+ */
+@Service
+public class WorkloadService {
+
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    public WorkloadService(OccupancyIndex occupancyIndex) {
+        this.occupancyIndex = occupancyIndex;
+    }// WorkloadService()
+
+    /**
+     * Retourne la charge hebdomadaire des ressources
+     * @param ressource Type de ressource : enseignant, salle ou classe (facultatif : toutes les ressources)
+     * @return charges, par type de ressource puis par identifiant de ressource
+     * @throws ArgumentException si le type de ressource n'existe pas
+     * @throws DataBaseException
+     */
+    public List<Workload> getWorkloads(String ressource) throws ArgumentException, DataBaseException {
+        List<Workload> workloads = new ArrayList<>();
+        boolean exists = false;
+        for (OccupancyIndex.Ressource value : OccupancyIndex.Ressource.values()) {
+            if (ressource == null || ressource.isEmpty() || value.name().equalsIgnoreCase(ressource)) {
+                workloads.addAll(occupancyIndex.getWorkloads(value));
+                exists = true;
+            }
+        }
+        if (!exists) {
+            throw new ArgumentException(Collections.singletonList("La ressource doit être enseignant, salle ou classe"));
+        }
+        return workloads;
+    }// getWorkloads()
+
+}// WorkloadService
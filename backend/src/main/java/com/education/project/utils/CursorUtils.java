@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.utils;
+
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.model.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Classe utilitaire pour la pagination par curseur (keyset).
+ * Un curseur désigne le dernier élément d'une page par sa clé de tri et son identifiant ;
+ * il est encodé en base64 pour rester opaque côté client.
+ * Les bornes de taille de page servent aussi à la pagination par numéro de page.
+ */
+public class CursorUtils {
+
+    /**
+     * Nombre d'éléments par page si non précisé
+     */
+    public final static int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Nombre maximum d'éléments par page
+     */
+    public final static int MAX_PAGE_SIZE = 100;
+
+    private final static char SEPARATOR = '\u001F';
+
+    /**
+     * Position décodée d'un curseur : clé de tri et identifiant du dernier élément lu
+     */
+    public static class Cursor {
+
+        private String key;
+
+        private int id;
+
+        public Cursor(String key, int id) {
+            this.key = key;
+            this.id = id;
+        }// Cursor()
+
+        public String getKey() {
+            return key;
+        }// getKey()
+
+        public int getId() {
+            return id;
+        }// getId()
+
+    }// Cursor
+
+    /**
+     * Encode un curseur
+     * @param key Clé de tri du dernier élément de la page
+     * @param id Identifiant du dernier élément de la page
+     * @return curseur opaque
+     */
+    public static String encode(String key, int id){
+        String raw = (key != null ? key : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }// encode()
+
+    /**
+     * Décode un curseur
+     * @param cursor curseur opaque (null ou vide pour la première page)
+     * @return position du curseur, null pour la première page
+     * @throws ArgumentException si le curseur est invalide
+     */
+    public static Cursor decode(String cursor) throws ArgumentException {
+        if(cursor == null || cursor.isEmpty()){
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int indexSeparator = raw.lastIndexOf(SEPARATOR);
+            if(indexSeparator < 0){
+                throw new IllegalArgumentException(cursor);
+            }
+            return new Cursor(raw.substring(0, indexSeparator), Integer.parseInt(raw.substring(indexSeparator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ArgumentException(Collections.singletonList("Le curseur de pagination est invalide"));
+        }
+    }// decode()
+
+    /**
+     * Retourne le nombre d'éléments par page à utiliser
+     * @param nbElementsPerPage Nombre d'éléments par page demandé (facultatif)
+     * @return nombre d'éléments par page borné
+     */
+    public static int pageSize(Integer nbElementsPerPage){
+        if(nbElementsPerPage == null || nbElementsPerPage <= 0){
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(nbElementsPerPage, MAX_PAGE_SIZE);
+    }// pageSize()
+
+    /**
+     * Retourne le numéro de page à utiliser
+     * @param page Numéro de page demandé (facultatif)
+     * @return numéro de page, 1 au minimum
+     */
+    public static int pageNumber(Integer page){
+        return (page == null || page < 1) ? 1 : page;
+    }// pageNumber()
+
+    /**
+     * Retourne la page demandée d'une liste déjà triée en mémoire
+     * @param results Éléments triés
+     * @param page N° de page (facultatif)
+     * @param nbElementsPerPage Nombre d'éléments par page (facultatif)
+     * @return La page (tous les éléments si la page ou le nombre d'éléments ne sont pas renseignés)
+     */
+    public static <T> List<T> slice(List<T> results, Integer page, Integer nbElementsPerPage){
+        if (page == null || nbElementsPerPage == null) {
+            return results;
+        }
+        int from = Math.min(results.size(), Math.max(0, page - 1) * Math.max(0, nbElementsPerPage));
+        int to = Math.min(results.size(), from + Math.max(0, nbElementsPerPage));
+        return new ArrayList<>(results.subList(from, to));
+    }// slice()
+
+    /**
+     * Construit une page à partir des éléments lus en base de données. Le repository lit
+     * un élément de plus que la taille de la page pour savoir s'il existe une page suivante.
+     * @param rows Éléments lus (au plus pageSize + 1)
+     * @param pageSize Nombre d'éléments par page
+     * @param keyOf Clé de tri d'un élément
+     * @param idOf Identifiant d'un élément
+     * @param <T> Type des éléments
+     * @return page
+     */
+    public static <T> Page<T> page(List<T> rows, int pageSize, Function<T, String> keyOf, Function<T, Integer> idOf){
+        if(rows.size() <= pageSize){
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        T last = items.get(pageSize - 1);
+        return new Page<>(items, encode(keyOf.apply(last), idOf.apply(last)));
+    }// page()
+
+}// CursorUtils
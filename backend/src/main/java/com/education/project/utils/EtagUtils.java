@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Classe utilitaire pour la gestion des ETags (requêtes conditionnelles).
+ */
+public class EtagUtils {
+
+    /**
+     * Construit un ETag fort à partir des éléments passés en paramètre.
+     * @param parts Éléments identifiant l'état de la ressource (versions, dates, filtres...)
+     * @return ETag entre guillemets
+     */
+    public static String build(Object... parts){
+        StringBuilder sb = new StringBuilder();
+        for(Object part : parts){
+            sb.append(part).append('|');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }// build()
+
+    /**
+     * Représentation stable des paramètres d'une requête (indépendante de leur ordre).
+     * @param params paramètres de la requête
+     * @return paramètres triés
+     */
+    public static String canonicalParams(Map<String, String> params){
+        if(params == null){
+            return "";
+        }
+        return new TreeMap<>(params).toString();
+    }// canonicalParams()
+
+    /**
+     * Vérifie si l'en-tête If-None-Match correspond à l'ETag courant.
+     * @param ifNoneMatch Valeur de l'en-tête If-None-Match (peut être nulle)
+     * @param etag ETag courant
+     * @return boolean
+     */
+    public static boolean matches(String ifNoneMatch, String etag){
+        if(ifNoneMatch == null || ifNoneMatch.isEmpty() || etag == null){
+            return false;
+        }
+        for(String candidate : ifNoneMatch.split(",")){
+            String value = candidate.trim();
+            if(value.equals("*") || value.equals(etag)){
+                return true;
+            }
+        }
+        return false;
+    }// matches()
+
+    /**
+     * En-têtes HTTP à renvoyer avec une ressource identifiée par un ETag :
+     * le client doit revalider à chaque fois (réponse 304 si rien n'a changé).
+     * @param etag ETag courant
+     * @return en-têtes HTTP
+     */
+    public static HttpHeaders headers(String etag){
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache());
+        return headers;
+    }// headers()
+
+}// EtagUtils
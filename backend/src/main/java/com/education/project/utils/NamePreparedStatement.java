@@ -19,44 +19,50 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 
 public class NamePreparedStatement {
 
     private PreparedStatement preparedStatement;
 
-    private List<String> fields;
+    private NamedQuery namedQuery;
 
     public NamePreparedStatement(Connection connection, String requestSql) throws SQLException {
-        fields = new ArrayList<>();
-        int pos;
-        while ((pos = requestSql.indexOf(":")) != -1) {
-            int end = requestSql.substring(pos).indexOf(" ");
-            if (end == -1) end = requestSql.length();
-            else end += pos;
-            fields.add(requestSql.substring(pos + 1, end));
-            requestSql = requestSql.substring(0, pos) + "?" + requestSql.substring(end);
-        }
-        preparedStatement = connection.prepareStatement(requestSql);
+        namedQuery = NamedQuery.compile(requestSql);
+        preparedStatement = connection.prepareStatement(namedQuery.getSql());
     }//NamePreparedStatement
 
-    private int getIndex(String name) {
-        return fields.indexOf(name) + 1;
-    }//getIndex()
+    private int[] getPositions(String name) throws SQLException {
+        int[] positions = namedQuery.getPositions(name);
+        if (positions.length == 0) {
+            throw new SQLException("Le paramètre " + name + " n'existe pas dans la requête");
+        }
+        return positions;
+    }//getPositions()
 
     public void setString(String name, String value) throws SQLException {
-        preparedStatement.setString(getIndex(name), value);
+        for (int position : getPositions(name)) {
+            preparedStatement.setString(position, value);
+        }
     }//setString()
 
     public void setTime(String name, java.sql.Time value) throws SQLException {
-        preparedStatement.setTime(getIndex(name), value);
+        for (int position : getPositions(name)) {
+            preparedStatement.setTime(position, value);
+        }
     }//setTime()
 
     public void setInt(String name, Integer value) throws SQLException {
-        preparedStatement.setInt(getIndex(name), value);
+        for (int position : getPositions(name)) {
+            preparedStatement.setInt(position, value);
+        }
     }//setString()
 
+    public void setObject(String name, Object value) throws SQLException {
+        for (int position : getPositions(name)) {
+            preparedStatement.setObject(position, value);
+        }
+    }//setObject()
+
     public PreparedStatement getPreparedStatement() {
         return preparedStatement;
     }//getPreparedStatement()
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.utils;
+
+import java.util.*;
+
+/**
+ * Requête SQL à paramètres nommés (:nom) compilée une seule fois : la requête JDBC (avec des ?)
+ * et la position de chaque paramètre sont calculées en un seul parcours puis conservées
+ * dans un cache borné indexé par le texte de la requête.
+ * Un même nom peut apparaître plusieurs fois dans la requête.
+ */
+public class NamedQuery {
+
+    /**
+     * Nombre maximum de requêtes compilées conservées
+     */
+    private final static int CACHE_MAX_SIZE = 256;
+
+    /**
+     * Requêtes compilées par texte de requête (ordre d'accès pour l'éviction LRU)
+     */
+    private final static Map<String, NamedQuery> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NamedQuery> eldest) {
+            return size() > CACHE_MAX_SIZE;
+        }
+    };
+
+    /**
+     * Requête JDBC (paramètres remplacés par des ?)
+     */
+    private String sql;
+
+    /**
+     * Positions JDBC (à partir de 1) de chaque paramètre nommé
+     */
+    private Map<String, int[]> positions;
+
+    private NamedQuery(String sql, Map<String, int[]> positions) {
+        this.sql = sql;
+        this.positions = positions;
+    }// NamedQuery()
+
+    /**
+     * Retourne la requête compilée correspondant au texte passé en paramètre
+     * (compilée au premier appel puis lue dans le cache)
+     * @param namedSql Requête SQL à paramètres nommés
+     * @return requête compilée
+     */
+    public static NamedQuery compile(String namedSql) {
+        synchronized (CACHE) {
+            NamedQuery namedQuery = CACHE.get(namedSql);
+            if (namedQuery == null) {
+                namedQuery = parse(namedSql);
+                CACHE.put(namedSql, namedQuery);
+            }
+            return namedQuery;
+        }
+    }// compile()
+
+    /**
+     * Analyse une requête à paramètres nommés en un seul parcours. Les chaînes entre apostrophes
+     * et les conversions PostgreSQL (::type) sont recopiées telles quelles.
+     * @param namedSql Requête SQL à paramètres nommés
+     * @return requête compilée
+     */
+    static NamedQuery parse(String namedSql) {
+        StringBuilder sql = new StringBuilder(namedSql.length());
+        Map<String, List<Integer>> positionsByName = new HashMap<>();
+        int nbParameters = 0;
+        boolean inLiteral = false;
+        int length = namedSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = namedSql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            } else if (c == ':' && !inLiteral && i + 1 < length) {
+                if (namedSql.charAt(i + 1) == ':') {
+                    sql.append("::");
+                    i += 2;
+                    continue;
+                }
+                if (Character.isJavaIdentifierStart(namedSql.charAt(i + 1))) {
+                    int end = i + 1;
+                    while (end < length && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                        ++end;
+                    }
+                    positionsByName.computeIfAbsent(namedSql.substring(i + 1, end), name -> new ArrayList<>()).add(++nbParameters);
+                    sql.append('?');
+                    i = end;
+                    continue;
+                }
+            }
+            sql.append(c);
+            ++i;
+        }
+        Map<String, int[]> positions = new HashMap<>(positionsByName.size() * 2);
+        positionsByName.forEach((name, list) -> positions.put(name, list.stream().mapToInt(Integer::intValue).toArray()));
+        return new NamedQuery(sql.toString(), positions);
+    }// parse()
+
+    public String getSql() {
+        return sql;
+    }// getSql()
+
+    /**
+     * Retourne les positions JDBC d'un paramètre nommé
+     * @param name Nom du paramètre
+     * @return positions (tableau vide si le paramètre n'existe pas dans la requête)
+     */
+    public int[] getPositions(String name) {
+        return positions.getOrDefault(name, new int[0]);
+    }// getPositions()
+
+}// NamedQuery
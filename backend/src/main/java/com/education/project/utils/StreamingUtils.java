@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Classe utilitaire pour la lecture en flux des résultats d'une requête : les lignes sont
+ * lues par lots depuis la base de données au lieu d'être toutes chargées en mémoire.
+ */
+public class StreamingUtils {
+
+    /**
+     * Nombre de lignes lues à chaque aller-retour avec la base de données
+     */
+    public final static int FETCH_SIZE = 500;
+
+    /**
+     * Prépare une requête pour une lecture en flux.
+     * PostgreSQL n'utilise un curseur que si la connexion n'est pas en auto-commit ;
+     * MySQL lit les lignes une à une avec une taille de lot de Integer.MIN_VALUE.
+     * La connexion doit être rendue au pool une fois la lecture terminée.
+     * @param connection Connexion utilisée pour la requête
+     * @param ps Requête à préparer
+     * @throws SQLException
+     */
+    public static void prepareForStreaming(Connection connection, PreparedStatement ps) throws SQLException {
+        String databaseName = connection.getMetaData().getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(databaseName)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            if ("PostgreSQL".equalsIgnoreCase(databaseName)) {
+                connection.setAutoCommit(false);
+            }
+            ps.setFetchSize(FETCH_SIZE);
+        }
+    }// prepareForStreaming()
+
+}// StreamingUtils
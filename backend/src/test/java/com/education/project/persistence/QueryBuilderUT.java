@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.persistence;
+
+import com.education.project.enums.MatchModeEnum;
+import com.education.project.utils.CursorUtils;
+import com.education.project.utils.NamePreparedStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryBuilderUT {
+
+    private QueryBuilder.Template template = new QueryBuilder.Template("SELECT * FROM classe c", "ORDER BY c.nom");
+
+    @Test
+    public void to_sql_should_depend_on_match_mode_for_same_filters() {
+        QueryBuilder exact = template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.EXACT);
+        QueryBuilder contains = template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.CONTAINS);
+        QueryBuilder prefix = template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.PREFIX);
+        Assertions.assertThat(exact.toSql()).isEqualTo("SELECT * FROM classe c WHERE TRUE AND c.nom = :classeNom  ORDER BY c.nom");
+        Assertions.assertThat(contains.toSql()).isEqualTo("SELECT * FROM classe c WHERE TRUE AND c.nom LIKE :classeNom ESCAPE '!'  ORDER BY c.nom");
+        Assertions.assertThat(prefix.toSql()).isEqualTo(contains.toSql());
+        Assertions.assertThat(template.builder().match("classeNom", "c.nom", "CM2", MatchModeEnum.EXACT).toSql()).isEqualTo(exact.toSql());
+        Assertions.assertThat(exact.getShape()).isNotEqualTo(contains.getShape());
+    }// to_sql_should_depend_on_match_mode_for_same_filters()
+
+    @Test
+    public void to_sql_should_ignore_match_mode_of_filters_not_applied() {
+        QueryBuilder exact = template.builder().match("classeNom", "c.nom", null, MatchModeEnum.EXACT).equal("id", "c.id", 3);
+        QueryBuilder contains = template.builder().match("classeNom", "c.nom", "", MatchModeEnum.CONTAINS).equal("id", "c.id", 3);
+        Assertions.assertThat(exact.getShape()).isEqualTo(contains.getShape());
+        Assertions.assertThat(exact.toSql()).isEqualTo("SELECT * FROM classe c WHERE TRUE AND c.id = :id  ORDER BY c.nom");
+    }// to_sql_should_ignore_match_mode_of_filters_not_applied()
+
+    @Test
+    public void bind_should_escape_like_wildcards_but_not_exact_values() throws SQLException {
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        bind(template.builder().match("classeNom", "c.nom", "100%_a!", MatchModeEnum.CONTAINS), preparedStatement);
+        Mockito.verify(preparedStatement).setObject(1, "%100!%!_a!!%");
+        bind(template.builder().match("classeNom", "c.nom", "a_b", MatchModeEnum.PREFIX), preparedStatement);
+        Mockito.verify(preparedStatement).setObject(1, "a!_b%");
+        bind(template.builder().match("classeNom", "c.nom", "a_b", MatchModeEnum.EXACT), preparedStatement);
+        Mockito.verify(preparedStatement).setObject(1, "a_b");
+    }// bind_should_escape_like_wildcards_but_not_exact_values()
+
+    @Test
+    public void to_sql_should_add_pagination_only_to_paginated_shape() throws SQLException {
+        QueryBuilder notPaginated = template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.CONTAINS);
+        QueryBuilder paginated = template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.CONTAINS).page(10, 20);
+        Assertions.assertThat(notPaginated.toSql()).doesNotContain("LIMIT");
+        Assertions.assertThat(paginated.toSql()).endsWith("ORDER BY c.nom LIMIT :limit OFFSET :offset");
+        Assertions.assertThat(template.builder().match("classeNom", "c.nom", "CM1", MatchModeEnum.CONTAINS).toSql()).isEqualTo(notPaginated.toSql());
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        bind(paginated, preparedStatement);
+        Mockito.verify(preparedStatement).setObject(1, "%CM1%");
+        Mockito.verify(preparedStatement).setObject(2, 10);
+        Mockito.verify(preparedStatement).setObject(3, 20);
+    }// to_sql_should_add_pagination_only_to_paginated_shape()
+
+    @Test
+    public void after_should_add_keyset_predicate_and_limit_without_offset() throws SQLException {
+        QueryBuilder firstPage = template.builder().match("classeNom", "c.nom", "a_b", MatchModeEnum.CONTAINS).after("c.nom", "c.id", null).limit(5);
+        QueryBuilder nextPage = template.builder().match("classeNom", "c.nom", "a_b", MatchModeEnum.CONTAINS).after("c.nom", "c.id", new CursorUtils.Cursor("CM1", 4)).limit(5);
+        QueryBuilder offsetPage = template.builder().match("classeNom", "c.nom", "a_b", MatchModeEnum.CONTAINS).page(5, 0);
+        Assertions.assertThat(firstPage.toSql()).isEqualTo("SELECT * FROM classe c WHERE TRUE AND c.nom LIKE :classeNom ESCAPE '!'  ORDER BY c.nom LIMIT :limit");
+        Assertions.assertThat(nextPage.toSql()).isEqualTo("SELECT * FROM classe c WHERE TRUE AND c.nom LIKE :classeNom ESCAPE '!' AND (c.nom > :afterKey OR (c.nom = :afterKey AND c.id > :afterId))  ORDER BY c.nom LIMIT :limit");
+        Assertions.assertThat(offsetPage.toSql()).endsWith("LIMIT :limit OFFSET :offset");
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        bind(nextPage, preparedStatement);
+        Mockito.verify(preparedStatement).setObject(1, "%a!_b%");
+        Mockito.verify(preparedStatement).setObject(2, "CM1");
+        Mockito.verify(preparedStatement).setObject(3, "CM1");
+        Mockito.verify(preparedStatement).setObject(4, 4);
+        Mockito.verify(preparedStatement).setObject(5, 5);
+    }// after_should_add_keyset_predicate_and_limit_without_offset()
+
+    @Test
+    public void to_sql_should_have_no_where_clause_without_filters() {
+        Assertions.assertThat(template.builder().match("classeNom", "c.nom", null, MatchModeEnum.EXACT).toSql()).isEqualTo("SELECT * FROM classe c ORDER BY c.nom");
+    }// to_sql_should_have_no_where_clause_without_filters()
+
+    private void bind(QueryBuilder query, PreparedStatement preparedStatement) throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(preparedStatement);
+        query.bind(new NamePreparedStatement(connection, query.toSql()));
+    }// bind()
+
+}// QueryBuilderUT
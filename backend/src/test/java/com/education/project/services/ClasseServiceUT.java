@@ -15,8 +15,11 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.CacheMetrics;
 import com.education.project.model.Classe;
 import com.education.project.persistence.ClasseRepository;
 import org.assertj.core.api.Assertions;
@@ -39,9 +42,12 @@ public class ClasseServiceUT {
     @Mock
     private ClasseRepository classeRepository;
 
+    private EntityCaches entityCaches;
+
     @Before
     public void setUp(){
-        this.classeService = new ClasseService(classeRepository);
+        this.entityCaches = new EntityCaches(100, 300);
+        this.classeService = new ClasseService(classeRepository, new PlanningGeneratedCache(100), false, entityCaches);
     }// setUp()
 
     @Test
@@ -153,6 +159,25 @@ public class ClasseServiceUT {
         Assertions.assertThat(optResult).isNotPresent();
     }// get_classe_should_return_empty_result_when_id_is_10()
 
+    @Test
+    public void get_classe_should_be_read_from_cache_until_classe_is_updated() throws ArgumentException, DataBaseException {
+        Classe classeToUpdate = initClasseToUpdate();
+        Mockito.when(classeRepository.findById(1)).thenReturn(Optional.of(initClasseFromDataBase()));
+        Mockito.when(classeRepository.update(classeToUpdate)).thenReturn(Optional.of(classeToUpdate));
+        classeService.getClasse(1);
+        classeService.getClasse(1);
+        Mockito.verify(classeRepository, Mockito.times(1)).findById(1);
+        classeService.updateClasse(classeToUpdate);
+        classeService.getClasse(1);
+        // La classe est relue une seule fois, lors de la modification, pour être réindexée
+        Mockito.verify(classeRepository, Mockito.times(2)).findById(1);
+        CacheMetrics metrics = entityCaches.getClasses().getMetrics();
+        Assertions.assertThat(metrics.getHits()).isEqualTo(2);
+        Assertions.assertThat(metrics.getMisses()).isEqualTo(2);
+        Assertions.assertThat(metrics.getEvictions()).isEqualTo(1);
+        Assertions.assertThat(metrics.getSize()).isEqualTo(1);
+    }// get_classe_should_be_read_from_cache_until_classe_is_updated()
+
     @Test
     public void update_classe_should_success_when_classe_is_filled_with_name_and_id() throws ArgumentException, DataBaseException {
         Classe classeToUpdate = initClasseToUpdate();
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.ReferenceDataCache;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.*;
+import com.education.project.persistence.OptionsRepository;
+import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.SlotRepository;
+import com.education.project.persistence.TimeSlotRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConflictServiceUT {
+
+    private ConflictService conflictService;
+
+    private OccupancyIndex occupancyIndex;
+
+    @Mock
+    private SlotRepository slotRepository;
+
+    @Mock
+    private PlanningRepository planningRepository;
+
+    @Before
+    public void setUp() {
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(Mockito.mock(OptionsRepository.class), Mockito.mock(TimeSlotRepository.class));
+        this.occupancyIndex = new OccupancyIndex(slotRepository, planningRepository, referenceDataCache);
+        this.conflictService = new ConflictService(occupancyIndex);
+    }//setUp()
+
+    @Test
+    public void get_conflicts_should_return_overlapping_slots_of_same_salle_and_same_classe() throws ArgumentException, DataBaseException {
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Arrays.asList(
+                slot(1, 1, LocalTime.of(8, 0), LocalTime.of(10, 0), 0, 5),
+                slot(2, 1, LocalTime.of(9, 0), LocalTime.of(11, 0), 0, 5),
+                slot(3, 2, LocalTime.of(9, 0), LocalTime.of(11, 0), 0, 5)));
+        Planning planning = new Planning();
+        planning.setId(1);
+        planning.setClasse(new Classe(4, null, null, null));
+        planning.setSlots(Arrays.asList(new Slot(1), new Slot(2), new Slot(3)));
+        Mockito.when(planningRepository.findSlotBindings()).thenReturn(Collections.singletonList(planning));
+        List<Conflict> conflicts = conflictService.getConflicts(null);
+        Assertions.assertThat(conflicts).hasSize(2);
+        Assertions.assertThat(conflicts).extracting(Conflict::getRessource).containsExactly("salle", "classe");
+        Conflict conflict = conflicts.get(0);
+        Assertions.assertThat(conflict.getIdRessource()).isEqualTo(5);
+        Assertions.assertThat(conflict.getIdJour()).isEqualTo(1);
+        Assertions.assertThat(conflict.getIdSlot()).isEqualTo(1);
+        Assertions.assertThat(conflict.getIdAutreSlot()).isEqualTo(2);
+        Assertions.assertThat(conflict.getStart()).isEqualTo(LocalTime.of(9, 0));
+        Assertions.assertThat(conflict.getEnd()).isEqualTo(LocalTime.of(10, 0));
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).isEmpty();
+    }//get_conflicts_should_return_overlapping_slots_of_same_salle_and_same_classe()
+
+    @Test
+    public void get_conflicts_should_follow_slot_updates_and_deletions() throws ArgumentException, DataBaseException {
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Arrays.asList(
+                slot(1, 1, LocalTime.of(8, 0), LocalTime.of(10, 0), 3, 0),
+                slot(2, 1, LocalTime.of(10, 0), LocalTime.of(12, 0), 3, 0)));
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).isEmpty();
+        occupancyIndex.putSlot(slot(2, 1, LocalTime.of(9, 30), LocalTime.of(11, 30), 3, 0));
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).hasSize(1);
+        occupancyIndex.removeSlot(1);
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).isEmpty();
+        Mockito.verify(slotRepository, Mockito.times(1)).findPlacements();
+    }//get_conflicts_should_follow_slot_updates_and_deletions()
+
+    @Test
+    public void get_conflicts_should_read_slots_again_when_a_slot_is_written_while_index_is_loading() throws ArgumentException, DataBaseException {
+        List<Slot> slotsBeforeWrite = Arrays.asList(
+                slot(1, 1, LocalTime.of(8, 0), LocalTime.of(10, 0), 3, 0),
+                slot(2, 1, LocalTime.of(10, 0), LocalTime.of(12, 0), 3, 0));
+        Slot slotWritten = slot(2, 1, LocalTime.of(9, 30), LocalTime.of(11, 30), 3, 0);
+        // L'écriture est faite par un autre thread : elle n'attend pas la lecture des tables
+        Mockito.when(slotRepository.findPlacements())
+                .thenAnswer(invocation -> {
+                    CompletableFuture.runAsync(() -> writeSlot(slotWritten)).get(5, TimeUnit.SECONDS);
+                    return slotsBeforeWrite;
+                })
+                .thenReturn(Arrays.asList(slotsBeforeWrite.get(0), slotWritten));
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).hasSize(1);
+        Mockito.verify(slotRepository, Mockito.times(2)).findPlacements();
+    }//get_conflicts_should_read_slots_again_when_a_slot_is_written_while_index_is_loading()
+
+    @Test
+    public void get_conflicts_should_load_index_when_slots_are_written_during_each_read() throws ArgumentException, DataBaseException {
+        List<Slot> slots = Collections.singletonList(slot(1, 1, LocalTime.of(8, 0), LocalTime.of(10, 0), 3, 0));
+        Mockito.when(slotRepository.findPlacements())
+                .thenAnswer(invocation -> {
+                    CompletableFuture.runAsync(() -> writeSlot(slots.get(0))).get(5, TimeUnit.SECONDS);
+                    return slots;
+                })
+                .thenAnswer(invocation -> {
+                    CompletableFuture.runAsync(() -> writeSlot(slots.get(0))).get(5, TimeUnit.SECONDS);
+                    return slots;
+                })
+                .thenAnswer(invocation -> {
+                    CompletableFuture.runAsync(() -> writeSlot(slots.get(0))).get(5, TimeUnit.SECONDS);
+                    return slots;
+                })
+                .thenReturn(Arrays.asList(slots.get(0), slot(2, 1, LocalTime.of(9, 0), LocalTime.of(11, 0), 3, 0)));
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).hasSize(1);
+        Assertions.assertThat(conflictService.getConflicts("enseignant")).hasSize(1);
+        Mockito.verify(slotRepository, Mockito.times(4)).findPlacements();
+    }//get_conflicts_should_load_index_when_slots_are_written_during_each_read()
+
+    private void writeSlot(Slot slot) {
+        try {
+            occupancyIndex.putSlot(slot);
+        } catch (DataBaseException e) {
+            throw new IllegalStateException(e);
+        }
+    }//writeSlot()
+
+    @Test
+    public void get_conflicts_should_throw_argument_exception_when_ressource_is_unknown() {
+        Assertions.assertThatThrownBy(() -> conflictService.getConflicts("matiere"))
+                .isInstanceOf(ArgumentException.class)
+                .hasMessage("La ressource doit être enseignant, salle ou classe");
+    }//get_conflicts_should_throw_argument_exception_when_ressource_is_unknown()
+
+    private Slot slot(int id, int idJour, LocalTime start, LocalTime end, int idEnseignant, int idSalle) {
+        Slot slot = new Slot(id);
+        slot.setJour(new Jour(idJour, null));
+        slot.setTimeSlot(new TimeSlot(id, start, end));
+        slot.setEnseignant(new Enseignant(idEnseignant, null, null, null, null));
+        slot.setSalle(new Salle(idSalle, null, null, null));
+        return slot;
+    }//slot()
+}//ConflictServiceUT
@@ -15,6 +15,8 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Enseignant;
@@ -45,7 +47,7 @@ public class EnseignantServiceUT {
 
     @Before
     public void setup(){
-        this.enseignantService = new EnseignantService(enseignantRepository);
+        this.enseignantService = new EnseignantService(enseignantRepository, new PlanningGeneratedCache(100), false, new EntityCaches(100, 300));
         this.enseignantToInsert = new Enseignant("Marc","Denim");
     }//setup()
 
@@ -385,6 +387,63 @@ public class EnseignantServiceUT {
         Assertions.assertThat(result).isEqualTo(1L);
     }//count_enseignant_should_return_1_when_first_name_is_didier_and_last_name_is_raoul()
 
+    @Test
+    public void suggest_enseignants_should_return_first_names_starting_with_prefix() throws DataBaseException {
+        Mockito.when(enseignantRepository.getEnseignants(null, null, null, null)).thenReturn(initGetEnseignantsFromBd());
+        List<Enseignant> dupont = enseignantService.suggestEnseignants("dup", 10);
+        List<Enseignant> charles = enseignantService.suggestEnseignants("CHAR", 1);
+        Assertions.assertThat(dupont).extracting(Enseignant::getId).containsExactly(2, 3);
+        Assertions.assertThat(charles).extracting(Enseignant::getId).containsExactly(3);
+        Mockito.verify(enseignantRepository, Mockito.times(1)).getEnseignants(null, null, null, null);
+    }//suggest_enseignants_should_return_first_names_starting_with_prefix()
+
+    @Test
+    public void suggest_enseignants_should_follow_update() throws DataBaseException, ArgumentException {
+        Mockito.when(enseignantRepository.getEnseignants(null, null, null, null)).thenReturn(initGetEnseignantsFromBd());
+        Enseignant enseignantToUpdate = new Enseignant(2, "Alex", "Éluard", new Date(), new Date());
+        Mockito.when(enseignantRepository.update(enseignantToUpdate)).thenReturn(Optional.of(enseignantToUpdate));
+        Mockito.when(enseignantRepository.findById(2)).thenReturn(Optional.of(new Enseignant(2, "Alex", "Éluard", new Date(), new Date())));
+        enseignantService.suggestEnseignants("", 10);
+        enseignantService.updateEnseignant(enseignantToUpdate);
+        Assertions.assertThat(enseignantService.suggestEnseignants("elu", 10)).extracting(Enseignant::getId).containsExactly(2);
+        Assertions.assertThat(enseignantService.suggestEnseignants("dup", 10)).extracting(Enseignant::getId).containsExactly(3);
+    }//suggest_enseignants_should_follow_update()
+
+    @Test
+    public void update_enseignant_should_index_enseignant_read_from_bd() throws DataBaseException, ArgumentException {
+        Mockito.when(enseignantRepository.getEnseignants(null, null, null, null)).thenReturn(initGetEnseignantsFromBd());
+        Enseignant enseignantToUpdate = new Enseignant(2, "Alex", "Éluard", null, null);
+        Enseignant enseignantFromBd = new Enseignant(2, "Alex", "Éluard", new Date(), new Date());
+        Mockito.when(enseignantRepository.update(enseignantToUpdate)).thenReturn(Optional.of(enseignantToUpdate));
+        Mockito.when(enseignantRepository.findById(2)).thenReturn(Optional.of(enseignantFromBd));
+        enseignantService.suggestEnseignants("", 10);
+        enseignantService.updateEnseignant(enseignantToUpdate);
+        enseignantToUpdate.setPrenom("Zola");
+        Assertions.assertThat(enseignantService.suggestEnseignants("elu", 10)).containsExactly(enseignantFromBd);
+        Assertions.assertThat(enseignantService.suggestEnseignants("zol", 10)).isEmpty();
+        Assertions.assertThat(enseignantService.getEnseignant(2)).containsSame(enseignantFromBd);
+        Mockito.verify(enseignantRepository, Mockito.times(1)).findById(2);
+    }//update_enseignant_should_index_enseignant_read_from_bd()
+
+    @Test
+    public void suggest_enseignants_should_be_the_same_when_load_is_abandoned() throws DataBaseException {
+        Mockito.when(enseignantRepository.isUsedBySlots(5)).thenReturn(false);
+        Mockito.when(enseignantRepository.delete(5)).thenReturn(true);
+        List<Enseignant> enseignantsFromBd = initGetEnseignantsFromBd();
+        Mockito.when(enseignantRepository.getEnseignants(null, null, null, null))
+                .thenAnswer(invocation -> {
+                    enseignantService.deleteEnseignant(5);
+                    return enseignantsFromBd;
+                })
+                .thenReturn(enseignantsFromBd);
+        List<Enseignant> cold = enseignantService.suggestEnseignants("dup", 10);
+        List<Enseignant> warm = enseignantService.suggestEnseignants("dup", 10);
+        Assertions.assertThat(cold).extracting(Enseignant::getId).containsExactly(2, 3);
+        Assertions.assertThat(cold).usingRecursiveComparison().isEqualTo(warm);
+        Mockito.verify(enseignantRepository, Mockito.times(2)).getEnseignants(null, null, null, null);
+        Mockito.verify(enseignantRepository, Mockito.never()).getEnseignants("dup", null, 1, 10);
+    }//suggest_enseignants_should_be_the_same_when_load_is_abandoned()
+
     private Enseignant initEnseignantFromBd(){
         Enseignant enseignantFromBd = new Enseignant();
         Date now = new Date();
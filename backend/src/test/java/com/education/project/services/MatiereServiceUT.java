@@ -14,6 +14,8 @@
  * limitations under the License.
  */
 package com.education.project.services;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Matiere;
@@ -49,7 +51,7 @@ public class MatiereServiceUT {
 
     @Before
     public void setup() throws DataBaseException {
-         this.matiereService = new MatiereService(this.matiereRepository);
+         this.matiereService = new MatiereService(this.matiereRepository, new PlanningGeneratedCache(100), false, new EntityCaches(100, 300));
          this.matiereToCreate = new Matiere("matiere","1:30","Prendre les élèves dyslexiques en groupe");
          this.matiereToUpdate = new Matiere("matiere","1:30","la classe à modifier");
          this.matiereToUpdate.setId(1);
@@ -15,10 +15,13 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Options;
 import com.education.project.persistence.OptionsRepository;
+import com.education.project.persistence.TimeSlotRepository;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,7 +47,8 @@ public class OptionsServiceUT {
 
     @Before
     public void setUp() throws DataBaseException {
-        this.optionsService = new OptionsService(optionsRepository, Stream.of(15, 20, 30, 60).collect(Collectors.toList()) );
+        this.optionsService = new OptionsService(optionsRepository, Stream.of(15, 20, 30, 60).collect(Collectors.toList()), new PlanningGeneratedCache(100),
+                new ReferenceDataCache(optionsRepository, Mockito.mock(TimeSlotRepository.class)));
         this.fullOptions = new Options(60, LocalTime.of(9, 0), LocalTime.of(19, 0));
         Mockito.when(optionsRepository.update(this.fullOptions)).thenReturn(true);
     }// setUp()
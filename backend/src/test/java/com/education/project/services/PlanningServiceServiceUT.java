@@ -15,11 +15,17 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.DimensionResolver;
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
+import com.education.project.enums.JourEnum;
 import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.ConflictException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.*;
-import com.education.project.persistence.OptionsRepository;
-import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.*;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,8 +34,11 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -44,6 +53,21 @@ public class PlanningServiceServiceUT {
     @Mock
     private OptionsRepository optionsRepository;
 
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private ClasseRepository classeRepository;
+
+    @Mock
+    private MatiereRepository matiereRepository;
+
+    @Mock
+    private SalleRepository salleRepository;
+
+    @Mock
+    private EnseignantRepository enseignantRepository;
+
     private Planning planningToInsert;
 
     private Planning planningInserted;
@@ -52,16 +76,28 @@ public class PlanningServiceServiceUT {
 
     private Planning planningToDelete;
 
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private ReferenceDataCache referenceDataCache;
+
+    private DimensionResolver dimensionResolver;
+
+    private OccupancyIndex occupancyIndex;
+
     @Before
-    public void setUp() throws DataBaseException {
-        this.planningService = new PlanningService(planningRepository, optionsRepository);
+    public void setUp() throws DataBaseException, ConflictException {
+        this.planningGeneratedCache = new PlanningGeneratedCache(100);
+        this.referenceDataCache = new ReferenceDataCache(optionsRepository, timeSlotRepository);
+        this.dimensionResolver = new DimensionResolver(new EntityCaches(100, 300), referenceDataCache, enseignantRepository, matiereRepository, salleRepository, classeRepository);
+        this.occupancyIndex = new OccupancyIndex(Mockito.mock(SlotRepository.class), planningRepository, referenceDataCache);
+        this.planningService = new PlanningService(planningRepository, referenceDataCache, planningGeneratedCache, new ForkJoinPool(2), dimensionResolver, occupancyIndex, false);
         this.planningToInsert = planningToInsert();
         this.planningInserted = planningToInsert();
         this.planningToUpdate = planningToUpdate();
         this.planningInserted.setId(1);
         this.planningToDelete = planningToDelete();
         Mockito.when(this.planningRepository.insert(this.planningToInsert)).thenReturn(Optional.of(this.planningInserted));
-        Mockito.when(this.planningRepository.update(this.planningToUpdate)).thenReturn(Optional.of(this.planningToUpdate));
+        Mockito.when(this.planningRepository.update(Mockito.eq(this.planningToUpdate), Mockito.any())).thenReturn(Optional.of(this.planningToUpdate));
     }// setUp()
 
     @Test
@@ -95,6 +131,25 @@ public class PlanningServiceServiceUT {
         });
     }// insert_planning_should_success_with_classe_id_and_name_and_slots_id_given()
 
+    @Test
+    public void update_planning_should_check_modification_date_read_by_client() throws ArgumentException, DataBaseException, ConflictException {
+        Date readModificationDate = new Date(System.currentTimeMillis() / 1000 * 1000 + 5000);
+        this.planningToUpdate.setModificationDate(readModificationDate);
+        this.planningService.updatePlanning(this.planningToUpdate);
+        Mockito.verify(this.planningRepository).update(this.planningToUpdate, readModificationDate);
+        Assertions.assertThat(this.planningToUpdate.getModificationDate()).isAfter(readModificationDate);
+        Assertions.assertThat(this.planningToUpdate.getModificationDate().getTime() % 1000).isEqualTo(0);
+    }// update_planning_should_check_modification_date_read_by_client()
+
+    @Test
+    public void update_planning_should_throw_conflict_exception_when_planning_was_modified_since_read() throws DataBaseException, ConflictException {
+        Mockito.when(this.planningRepository.update(Mockito.eq(this.planningToUpdate), Mockito.any()))
+                .thenThrow(new ConflictException("Le planning a été modifié depuis sa lecture, veuillez le recharger"));
+        Assertions.assertThatCode(() -> this.planningService.updatePlanning(this.planningToUpdate))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Le planning a été modifié depuis sa lecture, veuillez le recharger");
+    }// update_planning_should_throw_conflict_exception_when_planning_was_modified_since_read()
+
     @Test
     public void insert_planning_should_throw_argument_exception_when_planning_is_null() throws DataBaseException {
         Assertions.assertThatCode(() -> this.planningService.insertPlanning(null))
@@ -144,7 +199,7 @@ public class PlanningServiceServiceUT {
     }// insert_planning_should_throw_argument_exception_when_slots_is_empty()
 
     @Test
-    public void update_planning_should_success_with_classe_id_and_name_and_slots_id_given() throws ArgumentException, DataBaseException {
+    public void update_planning_should_success_with_classe_id_and_name_and_slots_id_given() throws ArgumentException, DataBaseException, ConflictException {
         Optional<Planning> optPlanning = this.planningService.updatePlanning(this.planningToUpdate);
         Assertions.assertThat(optPlanning).isPresent();
         optPlanning.ifPresent(planning -> {
@@ -292,6 +347,73 @@ public class PlanningServiceServiceUT {
         Assertions.assertThat(optPlanning).isNotPresent();
     }// get_planning_should_be_empty_when_id_is_2()
 
+    @Test
+    public void get_planning_should_resolve_slot_keys_from_caches_when_slim_fetch_is_enabled() throws DataBaseException {
+        PlanningService slimPlanningService = new PlanningService(planningRepository, referenceDataCache, planningGeneratedCache, new ForkJoinPool(2), dimensionResolver, occupancyIndex, true);
+        Mockito.when(this.planningRepository.findByIdWithSlotKeys(1)).thenAnswer(invocation -> Optional.of(getPlanningWithSlotKeys(0, 3)));
+        Mockito.when(this.classeRepository.findById(1)).thenReturn(Optional.of(new Classe(1, "CM1", new Date(1591366583), new Date())));
+        Mockito.when(this.matiereRepository.findByIds(Set.of(1))).thenReturn(List.of(new Matiere(1, "Français", null, null, new Date(1591366583), new Date())));
+        Mockito.when(this.salleRepository.findByIds(Set.of(3))).thenReturn(List.of(new Salle(3, "B12", new Date(1591366583), new Date())));
+        Mockito.when(this.timeSlotRepository.findAll(null, null)).thenReturn(Collections.singletonList(new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(9, 0))));
+        slimPlanningService.getPlanningById(1);
+        Optional<Planning> optPlanning = slimPlanningService.getPlanningById(1);
+        Assertions.assertThat(optPlanning).isPresent();
+        Planning planning = optPlanning.get();
+        Assertions.assertThat(planning.getClasse().getNom()).isEqualTo("CM1");
+        Assertions.assertThat(planning.getSlots()).hasSize(2);
+        for (Slot slot : planning.getSlots()) {
+            Assertions.assertThat(slot.getMatiere().getNom()).isEqualTo("Français");
+            Assertions.assertThat(slot.getSalle().getNom()).isEqualTo("B12");
+            Assertions.assertThat(slot.getEnseignant().getId()).isEqualTo(0);
+            Assertions.assertThat(slot.getEnseignant().getNom()).isNull();
+            Assertions.assertThat(slot.getTimeSlot().getStart()).isEqualTo(LocalTime.of(8, 0));
+            Assertions.assertThat(slot.getJour().getNom()).isEqualTo("Lundi");
+        }
+        Assertions.assertThat(planning.getSlots().get(0).getMatiere()).isSameAs(planning.getSlots().get(1).getMatiere());
+        Mockito.verify(this.matiereRepository, Mockito.times(1)).findByIds(Set.of(1));
+        Mockito.verify(this.salleRepository, Mockito.times(1)).findByIds(Set.of(3));
+        Mockito.verify(this.enseignantRepository, Mockito.never()).findByIds(Mockito.anyCollection());
+        Mockito.verify(this.planningRepository, Mockito.never()).findById(1);
+    }// get_planning_should_resolve_slot_keys_from_caches_when_slim_fetch_is_enabled()
+
+    @Test
+    public void get_planning_should_be_the_same_with_slim_fetch_and_join() throws DataBaseException {
+        PlanningService slimPlanningService = new PlanningService(planningRepository, referenceDataCache, planningGeneratedCache, new ForkJoinPool(2), dimensionResolver, occupancyIndex, true);
+        Mockito.when(this.planningRepository.findByIdWithSlotKeys(1)).thenAnswer(invocation -> Optional.of(getPlanning(false)));
+        Mockito.when(this.planningRepository.findById(1)).thenAnswer(invocation -> Optional.of(getPlanning(true)));
+        Mockito.when(this.classeRepository.findById(1)).thenReturn(Optional.of(new Classe(1, "CM1", new Date(1591366583), new Date(1591366583))));
+        Mockito.when(this.matiereRepository.findByIds(Set.of(1, 2))).thenReturn(List.of(getMatiere(1), getMatiere(2)));
+        Mockito.when(this.enseignantRepository.findByIds(Set.of(4, 5))).thenReturn(List.of(getEnseignant(5), getEnseignant(4)));
+        Mockito.when(this.salleRepository.findByIds(Set.of(3))).thenReturn(List.of(getSalle(3)));
+        Mockito.when(this.timeSlotRepository.findAll(null, null)).thenReturn(List.of(getTimeSlot(1), getTimeSlot(2)));
+        Optional<Planning> slim = slimPlanningService.getPlanningById(1);
+        Optional<Planning> join = planningService.getPlanningById(1);
+        Assertions.assertThat(slim).isPresent();
+        Assertions.assertThat(slim.get()).usingRecursiveComparison().isEqualTo(join.get());
+        // Cache froid : une seule requête par type d'entité, quel que soit le nombre de slots
+        Mockito.verify(this.matiereRepository, Mockito.times(1)).findByIds(Mockito.anyCollection());
+        Mockito.verify(this.enseignantRepository, Mockito.times(1)).findByIds(Mockito.anyCollection());
+        Mockito.verify(this.salleRepository, Mockito.times(1)).findByIds(Mockito.anyCollection());
+        Mockito.verify(this.matiereRepository, Mockito.never()).findById(Mockito.anyInt());
+        Mockito.verify(this.enseignantRepository, Mockito.never()).findById(Mockito.anyInt());
+        Mockito.verify(this.salleRepository, Mockito.never()).findById(Mockito.anyInt());
+    }// get_planning_should_be_the_same_with_slim_fetch_and_join()
+
+    @Test
+    public void get_planning_should_fall_back_to_join_when_a_slot_key_cannot_be_resolved() throws DataBaseException {
+        PlanningService slimPlanningService = new PlanningService(planningRepository, referenceDataCache, planningGeneratedCache, new ForkJoinPool(2), dimensionResolver, occupancyIndex, true);
+        Mockito.when(this.planningRepository.findByIdWithSlotKeys(1)).thenReturn(Optional.of(getPlanningWithSlotKeys(4, 0)));
+        Mockito.when(this.planningRepository.findById(1)).thenReturn(getFullPlanning());
+        Mockito.when(this.classeRepository.findById(1)).thenReturn(Optional.of(new Classe(1, "CM1", new Date(1591366583), new Date())));
+        Mockito.when(this.matiereRepository.findByIds(Set.of(1))).thenReturn(List.of(new Matiere(1, "Français", null, null, new Date(1591366583), new Date())));
+        Mockito.when(this.enseignantRepository.findByIds(Set.of(4))).thenReturn(Collections.emptyList());
+        Mockito.when(this.timeSlotRepository.findAll(null, null)).thenReturn(Collections.singletonList(new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(9, 0))));
+        Optional<Planning> optPlanning = slimPlanningService.getPlanningById(1);
+        Assertions.assertThat(optPlanning).isPresent();
+        Assertions.assertThat(optPlanning.get().getSlots()).hasSize(1);
+        Assertions.assertThat(optPlanning.get().getSlots().get(0).getEnseignant()).isNull();
+    }// get_planning_should_fall_back_to_join_when_a_slot_key_cannot_be_resolved()
+
     @Test
     public void get_plannings_should_return_result_when_no_filters_given() throws DataBaseException {
         List<Planning> planningsFromBd = getFullPlannings();
@@ -433,6 +555,63 @@ public class PlanningServiceServiceUT {
         Assertions.assertThat(planningGenerated.getWarnings().stream().filter(warn -> warn.equals("La matière Sport ne respecte pas son volume horaire hebdomadaire de 0H15")).findAny()).isPresent();
     }// generate_planning_should_success_with_classic_slots_and_obtain_warnings()
 
+    @Test
+    public void generate_planning_should_not_warn_when_volumes_horaires_are_respected() throws DataBaseException {
+        Planning planning = this.getPlanningWithSlotsAwayForGeneration().get();
+        planning.getSlots().get(0).getMatiere().setVolumeHoraire("01:00");
+        planning.getSlots().get(1).getMatiere().setVolumeHoraire("02:00");
+        Mockito.when(planningRepository.findById(1)).thenReturn(Optional.of(planning));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningGenerated planningGenerated = planningService.generatePlanning(1);
+        Assertions.assertThat(planningGenerated.getWarnings()).isEmpty();
+    }// generate_planning_should_not_warn_when_volumes_horaires_are_respected()
+
+    @Test
+    public void get_planning_hours_should_follow_slot_writes_without_reading_slots() throws DataBaseException {
+        SlotRepository slotRepository = Mockito.mock(SlotRepository.class);
+        OccupancyIndex index = new OccupancyIndex(slotRepository, planningRepository, referenceDataCache);
+        PlanningService service = new PlanningService(planningRepository, referenceDataCache, planningGeneratedCache, new ForkJoinPool(2), dimensionResolver, index, false);
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Arrays.asList(
+                placement(1, 1, LocalTime.of(8, 0), LocalTime.of(10, 0), 1),
+                placement(2, 2, LocalTime.of(8, 0), LocalTime.of(9, 0), 1),
+                placement(3, 1, LocalTime.of(10, 0), LocalTime.of(11, 0), 2)));
+        Planning planning = new Planning();
+        planning.setId(1);
+        planning.setClasse(new Classe(1, null, null, null));
+        planning.setSlots(Arrays.asList(new Slot(1), new Slot(2), new Slot(3)));
+        Mockito.when(planningRepository.findSlotBindings()).thenReturn(Collections.singletonList(planning));
+        Mockito.when(matiereRepository.findById(1)).thenReturn(Optional.of(new Matiere(1, "Français", "03:00", null, new Date(1591366583), new Date())));
+        Mockito.when(matiereRepository.findById(2)).thenReturn(Optional.of(new Matiere(2, "Sport", "02:00", null, new Date(1591366583), new Date())));
+
+        PlanningHours planningHours = service.getPlanningHours(1).get();
+        Assertions.assertThat(planningHours.getMinutes()).isEqualTo(240);
+        Assertions.assertThat(planningHours.getMatieres()).extracting(PlanningHours.MatiereHours::getNom).containsExactly("Français", "Sport");
+        Assertions.assertThat(planningHours.getMatieres().get(0).getMinutes()).isEqualTo(180);
+        Assertions.assertThat(planningHours.getMatieres().get(0).getMinutesByJour()).containsExactly(Map.entry(1, 120), Map.entry(2, 60));
+        Assertions.assertThat(planningHours.getWarnings()).containsExactly("La matière Sport ne respecte pas son volume horaire hebdomadaire de 02H00");
+
+        index.putSlot(placement(3, 1, LocalTime.of(10, 0), LocalTime.of(12, 0), 2));
+        Assertions.assertThat(service.getPlanningHours(1).get().getWarnings()).isEmpty();
+
+        index.removeSlot(2);
+        planningHours = service.getPlanningHours(1).get();
+        Assertions.assertThat(planningHours.getMatieres().get(0).getMinutesByJour()).containsExactly(Map.entry(1, 120));
+        Assertions.assertThat(planningHours.getWarnings()).containsExactly("La matière Français ne respecte pas son volume horaire hebdomadaire de 03H00");
+        Mockito.verify(slotRepository, Mockito.times(1)).findPlacements();
+        Mockito.verify(planningRepository, Mockito.never()).findById(1);
+    }// get_planning_hours_should_follow_slot_writes_without_reading_slots()
+
+    @Test
+    public void get_planning_hours_should_distinguish_planning_without_slots_from_unknown_planning() throws DataBaseException {
+        Mockito.when(planningRepository.getVersion(2)).thenReturn(Optional.of("2020-06-05 16:16:23.0#0"));
+        Mockito.when(planningRepository.getVersion(3)).thenReturn(Optional.empty());
+        Optional<PlanningHours> planningHours = planningService.getPlanningHours(2);
+        Assertions.assertThat(planningHours).isPresent();
+        Assertions.assertThat(planningHours.get().getMatieres()).isEmpty();
+        Assertions.assertThat(planningHours.get().getMinutes()).isZero();
+        Assertions.assertThat(planningService.getPlanningHours(3)).isNotPresent();
+    }// get_planning_hours_should_distinguish_planning_without_slots_from_unknown_planning()
+
     @Test
     public void generate_planning_should_success_with_doublons() throws DataBaseException {
         Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGenerationWithDoublons());
@@ -443,6 +622,163 @@ public class PlanningServiceServiceUT {
         Assertions.assertThat(planningGenerated.getWarnings()).isEmpty();
     }// generate_planning_should_success_with_doublons()
 
+    @Test
+    public void generate_planning_should_group_more_than_two_overlapping_slots() throws DataBaseException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getPlanningForGenerationWithOverlappingSlots());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningGenerated planningGenerated = planningService.generatePlanning(1);
+        Assertions.assertThat(planningGenerated.getContentHtml()).isEqualTo("<table><thead><tr><th></th><th>LUNDI</th><th>MARDI</th></tr></thead><tr><td>08:00 - 09:00</td> <td style=\"color : #ccc;background-color : #ddd;\" rowspan=\"1\"><div>Français</div></td> <td rowspan=\"6\"></td> </tr><tr><td>09:00 - 10:00</td> <td class=\"no-padding\" rowspan=\"2\"><div style=\"color : #ccc;background-color : #ddd;\"><div>Sport</div></div><div style=\"color : #ccc;background-color : #ddd;\" class=\"group\"><div>Mathématiques</div></div><div style=\"color : #ccc;background-color : #ddd;\" class=\"group\"><div>Anglais</div></div></td> </tr><tr><td>10:00 - 11:00</td> </tr><tr><td>11:00 - 12:00</td> <td rowspan=\"1\"></td> </tr><tr><td>12:00 - 13:00</td> <td rowspan=\"1\"></td> </tr><tr><td>13:00 - 14:00</td> <td rowspan=\"1\"></td> </tr><tr><td>14:00 - 15:00</td> <td rowspan=\"1\"></td> <td style=\"color : #ccc;background-color : #ddd;\" rowspan=\"1\"><div>Français</div></td> </tr><tr><td>15:00 - 16:00</td> <td rowspan=\"1\"></td> <td rowspan=\"1\"></td> </tr><tr><td>16:00 - 17:00</td> <td rowspan=\"1\"></td> <td rowspan=\"1\"></td> </tr></table>");
+        Assertions.assertThat(planningGenerated.getId()).isEqualTo(1);
+    }// generate_planning_should_group_more_than_two_overlapping_slots()
+
+    @Test
+    public void generate_planning_grid_should_reference_deduplicated_entities() throws DataBaseException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getPlanningForGenerationWithOverlappingSlots());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningGeneratedGrid grid = planningService.generatePlanningGrid(1);
+        Assertions.assertThat(grid.getId()).isEqualTo(1);
+        Assertions.assertThat(grid.getSplit()).isEqualTo(60);
+        Assertions.assertThat(grid.getRows()).hasSize(9);
+        Assertions.assertThat(grid.getRows().get(0)).isEqualTo("08:00 - 09:00");
+        Assertions.assertThat(grid.getColumns()).extracting(PlanningGeneratedGrid.Column::getJour).containsExactly(JourEnum.LUNDI, JourEnum.MARDI);
+        List<PlanningGeneratedGrid.Cell> cellsLundi = grid.getColumns().get(0).getCells();
+        Assertions.assertThat(cellsLundi).extracting(PlanningGeneratedGrid.Cell::getRow).containsExactly(0, 1);
+        Assertions.assertThat(cellsLundi).extracting(PlanningGeneratedGrid.Cell::getRowspan).containsExactly(1, 2);
+        Assertions.assertThat(cellsLundi.get(1).getSlots()).hasSize(3);
+        Assertions.assertThat(grid.getColumns().get(1).getCells()).extracting(PlanningGeneratedGrid.Cell::getRow).containsExactly(6);
+        Assertions.assertThat(grid.getSlots()).hasSize(5);
+        Assertions.assertThat(grid.getMatieres()).containsExactly("Français", "Sport", "Mathématiques", "Anglais");
+        Assertions.assertThat(grid.getSlots().get(0).getMatiere()).isEqualTo(grid.getSlots().get(4).getMatiere());
+        Assertions.assertThat(grid.getEnseignants()).isEmpty();
+        Assertions.assertThat(grid.getSalles()).isEmpty();
+    }// generate_planning_grid_should_reference_deduplicated_entities()
+
+    @Test
+    public void generate_plannings_should_load_all_plannings_in_one_query() throws DataBaseException {
+        Planning planning1 = this.getClassicPlanningForGeneration().get();
+        Planning planning2 = this.getPlanningForGenerationWithOverlappingSlots().get();
+        planning2.setId(2);
+        Mockito.when(planningRepository.findAllWithSlots(Collections.emptyList())).thenReturn(Arrays.asList(planning1, planning2));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningsGenerated result = planningService.generatePlannings(null);
+        Assertions.assertThat(result.getPlannings()).extracting(PlanningGenerated::getId).containsExactly(1, 2);
+        Assertions.assertThat(result.getLatencies()).containsOnlyKeys(1, 2);
+        Assertions.assertThat(result.getPlannings().get(0).getContentHtml()).startsWith("<table><thead><tr><th></th><th>LUNDI</th></tr></thead>");
+        Mockito.verify(planningRepository, Mockito.never()).findById(Mockito.anyInt());
+        Assertions.assertThat(planningGeneratedCache.getMetrics().getSize()).isEqualTo(2);
+    }// generate_plannings_should_load_all_plannings_in_one_query()
+
+    @Test
+    public void generate_plannings_should_only_load_plannings_missing_from_cache() throws DataBaseException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGeneration());
+        Planning planning2 = this.getPlanningForGenerationWithOverlappingSlots().get();
+        planning2.setId(2);
+        Mockito.when(planningRepository.findAllWithSlots(Collections.singletonList(2))).thenReturn(Collections.singletonList(planning2));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningGenerated planning1 = planningService.generatePlanning(1);
+        PlanningsGenerated result = planningService.generatePlannings(Arrays.asList(2, 1, 2));
+        Assertions.assertThat(result.getPlannings()).extracting(PlanningGenerated::getId).containsExactly(1, 2);
+        Assertions.assertThat(result.getPlannings().get(0)).isSameAs(planning1);
+        Mockito.verify(planningRepository, Mockito.times(1)).findAllWithSlots(Collections.singletonList(2));
+    }// generate_plannings_should_only_load_plannings_missing_from_cache()
+
+    @Test
+    public void write_planning_html_should_stream_same_content_as_generation() throws DataBaseException, IOException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGeneration());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        StringWriter writer = new StringWriter();
+        Assertions.assertThat(planningService.writePlanningHtml(1, writer)).isTrue();
+        PlanningGenerated planningGenerated = planningService.generatePlanning(1);
+        Assertions.assertThat(writer.toString()).isEqualTo(planningGenerated.getContentHtml());
+    }// write_planning_html_should_stream_same_content_as_generation()
+
+    @Test
+    public void write_planning_html_should_write_nothing_when_planning_does_not_exist() throws DataBaseException, IOException {
+        Mockito.when(planningRepository.findById(2)).thenReturn(Optional.empty());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        StringWriter writer = new StringWriter();
+        Assertions.assertThat(planningService.writePlanningHtml(2, writer)).isFalse();
+        Assertions.assertThat(writer.toString()).isEmpty();
+    }// write_planning_html_should_write_nothing_when_planning_does_not_exist()
+
+    @Test
+    public void generate_planning_should_use_cache_when_nothing_changed() throws DataBaseException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGeneration());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        PlanningGenerated first = planningService.generatePlanning(1);
+        PlanningGenerated second = planningService.generatePlanning(1);
+        Assertions.assertThat(second.getContentHtml()).isEqualTo(first.getContentHtml());
+        Mockito.verify(planningRepository, Mockito.times(1)).findById(1);
+        Mockito.verify(optionsRepository, Mockito.times(1)).getOptions();
+        CacheMetrics metrics = planningGeneratedCache.getMetrics();
+        Assertions.assertThat(metrics.getHits()).isEqualTo(1);
+        Assertions.assertThat(metrics.getMisses()).isEqualTo(1);
+        Assertions.assertThat(metrics.getSize()).isEqualTo(1);
+    }// generate_planning_should_use_cache_when_nothing_changed()
+
+    @Test
+    public void generate_planning_should_regenerate_when_planning_is_updated() throws DataBaseException, ArgumentException, ConflictException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGeneration());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        planningService.generatePlanning(1);
+        planningService.updatePlanning(this.planningToUpdate);
+        planningService.generatePlanning(1);
+        Mockito.verify(planningRepository, Mockito.times(2)).findById(1);
+        Assertions.assertThat(planningGeneratedCache.getMetrics().getEvictions()).isEqualTo(1);
+    }// generate_planning_should_regenerate_when_planning_is_updated()
+
+    @Test
+    public void generate_planning_should_regenerate_only_when_a_used_entity_changes() throws DataBaseException {
+        Mockito.when(planningRepository.findById(1)).thenReturn(this.getClassicPlanningForGeneration());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions());
+        planningService.generatePlanning(1);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SLOT, 42);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SALLE, 42);
+        planningService.generatePlanning(1);
+        Mockito.verify(planningRepository, Mockito.times(1)).findById(1);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.MATIERE, 2);
+        planningService.generatePlanning(1);
+        Mockito.verify(planningRepository, Mockito.times(2)).findById(1);
+        planningGeneratedCache.invalidateAll();
+        planningService.generatePlanning(1);
+        Mockito.verify(planningRepository, Mockito.times(3)).findById(1);
+    }// generate_planning_should_regenerate_only_when_a_used_entity_changes()
+
+    @Test
+    public void generated_planning_etag_should_change_when_options_change() throws DataBaseException {
+        Mockito.when(planningRepository.getVersion(1)).thenReturn(Optional.of("1591366583-3"));
+        Options otherOptions = new Options(30, LocalTime.of(8, 0), LocalTime.of(17, 0));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(getOptions(), Optional.of(otherOptions));
+        Optional<String> etag = planningService.getGeneratedPlanningEtag(1);
+        Assertions.assertThat(etag).isPresent();
+        Assertions.assertThat(planningService.getGeneratedPlanningEtag(1)).isEqualTo(etag);
+        referenceDataCache.invalidateOptions();
+        Assertions.assertThat(planningService.getGeneratedPlanningEtag(1)).isNotEqualTo(etag);
+        Assertions.assertThat(planningService.getPlanningEtag(1)).isNotEqualTo(etag);
+        Mockito.verify(planningRepository, Mockito.never()).findById(1);
+    }// generated_planning_etag_should_change_when_options_change()
+
+    @Test
+    public void planning_etag_should_change_when_entities_are_written_in_the_same_second() throws DataBaseException {
+        // Empreinte en base identique : dates de modification à la seconde près et nombre de slots inchangés
+        Mockito.when(planningRepository.getVersion(1)).thenReturn(Optional.of("1591366000000-3"));
+        Optional<String> etag = planningService.getPlanningEtag(1);
+        Assertions.assertThat(planningService.getPlanningEtag(1)).isEqualTo(etag);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.SLOT, 1);
+        Optional<String> etagAfterFirstWrite = planningService.getPlanningEtag(1);
+        planningGeneratedCache.invalidate(PlanningGeneratedCache.Dependance.CLASSE, 1);
+        Optional<String> etagAfterSecondWrite = planningService.getPlanningEtag(1);
+        Assertions.assertThat(etagAfterFirstWrite).isNotEqualTo(etag);
+        Assertions.assertThat(etagAfterSecondWrite).isNotEqualTo(etag).isNotEqualTo(etagAfterFirstWrite);
+    }// planning_etag_should_change_when_entities_are_written_in_the_same_second()
+
+    @Test
+    public void planning_etag_should_be_empty_when_planning_does_not_exist() throws DataBaseException {
+        Mockito.when(planningRepository.getVersion(400)).thenReturn(Optional.empty());
+        Assertions.assertThat(planningService.getPlanningEtag(400)).isEmpty();
+        Assertions.assertThat(planningService.getGeneratedPlanningEtag(400)).isEmpty();
+    }// planning_etag_should_be_empty_when_planning_does_not_exist()
+
     private Optional<Options> getOptions() {
         Options options = new Options(60, LocalTime.of(8, 0), LocalTime.of(17, 0));
         return Optional.of(options);
@@ -550,6 +886,29 @@ public class PlanningServiceServiceUT {
         return Optional.of(planning);
     }// getClassicPlanningForGenerationWithDoublons()
 
+    private Optional<Planning> getPlanningForGenerationWithOverlappingSlots() {
+        Planning planning = new Planning();
+        planning.setId(1);
+        planning.setClasse(new Classe(1, "CM1", new Date(1591366583), new Date()));
+        planning.setCreationDate(new Date(1591366583));
+        planning.setModificationDate(new Date());
+        planning.setNom("P1");
+
+        Slot s1 = new Slot(1, null, new Date(1591366583), new Date(), "#ddd", "#ccc", new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(9, 0)), null, new Matiere(1, "Français", null, null, new Date(1591366583), new Date()), null);
+        s1.setJour(new Jour(1, "Lundi"));
+        Slot s2 = new Slot(2, null, new Date(1591366583), new Date(), "#ddd", "#ccc", new TimeSlot(2, LocalTime.of(9, 0), LocalTime.of(11, 0)), null, new Matiere(2, "Mathématiques", null, null, new Date(1591366583), new Date()), null);
+        s2.setJour(new Jour(1, "Lundi"));
+        Slot s3 = new Slot(3, null, new Date(1591366583), new Date(), "#ddd", "#ccc", new TimeSlot(3, LocalTime.of(9, 0), LocalTime.of(10, 0)), null, new Matiere(3, "Sport", null, null, new Date(1591366583), new Date()), null);
+        s3.setJour(new Jour(1, "Lundi"));
+        Slot s4 = new Slot(4, null, new Date(1591366583), new Date(), "#ddd", "#ccc", new TimeSlot(4, LocalTime.of(10, 0), LocalTime.of(11, 0)), null, new Matiere(4, "Anglais", null, null, new Date(1591366583), new Date()), null);
+        s4.setJour(new Jour(1, "Lundi"));
+        Slot s5 = new Slot(5, null, new Date(1591366583), new Date(), "#ddd", "#ccc", new TimeSlot(5, LocalTime.of(14, 0), LocalTime.of(15, 0)), null, new Matiere(1, "Français", null, null, new Date(1591366583), new Date()), null);
+        s5.setJour(new Jour(2, "Mardi"));
+
+        planning.setSlots(Stream.of(s1, s2, s3, s4, s5).collect(Collectors.toList()));
+        return Optional.of(planning);
+    }// getPlanningForGenerationWithOverlappingSlots()
+
     private Optional<Planning> getFullPlanning() {
         Planning planning = new Planning();
         planning.setId(1);
@@ -564,6 +923,76 @@ public class PlanningServiceServiceUT {
         return Optional.of(planning);
     }// getFullPlanning()
 
+    private Slot placement(int id, int idJour, LocalTime start, LocalTime end, int idMatiere) {
+        Slot slot = new Slot(id);
+        slot.setJour(new Jour(idJour, null));
+        slot.setTimeSlot(new TimeSlot(id, start, end));
+        slot.setMatiere(new Matiere(idMatiere, null, null, null, null, null));
+        return slot;
+    }// placement()
+
+    /**
+     * Planning de 4 slots (2 matières, 2 enseignants, une salle, un slot sans enseignant ni salle),
+     * tel que lu par jointure (entités complètes) ou avec les seuls identifiants de ses entités
+     */
+    private Planning getPlanning(boolean join) {
+        Classe classe = join ? new Classe(1, "CM1", new Date(1591366583), new Date(1591366583)) : new Classe();
+        classe.setId(1);
+        Planning planning = new Planning(1, "P1", classe, new ArrayList<>());
+        // identifiants : slot, jour, créneau, matière, enseignant, salle
+        int[][] keys = {{1, 1, 1, 1, 4, 3}, {2, 2, 2, 2, 5, 3}, {3, 3, 1, 2, 4, 0}, {4, 1, 2, 1, 0, 0}};
+        for (int[] key : keys) {
+            Slot slot = new Slot(key[0], null, new Date(1591366583), new Date(1591366583), "#ddd", "#ccc",
+                    join ? getTimeSlot(key[2]) : new TimeSlot(key[2], null, null),
+                    join || key[4] == 0 ? getEnseignant(key[4]) : new Enseignant(key[4], null, null, null, null),
+                    join ? getMatiere(key[3]) : new Matiere(key[3], null, null, null, null, null),
+                    join || key[5] == 0 ? getSalle(key[5]) : new Salle(key[5], null, null, null));
+            slot.setJour(join ? JourEnum.values()[key[1] - 1].toJour() : new Jour(key[1], null));
+            planning.getSlots().add(slot);
+        }
+        return planning;
+    }// getPlanning()
+
+    private Matiere getMatiere(int id) {
+        return new Matiere(id, "Matière " + id, "02:00", null, new Date(1591366583), new Date(1591366583));
+    }// getMatiere()
+
+    private Enseignant getEnseignant(int id) {
+        return id == 0 ? new Enseignant(0, null, null, null, null) : new Enseignant(id, "Nom " + id, "Prénom " + id, new Date(1591366583), new Date(1591366583));
+    }// getEnseignant()
+
+    private Salle getSalle(int id) {
+        return id == 0 ? new Salle(0, null, null, null) : new Salle(id, "Salle " + id, new Date(1591366583), new Date(1591366583));
+    }// getSalle()
+
+    private TimeSlot getTimeSlot(int id) {
+        return new TimeSlot(id, LocalTime.of(7 + id, 0), LocalTime.of(8 + id, 0));
+    }// getTimeSlot()
+
+    private Planning getPlanningWithSlotKeys(int idEnseignant, int idSalle) {
+        Planning planning = new Planning();
+        planning.setId(1);
+        planning.setNom("P1");
+        Classe classe = new Classe();
+        classe.setId(1);
+        planning.setClasse(classe);
+        planning.setSlots(new ArrayList<>());
+        for (int i = 1; i <= 2; ++i) {
+            Enseignant enseignant = new Enseignant();
+            enseignant.setId(idEnseignant);
+            Matiere matiere = new Matiere();
+            matiere.setId(1);
+            Salle salle = new Salle();
+            salle.setId(idSalle);
+            TimeSlot timeSlot = new TimeSlot();
+            timeSlot.setId(1);
+            Slot slot = new Slot(i, null, new Date(1591366583), new Date(), "#ddd", "#ccc", timeSlot, enseignant, matiere, salle);
+            slot.setJour(new Jour(1, null));
+            planning.getSlots().add(slot);
+        }
+        return planning;
+    }// getPlanningWithSlotKeys()
+
     private List<Planning> getFullPlannings() {
         List<Planning> plannings = new ArrayList<>();
         Planning planning = new Planning();
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
+import com.education.project.enums.JourEnum;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.*;
+import com.education.project.persistence.OptionsRepository;
+import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.SlotRepository;
+import com.education.project.persistence.TimeSlotRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PlanningSolverServiceUT {
+
+    private PlanningSolverService planningSolverService;
+
+    private ForkJoinPool pool;
+
+    @Mock
+    private ClasseService classeService;
+
+    @Mock
+    private MatiereService matiereService;
+
+    @Mock
+    private EnseignantService enseignantService;
+
+    @Mock
+    private SalleService salleService;
+
+    @Mock
+    private OptionsRepository optionsRepository;
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private SlotRepository slotRepository;
+
+    @Mock
+    private PlanningRepository planningRepository;
+
+    @Mock
+    private PlanningGeneratedCache planningGeneratedCache;
+
+    private Matiere maths = new Matiere(1, "Mathématiques", "03:00", null, null, null);
+
+    private Matiere francais = new Matiere(2, "Français", "02:00", null, null, null);
+
+    private Enseignant enseignant = new Enseignant(3, "Durand", "Paul", null, null);
+
+    private Salle salle = new Salle(4, "Salle 4", null, null);
+
+    @Before
+    public void setUp() {
+        this.pool = new ForkJoinPool(2);
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(optionsRepository, timeSlotRepository);
+        OccupancyIndex occupancyIndex = new OccupancyIndex(slotRepository, planningRepository, referenceDataCache);
+        this.planningSolverService = new PlanningSolverService(classeService, matiereService, enseignantService, salleService,
+                referenceDataCache, occupancyIndex, planningGeneratedCache, slotRepository, planningRepository, pool, 5000, 5000);
+    }//setUp()
+
+    @After
+    public void tearDown() {
+        this.pool.shutdown();
+    }//tearDown()
+
+    @Test
+    public void solve_planning_should_place_volumes_without_conflicts() throws ArgumentException, DataBaseException {
+        mockReferences();
+        Slot busySlot = new Slot(9, null, null, null, "#0000FF", "#000", new TimeSlot(5, LocalTime.of(8, 0), LocalTime.of(10, 0)), enseignant, maths, null);
+        busySlot.setJour(JourEnum.LUNDI.toJour());
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Collections.singletonList(busySlot));
+        PlanningSolveRequest request = request();
+        request.setWednesdayUsed(false);
+        PlanningSolution solution = planningSolverService.solvePlanning(request);
+        Assertions.assertThat(solution.isFeasible()).isTrue();
+        Assertions.assertThat(solution.getHardScore()).isZero();
+        Assertions.assertThat(solution.getWarnings()).isEmpty();
+        Assertions.assertThat(solution.getProgress()).isNotEmpty();
+        Planning planning = solution.getPlanning();
+        Assertions.assertThat(planning.getNom()).isEqualTo("Planning 6ème A");
+        Assertions.assertThat(planning.getClasse().getId()).isEqualTo(1);
+        Map<Integer, Long> minutesByMatiere = new HashMap<>();
+        for (Slot slot : planning.getSlots()) {
+            Assertions.assertThat(slot.getId()).isNull();
+            Assertions.assertThat(slot.getEnseignant()).isEqualTo(enseignant);
+            Assertions.assertThat(slot.getSalle()).isEqualTo(salle);
+            Assertions.assertThat(slot.getCouleurFond()).isNotNull();
+            Assertions.assertThat(slot.getJour().getId()).isNotEqualTo(JourEnum.MERCREDI.getVal()).isNotEqualTo(JourEnum.SAMEDI.getVal());
+            Assertions.assertThat(slot.getTimeSlot().getEnd()).isBeforeOrEqualTo(LocalTime.of(12, 0));
+            boolean busy = slot.getJour().getId() == JourEnum.LUNDI.getVal() && slot.getTimeSlot().getStart().isBefore(LocalTime.of(10, 0));
+            Assertions.assertThat(busy).isFalse();
+            minutesByMatiere.merge(slot.getMatiere().getId(), ChronoUnit.MINUTES.between(slot.getTimeSlot().getStart(), slot.getTimeSlot().getEnd()), Long::sum);
+            for (Slot other : planning.getSlots()) {
+                boolean overlaps = other != slot && other.getJour().getId().equals(slot.getJour().getId())
+                        && other.getTimeSlot().getStart().isBefore(slot.getTimeSlot().getEnd()) && slot.getTimeSlot().getStart().isBefore(other.getTimeSlot().getEnd());
+                Assertions.assertThat(overlaps).isFalse();
+            }
+        }
+        Assertions.assertThat(minutesByMatiere).containsEntry(1, 180L).containsEntry(2, 120L);
+        Assertions.assertThat(planning.getSlots()).extracting(Slot::getCouleurFond).doesNotContainNull();
+        Assertions.assertThat(planning.getSlots().stream().map(Slot::getCouleurFond).distinct()).hasSize(2);
+    }//solve_planning_should_place_volumes_without_conflicts()
+
+    @Test
+    public void solve_planning_should_warn_when_volume_cannot_be_reached() throws ArgumentException, DataBaseException {
+        mockReferences();
+        Matiere sport = new Matiere(5, "Sport", "01:30", null, null, null);
+        Mockito.when(matiereService.getMatiere(5)).thenReturn(Optional.of(sport));
+        PlanningSolveRequest request = request();
+        request.setMatieres(Arrays.asList(1, 5));
+        PlanningSolution solution = planningSolverService.solvePlanning(request);
+        Assertions.assertThat(solution.getWarnings()).containsExactly("Le volume horaire de la matière Sport (01:30) ne peut pas être atteint avec les créneaux horaires disponibles : 01:00 placées");
+        Assertions.assertThat(solution.getPlanning().getSlots()).filteredOn(slot -> slot.getMatiere() == sport).hasSize(1);
+    }//solve_planning_should_warn_when_volume_cannot_be_reached()
+
+    @Test
+    public void solve_planning_should_throw_argument_exception_when_references_are_unknown() throws DataBaseException {
+        Mockito.when(classeService.getClasse(1)).thenReturn(Optional.empty());
+        Mockito.when(matiereService.getMatiere(1)).thenReturn(Optional.empty());
+        Mockito.when(optionsRepository.getOptions()).thenReturn(Optional.of(new Options(60, LocalTime.of(8, 0), LocalTime.of(12, 0))));
+        PlanningSolveRequest request = new PlanningSolveRequest(1, Collections.singletonList(1), null, null);
+        request.setTimeBudgetMillis(60000L);
+        Assertions.assertThatThrownBy(() -> planningSolverService.solvePlanning(request))
+                .isInstanceOf(ArgumentException.class)
+                .extracting("erreurs").asList()
+                .containsExactly("La classe n°1 n'existe pas", "La matière n°1 n'existe pas", "Le temps de recherche doit être compris entre 1 et 5000 ms");
+    }//solve_planning_should_throw_argument_exception_when_references_are_unknown()
+
+    @Test
+    public void solve_plannings_should_share_enseignant_between_classes_and_save_plannings() throws ArgumentException, DataBaseException {
+        mockReferences();
+        Mockito.when(classeService.getClasse(2)).thenReturn(Optional.of(new Classe(2, "6ème B", null, null)));
+        Matiere quatreHeures = new Matiere(6, "Histoire", "04:00", null, null, null);
+        Mockito.when(matiereService.getMatiere(6)).thenReturn(Optional.of(quatreHeures));
+        Mockito.when(planningRepository.insertAllWithSlots(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<Planning> plannings = invocation.getArgument(0);
+            int id = 100;
+            for (Planning planning : plannings) {
+                planning.setId(id++);
+                for (Slot slot : planning.getSlots()) {
+                    slot.setId(id++);
+                }
+            }
+            return plannings;
+        });
+        PlanningsSolveRequest request = new PlanningsSolveRequest(Arrays.asList(
+                new PlanningSolveRequest(1, Collections.singletonList(6), Collections.singletonList(3), null),
+                new PlanningSolveRequest(2, Collections.singletonList(6), Collections.singletonList(3), null)));
+        request.getPlannings().forEach(planningRequest -> planningRequest.setWednesdayUsed(false));
+        request.setTimeBudgetMillis(500L);
+        PlanningsSolution solution = planningSolverService.solvePlannings(request);
+        Assertions.assertThat(solution.isFeasible()).isTrue();
+        Assertions.assertThat(solution.isSaved()).isTrue();
+        Assertions.assertThat(solution.getPlannings()).extracting(Planning::getId).containsExactly(100, 103);
+        List<Slot> slots = new ArrayList<>();
+        solution.getPlannings().forEach(planning -> slots.addAll(planning.getSlots()));
+        Assertions.assertThat(slots).hasSize(4);
+        Assertions.assertThat(slots).extracting(slot -> slot.getTimeSlot().getId()).containsOnly(5);
+        for (Slot slot : slots) {
+            Assertions.assertThat(slot.getId()).isNotNull();
+            Assertions.assertThat(slot.getCreationDate()).isNotNull();
+            for (Slot other : slots) {
+                boolean overlaps = other != slot && other.getJour().getId().equals(slot.getJour().getId())
+                        && other.getTimeSlot().getStart().isBefore(slot.getTimeSlot().getEnd()) && slot.getTimeSlot().getStart().isBefore(other.getTimeSlot().getEnd());
+                Assertions.assertThat(overlaps).isFalse();
+            }
+        }
+        Mockito.verify(planningRepository).insertAllWithSlots(solution.getPlannings());
+        Mockito.verify(planningGeneratedCache).invalidatePlanning(100);
+        Mockito.verify(planningGeneratedCache).invalidatePlanning(103);
+    }//solve_plannings_should_share_enseignant_between_classes_and_save_plannings()
+
+    @Test
+    public void solve_plannings_should_not_save_unfeasible_plannings() throws ArgumentException, DataBaseException {
+        mockReferences();
+        Mockito.when(classeService.getClasse(2)).thenReturn(Optional.of(new Classe(2, "6ème B", null, null)));
+        Matiere neufHeures = new Matiere(6, "Histoire", "09:00", null, null, null);
+        Mockito.when(matiereService.getMatiere(6)).thenReturn(Optional.of(neufHeures));
+        PlanningsSolveRequest request = new PlanningsSolveRequest(Arrays.asList(
+                new PlanningSolveRequest(1, Collections.singletonList(6), Collections.singletonList(3), null),
+                new PlanningSolveRequest(2, Collections.singletonList(6), Collections.singletonList(3), null)));
+        request.getPlannings().forEach(planningRequest -> planningRequest.setWednesdayUsed(false));
+        request.setTimeBudgetMillis(200L);
+        PlanningsSolution solution = planningSolverService.solvePlannings(request);
+        Assertions.assertThat(solution.isFeasible()).isFalse();
+        Assertions.assertThat(solution.isSaved()).isFalse();
+        Assertions.assertThat(solution.getHardScore()).isPositive();
+        Assertions.assertThat(solution.getWarnings()).contains("Les plannings n'ont pas été enregistrés");
+        Mockito.verify(planningRepository, Mockito.never()).insertAllWithSlots(ArgumentMatchers.anyList());
+    }//solve_plannings_should_not_save_unfeasible_plannings()
+
+    @Test
+    public void solve_plannings_should_throw_argument_exception_when_classe_is_requested_twice() throws DataBaseException {
+        Mockito.when(classeService.getClasse(1)).thenReturn(Optional.of(new Classe(1, "6ème A", null, null)));
+        Mockito.when(matiereService.getMatiere(1)).thenReturn(Optional.of(maths));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(Optional.of(new Options(60, LocalTime.of(8, 0), LocalTime.of(12, 0))));
+        PlanningsSolveRequest request = new PlanningsSolveRequest(Arrays.asList(
+                new PlanningSolveRequest(1, Collections.singletonList(1), null, null),
+                new PlanningSolveRequest(1, null, null, null)));
+        Assertions.assertThatThrownBy(() -> planningSolverService.solvePlannings(request))
+                .isInstanceOf(ArgumentException.class)
+                .extracting("erreurs").asList()
+                .containsExactly("Planning n°2 : la classe n°1 est déjà demandée par un autre planning", "Planning n°2 : au moins une matière est obligatoire");
+    }//solve_plannings_should_throw_argument_exception_when_classe_is_requested_twice()
+
+    private PlanningSolveRequest request() {
+        PlanningSolveRequest request = new PlanningSolveRequest(1, Arrays.asList(1, 2), Collections.singletonList(3), Collections.singletonList(4));
+        request.setTimeBudgetMillis(1000L);
+        return request;
+    }// request()
+
+    private void mockReferences() throws DataBaseException {
+        Mockito.when(classeService.getClasse(1)).thenReturn(Optional.of(new Classe(1, "6ème A", null, null)));
+        Mockito.when(matiereService.getMatiere(1)).thenReturn(Optional.of(maths));
+        Mockito.lenient().when(matiereService.getMatiere(2)).thenReturn(Optional.of(francais));
+        Mockito.when(enseignantService.getEnseignant(3)).thenReturn(Optional.of(enseignant));
+        Mockito.when(salleService.getSalle(4)).thenReturn(Optional.of(salle));
+        Mockito.when(optionsRepository.getOptions()).thenReturn(Optional.of(new Options(60, LocalTime.of(8, 0), LocalTime.of(12, 0))));
+        Mockito.when(timeSlotRepository.findAll(null, null)).thenReturn(Arrays.asList(
+                new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(9, 0)),
+                new TimeSlot(2, LocalTime.of(9, 0), LocalTime.of(10, 0)),
+                new TimeSlot(3, LocalTime.of(10, 0), LocalTime.of(11, 0)),
+                new TimeSlot(4, LocalTime.of(11, 0), LocalTime.of(12, 0)),
+                new TimeSlot(5, LocalTime.of(8, 0), LocalTime.of(10, 0)),
+                new TimeSlot(6, LocalTime.of(12, 0), LocalTime.of(13, 0))));
+    }// mockReferences()
+
+}// PlanningSolverServiceUT
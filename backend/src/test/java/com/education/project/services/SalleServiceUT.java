@@ -15,10 +15,14 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.EntityCaches;
+import com.education.project.cache.PlanningGeneratedCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.Page;
 import com.education.project.model.Salle;
 import com.education.project.persistence.SalleRepository;
+import com.education.project.utils.CursorUtils;
 import org.assertj.core.api.Assertions;
 import org.junit.Assert;
 import org.junit.Before;
@@ -42,7 +46,7 @@ public class SalleServiceUT {
 
     @Before
     public void setUp(){
-        this.salleService = new SalleService(salleRepository);
+        this.salleService = new SalleService(salleRepository, new PlanningGeneratedCache(100), false, new EntityCaches(100, 300));
     }//setUp()
 
     @Test
@@ -387,6 +391,79 @@ public class SalleServiceUT {
         return salle;
     }
 
+    @Test
+    public void get_salles_after_should_return_next_cursor_when_more_salles_exist() throws ArgumentException, DataBaseException {
+        List<Salle> salles = initSalles();
+        Mockito.when(salleRepository.getSallesAfter(null, null, 4)).thenReturn(salles);
+        Page<Salle> page = salleService.getSallesAfter(null, "", 3);
+        Assertions.assertThat(page.getItems()).hasSize(3);
+        Assertions.assertThat(page.getNextCursor()).isNotNull();
+        CursorUtils.Cursor cursor = CursorUtils.decode(page.getNextCursor());
+        Assertions.assertThat(cursor.getKey()).isEqualTo("Amphithéâtre A4");
+        Assertions.assertThat(cursor.getId()).isEqualTo(3);
+    }//get_salles_after_should_return_next_cursor_when_more_salles_exist()
+
+    @Test
+    public void get_salles_after_should_return_last_page_without_cursor() throws ArgumentException, DataBaseException {
+        List<Salle> salles = initSalles();
+        Mockito.when(salleRepository.getSallesAfter(Mockito.eq("B"), Mockito.any(CursorUtils.Cursor.class), Mockito.eq(21))).thenReturn(salles);
+        Page<Salle> page = salleService.getSallesAfter("B", CursorUtils.encode("Amphi", 1), null);
+        Assertions.assertThat(page.getItems()).hasSize(4);
+        Assertions.assertThat(page.getNextCursor()).isNull();
+    }//get_salles_after_should_return_last_page_without_cursor()
+
+    @Test
+    public void get_salles_after_should_throw_exception_when_cursor_is_invalid(){
+        Assertions.assertThatThrownBy(() -> salleService.getSallesAfter(null, "%%%", 10)).isInstanceOf(ArgumentException.class);
+    }//get_salles_after_should_throw_exception_when_cursor_is_invalid()
+
+    @Test
+    public void get_salles_page_should_return_items_and_total_in_one_query() throws DataBaseException {
+        List<Salle> salles = initSalles();
+        Mockito.when(salleRepository.getSallesPage("B", 1, 20)).thenReturn(new Page<>(salles, 9));
+        Page<Salle> page = salleService.getSallesPage("B", null, null);
+        Assertions.assertThat(page.getItems()).hasSize(4);
+        Assertions.assertThat(page.getTotal()).isEqualTo(9L);
+        Mockito.verify(salleRepository, Mockito.never()).countByName(Mockito.any());
+    }//get_salles_page_should_return_items_and_total_in_one_query()
+
+    @Test
+    public void get_salles_page_should_count_salles_when_page_is_after_last_page() throws DataBaseException {
+        Mockito.when(salleRepository.getSallesPage(null, 5, 10)).thenReturn(new Page<>(new ArrayList<>(), 0));
+        Mockito.when(salleRepository.countByName(null)).thenReturn(12L);
+        Page<Salle> page = salleService.getSallesPage(null, 5, 10);
+        Assertions.assertThat(page.getItems()).isEmpty();
+        Assertions.assertThat(page.getTotal()).isEqualTo(12L);
+    }//get_salles_page_should_count_salles_when_page_is_after_last_page()
+
+    @Test
+    public void get_salles_should_search_trigram_index_without_accents_and_rank_results() throws DataBaseException {
+        SalleService salleServiceWithIndex = new SalleService(salleRepository, new PlanningGeneratedCache(100), true, new EntityCaches(100, 300));
+        Mockito.when(salleRepository.getSalles(null, null, null)).thenReturn(initSalles());
+        List<Salle> amphis = salleServiceWithIndex.getSalles("amphitheatre", null, null);
+        List<Salle> b2 = salleServiceWithIndex.getSalles("B2", 1, 10);
+        Assertions.assertThat(amphis).extracting(Salle::getId).containsExactly(3, 2);
+        Assertions.assertThat(b2).extracting(Salle::getId).containsExactly(1, 2);
+        Assertions.assertThat(salleServiceWithIndex.countSalles("ÂTRE")).isEqualTo(2L);
+        Mockito.verify(salleRepository, Mockito.times(1)).getSalles(null, null, null);
+        Mockito.verify(salleRepository, Mockito.never()).getSalles(Mockito.eq("amphitheatre"), Mockito.any(), Mockito.any());
+    }//get_salles_should_search_trigram_index_without_accents_and_rank_results()
+
+    @Test
+    public void trigram_index_should_follow_insert_and_delete() throws DataBaseException, ArgumentException {
+        SalleService salleServiceWithIndex = new SalleService(salleRepository, new PlanningGeneratedCache(100), true, new EntityCaches(100, 300));
+        Mockito.when(salleRepository.getSalles(null, null, null)).thenReturn(initSalles());
+        Salle salle = new Salle(5, "Amphi C", null, null);
+        Mockito.when(salleRepository.insert(salle)).thenReturn(Optional.of(salle));
+        Mockito.when(salleRepository.delete(3)).thenReturn(true);
+        Assertions.assertThat(salleServiceWithIndex.getSallesPage("amphi", 1, 10).getTotal()).isEqualTo(2L);
+        salleServiceWithIndex.insertSalle(salle);
+        salleServiceWithIndex.deleteSalle(3);
+        Page<Salle> page = salleServiceWithIndex.getSallesPage("amphi", 1, 10);
+        Assertions.assertThat(page.getItems()).extracting(Salle::getId).containsExactly(5, 2);
+        Assertions.assertThat(page.getTotal()).isEqualTo(2L);
+    }//trigram_index_should_follow_insert_and_delete()
+
     private List<Salle> initSalles(){
         List<Salle> salle = new ArrayList<>();
         Date now = new Date();
@@ -15,10 +15,13 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.*;
-import com.education.project.persistence.SlotRepository;
+import com.education.project.persistence.*;
 import com.education.project.utils.ColorUtils;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
@@ -28,6 +31,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.IOException;
 import java.time.LocalTime;
 import java.util.*;
 
@@ -47,7 +51,8 @@ public class SlotServiceUT {
     @Before
     public void setUp() throws DataBaseException {
         Date now = new Date();
-        this.slotService = new SlotService(slotRepository);
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(Mockito.mock(OptionsRepository.class), Mockito.mock(TimeSlotRepository.class));
+        this.slotService = new SlotService(slotRepository, new PlanningGeneratedCache(100), new OccupancyIndex(slotRepository, Mockito.mock(PlanningRepository.class), referenceDataCache));
         TimeSlot timeSlot = new TimeSlot(1,LocalTime.of(8,0),LocalTime.of(10,0));
         Matiere matiere = new Matiere("Mathématiques",null,null);
         matiere.setId(1);
@@ -253,6 +258,102 @@ public class SlotServiceUT {
                 .isInstanceOf(ArgumentException.class);
     }//create_slot_should_throw_exception_when_slot_fond_color_already_exists
 
+    @Test
+    public void create_slot_should_throw_exception_when_enseignant_is_busy_on_an_overlapping_timeslot() throws DataBaseException {
+        Slot busySlot = new Slot(7, null, null, null, "#0000FF", "#000", new TimeSlot(2, LocalTime.of(9, 0), LocalTime.of(11, 0)), new Enseignant(3, "Durand", "Paul", null, null), this.slotToInsert.getMatiere(), null);
+        busySlot.setJour(new Jour(1, "Lundi"));
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Collections.singletonList(busySlot));
+        this.slotToInsert.setId(null);
+        this.slotToInsert.setEnseignant(new Enseignant(3, "Durand", "Paul", null, null));
+        Assertions.assertThatThrownBy(() -> slotService.insertSlot(slotToInsert))
+                .hasMessage("L'enseignant est déjà occupé par le slot n°7 sur ce créneau")
+                .isInstanceOf(ArgumentException.class);
+        this.slotToInsert.setJour(new Jour(2, "Mardi"));
+        Mockito.when(slotRepository.countByJour(2, this.slotToInsert.getTimeSlot())).thenReturn(0L);
+        Mockito.when(slotRepository.insert(slotToInsert)).thenReturn(Optional.of(slotToInsert));
+        Assertions.assertThatCode(() -> slotService.insertSlot(slotToInsert)).doesNotThrowAnyException();
+    }//create_slot_should_throw_exception_when_enseignant_is_busy_on_an_overlapping_timeslot()
+
+    @Test
+    public void insert_slots_should_check_all_slots_against_one_read_and_insert_them_in_one_batch() throws ArgumentException, DataBaseException {
+        Slot otherSlot = new Slot(null, null, null, "#00FF00", "#000", this.slotToInsert.getTimeSlot(), this.slotToInsert.getMatiere());
+        otherSlot.setJour(new Jour(1, "Lundi"));
+        this.slotToInsert.setId(null);
+        List<Slot> slotsToInsert = Arrays.asList(this.slotToInsert, otherSlot);
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        counts.put(1, new HashMap<>(Collections.singletonMap(1, 1L)));
+        Mockito.when(slotRepository.countByJourAndTimeslot()).thenReturn(counts);
+        Mockito.when(slotRepository.findMatieresByCouleurFond(new HashSet<>(Arrays.asList("#FF0000", "#00FF00"))))
+                .thenReturn(new HashMap<>(Collections.singletonMap("#FF0000", new HashSet<>(Collections.singletonList(1)))));
+        Mockito.when(slotRepository.insertAll(slotsToInsert)).thenAnswer(invocation -> {
+            for (int i = 0; i < slotsToInsert.size(); ++i) {
+                slotsToInsert.get(i).setId(10 + i);
+            }
+            return slotsToInsert;
+        });
+        List<BulkItemResult<Slot>> results = slotService.insertSlots(slotsToInsert);
+        Assertions.assertThat(results).hasSize(2);
+        Assertions.assertThat(results).allMatch(result -> result.getErreurs().isEmpty());
+        Assertions.assertThat(results.get(0).getValue().getId()).isEqualTo(10);
+        Assertions.assertThat(results.get(1).getValue().getId()).isEqualTo(11);
+        Assertions.assertThat(results.get(1).getValue().getCreationDate()).isNotNull();
+        Mockito.verify(slotRepository, Mockito.never()).isExistByColorFondAndByDiscipline(Mockito.any());
+        Mockito.verify(slotRepository, Mockito.never()).insert(Mockito.any());
+    }//insert_slots_should_check_all_slots_against_one_read_and_insert_them_in_one_batch()
+
+    @Test
+    public void insert_slots_should_insert_nothing_when_batch_exceeds_slots_of_same_day_and_timeslot() throws ArgumentException, DataBaseException {
+        Slot otherSlot = new Slot(null, null, null, "#00FF00", "#000", this.slotToInsert.getTimeSlot(), this.slotToInsert.getMatiere());
+        otherSlot.setJour(new Jour(1, "Lundi"));
+        Slot invalidSlot = new Slot(null, null, null, "#00FF00", "#00FF00", this.slotToInsert.getTimeSlot(), this.slotToInsert.getMatiere());
+        invalidSlot.setJour(new Jour(2, "Mardi"));
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        counts.put(1, new HashMap<>(Collections.singletonMap(1, 2L)));
+        Mockito.when(slotRepository.countByJourAndTimeslot()).thenReturn(counts);
+        Mockito.when(slotRepository.findMatieresByCouleurFond(Mockito.anySet())).thenReturn(new HashMap<>());
+        List<BulkItemResult<Slot>> results = slotService.insertSlots(Arrays.asList(this.slotToInsert, otherSlot, invalidSlot));
+        Assertions.assertThat(results).hasSize(3);
+        Assertions.assertThat(results.get(0).getErreurs()).isEmpty();
+        Assertions.assertThat(results.get(1).getErreurs()).containsExactly("Le nombre de slots pour le même jour et le même créneau horaire est limité à 2 slots");
+        Assertions.assertThat(results.get(2).getErreurs()).containsExactly("La couleur de fond et de la police ne peuvent pas être la même");
+        Assertions.assertThat(results).allMatch(result -> result.getValue() == null);
+        Mockito.verify(slotRepository, Mockito.never()).insertAll(Mockito.any());
+    }//insert_slots_should_insert_nothing_when_batch_exceeds_slots_of_same_day_and_timeslot()
+
+    @Test
+    public void update_slots_should_update_nothing_when_slots_are_moved_into_a_full_day_and_timeslot() throws ArgumentException, DataBaseException {
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        counts.put(1, new HashMap<>(Collections.singletonMap(1, 2L)));
+        counts.put(2, new HashMap<>(Collections.singletonMap(1, 3L)));
+        Mockito.when(slotRepository.countByJourAndTimeslot()).thenReturn(counts);
+        Mockito.when(slotRepository.findJourAndTimeslotByIds(Set.of(21, 22, 23))).thenReturn(Map.of(
+                21, movedSlot(21, 2), 22, movedSlot(22, 2), 23, movedSlot(23, 2)));
+        // Un par un, seul le premier déplacement vers le lundi serait accepté
+        List<BulkItemResult<Slot>> results = slotService.updateSlots(Arrays.asList(movedSlot(21, 1), movedSlot(22, 1), movedSlot(23, 1)));
+        Assertions.assertThat(results).hasSize(3);
+        Assertions.assertThat(results.get(0).getErreurs()).isEmpty();
+        Assertions.assertThat(results.get(1).getErreurs()).containsExactly("Le nombre de slots pour le même jour et le même créneau horaire est limité à 2 slots");
+        Assertions.assertThat(results.get(2).getErreurs()).containsExactly("Le nombre de slots pour le même jour et le même créneau horaire est limité à 2 slots");
+        Assertions.assertThat(results).allMatch(result -> result.getValue() == null);
+        Mockito.verify(slotRepository, Mockito.never()).updateAll(Mockito.any());
+    }//update_slots_should_update_nothing_when_slots_are_moved_into_a_full_day_and_timeslot()
+
+    @Test
+    public void update_slots_should_count_slots_moved_by_the_same_request_as_if_they_were_updated_one_by_one() throws ArgumentException, DataBaseException {
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        counts.put(1, new HashMap<>(Collections.singletonMap(1, 3L)));
+        counts.put(2, new HashMap<>(Collections.singletonMap(1, 2L)));
+        Mockito.when(slotRepository.countByJourAndTimeslot()).thenReturn(counts);
+        Mockito.when(slotRepository.findJourAndTimeslotByIds(Set.of(21, 22, 24))).thenReturn(Map.of(
+                21, movedSlot(21, 2), 22, movedSlot(22, 2), 24, movedSlot(24, 1)));
+        // 24 libère une place le lundi, prise par 21 : 22 ne peut plus y aller
+        List<BulkItemResult<Slot>> results = slotService.updateSlots(Arrays.asList(movedSlot(24, 3), movedSlot(21, 1), movedSlot(22, 1)));
+        Assertions.assertThat(results.get(0).getErreurs()).isEmpty();
+        Assertions.assertThat(results.get(1).getErreurs()).isEmpty();
+        Assertions.assertThat(results.get(2).getErreurs()).containsExactly("Le nombre de slots pour le même jour et le même créneau horaire est limité à 2 slots");
+        Mockito.verify(slotRepository, Mockito.never()).updateAll(Mockito.any());
+    }//update_slots_should_count_slots_moved_by_the_same_request_as_if_they_were_updated_one_by_one()
+
     @Test
     public void get_slot_should_return_slot_when_id_is_1() throws DataBaseException {
         this.slotToGet.setId(1);
@@ -444,6 +545,26 @@ public class SlotServiceUT {
         Assertions.assertThat(result).isFalse();
     }//delete_slot_should_success_when_id_is_30()
 
+    @Test
+    public void slots_etag_should_change_on_each_write_in_the_same_second() throws ArgumentException, DataBaseException {
+        // Empreinte en base identique : nombre de slots et dates de modification à la seconde près inchangés
+        Mockito.when(slotRepository.getSlotsVersion()).thenReturn("4-1591366000000-0-0-0");
+        Mockito.when(slotRepository.update(slotToUpdate)).thenReturn(Optional.of(slotFromBd));
+        Mockito.when(slotRepository.deleteSlot(this.slotToDelete.getId())).thenReturn(true);
+        Mockito.when(slotRepository.insert(slotToInsert)).thenReturn(Optional.of(slotFromBd));
+        Set<String> etags = new HashSet<>();
+        etags.add(slotService.getSlotsEtag(Collections.emptyMap()));
+        slotService.updateSlot(slotToUpdate);
+        etags.add(slotService.getSlotsEtag(Collections.emptyMap()));
+        slotService.updateSlot(slotToUpdate);
+        etags.add(slotService.getSlotsEtag(Collections.emptyMap()));
+        slotService.deleteSlot(this.slotToDelete.getId());
+        slotService.insertSlot(slotToInsert);
+        etags.add(slotService.getSlotsEtag(Collections.emptyMap()));
+        Assertions.assertThat(etags).hasSize(4);
+        Assertions.assertThat(slotService.getSlotsEtag(Collections.emptyMap())).isIn(etags);
+    }//slots_etag_should_change_on_each_write_in_the_same_second()
+
     @Test
     public void count_slots_should_return_4L_when_no_filters_given() throws DataBaseException {
         Map<String,String> mapSlot = new HashMap<>();
@@ -1451,6 +1572,54 @@ public class SlotServiceUT {
         Assertions.assertThat(slots.get(0).getSalle().getModificationDate()).isEqualTo(slotsFromBd.get(0).getSalle().getModificationDate());
     }//get_slots_should_return_results_when_param_salle_name_is_C4()
 
+    @Test
+    public void get_slots_etag_should_not_depend_on_params_order_and_change_with_version() throws DataBaseException {
+        Map<String,String> params = new LinkedHashMap<>();
+        params.put("salleNom","C4");
+        params.put("matiereNom","Français");
+        Map<String,String> sameParams = new LinkedHashMap<>();
+        sameParams.put("matiereNom","Français");
+        sameParams.put("salleNom","C4");
+        Mockito.when(slotRepository.getSlotsVersion()).thenReturn("4-1593880801-1593880801-0-0", "4-1593880801-1593880801-0-0", "4-1593880999-1593880801-0-0");
+        String etag = slotService.getSlotsEtag(params);
+        Assertions.assertThat(etag).startsWith("\"").endsWith("\"");
+        Assertions.assertThat(slotService.getSlotsEtag(sameParams)).isEqualTo(etag);
+        Assertions.assertThat(slotService.getSlotsEtag(params)).isNotEqualTo(etag);
+    }//get_slots_etag_should_not_depend_on_params_order_and_change_with_version()
+
+    @Test
+    public void stream_slots_should_pass_each_slot_read_to_the_handler() throws DataBaseException, IOException {
+        Map<String,String> params = new HashMap<>();
+        List<Slot> slotsFromBd = initSlotsFromBd();
+        Mockito.doAnswer(invocation -> {
+            RowHandler<Slot> handler = invocation.getArgument(1);
+            for (Slot slot : slotsFromBd) {
+                handler.handle(slot);
+            }
+            return null;
+        }).when(slotRepository).streamSlots(Mockito.eq(params), Mockito.any());
+        List<Slot> slotsRead = new ArrayList<>();
+        slotService.streamSlots(params, slotsRead::add);
+        Assertions.assertThat(slotsRead).containsExactlyElementsOf(slotsFromBd);
+        Mockito.verify(slotRepository, Mockito.never()).getSlots(Mockito.any());
+    }//stream_slots_should_pass_each_slot_read_to_the_handler()
+
+    @Test
+    public void get_slots_page_should_bound_nb_elements_per_page_and_default_page_to_1() throws DataBaseException {
+        Map<String,String> params = new HashMap<>();
+        params.put("matiereNom", "Math");
+        params.put("nbElementsPerPage", "5000");
+        List<Slot> slotsFromBd = initSlotsFromBd();
+        Map<String,String> expectedParams = new HashMap<>(params);
+        expectedParams.put("page", "1");
+        expectedParams.put("nbElementsPerPage", "100");
+        Mockito.when(slotRepository.getSlotsPage(expectedParams)).thenReturn(new Page<>(slotsFromBd, slotsFromBd.size()));
+        Page<Slot> page = slotService.getSlotsPage(params);
+        Assertions.assertThat(page.getItems()).hasSize(slotsFromBd.size());
+        Assertions.assertThat(page.getTotal()).isEqualTo((long) slotsFromBd.size());
+        Mockito.verify(slotRepository, Mockito.never()).countSlot(Mockito.any());
+    }//get_slots_page_should_bound_nb_elements_per_page_and_default_page_to_1()
+
     private List<Slot> initSlotsFromBd(){
         Date now = new Date();
         List<Slot> slots = new ArrayList<>();
@@ -1490,4 +1659,10 @@ public class SlotServiceUT {
         slots.add(slot4);
         return slots;
     }//initSlotsFromBd()
+
+    private Slot movedSlot(int id, int idJour) {
+        Slot slot = new Slot(id, null, null, null, "#00FF00", "#000", new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(10, 0)), null, this.slotToInsert.getMatiere(), null);
+        slot.setJour(new Jour(idJour, null));
+        return slot;
+    }//movedSlot()
 }//SlotServiceUT()
@@ -15,6 +15,8 @@
  */
 package com.education.project.services;
 
+import com.education.project.cache.PlanningGeneratedCache;
+import com.education.project.cache.ReferenceDataCache;
 import com.education.project.exceptions.ArgumentException;
 import com.education.project.exceptions.DataBaseException;
 import com.education.project.model.Options;
@@ -51,7 +53,7 @@ public class TimeSlotServiceUT {
 
     @Before
     public void setUp() throws DataBaseException {
-        this.timeSlotService = new TimeSlotService(timeSlotRepository, optionsRepository);
+        this.timeSlotService = new TimeSlotService(timeSlotRepository, new ReferenceDataCache(optionsRepository, timeSlotRepository), new PlanningGeneratedCache(100));
         this.ts = new TimeSlot(LocalTime.of(8, 0), LocalTime.of(10, 0));
         TimeSlot tsFromBD = new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(10, 0));
         Mockito.when(timeSlotRepository.insert(this.ts)).thenReturn(Optional.of(tsFromBD));
@@ -136,7 +138,7 @@ public class TimeSlotServiceUT {
 
     @Test
     public void count_time_slots_should_return_2() throws DataBaseException {
-        Mockito.when(this.timeSlotRepository.count()).thenReturn(2L);
+        Mockito.when(this.timeSlotRepository.findAll(null, null)).thenReturn(mockTimeSlotsFromDataBase());
         Assertions.assertThat(this.timeSlotService.count()).isEqualTo(2);
     }// count_time_slots_should_return_2()
 
@@ -177,7 +179,7 @@ public class TimeSlotServiceUT {
     @Test
     public void get_time_slots_should_return_2_time_slots_with_pagination_1_element_per_page() throws DataBaseException{
         List<TimeSlot> mockTimeSlots = mockTimeSlotsFromDataBase();
-        Mockito.when(timeSlotRepository.findAll(1, 1)).thenReturn(mockTimeSlots.subList(0, 1));
+        Mockito.when(timeSlotRepository.findAll(null, null)).thenReturn(mockTimeSlots);
         List<TimeSlot> timeSlotList = timeSlotService.getTimeSlots(1, 1);
         Assertions.assertThat(timeSlotList).isNotEmpty();
         Assertions.assertThat(timeSlotList).isNotNull();
@@ -186,7 +188,6 @@ public class TimeSlotServiceUT {
         Assertions.assertThat(timeSlotList.get(0).getStart()).isEqualTo(mockTimeSlots.get(0).getStart());
         Assertions.assertThat(timeSlotList.get(0).getEnd()).isEqualTo(mockTimeSlots.get(0).getEnd());
 
-        Mockito.when(timeSlotRepository.findAll(2, 1)).thenReturn(mockTimeSlots.subList(1, 2));
         timeSlotList = timeSlotService.getTimeSlots(2, 1);
         Assertions.assertThat(timeSlotList).isNotEmpty();
         Assertions.assertThat(timeSlotList).isNotNull();
@@ -196,6 +197,19 @@ public class TimeSlotServiceUT {
         Assertions.assertThat(timeSlotList.get(0).getEnd()).isEqualTo(mockTimeSlots.get(1).getEnd());
     }// get_time_slots_should_return_2_time_slots_without_pagination()
 
+    @Test
+    public void get_time_slots_should_read_data_base_again_only_after_insert() throws DataBaseException, ArgumentException {
+        Mockito.when(timeSlotRepository.findAll(null, null)).thenReturn(mockTimeSlotsFromDataBase());
+        this.timeSlotService.getTimeSlots(null, null);
+        this.timeSlotService.getTimeSlots(1, 1);
+        Assertions.assertThat(this.timeSlotService.count()).isEqualTo(2);
+        Mockito.verify(timeSlotRepository, Mockito.times(1)).findAll(null, null);
+        this.timeSlotService.insert(this.ts);
+        this.timeSlotService.getTimeSlots(null, null);
+        Mockito.verify(timeSlotRepository, Mockito.times(2)).findAll(null, null);
+        Mockito.verify(timeSlotRepository, Mockito.never()).count();
+    }// get_time_slots_should_read_data_base_again_only_after_insert()
+
     private List<TimeSlot> mockTimeSlotsFromDataBase(){
         return Stream.of(new TimeSlot(1, LocalTime.of(8, 0), LocalTime.of(9, 0)),
                 new TimeSlot(2, LocalTime.of(9, 0), LocalTime.of(12, 0))
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.services;
+
+import com.education.project.cache.OccupancyIndex;
+import com.education.project.cache.ReferenceDataCache;
+import com.education.project.exceptions.ArgumentException;
+import com.education.project.exceptions.DataBaseException;
+import com.education.project.model.*;
+import com.education.project.persistence.OptionsRepository;
+import com.education.project.persistence.PlanningRepository;
+import com.education.project.persistence.SlotRepository;
+import com.education.project.persistence.TimeSlotRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalTime;
+import java.util.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkloadServiceUT {
+
+    private WorkloadService workloadService;
+
+    private OccupancyIndex occupancyIndex;
+
+    @Mock
+    private SlotRepository slotRepository;
+
+    @Mock
+    private PlanningRepository planningRepository;
+
+    @Before
+    public void setUp() {
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(Mockito.mock(OptionsRepository.class), Mockito.mock(TimeSlotRepository.class));
+        this.occupancyIndex = new OccupancyIndex(slotRepository, planningRepository, referenceDataCache);
+        this.workloadService = new WorkloadService(occupancyIndex);
+    }//setUp()
+
+    @Test
+    public void get_workloads_should_return_minutes_and_gaps_by_jour_of_each_enseignant() throws ArgumentException, DataBaseException {
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Arrays.asList(
+                slot(1, 1, LocalTime.of(8, 0), LocalTime.of(9, 0), 3, 5),
+                slot(2, 1, LocalTime.of(10, 0), LocalTime.of(12, 0), 3, 5),
+                slot(3, 2, LocalTime.of(8, 0), LocalTime.of(9, 30), 3, 6),
+                slot(4, 1, LocalTime.of(14, 0), LocalTime.of(15, 0), 4, 0)));
+        List<Workload> workloads = workloadService.getWorkloads("enseignant");
+        Assertions.assertThat(workloads).extracting(Workload::getIdRessource).containsExactly(3, 4);
+        Workload workload = workloads.get(0);
+        Assertions.assertThat(workload.getRessource()).isEqualTo("enseignant");
+        Assertions.assertThat(workload.getNbSlots()).isEqualTo(3);
+        Assertions.assertThat(workload.getMinutes()).isEqualTo(270);
+        Assertions.assertThat(workload.getMinutesByJour()).containsExactly(Map.entry(1, 180), Map.entry(2, 90));
+        Assertions.assertThat(workload.getGapMinutes()).isEqualTo(60);
+        Assertions.assertThat(workload.getGapMinutesByJour()).containsExactly(Map.entry(1, 60));
+        Assertions.assertThat(workloadService.getWorkloads("salle")).extracting(Workload::getIdRessource).containsExactly(5, 6);
+        Assertions.assertThat(workloadService.getWorkloads(null)).extracting(Workload::getRessource).containsExactly("enseignant", "enseignant", "salle", "salle");
+    }//get_workloads_should_return_minutes_and_gaps_by_jour_of_each_enseignant()
+
+    @Test
+    public void get_workloads_should_follow_slot_updates_and_deletions() throws ArgumentException, DataBaseException {
+        Mockito.when(slotRepository.findPlacements()).thenReturn(Arrays.asList(
+                slot(1, 1, LocalTime.of(8, 0), LocalTime.of(9, 0), 0, 5),
+                slot(2, 1, LocalTime.of(11, 0), LocalTime.of(12, 0), 0, 5)));
+        Assertions.assertThat(workloadService.getWorkloads("salle").get(0).getGapMinutes()).isEqualTo(120);
+        occupancyIndex.putSlot(slot(2, 1, LocalTime.of(9, 0), LocalTime.of(11, 0), 0, 5));
+        Workload workload = workloadService.getWorkloads("salle").get(0);
+        Assertions.assertThat(workload.getMinutes()).isEqualTo(180);
+        Assertions.assertThat(workload.getGapMinutes()).isZero();
+        occupancyIndex.removeSlot(1);
+        occupancyIndex.removeSlot(2);
+        Assertions.assertThat(workloadService.getWorkloads("salle")).isEmpty();
+        Mockito.verify(slotRepository, Mockito.times(1)).findPlacements();
+    }//get_workloads_should_follow_slot_updates_and_deletions()
+
+    @Test
+    public void incremental_writes_should_give_same_index_as_a_full_load() throws DataBaseException {
+        Random random = new Random(42);
+        Map<Integer, Slot> slots = new HashMap<>();
+        Map<Integer, Planning> plannings = new HashMap<>();
+        for (int id = 1; id <= 30; ++id) {
+            slots.put(id, randomSlot(random, id));
+        }
+        for (int id = 1; id <= 5; ++id) {
+            plannings.put(id, randomPlanning(random, id, slots.keySet()));
+        }
+        Mockito.when(slotRepository.findPlacements()).thenReturn(new ArrayList<>(slots.values()));
+        Mockito.when(planningRepository.findSlotBindings()).thenReturn(new ArrayList<>(plannings.values()));
+        occupancyIndex.getWorkloads(OccupancyIndex.Ressource.CLASSE);
+        for (int i = 0; i < 500; ++i) {
+            int id = 1 + random.nextInt(40);
+            switch (random.nextInt(4)) {
+                case 0:
+                    slots.put(id, randomSlot(random, id));
+                    occupancyIndex.putSlot(slots.get(id));
+                    break;
+                case 1:
+                    slots.remove(id);
+                    plannings.values().forEach(planning -> planning.getSlots().removeIf(slot -> slot.getId() == id));
+                    occupancyIndex.removeSlot(id);
+                    break;
+                case 2:
+                    Planning planning = randomPlanning(random, id % 8, slots.keySet());
+                    plannings.put(planning.getId(), planning);
+                    occupancyIndex.putPlanning(planning);
+                    break;
+                default:
+                    plannings.remove(id % 8);
+                    occupancyIndex.removePlanning(id % 8);
+                    break;
+            }
+        }
+        SlotRepository loadedSlotRepository = Mockito.mock(SlotRepository.class);
+        PlanningRepository loadedPlanningRepository = Mockito.mock(PlanningRepository.class);
+        Mockito.when(loadedSlotRepository.findPlacements()).thenReturn(new ArrayList<>(slots.values()));
+        Mockito.when(loadedPlanningRepository.findSlotBindings()).thenReturn(new ArrayList<>(plannings.values()));
+        OccupancyIndex loadedIndex = new OccupancyIndex(loadedSlotRepository, loadedPlanningRepository,
+                new ReferenceDataCache(Mockito.mock(OptionsRepository.class), Mockito.mock(TimeSlotRepository.class)));
+        for (OccupancyIndex.Ressource ressource : OccupancyIndex.Ressource.values()) {
+            Assertions.assertThat(occupancyIndex.getWorkloads(ressource)).usingRecursiveComparison().isEqualTo(loadedIndex.getWorkloads(ressource));
+        }
+        Assertions.assertThat(occupancyIndex.getConflicts()).usingRecursiveComparison().isEqualTo(loadedIndex.getConflicts());
+        for (int id = 0; id < 8; ++id) {
+            Assertions.assertThat(occupancyIndex.getMinutesByMatiere(id)).usingRecursiveComparison().isEqualTo(loadedIndex.getMinutesByMatiere(id));
+        }
+    }//incremental_writes_should_give_same_index_as_a_full_load()
+
+    @Test
+    public void get_workloads_should_throw_argument_exception_when_ressource_is_unknown() {
+        Assertions.assertThatThrownBy(() -> workloadService.getWorkloads("matiere"))
+                .isInstanceOf(ArgumentException.class)
+                .hasMessage("La ressource doit être enseignant, salle ou classe");
+    }//get_workloads_should_throw_argument_exception_when_ressource_is_unknown()
+
+    private Slot randomSlot(Random random, int id) {
+        LocalTime start = LocalTime.of(8 + random.nextInt(8), 30 * random.nextInt(2));
+        Slot slot = slot(id, 1 + random.nextInt(3), start, start.plusMinutes(30 + 30 * random.nextInt(4)), random.nextInt(4), random.nextInt(4));
+        slot.setMatiere(new Matiere(1 + random.nextInt(3), null, null, null, null, null));
+        return slot;
+    }//randomSlot()
+
+    private Planning randomPlanning(Random random, int id, Set<Integer> slotIds) {
+        Planning planning = new Planning();
+        planning.setId(id);
+        planning.setClasse(new Classe(1 + random.nextInt(3), null, null, null));
+        planning.setSlots(new ArrayList<>());
+        for (Integer slotId : slotIds) {
+            if (random.nextInt(4) == 0) {
+                planning.getSlots().add(new Slot(slotId));
+            }
+        }
+        return planning;
+    }//randomPlanning()
+
+    private Slot slot(int id, int idJour, LocalTime start, LocalTime end, int idEnseignant, int idSalle) {
+        Slot slot = new Slot(id);
+        slot.setJour(new Jour(idJour, null));
+        slot.setTimeSlot(new TimeSlot(id, start, end));
+        slot.setEnseignant(new Enseignant(idEnseignant, null, null, null, null));
+        slot.setSalle(new Salle(idSalle, null, null, null));
+        return slot;
+    }//slot()
+}//WorkloadServiceUT
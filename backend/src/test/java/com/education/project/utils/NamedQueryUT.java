@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Hicham AZIMANI, Yassine AZIMANI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.education.project.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NamedQueryUT {
+
+    @Test
+    public void parse_should_replace_named_parameters_in_order() {
+        NamedQuery namedQuery = NamedQuery.parse("SELECT * FROM salle WHERE nom = :nom AND id > :id_1 LIMIT :limit");
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT * FROM salle WHERE nom = ? AND id > ? LIMIT ?");
+        Assertions.assertThat(namedQuery.getPositions("nom")).containsExactly(1);
+        Assertions.assertThat(namedQuery.getPositions("id_1")).containsExactly(2);
+        Assertions.assertThat(namedQuery.getPositions("limit")).containsExactly(3);
+    }// parse_should_replace_named_parameters_in_order()
+
+    @Test
+    public void parse_should_return_every_position_of_a_name_used_several_times() {
+        NamedQuery namedQuery = NamedQuery.parse("SELECT * FROM salle WHERE (nom > :nom OR (nom = :nom AND id > :id)) AND nom <> :nom");
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT * FROM salle WHERE (nom > ? OR (nom = ? AND id > ?)) AND nom <> ?");
+        Assertions.assertThat(namedQuery.getPositions("nom")).containsExactly(1, 2, 4);
+        Assertions.assertThat(namedQuery.getPositions("id")).containsExactly(3);
+    }// parse_should_return_every_position_of_a_name_used_several_times()
+
+    @Test
+    public void parse_should_keep_names_inside_quoted_literals() {
+        NamedQuery namedQuery = NamedQuery.parse("SELECT ':pasUnParametre', 'l''heure :h' FROM slot WHERE couleurFond = :couleur ESCAPE '!'");
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT ':pasUnParametre', 'l''heure :h' FROM slot WHERE couleurFond = ? ESCAPE '!'");
+        Assertions.assertThat(namedQuery.getPositions("pasUnParametre")).isEmpty();
+        Assertions.assertThat(namedQuery.getPositions("h")).isEmpty();
+        Assertions.assertThat(namedQuery.getPositions("couleur")).containsExactly(1);
+    }// parse_should_keep_names_inside_quoted_literals()
+
+    @Test
+    public void parse_should_keep_postgresql_casts() {
+        NamedQuery namedQuery = NamedQuery.parse("SELECT startHour::text FROM timeslot WHERE id = :id::int AND endHour > :fin");
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT startHour::text FROM timeslot WHERE id = ?::int AND endHour > ?");
+        Assertions.assertThat(namedQuery.getPositions("text")).isEmpty();
+        Assertions.assertThat(namedQuery.getPositions("int")).isEmpty();
+        Assertions.assertThat(namedQuery.getPositions("id")).containsExactly(1);
+        Assertions.assertThat(namedQuery.getPositions("fin")).containsExactly(2);
+    }// parse_should_keep_postgresql_casts()
+
+    @Test
+    public void parse_should_keep_colons_not_followed_by_a_name() {
+        NamedQuery namedQuery = NamedQuery.parse("SELECT '08:00' AS h, a : b FROM t WHERE x = :");
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT '08:00' AS h, a : b FROM t WHERE x = :");
+        Assertions.assertThat(namedQuery.getPositions("00")).isEmpty();
+    }// parse_should_keep_colons_not_followed_by_a_name()
+
+    @Test
+    public void get_positions_should_be_empty_for_unknown_parameter() {
+        Assertions.assertThat(NamedQuery.parse("SELECT * FROM salle WHERE id = :id").getPositions("nom")).isEmpty();
+    }// get_positions_should_be_empty_for_unknown_parameter()
+
+    @Test
+    public void name_prepared_statement_should_throw_sql_exception_for_unknown_parameter() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement("SELECT * FROM salle WHERE id = ?")).thenReturn(preparedStatement);
+        NamePreparedStatement ps = new NamePreparedStatement(connection, "SELECT * FROM salle WHERE id = :id");
+        Assertions.assertThatThrownBy(() -> ps.setString("nom", "B12"))
+                .isInstanceOf(SQLException.class)
+                .hasMessage("Le paramètre nom n'existe pas dans la requête");
+        ps.setInt("id", 4);
+        Mockito.verify(preparedStatement).setInt(1, 4);
+    }// name_prepared_statement_should_throw_sql_exception_for_unknown_parameter()
+
+    @Test
+    public void compile_should_return_cached_query_for_same_text() {
+        String namedSql = "SELECT * FROM matiere WHERE nom = :nom AND volumeHoraire = :volumeHoraire";
+        NamedQuery namedQuery = NamedQuery.compile(namedSql);
+        Assertions.assertThat(NamedQuery.compile(new String(namedSql))).isSameAs(namedQuery);
+        Assertions.assertThat(NamedQuery.compile(namedSql + " ")).isNotSameAs(namedQuery);
+        Assertions.assertThat(namedQuery.getSql()).isEqualTo("SELECT * FROM matiere WHERE nom = ? AND volumeHoraire = ?");
+    }// compile_should_return_cached_query_for_same_text()
+
+}// NamedQueryUT
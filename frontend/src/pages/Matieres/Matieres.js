@@ -43,17 +43,12 @@ export const Disciplines = () => {
         const abortController = new AbortController();
         const fetchData = async () => {
             try{
-                let response = await fetch(`${process.env.REACT_APP_API_URL_DISCIPLINES}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, 
+                let response = await fetch(`${process.env.REACT_APP_API_URL_DISCIPLINES}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, 
                     { method: 'GET', signal: abortController.signal });
                 let json = await response.json();
                 response = await handleResponse(setErrors, response, json);
-                setDisciplines(json.value.map(val => [val.id, val.nom, null]) || []);
-            
-                response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_DISCIPLINES}`, 
-                { method: 'GET', signal: abortController.signal });
-                json = await response.json();
-                response = await handleResponse(setErrors, response, json);
-                setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+                setDisciplines(json.value.items.map(val => [val.id, val.nom, null]) || []);
+                setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
             }catch(err){
                 console.error(err);
                 setErrors([process.env.REACT_APP_GENERAL_ERROR]);
@@ -73,15 +68,11 @@ export const Disciplines = () => {
      */
     const fetchAllDisciplines = async (numPage, optionsFetch) => {
         try{
-            let response = await fetch(`${process.env.REACT_APP_API_URL_DISCIPLINES}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, optionsFetch);
+            let response = await fetch(`${process.env.REACT_APP_API_URL_DISCIPLINES}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, optionsFetch);
             let json = await response.json();
             response = await handleResponse(setErrors, response, json);
-            setDisciplines(json.value.map(val => [val.id, val.nom, null]) || []);
-
-            response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_DISCIPLINES}`, optionsFetch);
-                json = await response.json();
-                response = await handleResponse(setErrors, response, json);
-                setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+            setDisciplines(json.value.items.map(val => [val.id, val.nom, null]) || []);
+            setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
         }catch(err){
             console.error(err);
             setErrors([process.env.REACT_APP_GENERAL_ERROR]);
@@ -43,19 +43,14 @@ export const Slots = () => {
         const abortController = new AbortController();
         const fetchData = async () => {
             try{
-                let response = await fetch(`${process.env.REACT_APP_API_URL_SLOTS}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, 
+                let response = await fetch(`${process.env.REACT_APP_API_URL_SLOTS}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, 
                     { method: 'GET', signal: abortController.signal });
                 let json = await response.json();
                 response = await handleResponse(setErrors, response, json);
                 
-                setSlots(json.value.map(val => [val.id, val.matiere.nom, val.timeSlot.start, val.timeSlot.end, val.jour.nom, null]) || []);
+                setSlots(json.value.items.map(val => [val.id, val.matiere.nom, val.timeSlot.start, val.timeSlot.end, val.jour.nom, null]) || []);
 
-                response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_SLOTS}`, 
-                    { method: 'GET', signal: abortController.signal });
-                json = await response.json();
-                response = await handleResponse(setErrors, response, json);
-                
-                setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+                setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
             }catch(err){
                 console.error(err);
                 setErrors([process.env.REACT_APP_GENERAL_ERROR]);
@@ -76,17 +71,13 @@ export const Slots = () => {
      */
     const fetchAllSlots = async (numPage, optionsFetch) => {
         try{
-            let response = await fetch(`${process.env.REACT_APP_API_URL_SLOTS}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, optionsFetch);
+            let response = await fetch(`${process.env.REACT_APP_API_URL_SLOTS}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, optionsFetch);
             let json = await response.json();
             response = await handleResponse(setErrors, response, json);
             
-            setSlots(json.value.map(val => [val.id, val.matiere.nom, val.timeSlot.start, val.timeSlot.end, val.jour.nom, null]) || []);
+            setSlots(json.value.items.map(val => [val.id, val.matiere.nom, val.timeSlot.start, val.timeSlot.end, val.jour.nom, null]) || []);
 
-            response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_SLOTS}`, optionsFetch);
-            json = await response.json();
-            response = await handleResponse(setErrors, response, json);
-            
-            setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+            setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
         }catch(err){
             console.error(err);
             setErrors([process.env.REACT_APP_GENERAL_ERROR]);
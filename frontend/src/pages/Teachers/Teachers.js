@@ -43,19 +43,14 @@ export const Teachers = () => {
         const abortController = new AbortController();
         const fetchData = async () => {
             try{
-                let response = await fetch(`${process.env.REACT_APP_API_URL_TEACHERS}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, 
+                let response = await fetch(`${process.env.REACT_APP_API_URL_TEACHERS}?page=${page}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, 
                     { method: 'GET', signal: abortController.signal });
                 let json = await response.json();
                 response = await handleResponse(setErrors, response, json);
                 
-                setTeachers(json.value.map(val => [val.id, val.nom, val.prenom, null]) || []);
+                setTeachers(json.value.items.map(val => [val.id, val.nom, val.prenom, null]) || []);
 
-                response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_TEACHERS}`, 
-                    { method: 'GET', signal: abortController.signal });
-                json = await response.json();
-                response = await handleResponse(setErrors, response, json);
-                
-                setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+                setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
             }catch(err){
                 console.error(err);
                 setErrors([process.env.REACT_APP_GENERAL_ERROR]);
@@ -76,17 +71,13 @@ export const Teachers = () => {
      */
     const fetchAllTeachers = async (numPage, optionsFetch) => {
         try{
-            let response = await fetch(`${process.env.REACT_APP_API_URL_TEACHERS}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}`, optionsFetch);
+            let response = await fetch(`${process.env.REACT_APP_API_URL_TEACHERS}?page=${numPage}&nbElementsPerPage=${process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE}&withTotal=true`, optionsFetch);
             let json = await response.json();
             response = await handleResponse(setErrors, response, json);
             
-            setTeachers(json.value.map(val => [val.id, val.nom, val.prenom, null]) || []);
+            setTeachers(json.value.items.map(val => [val.id, val.nom, val.prenom, null]) || []);
 
-            response = await fetch(`${process.env.REACT_APP_API_URL_COUNT_TEACHERS}`, optionsFetch);
-            json = await response.json();
-            response = await handleResponse(setErrors, response, json);
-            
-            setTotalPages(Math.ceil(json.value/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
+            setTotalPages(Math.ceil(json.value.total/parseInt(process.env.REACT_APP_TABLE_NB_ELEMENTS_PER_PAGE)));
         }catch(err){
             console.error(err);
             setErrors([process.env.REACT_APP_GENERAL_ERROR]);